@@ -0,0 +1,52 @@
+package Factory;
+
+import dto.ThesisDTO;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * ListCell za virtualizovanu listu radova - kartica se kreira jednom po ćeliji,
+ * a pri skrolanju se samo puni podacima drugog rada.
+ */
+public class ThesisCardCell extends ListCell<ThesisDTO> {
+
+    private final ThesisCardFactory.ThesisCard card;
+    private final IntConsumer onIndexShown;
+
+    public ThesisCardCell(ThesisCardFactory factory, Consumer<ThesisDTO> onOpen, IntConsumer onIndexShown) {
+        this.card = factory.createReusableCard();
+        this.onIndexShown = onIndexShown;
+
+        getStyleClass().add("thesis-card-cell");
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        // Ćelija prati širinu liste umjesto širine kartice (bez horizontalnog skrola)
+        setPrefWidth(0);
+
+        card.getRoot().setOnMouseClicked(e -> {
+            ThesisDTO rad = getItem();
+            if (rad != null && onOpen != null) {
+                onOpen.accept(rad);
+            }
+        });
+    }
+
+    @Override
+    protected void updateItem(ThesisDTO rad, boolean empty) {
+        super.updateItem(rad, empty);
+
+        if (empty || rad == null) {
+            setGraphic(null);
+            return;
+        }
+
+        card.update(rad);
+        setGraphic(card.getRoot());
+
+        if (onIndexShown != null) {
+            onIndexShown.accept(getIndex());
+        }
+    }
+}
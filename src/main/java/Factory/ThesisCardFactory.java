@@ -1,6 +1,8 @@
 package Factory;
 
 import java.time.LocalDate;
+import java.util.List;
+
 import dto.ThesisDTO;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -15,47 +17,97 @@ import javafx.scene.text.Text;
 
 public class ThesisCardFactory {
 
+    private static final List<String> STATUS_CSS_CLASSES =
+            List.of("status-approved", "status-in-progress", "status-pending", "status-default");
+
     public VBox createCard(ThesisDTO rad) {
+        ThesisCard card = createReusableCard();
+        card.update(rad);
+        return card.getRoot();
+    }
+
+    /**
+     * Kreira karticu čiji se čvorovi mogu ponovo koristiti za drugi rad (npr. u ListCell)
+     */
+    public ThesisCard createReusableCard() {
         VBox card = new VBox();
         card.getStyleClass().add("thesis-card");
         card.setPadding(new Insets(20, 25, 20, 25));
 
         VBox contentBox = new VBox(15);
 
-        Text title = new Text(rad.getTitle());
+        Text title = new Text();
         title.getStyleClass().add("card-title");
         title.setWrappingWidth(700);
         HBox.setHgrow(title, Priority.ALWAYS);
 
         card.setCursor(Cursor.HAND);
 
-        if ("Odbranjen".equals(rad.getStatus())) {
-            card.getStyleClass().add("card-defended");
-        }
-
-        if (isOlderThan90Days(rad.getApplicationDate()) && !"Odbranjen".equals(rad.getStatus())) {
-            card.getStyleClass().add("card-overdue");
-        }
-
         HBox infoRow = new HBox(30);
         infoRow.setAlignment(Pos.CENTER_LEFT);
 
         SVGPath studentIcon = createSvgIcon("M12 12c2.21 0 4-1.79 4-4s-1.79-4-4-4-4 1.79-4 4 1.79 4 4 4zm0 2c-2.67 0-8 1.34-8 4v2h16v-2c0-2.66-5.33-4-8-4z", "#4f5dff", 0.6);
-        HBox studentInfo = createInfoItem(studentIcon, rad.getStudentFullName());
+        Text studentText = new Text();
+        HBox studentInfo = createInfoItem(studentIcon, studentText);
 
         SVGPath mentorIcon = createSvgIcon("M5 13.18v4L12 21l7-3.82v-4L12 17l-7-3.82zM12 3L1 9l11 6 9-4.91V17h2V9L12 3z", "#6B7280", 0.6);
-        HBox mentorInfo = createInfoItem(mentorIcon, rad.getMentorFullName());
+        Text mentorText = new Text();
+        HBox mentorInfo = createInfoItem(mentorIcon, mentorText);
 
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        HBox statusBadge = createStatusBadge(rad.getStatus());
+        Text statusText = new Text();
+        HBox statusBadge = createStatusBadge(statusText);
 
         infoRow.getChildren().addAll(studentInfo, mentorInfo, spacer, statusBadge);
         contentBox.getChildren().addAll(title, infoRow);
         card.getChildren().add(contentBox);
 
-        return card;
+        return new ThesisCard(card, title, studentText, mentorText, statusBadge, statusText);
+    }
+
+    /**
+     * Čvorovi jedne kartice - update() samo mijenja tekst i CSS klase, bez kreiranja novih čvorova
+     */
+    public class ThesisCard {
+        private final VBox root;
+        private final Text title;
+        private final Text studentText;
+        private final Text mentorText;
+        private final HBox statusBadge;
+        private final Text statusText;
+
+        private ThesisCard(VBox root, Text title, Text studentText, Text mentorText, HBox statusBadge, Text statusText) {
+            this.root = root;
+            this.title = title;
+            this.studentText = studentText;
+            this.mentorText = mentorText;
+            this.statusBadge = statusBadge;
+            this.statusText = statusText;
+        }
+
+        public VBox getRoot() {
+            return root;
+        }
+
+        public void update(ThesisDTO rad) {
+            title.setText(rad.getTitle());
+            studentText.setText(rad.getStudentFullName() != null ? rad.getStudentFullName() : "—");
+            mentorText.setText(rad.getMentorFullName() != null ? rad.getMentorFullName() : "—");
+            statusText.setText(rad.getStatus());
+
+            root.getStyleClass().removeAll("card-defended", "card-overdue");
+            if ("Odbranjen".equals(rad.getStatus())) {
+                root.getStyleClass().add("card-defended");
+            }
+            if (isOlderThan90Days(rad.getApplicationDate()) && !"Odbranjen".equals(rad.getStatus())) {
+                root.getStyleClass().add("card-overdue");
+            }
+
+            statusBadge.getStyleClass().removeAll(STATUS_CSS_CLASSES);
+            statusBadge.getStyleClass().add(getStatusCssClass(rad.getStatus()));
+        }
     }
 
     private boolean isOlderThan90Days(LocalDate applicationDate) {
@@ -72,29 +124,24 @@ public class ThesisCardFactory {
         return icon;
     }
 
-    private HBox createInfoItem(SVGPath icon, String textContent) {
+    private HBox createInfoItem(SVGPath icon, Text text) {
         HBox box = new HBox(8);
         box.setAlignment(Pos.CENTER_LEFT);
-        Text text = new Text(textContent != null ? textContent : "—");
         text.getStyleClass().add("card-info");
         box.getChildren().addAll(icon, text);
         return box;
     }
 
-    private HBox createStatusBadge(String status) {
+    private HBox createStatusBadge(Text statusText) {
         HBox badge = new HBox(8);
         badge.setAlignment(Pos.CENTER_LEFT);
         badge.setPadding(new Insets(6, 12, 6, 12));
 
         badge.getStyleClass().add("status-badge");
 
-        String cssClass = getStatusCssClass(status);
-        badge.getStyleClass().add(cssClass);
-
         Circle indicator = new Circle(4);
         indicator.getStyleClass().add("status-indicator");
 
-        Text statusText = new Text(status);
         statusText.getStyleClass().add("status-text");
 
         badge.getChildren().addAll(indicator, statusText);
@@ -1,12 +1,11 @@
 package app;
 
+import email.EmailOutboxWorker;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
-import controller.LoginController;
-import dao.AppUserDAO;
 import utils.SceneManager;
+import utils.StartupPipeline;
 
 
 public class Main extends Application {
@@ -18,12 +17,16 @@ public class Main extends Application {
         SceneManager.init(stage);
 
         SceneManager.show("/app/login.fxml", "eDiploma");
+        StartupPipeline.mark(StartupPipeline.LOGIN_SHOWN);
 
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/app/login.fxml"));
-        loader.load();
-        LoginController controller = loader.getController();
-        AppUserDAO realDao = new AppUserDAO();
-        controller.userDao = realDao;
+        // Pool, šifarnici i FXML-ovi dashboard-a se pripremaju dok korisnik unosi podatke
+        StartupPipeline.start();
+    }
+
+    @Override
+    public void stop() {
+        // Završava slanje poruke koja je u toku i zatvara SMTP konekcije
+        EmailOutboxWorker.stop();
     }
 
     public static void main(String[] args) {
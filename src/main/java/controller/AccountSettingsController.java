@@ -8,6 +8,7 @@ import model.AppUser;
 import org.mindrot.jbcrypt.BCrypt;
 import email.EmailService;
 import utils.AESEncryption;
+import utils.AsyncHelper;
 import utils.GlobalErrorHandler;
 import utils.SceneManager;
 import utils.UserSession;
@@ -30,6 +31,7 @@ public class AccountSettingsController {
 
     @FXML private PasswordField appPasswordField;
     @FXML private Label appPasswordStatusLabel;
+    @FXML private Button testConnectionButton;
 
     private final AppUserDAO appUserDAO = new AppUserDAO();
     private final EmailService emailService = new EmailService();
@@ -206,14 +208,24 @@ public class AccountSettingsController {
 
     @FXML
     private void handleTestConnection() {
-        // Test email sa EmailService
-        boolean success = emailService.sendTestEmail();
-        
-        if (success) {
-            GlobalErrorHandler.info("✓ Konekcija uspješna! Test email je poslan. Provjerite inbox.");
-        } else {
-            GlobalErrorHandler.error("✗ Test konekcije nije uspio. Provjerite App Password.");
-        }
+        // Test email sa EmailService - SMTP konekcija i slanje idu u pozadini, bez dozvole za bazu
+        testConnectionButton.setDisable(true);
+        AsyncHelper.executeAsyncInMemory(
+                null,
+                emailService::sendTestEmail,
+                success -> {
+                    testConnectionButton.setDisable(false);
+                    if (success) {
+                        GlobalErrorHandler.info("✓ Konekcija uspješna! Test email je poslan. Provjerite inbox.");
+                    } else {
+                        GlobalErrorHandler.error("✗ Test konekcije nije uspio. Provjerite App Password.");
+                    }
+                },
+                error -> {
+                    testConnectionButton.setDisable(false);
+                    GlobalErrorHandler.error("✗ Test konekcije nije uspio. Provjerite App Password.", error);
+                }
+        );
     }
 
     @FXML
@@ -229,7 +241,7 @@ public class AccountSettingsController {
 
     @FXML
     private void handleRadoviClick() {
-        SceneManager.show("/app/secretary-dashboard.fxml", "eDiploma");
+        SceneManager.showCached("/app/secretary-dashboard.fxml", "eDiploma");
     }
 
 }
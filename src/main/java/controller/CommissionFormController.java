@@ -11,6 +11,7 @@ import utils.AsyncHelper;
 import utils.CommissionValidator;
 import utils.SceneManager;
 import utils.GlobalErrorHandler;
+import utils.TaskScope;
 import utils.ValidationResult;
 
 import java.util.List;
@@ -31,11 +32,9 @@ public class CommissionFormController {
     private final AcademicStaffDAO academicStaffDAO = new AcademicStaffDAO();
     private final AppUserDAO appUserDAO = new AppUserDAO();
     private final CommissionDAO commissionDAO = new CommissionDAO();
-    private final CommissionRoleDAO commissionRoleDAO = new CommissionRoleDAO();
     private final ThesisDAO thesisDAO = new ThesisDAO();
     private final CommissionValidator validator = new CommissionValidator();
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
 
 
     private int thesisId;
@@ -45,11 +44,14 @@ public class CommissionFormController {
 
     private List<CommissionRole> roles;
 
+    private TaskScope scope;
+
     private static final int ROLE_PRESIDENT = 1;
     private static final int ROLE_MEMBER = 2;
 
     @FXML
     public void initialize() {
+        scope = TaskScope.boundTo(chairmanComboBox);
         setupComboBoxConverters();
         loadRoles();
         loadAcademicStaff();
@@ -58,7 +60,7 @@ public class CommissionFormController {
 
     private void loadRoles() {
         try {
-            roles = commissionRoleDAO.getCommissionRoles();
+            roles = ReferenceDataCache.commissionRoles();
         } catch (Exception e) {
             GlobalErrorHandler.error("Greška pri učitavanju uloga komisije.", e);
         }
@@ -88,6 +90,7 @@ public class CommissionFormController {
 
     private void loadAcademicStaff() {
         AsyncHelper.executeAsyncWithLoader(
+            scope,
             () -> academicStaffDAO.getAllActiveAcademicStaff(),
             staffList -> {
                 chairmanComboBox.getItems().clear();
@@ -116,6 +119,7 @@ public class CommissionFormController {
 
     private void loadSecretaries() {
         AsyncHelper.executeAsync(
+            scope,
             () -> appUserDAO.getAllSecretariesAsStaff(),
             secretaries -> {
                 secretaryComboBox.getItems().clear();
@@ -254,7 +258,7 @@ public class CommissionFormController {
                     thesisDAO.updateStatusByName(thesisId, ThesisStatuses.UNOS_RJESENJA_KOMISIJE);
                 }
                 DocumentType commissionDocType =
-                        documentTypeDAO.getByName("Rješenje o formiranju Komisije");
+                        ReferenceDataCache.documentType("Rješenje o formiranju Komisije");
 
                 if (commissionDocType == null) {
                     throw new RuntimeException(
@@ -1,25 +1,25 @@
 package controller;
 
-import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import dao.*;
 import dto.CommissionReportDTO;
 import dto.ThesisDetailsDTO;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import model.Commission;
+import utils.AsyncHelper;
 import utils.DeanService;
 import utils.GlobalErrorHandler;
+import utils.HtmlTemplate;
+import utils.PdfRenderService;
 import utils.SceneManager;
 import utils.UserSession;
 import model.*;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 public class CommissionReportController {
 
@@ -30,11 +30,11 @@ public class CommissionReportController {
     @FXML private Text mentorText;
     @FXML private Text secretaryText;
     @FXML private TextField documentNumberField;
+    @FXML private Button saveButton;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
     private final CommissionDAO commissionDAO = new CommissionDAO();
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
     private DocumentType thisDocType;
 
     private int thesisId;
@@ -66,7 +66,7 @@ public class CommissionReportController {
                 return;
             }
 
-            thisDocType = documentTypeDAO.getByName("Rješenje o formiranju Komisije");
+            thisDocType = ReferenceDataCache.documentType("Rješenje o formiranju Komisije");
             if (thisDocType == null) {
                 GlobalErrorHandler.error("DocumentType nije pronađen.");
                 back();
@@ -140,12 +140,27 @@ public class CommissionReportController {
                 return;
             }
 
-            // Save commisionDate to database FIRST
-            thesisDAO.updateCommisionDate(thesisId, commisionDate);
-
-            byte[] pdfBytes = generatePdfBytes(commisionDate);
-            String base64 = Base64.getEncoder().encodeToString(pdfBytes);
+            // Datum se snima zajedno sa dokumentom i statusom (jedna transakcija)
+            ThesisDAO.ThesisPatch patch = ThesisDAO.ThesisPatch.forThesis(thesisId)
+                    .commisionDate(commisionDate);
+
+            // HTML se sastavlja na FX thread-u, a PDF renderuje u pozadini (bez dozvole za bazu)
+            String html = buildDocumentHtml(commisionDate);
+            // Do kraja snimanja (back()) dugme je onemogućeno; vraća se samo ako render ili snimanje ne uspije
+            saveButton.setDisable(true);
+            AsyncHelper.executeAsyncInMemory(
+                    null,
+                    () -> PdfRenderService.render(html),
+                    pdfBytes -> saveDocument(pdfBytes, patch),
+                    e -> saveFailed("Greška pri generisanju PDF-a.", e)
+            );
+        } catch (Exception e) {
+            saveFailed("Greška pri snimanju dokumenta.", e);
+        }
+    }
 
+    private void saveDocument(byte[] pdfBytes, ThesisDAO.ThesisPatch patch) {
+        try {
             String docNumber = buildFullDocumentNumber();
             DocumentStatus status = (docNumber != null && !docNumber.isBlank())
                     ? DocumentStatus.READY
@@ -155,36 +170,39 @@ public class CommissionReportController {
             AppUser u = UserSession.getUser();
             if (u != null) userId = u.getId();
 
-            documentDAO.upsert(
-                    thesisId,
-                    thisDocType.getId(),
-                    base64,
-                    userId,
-                    docNumber,
-                    status
-            );
-
-            String current = thesisDAO.getStatusName(thesisId);
+            patch.document(thisDocType.getId(), pdfBytes, userId, docNumber, status);
 
-            if (status == DocumentStatus.READY) {
-                if (ThesisStatuses.UNOS_RJESENJA_KOMISIJE.equals(current)
-                        || ThesisStatuses.FORMIRANJE_KOMISIJE.equals(current)) {
-                    thesisDAO.updateStatusByName(thesisId, ThesisStatuses.KREIRANJE_OBAVIJESTI);
-                }
-            } else {
-                if (!ThesisStatuses.UNOS_RJESENJA_KOMISIJE.equals(current)) {
-                    thesisDAO.updateStatusByName(thesisId, ThesisStatuses.UNOS_RJESENJA_KOMISIJE);
+            patch.statusTransition(current -> {
+                if (status == DocumentStatus.READY) {
+                    if (ThesisStatuses.UNOS_RJESENJA_KOMISIJE.equals(current)
+                            || ThesisStatuses.FORMIRANJE_KOMISIJE.equals(current)) {
+                        return ThesisStatuses.KREIRANJE_OBAVIJESTI;
+                    }
+                    return null;
                 }
-            }
-
-            GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
-            back();
+                return ThesisStatuses.UNOS_RJESENJA_KOMISIJE;
+            });
+
+            // Transakcija ide u pozadini; ekran se napušta tek kad je dokument sačuvan
+            AsyncHelper.executeAsyncVoid(
+                    () -> thesisDAO.applyPatch(patch),
+                    () -> {
+                        GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
+                        back();
+                    },
+                    e -> saveFailed("Greška pri snimanju dokumenta.", e)
+            );
 
         } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri snimanju dokumenta.", e);
+            saveFailed("Greška pri snimanju dokumenta.", e);
         }
     }
 
+    private void saveFailed(String message, Throwable e) {
+        saveButton.setDisable(false);
+        GlobalErrorHandler.error(message, e);
+    }
+
     private boolean validateInput() {
         String input = documentNumberField != null ? documentNumberField.getText().trim() : "";
         if (!input.isBlank() && !input.matches("\\d{4}")) {
@@ -218,7 +236,7 @@ public class CommissionReportController {
         return s.trim();
     }
 
-    private byte[] generatePdfBytes(LocalDate commisionDate) throws Exception {
+    private String buildDocumentHtml(LocalDate commisionDate) throws Exception {
         String chairmanName = commission.getMember1() != null
                 ? formatMemberName(commission.getMember1()) : "—";
         String member1Name = commission.getMember2() != null
@@ -236,16 +254,6 @@ public class CommissionReportController {
         String yy = String.format("%02d", LocalDate.now().getYear() % 100);
         String fullDocNumber = DOC_NUMBER_PREFIX + userInput + "/" + yy;
 
-        // Split into 18 characters for boxes (11-403-103-1295/25 = 18 chars)
-        String[] chars = new String[18];
-        for (int i = 0; i < 18; i++) {
-            if (i < fullDocNumber.length()) {
-                chars[i] = String.valueOf(fullDocNumber.charAt(i));
-            } else {
-                chars[i] = "";
-            }
-        }
-
         CommissionReportDTO dto = CommissionReportDTO.builder()
                 .decisionDate(commisionDate) // USE commisionDate from parameter
                 .studentFullName(studentNameText.getText())
@@ -256,63 +264,16 @@ public class CommissionReportController {
                 .deanFullName(deanName)
                 .build();
 
-        String html = loadTemplate();
-
-        html = html.replace("{{decisionDate}}", dto.getDecisionDate().format(DATE_FORMAT))
-                .replace("{{studentFullName}}", dto.getStudentFullName())
-                .replace("{{chairmanFullName}}", dto.getChairmanFullName())
-                .replace("{{member1FullName}}", dto.getMember1FullName())
-                .replace("{{mentorFullName}}", dto.getMentorFullName())
-                .replace("{{secretaryFullName}}", dto.getSecretaryFullName())
-                .replace("{{deanFullName}}", dto.getDeanFullName());
-
-        // Replace individual characters in boxes
-        for (int i = 0; i < 18; i++) {
-            html = html.replace("{{char" + i + "}}", chars[i]);
-        }
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            builder.useFont(getFontFileFromResources("LiberationSerif-Regular.ttf"), "Times New Roman");
-            File fontBold = getFontFileFromResources("LiberationSerif-Bold.ttf");
-            builder.useFont(fontBold, "Times New Roman", 700, BaseRendererBuilder.FontStyle.NORMAL, true);
-            File fontItalic = getFontFileFromResources("LiberationSerif-Italic.ttf");
-            builder.useFont(fontItalic, "Times New Roman", 400, BaseRendererBuilder.FontStyle.ITALIC, true);
-            File fontBoldItalic = getFontFileFromResources("LiberationSerif-BoldItalic.ttf");
-            builder.useFont(fontBoldItalic, "Times New Roman", 700, BaseRendererBuilder.FontStyle.ITALIC, true);
-
-            String baseUrl = getClass().getResource("/templates/").toExternalForm();
-            builder.withHtmlContent(html, baseUrl);
-            builder.toStream(baos);
-            builder.run();
-
-            return baos.toByteArray();
-        }
-    }
-
-    private File getFontFileFromResources(String fileName) throws IOException {
-        InputStream inputStream = getClass().getResourceAsStream("/fonts/" + fileName);
-        if (inputStream == null) {
-            throw new FileNotFoundException("Font file not found in resources: " + fileName);
-        }
-
-        File tempFile = File.createTempFile("pdf_font_", ".ttf");
-        tempFile.deleteOnExit();
-
-        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-            inputStream.transferTo(out);
-        }
-        return tempFile;
-    }
-
-    private String loadTemplate() throws IOException {
-        InputStream is = getClass().getResourceAsStream("/templates/commission_report_template.html");
-        if (is == null) {
-            throw new FileNotFoundException("Template file not found!");
-        }
-        return new String(is.readAllBytes(), "UTF-8");
+        return HtmlTemplate.load("commission_report_template.html").render(HtmlTemplate.values()
+                .put("decisionDate", dto.getDecisionDate().format(DATE_FORMAT))
+                .put("studentFullName", dto.getStudentFullName())
+                .put("chairmanFullName", dto.getChairmanFullName())
+                .put("member1FullName", dto.getMember1FullName())
+                .put("mentorFullName", dto.getMentorFullName())
+                .put("secretaryFullName", dto.getSecretaryFullName())
+                .put("deanFullName", dto.getDeanFullName())
+                // Individual characters in boxes (11-403-103-1295/25 = 18 chars)
+                .putChars("char", fullDocNumber, 18));
     }
 
     @FXML
@@ -1,24 +1,24 @@
 package controller;
 
-import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import dao.*;
 import dto.CycleCompletionDTO;
 import dto.ThesisDetailsDTO;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import model.*;
 import utils.DeanService;
+import utils.AsyncHelper;
 import utils.GlobalErrorHandler;
+import utils.HtmlTemplate;
+import utils.PdfRenderService;
 import utils.SceneManager;
 import utils.UserSession;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 public class CycleCompletionController {
 
@@ -37,10 +37,10 @@ public class CycleCompletionController {
     @FXML private TextField studentGenitiveField;
     @FXML private TextField academicTitleField;
     @FXML private DatePicker cycleCompletionDatePicker;
+    @FXML private Button saveButton;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
     private DocumentType thisDocType;
 
     private int thesisId;
@@ -64,7 +64,7 @@ public class CycleCompletionController {
                 return;
             }
 
-            thisDocType = documentTypeDAO.getByName("Uvjerenje o završenom ciklusu");
+            thisDocType = ReferenceDataCache.documentType("Uvjerenje o završenom ciklusu");
             if (thisDocType == null) {
                 GlobalErrorHandler.error("DocumentType nije pronađen.");
                 back();
@@ -158,13 +158,28 @@ public class CycleCompletionController {
         if (!validateInput()) return;
 
         try {
-            // Save CycleCompletionDate to database
+            // Datum se snima zajedno sa dokumentom i statusom (jedna transakcija)
             LocalDate cycleCompletionDate = cycleCompletionDatePicker.getValue();
-            thesisDAO.updateCycleCompletionDate(thesisId, cycleCompletionDate);
-
-            byte[] pdfBytes = generatePdfBytes();
-            String base64 = Base64.getEncoder().encodeToString(pdfBytes);
+            ThesisDAO.ThesisPatch patch = ThesisDAO.ThesisPatch.forThesis(thesisId)
+                    .cycleCompletionDate(cycleCompletionDate);
+
+            // HTML se sastavlja na FX thread-u, a PDF renderuje u pozadini (bez dozvole za bazu)
+            String html = buildDocumentHtml();
+            // Do kraja snimanja (back()) dugme je onemogućeno; vraća se samo ako render ili snimanje ne uspije
+            saveButton.setDisable(true);
+            AsyncHelper.executeAsyncInMemory(
+                    null,
+                    () -> PdfRenderService.render(html),
+                    pdfBytes -> saveDocument(pdfBytes, patch),
+                    e -> saveFailed("Greška pri generisanju PDF-a.", e)
+            );
+        } catch (Exception e) {
+            saveFailed("Greška pri snimanju dokumenta.", e);
+        }
+    }
 
+    private void saveDocument(byte[] pdfBytes, ThesisDAO.ThesisPatch patch) {
+        try {
             String docNumber = buildFullDocumentNumber();
             DocumentStatus status = (docNumber != null && !docNumber.isBlank())
                     ? DocumentStatus.READY
@@ -174,44 +189,35 @@ public class CycleCompletionController {
             AppUser u = UserSession.getUser();
             if (u != null) userId = u.getId();
 
-            documentDAO.upsert(
-                    thesisId,
-                    thisDocType.getId(),
-                    base64,
-                    userId,
-                    docNumber,
-                    status
-            );
-
-            String current = thesisDAO.getStatusName(thesisId);
+            patch.document(thisDocType.getId(), pdfBytes, userId, docNumber, status);
 
-            if (status == DocumentStatus.READY) {
-                if (ThesisStatuses.KREIRANJE_UVJERENJA.equals(current)) {
-
-                    thesisDAO.updateStatusByName(
-                            thesisId,
-                            ThesisStatuses.ODBRANJEN
-                    );
+            patch.statusTransition(current -> {
+                if (status == DocumentStatus.READY) {
+                    return ThesisStatuses.KREIRANJE_UVJERENJA.equals(current) ? ThesisStatuses.ODBRANJEN : null;
                 }
-            } else {
-                if (!ThesisStatuses.KREIRANJE_UVJERENJA.equals(current)) {
-
-                    thesisDAO.updateStatusByName(
-                            thesisId,
-                            ThesisStatuses.KREIRANJE_UVJERENJA
-                    );
-                }
-            }
-
-
-            GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
-            back();
+                return ThesisStatuses.KREIRANJE_UVJERENJA;
+            });
+
+            // Transakcija ide u pozadini; ekran se napušta tek kad je dokument sačuvan
+            AsyncHelper.executeAsyncVoid(
+                    () -> thesisDAO.applyPatch(patch),
+                    () -> {
+                        GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
+                        back();
+                    },
+                    e -> saveFailed("Greška pri snimanju dokumenta.", e)
+            );
 
         } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri snimanju dokumenta.", e);
+            saveFailed("Greška pri snimanju dokumenta.", e);
         }
     }
 
+    private void saveFailed(String message, Throwable e) {
+        saveButton.setDisable(false);
+        GlobalErrorHandler.error(message, e);
+    }
+
     private boolean validateInput() {
         if (cycleCompletionDatePicker == null || cycleCompletionDatePicker.getValue() == null) {
             GlobalErrorHandler.error("Molimo odaberite datum izdavanja uvjerenja.");
@@ -261,7 +267,7 @@ public class CycleCompletionController {
         return s.trim();
     }
 
-    private byte[] generatePdfBytes() throws Exception {
+    private String buildDocumentHtml() throws Exception {
         Student student = thesisDetails.getStudent();
 
         String studentGenitiveForm = studentGenitiveField.getText().trim();
@@ -272,16 +278,6 @@ public class CycleCompletionController {
         String yy = String.format("%02d", LocalDate.now().getYear() % 100);
         String fullDocNumber = DOC_NUMBER_PREFIX + userInput + "/" + yy;
 
-        // Split into 18 characters for boxes
-        String[] chars = new String[18];
-        for (int i = 0; i < 18; i++) {
-            if (i < fullDocNumber.length()) {
-                chars[i] = String.valueOf(fullDocNumber.charAt(i));
-            } else {
-                chars[i] = "";
-            }
-        }
-
         String cycleRoman = convertToRoman(student.getCycle());
         String cycleTextWord = convertCycleToText(student.getCycle());
         String cycleText = cycleRoman + " (" + cycleTextWord + ")";
@@ -316,47 +312,23 @@ public class CycleCompletionController {
                 .deanFullName(deanName)
                 .build();
 
-        String html = loadTemplate();
-
-        html = html.replace("{{cycleCompletionDate}}", dto.getCycleCompletionDate().format(DATE_FORMAT))
-                .replace("{{defenseDate}}", dto.getDefenseDate().format(DATE_FORMAT))
-                .replace("{{studentFullName}}", dto.getStudentFullName())
-                .replace("{{studentGenitiveForm}}", dto.getStudentGenitiveForm())
-                .replace("{{birthDate}}", formatBirthDate(dto.getBirthDate()))
-                .replace("{{birthPlace}}", dto.getBirthPlace())
-                .replace("{{municipality}}", dto.getMunicipality())
-                .replace("{{country}}", dto.getCountry())
-                .replace("{{studyProgram}}", dto.getStudyProgram())
-                .replace("{{cycle}}", dto.getCycle())
-                .replace("{{cycleDuration}}", dto.getCycleDuration())
-                .replace("{{ects}}", dto.getEcts())
-                .replace("{{academicTitle}}", dto.getAcademicTitle())
-                .replace("{{deanFullName}}", dto.getDeanFullName());
-
-        // Replace individual characters in boxes
-        for (int i = 0; i < 18; i++) {
-            html = html.replace("{{char" + i + "}}", chars[i]);
-        }
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            builder.useFont(getFontFileFromResources("LiberationSerif-Regular.ttf"), "Times New Roman");
-            File fontBold = getFontFileFromResources("LiberationSerif-Bold.ttf");
-            builder.useFont(fontBold, "Times New Roman", 700, BaseRendererBuilder.FontStyle.NORMAL, true);
-            File fontItalic = getFontFileFromResources("LiberationSerif-Italic.ttf");
-            builder.useFont(fontItalic, "Times New Roman", 400, BaseRendererBuilder.FontStyle.ITALIC, true);
-            File fontBoldItalic = getFontFileFromResources("LiberationSerif-BoldItalic.ttf");
-            builder.useFont(fontBoldItalic, "Times New Roman", 700, BaseRendererBuilder.FontStyle.ITALIC, true);
-
-            String baseUrl = getClass().getResource("/templates/").toExternalForm();
-            builder.withHtmlContent(html, baseUrl);
-            builder.toStream(baos);
-            builder.run();
-
-            return baos.toByteArray();
-        }
+        return HtmlTemplate.load("cycle_completion_template.html").render(HtmlTemplate.values()
+                .put("cycleCompletionDate", dto.getCycleCompletionDate().format(DATE_FORMAT))
+                .put("defenseDate", dto.getDefenseDate().format(DATE_FORMAT))
+                .put("studentFullName", dto.getStudentFullName())
+                .put("studentGenitiveForm", dto.getStudentGenitiveForm())
+                .put("birthDate", formatBirthDate(dto.getBirthDate()))
+                .put("birthPlace", dto.getBirthPlace())
+                .put("municipality", dto.getMunicipality())
+                .put("country", dto.getCountry())
+                .put("studyProgram", dto.getStudyProgram())
+                .put("cycle", dto.getCycle())
+                .put("cycleDuration", dto.getCycleDuration())
+                .put("ects", dto.getEcts())
+                .put("academicTitle", dto.getAcademicTitle())
+                .put("deanFullName", dto.getDeanFullName())
+                // Individual characters in boxes (18)
+                .putChars("char", fullDocNumber, 18));
     }
 
     private String convertCycleToText(int cycle) {
@@ -392,29 +364,6 @@ public class CycleCompletionController {
         };
     }
 
-    private File getFontFileFromResources(String fileName) throws IOException {
-        InputStream inputStream = getClass().getResourceAsStream("/fonts/" + fileName);
-        if (inputStream == null) {
-            throw new FileNotFoundException("Font file not found in resources: " + fileName);
-        }
-
-        File tempFile = File.createTempFile("pdf_font_", ".ttf");
-        tempFile.deleteOnExit();
-
-        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-            inputStream.transferTo(out);
-        }
-        return tempFile;
-    }
-
-    private String loadTemplate() throws IOException {
-        InputStream is = getClass().getResourceAsStream("/templates/cycle_completion_template.html");
-        if (is == null) {
-            throw new FileNotFoundException("Template file not found!");
-        }
-        return new String(is.readAllBytes(), "UTF-8");
-    }
-
     @FXML
     private void back() {
         SceneManager.showWithData(
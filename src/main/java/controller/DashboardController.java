@@ -10,17 +10,36 @@ import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import utils.DashboardView;
 import utils.NavigationContext;
+import utils.RefreshableView;
 import utils.SceneManager;
 import utils.UserSession;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
-public class DashboardController {
+public class DashboardController implements RefreshableView {
     @FXML
     private BorderPane mainBorderPane;
 
+    // Učitani pod-view-ovi i njihovi kontroleri; ponovni klik samo vraća isti root
+    private final Map<DashboardView, Parent> views = new EnumMap<>(DashboardView.class);
+    private final Map<DashboardView, Object> controllers = new EnumMap<>(DashboardView.class);
+
     @FXML
     public void initialize(){
+        showTargetView();
+    }
+
+    /**
+     * Povratak na keširani dashboard (SceneManager.showCached) - prikazuje traženi pod-view
+     */
+    @Override
+    public void onShow() {
+        showTargetView();
+    }
+
+    private void showTargetView() {
         DashboardView view = NavigationContext.consumeTargetView();
 
         switch (view) {
@@ -29,6 +48,7 @@ public class DashboardController {
             case MENTORS -> handleMentoriClick();
             case SECRETARIES -> handleSekretariClick();
             case STATISTICS -> handleStatisticsClick();
+            case DIAGNOSTICS -> handleDiagnosticsClick();
         }
     }
 
@@ -61,56 +81,22 @@ public class DashboardController {
 
     @FXML
     private void handleStudentiClick() {
-        try {
-            Parent studentsView = FXMLLoader.load(
-                    getClass().getResource("/app/students.fxml")
-            );
-            mainBorderPane.setCenter(studentsView);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        showView(DashboardView.STUDENTS, "/app/students.fxml");
     }
 
-
     @FXML
-    private void handleRadoviClick(){
-        try{
-            Parent worksView = FXMLLoader.load(
-                    getClass().getResource("/app/thesis.fxml")
-            );
-
-            mainBorderPane.setCenter(worksView);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private void handleRadoviClick() {
+        showView(DashboardView.THESIS, "/app/thesis.fxml");
     }
 
     @FXML
     private void handleMentoriClick() {
-        try {
-            Parent mentorsView = FXMLLoader.load(
-                    getClass().getResource("/app/mentors.fxml")
-            );
-
-            mainBorderPane.setCenter(mentorsView);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        showView(DashboardView.MENTORS, "/app/mentors.fxml");
     }
-    
+
     @FXML
     private void handleSekretariClick() {
-        try {
-            Parent secretariesView = FXMLLoader.load(
-                    getClass().getResource("/app/secretaries.fxml")
-            );
-            mainBorderPane.setCenter(secretariesView);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        showView(DashboardView.SECRETARIES, "/app/secretaries.fxml");
     }
 
     @FXML
@@ -126,11 +112,30 @@ public class DashboardController {
     }
     @FXML
     private void handleStatisticsClick() {
+        showView(DashboardView.STATISTICS, "/app/statistics.fxml");
+    }
+
+    @FXML
+    private void handleDiagnosticsClick() {
+        showView(DashboardView.DIAGNOSTICS, "/app/diagnostics.fxml");
+    }
+
+    private void showView(DashboardView view, String fxmlPath) {
         try {
-            Parent statisticsView = FXMLLoader.load(
-                    getClass().getResource("/app/statistics.fxml")
-            );
-            mainBorderPane.setCenter(statisticsView);
+            Parent root = views.get(view);
+            if (root == null) {
+                FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
+                root = loader.load();
+                views.put(view, root);
+                controllers.put(view, loader.getController());
+                mainBorderPane.setCenter(root);
+                return;
+            }
+
+            mainBorderPane.setCenter(root);
+            if (controllers.get(view) instanceof RefreshableView refreshable) {
+                refreshable.onShow();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
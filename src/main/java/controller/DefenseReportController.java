@@ -1,22 +1,21 @@
 package controller;
 
-import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import dao.*;
-import dto.DefenseReportDTO;
 import dto.ThesisDetailsDTO;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.text.Text;
 import model.*;
+import utils.AsyncHelper;
 import utils.GlobalErrorHandler;
+import utils.PdfRenderService;
+import utils.ReportHtmlBuilder;
 import utils.SceneManager;
 import utils.UserSession;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 public class DefenseReportController {
 
@@ -29,11 +28,11 @@ public class DefenseReportController {
     @FXML private Text member2Text;
     @FXML private Text secretaryText;
     @FXML private DatePicker defenseReportDatePicker; // NOVO: DatePicker za datum zapisnika sa odbrane
+    @FXML private Button saveButton;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
     private final CommissionDAO commissionDAO = new CommissionDAO();
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
     private DocumentType thisDocType;
 
     private int thesisId;
@@ -64,7 +63,7 @@ public class DefenseReportController {
                 return;
             }
 
-            thisDocType = documentTypeDAO.getByName("Zapisnik sa odbrane");
+            thisDocType = ReferenceDataCache.documentType("Zapisnik sa odbrane");
             if (thisDocType == null) {
                 GlobalErrorHandler.error("DocumentType nije pronađen.");
                 back();
@@ -142,16 +141,32 @@ public class DefenseReportController {
             LocalDate defenseReportDate = null;
             if (defenseReportDatePicker != null && defenseReportDatePicker.getValue() != null) {
                 defenseReportDate = defenseReportDatePicker.getValue();
-                // Ažuriraj datum u bazi
-                thesisDAO.updateDefenseReportDate(thesisId, defenseReportDate);
             } else {
                 GlobalErrorHandler.warning("Niste odabrali datum zapisnika. Molimo odaberite datum.");
                 return;
             }
 
-            byte[] pdfBytes = generatePdfBytes(defenseReportDate);
-            String base64 = Base64.getEncoder().encodeToString(pdfBytes);
+            // Datum se snima zajedno sa dokumentom (jedna transakcija)
+            ThesisDAO.ThesisPatch patch = ThesisDAO.ThesisPatch.forThesis(thesisId)
+                    .defenseReportDate(defenseReportDate);
+
+            // HTML se sastavlja na FX thread-u, a PDF renderuje u pozadini (bez dozvole za bazu)
+            String html = buildDocumentHtml(defenseReportDate);
+            // Do kraja snimanja (back()) dugme je onemogućeno; vraća se samo ako render ili snimanje ne uspije
+            saveButton.setDisable(true);
+            AsyncHelper.executeAsyncInMemory(
+                    null,
+                    () -> PdfRenderService.render(html),
+                    pdfBytes -> saveDocument(pdfBytes, patch),
+                    e -> saveFailed("Greška pri generisanju PDF-a.", e)
+            );
+        } catch (Exception e) {
+            saveFailed("Greška pri snimanju dokumenta.", e);
+        }
+    }
 
+    private void saveDocument(byte[] pdfBytes, ThesisDAO.ThesisPatch patch) {
+        try {
             // Za Defense Report, dokument broj nije obavezan
             DocumentStatus status = DocumentStatus.READY;
 
@@ -159,141 +174,43 @@ public class DefenseReportController {
             AppUser u = UserSession.getUser();
             if (u != null) userId = u.getId();
 
-            documentDAO.upsert(
-                    thesisId,
-                    thisDocType.getId(),
-                    base64,
-                    userId,
-                    null, // Nema document number za defense report
-                    status
-            );
-            // nakon documentDAO.upsert(...)
-            DocumentType writtenType = documentTypeDAO.getByName("Zapisnik o pismenom dijelu diplomskog rada");
+            patch.document(thisDocType.getId(), pdfBytes, userId, null, status); // Nema document number za defense report
+
+            DocumentType writtenType = ReferenceDataCache.documentType("Zapisnik o pismenom dijelu diplomskog rada");
             if (writtenType == null) {
                 throw new RuntimeException("DocumentType 'Zapisnik o pismenom dijelu diplomskog rada' nije pronađen.");
             }
 
-            boolean defenseReady = true;
-            boolean writtenReady = documentDAO.isDocumentReady(thesisId, writtenType.getId());
-
-            if (writtenReady) {
-                String current = thesisDAO.getStatusName(thesisId);
-                if (ThesisStatuses.GENERISANJE_ZAPISNIKA.equals(current)) {
-                    thesisDAO.updateStatusByName(thesisId, ThesisStatuses.KREIRANJE_UVJERENJA);
-                }
-            }
-
-            GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
-            back();
+            // Provjera i transakcija idu u pozadini; ekran se napušta tek kad je dokument sačuvan
+            AsyncHelper.executeAsyncVoid(
+                    () -> {
+                        // Odbrana je ovim spremna; ako je i pismeni dio spreman, ide se na uvjerenje
+                        if (documentDAO.isDocumentReady(thesisId, writtenType.getId())) {
+                            patch.statusTransition(current -> ThesisStatuses.GENERISANJE_ZAPISNIKA.equals(current)
+                                    ? ThesisStatuses.KREIRANJE_UVJERENJA
+                                    : null);
+                        }
+                        thesisDAO.applyPatch(patch);
+                    },
+                    () -> {
+                        GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
+                        back();
+                    },
+                    e -> saveFailed("Greška pri snimanju dokumenta.", e)
+            );
 
         } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri snimanju dokumenta.", e);
+            saveFailed("Greška pri snimanju dokumenta.", e);
         }
     }
 
-    // PROMIJENJENO: Dodao parametar defenseReportDate
-    private byte[] generatePdfBytes(LocalDate defenseReportDate) throws Exception {
-        LocalDate defenseDate = thesisDetails.getDefenseDate();
-
-        String[] titleParts = splitThesisTitle(thesisDetails.getTitle());
-
-        DefenseReportDTO dto = DefenseReportDTO.builder()
-                .studentFullName(thesisDetails.getStudent().getLastName() + " " +
-                        thesisDetails.getStudent().getFirstName())
-                .thesisTitle(thesisDetails.getTitle())
-                .thesisTitleLine1(titleParts[0])
-                .thesisTitleLine2(titleParts[1])
-                .mentorFullName(formatMemberName(thesisDetails.getMentor()))
-                .defenseDate(defenseDate)
-                .defenseReportDate(defenseReportDate) // NOVO: Koristi novi datum
-                .chairmanFullName(formatMemberName(commission.getMember1()))
-                .member1FullName(formatMemberName(commission.getMember2()))
-                .member2FullName(formatMemberName(thesisDetails.getMentor()))
-                .secretaryFullName(formatMemberName(thesisDetails.getSecretary()))
-                .build();
-
-        String html = loadTemplate();
-        
-        // PROMIJENJENO: Koristi defenseReportDate umjesto defenseDate
-        html = html.replace("{{studentFullName}}", dto.getStudentFullName())
-                .replace("{{thesisTitleLine1}}", dto.getThesisTitleLine1())
-                .replace("{{thesisTitleLine2}}", dto.getThesisTitleLine2())
-                .replace("{{mentorFullName}}", dto.getMentorFullName())
-                .replace("{{defenseReportDate}}", dto.getDefenseReportDate() != null ?
-                        dto.getDefenseReportDate().format(DATE_FORMAT) : "—")
-                .replace("{{chairmanFullName}}", dto.getChairmanFullName())
-                .replace("{{member1FullName}}", dto.getMember1FullName())
-                .replace("{{member2FullName}}", dto.getMember2FullName())
-                .replace("{{secretaryFullName}}", dto.getSecretaryFullName())
-                .replace("{{defenseDate}}",dto.getDefenseDate() !=null ?
-                        dto.getDefenseDate().format(DATE_FORMAT):"-");
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            builder.useFont(getFontFileFromResources("LiberationSerif-Regular.ttf"), "Times New Roman");
-            File fontBold = getFontFileFromResources("LiberationSerif-Bold.ttf");
-            builder.useFont(fontBold, "Times New Roman", 700, BaseRendererBuilder.FontStyle.NORMAL, true);
-            File fontItalic = getFontFileFromResources("LiberationSerif-Italic.ttf");
-            builder.useFont(fontItalic, "Times New Roman", 400, BaseRendererBuilder.FontStyle.ITALIC, true);
-            File fontBoldItalic = getFontFileFromResources("LiberationSerif-BoldItalic.ttf");
-            builder.useFont(fontBoldItalic, "Times New Roman", 700, BaseRendererBuilder.FontStyle.ITALIC, true);
-
-            String baseUrl = getClass().getResource("/templates/").toExternalForm();
-            builder.withHtmlContent(html, baseUrl);
-            builder.toStream(baos);
-            builder.run();
-
-            return baos.toByteArray();
-        }
+    private void saveFailed(String message, Throwable e) {
+        saveButton.setDisable(false);
+        GlobalErrorHandler.error(message, e);
     }
 
-    private File getFontFileFromResources(String fileName) throws IOException {
-        InputStream inputStream = getClass().getResourceAsStream("/fonts/" + fileName);
-        if (inputStream == null) {
-            throw new FileNotFoundException("Font file not found in resources: " + fileName);
-        }
-
-        File tempFile = File.createTempFile("pdf_font_", ".ttf");
-        tempFile.deleteOnExit();
-
-        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-            inputStream.transferTo(out);
-        }
-        return tempFile;
-    }
-
-    private String[] splitThesisTitle(String fullTitle) {
-        if (fullTitle == null || fullTitle.isEmpty()) {
-            return new String[]{"\"\"", "\"\""};
-        }
-
-        String upperTitle = fullTitle.toUpperCase();
-        int targetLength = 40;
-
-        if (upperTitle.length() <= targetLength) {
-            return new String[]{"\"" + upperTitle + "\"", ""};
-        }
-
-        int splitIndex = upperTitle.lastIndexOf(' ', targetLength);
-
-        if (splitIndex < 20) {
-            splitIndex = targetLength;
-        }
-
-        String firstPart = "\"" + upperTitle.substring(0, splitIndex).trim();
-        String secondPart = upperTitle.substring(splitIndex).trim() + "\"";
-
-        return new String[]{firstPart, secondPart};
-    }
-
-    private String loadTemplate() throws IOException {
-        InputStream is = getClass().getResourceAsStream("/templates/defense_report_template.html");
-        if (is == null) {
-            throw new FileNotFoundException("Template file not found!");
-        }
-        return new String(is.readAllBytes(), "UTF-8");
+    private String buildDocumentHtml(LocalDate defenseReportDate) throws Exception {
+        return ReportHtmlBuilder.defenseReport(thesisDetails, commission, defenseReportDate);
     }
 
     @FXML
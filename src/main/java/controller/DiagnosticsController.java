@@ -0,0 +1,96 @@
+package controller;
+
+import dao.DbMetrics;
+import dao.StatementProfiler;
+import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.stage.FileChooser;
+import utils.GlobalErrorHandler;
+import utils.RefreshableView;
+import utils.StartupPipeline;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Ekran dijagnostike za administratora: stanje pool-a konekcija, trajanje DAO metoda, spori upiti
+ * (opciono) top SQL naredbe i trajanje faza pokretanja.
+ * Podaci su iz memorije (DbMetrics), pa osvježavanje ne ide u bazu.
+ */
+public class DiagnosticsController implements RefreshableView {
+
+    @FXML private Label lblActive;
+    @FXML private Label lblIdle;
+    @FXML private Label lblPoolWait;
+    @FXML private Label lblSlow;
+    @FXML private TextArea txtReport;
+    @FXML private CheckBox chkStatements;
+
+    @FXML
+    public void initialize() {
+        chkStatements.setSelected(StatementProfiler.isEnabled());
+        handleRefresh();
+    }
+
+    @Override
+    public void onShow() {
+        handleRefresh();
+    }
+
+    /**
+     * Važi za konekcije uzete nakon promjene
+     */
+    @FXML
+    private void handleStatementsToggle() {
+        StatementProfiler.setEnabled(chkStatements.isSelected());
+        handleRefresh();
+    }
+
+    @FXML
+    private void handleRefresh() {
+        DbMetrics.PoolSnapshot pool = DbMetrics.pool();
+        lblActive.setText(String.valueOf(pool.active()));
+        lblIdle.setText(pool.idle() + " / " + pool.total());
+        lblPoolWait.setText(String.format("%.0f ms", DbMetrics.poolWait().percentileMillis(0.95)));
+        lblSlow.setText(String.valueOf(DbMetrics.slowOperations().size()));
+
+        txtReport.setText(buildReport());
+    }
+
+    private String buildReport() {
+        String metrics = DbMetrics.isEnabled()
+                ? DbMetrics.report()
+                : "Metrike su isključene (db.metrics.enabled=false).\n";
+        return metrics + "\n" + StartupPipeline.report();
+    }
+
+    @FXML
+    private void handleReset() {
+        DbMetrics.reset();
+        handleRefresh();
+    }
+
+    @FXML
+    private void handleExport() {
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Izvoz dijagnostike");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        fc.setInitialFileName("ediploma-dijagnostika-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmm")) + ".txt");
+
+        File file = fc.showSaveDialog(txtReport.getScene().getWindow());
+        if (file == null) return;
+
+        try {
+            Files.writeString(file.toPath(), buildReport(), StandardCharsets.UTF_8);
+            GlobalErrorHandler.info("Dijagnostika je sačuvana u " + file.getName() + ".");
+        } catch (Exception e) {
+            GlobalErrorHandler.error("Greška pri izvozu dijagnostike.", e);
+        }
+    }
+}
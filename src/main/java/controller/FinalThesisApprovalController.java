@@ -1,28 +1,28 @@
 package controller;
 
-import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import dao.DocumentDAO;
-import dao.DocumentTypeDAO;
+import dao.ReferenceDataCache;
 import dao.ThesisDAO;
 import dto.FinalThesisApprovalDTO;
 import dto.ThesisDetailsDTO;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import model.*;
 import utils.DeanService;
+import utils.AsyncHelper;
 import utils.GlobalErrorHandler;
+import utils.HtmlTemplate;
+import utils.PdfRenderService;
 import utils.SceneManager;
 import utils.UserSession;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
-import java.util.Base64;
 
 public class FinalThesisApprovalController {
 
@@ -38,11 +38,11 @@ public class FinalThesisApprovalController {
     @FXML private DatePicker decisionDatePicker;
     @FXML private TextField studentGenitiveField;
     @FXML private TextField studentStatusField;
+    @FXML private Button saveButton;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
 
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
     private DocumentType thisDocType;
 
     private int thesisId;
@@ -65,7 +65,7 @@ public class FinalThesisApprovalController {
                 return;
             }
 
-            thisDocType = documentTypeDAO.getByName("Rješenje o izradi završnog rada");
+            thisDocType = ReferenceDataCache.documentType("Rješenje o izradi završnog rada");
             if (thisDocType == null) {
                 GlobalErrorHandler.error("DocumentType nije pronađen.");
                 back();
@@ -141,15 +141,30 @@ public class FinalThesisApprovalController {
         if (!validateInputSmart()) return;
 
         try {
-            // IZMJENA: Spremi datum u bazu PRIJE generiranja PDF-a
+            // Datum se snima zajedno sa dokumentom i statusom (jedna transakcija)
             LocalDate decisionDate = decisionDatePicker != null ? decisionDatePicker.getValue() : null;
+            ThesisDAO.ThesisPatch patch = ThesisDAO.ThesisPatch.forThesis(thesisId);
             if (decisionDate != null) {
-                thesisDAO.updateFinalThesisApprovalDate(thesisId, decisionDate);
+                patch.finalThesisApprovalDate(decisionDate);
             }
 
-            byte[] pdfBytes = generatePdfBytes();
-            String base64 = Base64.getEncoder().encodeToString(pdfBytes);
+            // HTML se sastavlja na FX thread-u, a PDF renderuje u pozadini (bez dozvole za bazu)
+            String html = buildDocumentHtml();
+            // Do kraja snimanja (back()) dugme je onemogućeno; vraća se samo ako render ili snimanje ne uspije
+            saveButton.setDisable(true);
+            AsyncHelper.executeAsyncInMemory(
+                    null,
+                    () -> PdfRenderService.render(html),
+                    pdfBytes -> saveDocument(pdfBytes, patch),
+                    e -> saveFailed("Greška pri generisanju PDF-a.", e)
+            );
+        } catch (Exception e) {
+            saveFailed("Greška pri snimanju dokumenta.", e);
+        }
+    }
 
+    private void saveDocument(byte[] pdfBytes, ThesisDAO.ThesisPatch patch) {
+        try {
             String docNumber = null;
             if (thisDocType.isRequiresNumber()) {
                 docNumber = buildFullDocumentNumberOrNull(); // null => IN_PROGRESS
@@ -168,43 +183,35 @@ public class FinalThesisApprovalController {
             AppUser u = UserSession.getUser();
             if (u != null) userId = u.getId();
 
-            documentDAO.upsert(
-                    thesisId,
-                    thisDocType.getId(),
-                    base64,
-                    userId,
-                    docNumber,
-                    status
-            );
-
-            String current = thesisDAO.getStatusName(thesisId);
+            patch.document(thisDocType.getId(), pdfBytes, userId, docNumber, status);
 
-            if (status == DocumentStatus.READY) {
-                if (ThesisStatuses.RAD_KREIRAN.equals(current)) {
-
-                    thesisDAO.updateStatusByName(
-                            thesisId,
-                            ThesisStatuses.FORMIRANJE_KOMISIJE
-                    );
-                }
-            } else {
-                if (!ThesisStatuses.RAD_KREIRAN.equals(current)) {
-
-                    thesisDAO.updateStatusByName(
-                            thesisId,
-                            ThesisStatuses.RAD_KREIRAN
-                    );
+            patch.statusTransition(current -> {
+                if (status == DocumentStatus.READY) {
+                    return ThesisStatuses.RAD_KREIRAN.equals(current) ? ThesisStatuses.FORMIRANJE_KOMISIJE : null;
                 }
-            }
-
-            GlobalErrorHandler.info("Dokument je uspješno sačuvan. ");
-            back();
+                return ThesisStatuses.RAD_KREIRAN;
+            });
+
+            // Transakcija ide u pozadini; ekran se napušta tek kad je dokument sačuvan
+            AsyncHelper.executeAsyncVoid(
+                    () -> thesisDAO.applyPatch(patch),
+                    () -> {
+                        GlobalErrorHandler.info("Dokument je uspješno sačuvan. ");
+                        back();
+                    },
+                    e -> saveFailed("Greška pri snimanju dokumenta.", e)
+            );
 
         } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri snimanju dokumenta.", e);
+            saveFailed("Greška pri snimanju dokumenta.", e);
         }
     }
 
+    private void saveFailed(String message, Throwable e) {
+        saveButton.setDisable(false);
+        GlobalErrorHandler.error(message, e);
+    }
+
     private boolean validateInputSmart() {
         if (decisionDatePicker == null || decisionDatePicker.getValue() == null) {
             GlobalErrorHandler.error("Molimo odaberite datum rješenja.");
@@ -256,7 +263,7 @@ public class FinalThesisApprovalController {
         return s.trim();
     }
 
-    private byte[] generatePdfBytes() throws Exception {
+    private String buildDocumentHtml() throws Exception {
         String statusGenitive = "studenta";
         if (thesisDetails.getStudent() != null && thesisDetails.getStudent().getStatus() != null) {
             if(Objects.equals(thesisDetails.getStudent().getStatus().getName(), "redovan")){
@@ -314,64 +321,30 @@ public class FinalThesisApprovalController {
                 .studyProgramName(studyProgram)
                 .build();
 
-        String html = loadTemplate();
-
         // Get dean name dynamically from database
         String deanName = DeanService.getCurrentDeanFullName();
 
-        html = html.replace("{{decisionNumber}}", dto.getDecisionNumber())
-                .replace("{{decisionDate}}", dto.getDecisionDate().format(DATE_FORMAT))
-                .replace("{{studentNameGenitive}}", dto.getStudentNameGenitive())
-                .replace("{{studentStatusGenitive}}", dto.getStudentStatusGenitive())
-                .replace("{{studentFullName}}", dto.getStudentFullName())
-                .replace("{{studentStatusNominative}}", dto.getStudentStatusNominative())
-                .replace("{{studentCycle}}", escapeXml(dto.getStudentCycle()))
-                .replace("{{studyProgramName}}", escapeXml(dto.getStudyProgramName()))
-                .replace("{{departmentName}}", dto.getDepartmentName())
-                .replace("{{thesisTitle}}", escapeXml(dto.getThesisTitle()))
-                .replace("{{subjectName}}", dto.getSubjectName())
-                .replace("{{mentorFullName}}", dto.getMentorFullNameAndTitle())
-                .replace("{{description}}", dto.getDescription())
-                .replace("{{literature}}", dto.getLiterature())
-                .replace("{{structure}}", formatTextToHtml(dto.getStructure()))
-                .replace("{{studentFirstName}}", escapeXml(dto.getStudentFirstName()))
-                .replace("{{studentLastName}}", escapeXml(dto.getStudentLastName()))
-                .replace("{{applicationDate}}", dto.getApplicationDate().format(DATE_FORMAT))
-                .replace("{{examRequirement}}", examRequirement)
-                .replace("{{deanName}}", deanName);
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            builder.useFont(getFontFileFromResources("LiberationSerif-Regular.ttf"), "Times New Roman");
-            File fontBold = getFontFileFromResources("LiberationSerif-Bold.ttf");
-            builder.useFont(fontBold, "Times New Roman", 700, BaseRendererBuilder.FontStyle.NORMAL, true);
-            File fontItalic = getFontFileFromResources("LiberationSerif-Italic.ttf");
-            builder.useFont(fontItalic, "Times New Roman", 400, BaseRendererBuilder.FontStyle.ITALIC, true);
-            File fontBoldItalic = getFontFileFromResources("LiberationSerif-BoldItalic.ttf");
-            builder.useFont(fontBoldItalic, "Times New Roman", 700, BaseRendererBuilder.FontStyle.ITALIC, true);
-
-            String baseUrl = getClass().getResource("/templates/").toExternalForm();
-            builder.withHtmlContent(html, baseUrl);
-            builder.toStream(baos);
-            builder.run();
-
-            return baos.toByteArray();
-        }
-    }
-
-    private File getFontFileFromResources(String fileName) throws IOException {
-        InputStream inputStream = getClass().getResourceAsStream("/fonts/" + fileName);
-        if (inputStream == null) throw new FileNotFoundException("Font file not found in resources: " + fileName);
-
-        File tempFile = File.createTempFile("pdf_font_", ".ttf");
-        tempFile.deleteOnExit();
-
-        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-            inputStream.transferTo(out);
-        }
-        return tempFile;
+        return HtmlTemplate.load("final_thesis_approval_template.html").render(HtmlTemplate.values()
+                .put("decisionNumber", dto.getDecisionNumber())
+                .put("decisionDate", dto.getDecisionDate().format(DATE_FORMAT))
+                .put("studentNameGenitive", dto.getStudentNameGenitive())
+                .put("studentStatusGenitive", dto.getStudentStatusGenitive())
+                .put("studentFullName", dto.getStudentFullName())
+                .put("studentStatusNominative", dto.getStudentStatusNominative())
+                .put("studentCycle", dto.getStudentCycle())
+                .put("studyProgramName", dto.getStudyProgramName())
+                .put("departmentName", dto.getDepartmentName())
+                .put("thesisTitle", dto.getThesisTitle())
+                .put("subjectName", dto.getSubjectName())
+                .put("mentorFullName", dto.getMentorFullNameAndTitle())
+                .putRaw("description", dto.getDescription())
+                .putRaw("literature", dto.getLiterature())
+                .putRaw("structure", formatTextToHtml(dto.getStructure()))
+                .put("studentFirstName", dto.getStudentFirstName())
+                .put("studentLastName", dto.getStudentLastName())
+                .put("applicationDate", dto.getApplicationDate().format(DATE_FORMAT))
+                .put("examRequirement", examRequirement)
+                .put("deanName", deanName));
     }
 
     private String convertToNominative(String genitiveStatus) {
@@ -404,13 +377,7 @@ public class FinalThesisApprovalController {
 
     private String formatTextToHtml(String rawText) {
         if (rawText == null || rawText.isEmpty()) return "—";
-        String safe = rawText
-                .replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&apos;");
-        return safe.replace("\n", "<br/>");
+        return HtmlTemplate.escape(rawText).replace("\n", "<br/>");
     }
 
     private String formatMemberName(AcademicStaff member) {
@@ -418,12 +385,6 @@ public class FinalThesisApprovalController {
         return member.getTitle() + " " + member.getFirstName() + " " + member.getLastName();
     }
 
-    private String loadTemplate() throws IOException {
-        InputStream is = getClass().getResourceAsStream("/templates/final_thesis_approval_template.html");
-        if (is == null) throw new FileNotFoundException("Template not found in /templates/");
-        return new String(is.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
-    }
-
     @FXML
     private void back() {
         SceneManager.showWithData("/app/thesisDetails.fxml", "Detalji završnog rada",
@@ -431,15 +392,6 @@ public class FinalThesisApprovalController {
         );
     }
 
-    private String escapeXml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&apos;");
-    }
-
     private String convertToRoman(int cycle) {
         return switch (cycle) {
             case 1 -> "I";
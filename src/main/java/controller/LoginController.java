@@ -1,6 +1,10 @@
 package controller;
 
 import dao.AppUserDAO;
+import dao.DocumentDAO;
+import dao.ReferenceDataCache;
+import dao.ThesisLockSweeper;
+import email.EmailOutboxWorker;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ProgressIndicator;
@@ -47,6 +51,7 @@ public class LoginController {
         }
 
         loader.setVisible(true);
+        StartupPipeline.mark(StartupPipeline.LOGIN_SUBMITTED);
 
         // Korištenje AsyncHelper sa disable funkcionalnošću
         AsyncHelper.executeAsyncWithDisable(
@@ -77,16 +82,49 @@ public class LoginController {
         // Uspješna prijava
         UserSession.setUser(user);
         NavigationContext.setCurrentUser(user);
-        
+
+        // Pozadinsko čišćenje isteklih lock-ova (idempotentno - pokreće se samo jednom)
+        ThesisLockSweeper.start();
+
+        // Slanje emailova iz reda (EmailOutbox) u pozadini
+        EmailOutboxWorker.start();
+
+        // Šifarnici (statusi, tipovi dokumenata, odsjeci...) se učitavaju paralelno dok se otvara dashboard
+        ReferenceDataCache.preload();
+
         // Rutiranje na osnovu role korisnika
         String roleName = user.getRole().getName();
+
+        // Upsert dokumenata zavisi od jedinstvenog ključa (ThesisId, TypeId) - nedostatak se prijavljuje odmah
+        AsyncHelper.executeAsync(
+            () -> {
+                new DocumentDAO().verifyUniqueKey();
+                return null;
+            },
+            ignored -> {},
+            error -> GlobalErrorHandler.error("Šema baze nije ispravna: " + error.getMessage(), error)
+        );
+
+        // Migracija starih Base64 dokumenata u binarni format (idempotentno, u pozadini, ne za sekretare)
+        if (!"SECRETARY".equalsIgnoreCase(roleName)) {
+            AsyncHelper.executeAsync(
+                () -> new DocumentDAO().migrateBase64ToBlob(50),
+                migrated -> {
+                    if (migrated > 0) {
+                        System.out.println("[LoginController] Migrated " + migrated + " documents to binary storage.");
+                    }
+                },
+                error -> System.err.println("[LoginController] Document migration failed: " + error.getMessage())
+            );
+        }
         if ("SECRETARY".equalsIgnoreCase(roleName)) {
             // Sekretar ide na secretary-dashboard
-            SceneManager.show("/app/secretary-dashboard.fxml", "eDiploma - Sekretar");
+            SceneManager.showCached("/app/secretary-dashboard.fxml", "eDiploma - Sekretar");
         } else {
             // Ostali korisnici (ADMINISTRATOR itd.) idu na glavni dashboard
-            SceneManager.show("/app/dashboard.fxml", "eDiploma");
+            SceneManager.showCached("/app/dashboard.fxml", "eDiploma");
         }
+        StartupPipeline.mark(StartupPipeline.DASHBOARD_SHOWN);
 
         // Pokretanje session managera
         SessionManager.startSession(() -> {
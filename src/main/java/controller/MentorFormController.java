@@ -227,7 +227,7 @@ public class MentorFormController {
     @FXML
     private void back() {
         NavigationContext.setTargetView(DashboardView.MENTORS);
-        SceneManager.show("/app/dashboard.fxml", "Dashboard");
+        SceneManager.showCached("/app/dashboard.fxml", "Dashboard");
     }
 
     private void showErrorList(List<String> errors) {
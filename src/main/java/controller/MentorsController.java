@@ -1,20 +1,28 @@
 package controller;
 
 import Factory.MentorCardFactory;
+import dao.ChangeSet;
 import dao.MentorDAO;
 import dto.MentorDTO;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import model.AcademicStaff;
+import utils.AsyncHelper;
+import utils.RefreshableView;
 import utils.SceneManager;
+import utils.SearchPipeline;
 import utils.GlobalErrorHandler;
+import utils.TaskScope;
 
-public class MentorsController {
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class MentorsController implements RefreshableView {
 
     @FXML private VBox mentorsCardsContainer;
     @FXML private TextField searchField;
@@ -24,80 +32,79 @@ public class MentorsController {
     private final MentorDAO mentorDAO = new MentorDAO();
     private final MentorCardFactory cardFactory = new MentorCardFactory();
 
-    private final ObservableList<MentorDTO> masterList =
-            FXCollections.observableArrayList();
+    // Isti redoslijed kao ORDER BY a.FirstName u MentorDAO
+    private static final Comparator<MentorDTO> BY_FIRST_NAME = Comparator.comparing(
+            (MentorDTO dto) -> dto.getMentor().getFirstName(), Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private SearchPipeline<MentorDTO> search;
 
-    private FilteredList<MentorDTO> filteredList;
+    private TaskScope scope;
 
-    private static boolean needsRefresh = false;
+    // Keširana lista i vrijeme baze do kojeg je osvježena (null = još nije učitana)
+    private List<MentorDTO> mentors = List.of();
+    private LocalDateTime syncedAt;
+    private Task<ChangeSet<MentorDTO>> loadTask;
 
     @FXML
     public void initialize() {
+        scope = TaskScope.boundTo(mentorsCardsContainer);
         setupAddButton();
         setupSearch();
         loadMentorsAsync();
-
-        if(needsRefresh){
-            needsRefresh=false;
-        }
     }
 
-    public static void requestRefresh() {
-        needsRefresh = true;
+    /**
+     * Keširani view (DashboardController): dohvata samo mentore izmijenjene od zadnjeg učitavanja
+     * (uključujući one kojima je izmijenjen neki rad)
+     */
+    @Override
+    public void onShow() {
+        loadMentorsAsync();
     }
 
     private void loadMentorsAsync() {
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() {
-                masterList.clear();
-                masterList.addAll(mentorDAO.getAllMentors());
-                return null;
-            }
-        };
-
-        loader.visibleProperty().bind(task.runningProperty());
-
-        task.setOnSucceeded(e -> {
-            filteredList = new FilteredList<>(masterList, s -> true);
-            renderMentors(filteredList);
-        });
-
-        task.setOnFailed(e -> {
-            GlobalErrorHandler.error("Greška pri učitavanju mentora.", task.getException());
-        });
-
-        new Thread(task, "load-mentors-thread").start();
-    }
-
-    private void setupSearch() {
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (filteredList == null) return;
+        if (loadTask != null && loadTask.isRunning()) {
+            if (syncedAt != null) return;
+            AsyncHelper.cancel(loadTask); // delta u toku, a traži se cijela lista
+        }
 
-            String term = newVal == null ? "" : newVal.toLowerCase().trim();
+        // Prvi put cijela lista, poslije samo izmjene; učitavanje prekinuto odlaskom sa ekrana
+        // ne pomjera syncedAt, pa se ponavlja kad se korisnik vrati
+        LocalDateTime since = syncedAt;
+        loadTask = AsyncHelper.executeAsync(
+                scope,
+                () -> mentorDAO.getChangedSince(since),
+                changes -> {
+                    syncedAt = changes.syncedAt();
+                    if (changes.isEmpty()) return;
+                    // Lista se mijenja samo na FX thread-u; filter iz polja za pretragu ostaje primijenjen
+                    mentors = changes.applyTo(mentors, dto -> dto.getMentor().getId(), BY_FIRST_NAME);
+                    search.setItems(mentors);
+                },
+                error -> GlobalErrorHandler.error("Greška pri učitavanju mentora.", error)
+        );
 
-            filteredList.setPredicate(dto -> {
-                if (term.isEmpty()) return true;
-                AcademicStaff mentor = dto.getMentor();
+        loader.visibleProperty().bind(loadTask.runningProperty());
+    }
 
-                return (mentor.getFirstName() != null && mentor.getFirstName().toLowerCase().contains(term))
-                        || (mentor.getLastName() != null && mentor.getLastName().toLowerCase().contains(term))
-                        || (mentor.getEmail() != null && mentor.getEmail().toLowerCase().contains(term))
-                        || (mentor.getTitle() != null && mentor.getTitle().toLowerCase().contains(term));
-            });
+    private void setupSearch() {
+        // Ključ se računa jednom po redu; filtriranje ide u pozadini, prikaz jednim potezom
+        search = new SearchPipeline<>(searchField, scope, MentorsController::searchKey, this::renderMentors);
+    }
 
-            renderMentors(filteredList);
-        });
+    private static String searchKey(MentorDTO dto) {
+        AcademicStaff mentor = dto.getMentor();
+        return SearchPipeline.key(mentor.getFirstName(), mentor.getLastName(), mentor.getEmail(), mentor.getTitle());
     }
 
-    private void renderMentors(Iterable<MentorDTO> mentors) {
-        mentorsCardsContainer.getChildren().clear();
+    private void renderMentors(List<MentorDTO> mentors) {
 
+        List<Node> cards = new ArrayList<>(mentors.size());
         for (MentorDTO mentorDTO : mentors) {
-            mentorsCardsContainer.getChildren().add(
-                    cardFactory.create(mentorDTO, this::openEditMentorPage)
-            );
+            cards.add(cardFactory.create(mentorDTO, this::openEditMentorPage));
         }
+        // Jedna izmjena children liste - jedan layout pass umjesto jednog po kartici
+        mentorsCardsContainer.getChildren().setAll(cards);
     }
 
     private void setupAddButton() {
@@ -1,25 +1,25 @@
 package controller;
 
-import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import dao.*;
 import dto.NoticeDTO;
 import dto.ThesisDetailsDTO;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import model.*;
+import utils.AsyncHelper;
 import utils.DeanService;
 import utils.GlobalErrorHandler;
+import utils.HtmlTemplate;
+import utils.PdfRenderService;
 import utils.SceneManager;
 import utils.UserSession;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 public class NoticeController {
 
@@ -33,11 +33,11 @@ public class NoticeController {
     @FXML private DatePicker defenseDatePicker; // DefenseDate
     @FXML private TextField defenseTimeField; // Vrijeme odbrane
     @FXML private TextField documentNumberField;
+    @FXML private Button saveButton;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
     private final CommissionDAO commissionDAO = new CommissionDAO();
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
 
     private DocumentType thisDocType;
     private DocumentType commissionReportDocType;
@@ -71,14 +71,14 @@ public class NoticeController {
                 return;
             }
 
-            thisDocType = documentTypeDAO.getByName("Obavijest");
+            thisDocType = ReferenceDataCache.documentType("Obavijest");
             if (thisDocType == null) {
                 GlobalErrorHandler.error("DocumentType 'Obavijest' nije pronađen.");
                 back();
                 return;
             }
 
-            commissionReportDocType = documentTypeDAO.getByName("Rješenje o formiranju Komisije");
+            commissionReportDocType = ReferenceDataCache.documentType("Rješenje o formiranju Komisije");
             if (commissionReportDocType == null) {
                 GlobalErrorHandler.error("DocumentType 'Rješenje o formiranju Komisije' nije pronađen.");
                 back();
@@ -93,7 +93,7 @@ public class NoticeController {
                 return;
             }
 
-            DocumentType approvalDocType = documentTypeDAO.getByName("Rješenje o izradi završnog rada");
+            DocumentType approvalDocType = ReferenceDataCache.documentType("Rješenje o izradi završnog rada");
             if (approvalDocType != null) {
                 Document approvalDoc = documentDAO.getByThesisAndType(thesisId, approvalDocType.getId());
                 if (approvalDoc == null || approvalDoc.getStatus() != DocumentStatus.READY) {
@@ -211,16 +211,30 @@ public class NoticeController {
             LocalDate defenseDate = defenseDatePicker.getValue(); // DefenseDate
             String commisionTime = defenseTimeField.getText().trim(); // CommisionTime
 
-            // Save to database FIRST
-            thesisDAO.updateNoticeDate(thesisId, noticeDate);
-            thesisDAO.updateCommissionMeetingDate(thesisId, meetingDate);
-            thesisDAO.updateDefenseDate(thesisId, defenseDate);
-            thesisDAO.updateCommisionTime(thesisId, commisionTime);
-
-            // Generate PDF
-            byte[] pdfBytes = generatePdfBytes();
-            String base64 = Base64.getEncoder().encodeToString(pdfBytes);
+            // Datumi se snimaju zajedno sa dokumentom i statusom (jedna transakcija)
+            ThesisDAO.ThesisPatch patch = ThesisDAO.ThesisPatch.forThesis(thesisId)
+                    .noticeDate(noticeDate)
+                    .commissionMeetingDate(meetingDate)
+                    .defenseDate(defenseDate)
+                    .commisionTime(commisionTime);
+
+            // HTML se sastavlja na FX thread-u, a PDF renderuje u pozadini (bez dozvole za bazu)
+            String html = buildDocumentHtml();
+            // Do kraja snimanja (back()) dugme je onemogućeno; vraća se samo ako render ili snimanje ne uspije
+            saveButton.setDisable(true);
+            AsyncHelper.executeAsyncInMemory(
+                    null,
+                    () -> PdfRenderService.render(html),
+                    pdfBytes -> saveDocument(pdfBytes, patch),
+                    e -> saveFailed("Greška pri generisanju PDF-a.", e)
+            );
+        } catch (Exception e) {
+            saveFailed("Greška pri snimanju dokumenta.", e);
+        }
+    }
 
+    private void saveDocument(byte[] pdfBytes, ThesisDAO.ThesisPatch patch) {
+        try {
             String docNumber = buildFullDocumentNumber();
             DocumentStatus status = (docNumber != null && !docNumber.isBlank())
                     ? DocumentStatus.READY
@@ -230,39 +244,42 @@ public class NoticeController {
             AppUser u = UserSession.getUser();
             if (u != null) userId = u.getId();
 
-            documentDAO.upsert(
-                    thesisId,
-                    thisDocType.getId(),
-                    base64,
-                    userId,
-                    docNumber,
-                    status
-            );
-
-            // nakon upsert-a, uskladi status thesis-a sa statusom dokumenta
-            String current = thesisDAO.getStatusName(thesisId);
-
-            if (status == DocumentStatus.READY) {
-                // Obavijest završena → ide se na zapisnike
-                if (ThesisStatuses.UNOS_RJESENJA_OBAVIJESTI.equals(current)
-                        || ThesisStatuses.KREIRANJE_OBAVIJESTI.equals(current)) {
-                    thesisDAO.updateStatusByName(thesisId, ThesisStatuses.GENERISANJE_ZAPISNIKA);
+            patch.document(thisDocType.getId(), pdfBytes, userId, docNumber, status);
+
+            // uskladi status thesis-a sa statusom dokumenta
+            patch.statusTransition(current -> {
+                if (status == DocumentStatus.READY) {
+                    // Obavijest završena → ide se na zapisnike
+                    if (ThesisStatuses.UNOS_RJESENJA_OBAVIJESTI.equals(current)
+                            || ThesisStatuses.KREIRANJE_OBAVIJESTI.equals(current)) {
+                        return ThesisStatuses.GENERISANJE_ZAPISNIKA;
+                    }
+                    return null;
                 }
-            } else {
                 // status == IN_PROGRESS (npr. obrisan broj rješenja) → vrati na unos broja rješenja obavijesti
-                if (!ThesisStatuses.UNOS_RJESENJA_OBAVIJESTI.equals(current)) {
-                    thesisDAO.updateStatusByName(thesisId, ThesisStatuses.UNOS_RJESENJA_OBAVIJESTI);
-                }
-            }
-
-            GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
-            back();
+                return ThesisStatuses.UNOS_RJESENJA_OBAVIJESTI;
+            });
+
+            // Transakcija ide u pozadini; ekran se napušta tek kad je dokument sačuvan
+            AsyncHelper.executeAsyncVoid(
+                    () -> thesisDAO.applyPatch(patch),
+                    () -> {
+                        GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
+                        back();
+                    },
+                    e -> saveFailed("Greška pri snimanju dokumenta.", e)
+            );
 
         } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri snimanju dokumenta.", e);
+            saveFailed("Greška pri snimanju dokumenta.", e);
         }
     }
 
+    private void saveFailed(String message, Throwable e) {
+        saveButton.setDisable(false);
+        GlobalErrorHandler.error(message, e);
+    }
+
     private boolean validateInput() {
         if (commissionDecisionDatePicker == null || commissionDecisionDatePicker.getValue() == null) {
             GlobalErrorHandler.error("Molimo odaberite datum rješenja komisije.");
@@ -322,7 +339,7 @@ public class NoticeController {
         return s.trim();
     }
 
-    private byte[] generatePdfBytes() throws Exception {
+    private String buildDocumentHtml() throws Exception {
         // Get dean name dynamically from database
         String deanName = DeanService.getCurrentDeanFullName();
         String location = "u prostorijama Mašinskog fakulteta Univerziteta u Zenici";
@@ -331,16 +348,6 @@ public class NoticeController {
         String yy = String.format("%02d", LocalDate.now().getYear() % 100);
         String fullDocNumber = DOC_NUMBER_PREFIX + userInput + "/" + yy;
 
-        // Split into 18 characters for boxes
-        String[] chars = new String[18];
-        for (int i = 0; i < 18; i++) {
-            if (i < fullDocNumber.length()) {
-                chars[i] = String.valueOf(fullDocNumber.charAt(i));
-            } else {
-                chars[i] = "";
-            }
-        }
-
         NoticeDTO dto = NoticeDTO.builder()
                 .documentDate(commissionDecisionDatePicker.getValue()) // Use NoticeDate
                 .studentFullName(studentNameText.getText())
@@ -354,85 +361,29 @@ public class NoticeController {
                 .deanFullName(deanName)
                 .build();
 
-        String html = loadTemplate();
-
         // Format thesis title with lines
         String thesisTitle = dto.getThesisTitle();
         String thesisTitleHtml = formatThesisTitleWithLines(thesisTitle);
 
-        html = html.replace("{{documentDate}}", dto.getDocumentDate().format(DATE_FORMAT))
-                .replace("{{studentFullName}}", escapeXml(dto.getStudentFullName()))
-                .replace("{{thesisTitle}}", thesisTitleHtml)
-                .replace("{{commissionDecisionNumber}}", escapeXml(dto.getCommissionDecisionNumber()))
-                .replace("{{commissionDecisionDate}}", dto.getCommissionDecisionDate().format(DATE_FORMAT))
-                .replace("{{commissionMeetingDate}}", dto.getCommissionMeetingDate().format(DATE_FORMAT))
-                .replace("{{defenseDate}}", dto.getDefenseDate().format(DATE_FORMAT))
-                .replace("{{defenseTime}}", escapeXml(dto.getDefenseTime()))
-                .replace("{{defenseLocation}}", escapeXml(dto.getDefenseLocation()))
-                .replace("{{deanFullName}}", escapeXml(dto.getDeanFullName()));
-
-        // Replace individual characters in boxes
-        for (int i = 0; i < 18; i++) {
-            html = html.replace("{{char" + i + "}}", chars[i]);
-        }
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            builder.useFont(getFontFileFromResources("LiberationSerif-Regular.ttf"), "Times New Roman");
-            File fontBold = getFontFileFromResources("LiberationSerif-Bold.ttf");
-            builder.useFont(fontBold, "Times New Roman", 700, BaseRendererBuilder.FontStyle.NORMAL, true);
-            File fontItalic = getFontFileFromResources("LiberationSerif-Italic.ttf");
-            builder.useFont(fontItalic, "Times New Roman", 400, BaseRendererBuilder.FontStyle.ITALIC, true);
-            File fontBoldItalic = getFontFileFromResources("LiberationSerif-BoldItalic.ttf");
-            builder.useFont(fontBoldItalic, "Times New Roman", 700, BaseRendererBuilder.FontStyle.ITALIC, true);
-
-            String baseUrl = getClass().getResource("/templates/").toExternalForm();
-            builder.withHtmlContent(html, baseUrl);
-            builder.toStream(baos);
-            builder.run();
-
-            return baos.toByteArray();
-        }
-    }
-
-    private File getFontFileFromResources(String fileName) throws IOException {
-        InputStream inputStream = getClass().getResourceAsStream("/fonts/" + fileName);
-        if (inputStream == null) {
-            throw new FileNotFoundException("Font file not found in resources: " + fileName);
-        }
-
-        File tempFile = File.createTempFile("pdf_font_", ".ttf");
-        tempFile.deleteOnExit();
-
-        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-            inputStream.transferTo(out);
-        }
-        return tempFile;
-    }
-
-    private String loadTemplate() throws IOException {
-        InputStream is = getClass().getResourceAsStream("/templates/notice_template.html");
-        if (is == null) {
-            throw new FileNotFoundException("Template file not found!");
-        }
-        return new String(is.readAllBytes(), "UTF-8");
-    }
-
-    private String escapeXml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&apos;");
+        return HtmlTemplate.load("notice_template.html").render(HtmlTemplate.values()
+                .put("documentDate", dto.getDocumentDate().format(DATE_FORMAT))
+                .put("studentFullName", dto.getStudentFullName())
+                .putRaw("thesisTitle", thesisTitleHtml)
+                .put("commissionDecisionNumber", dto.getCommissionDecisionNumber())
+                .put("commissionDecisionDate", dto.getCommissionDecisionDate().format(DATE_FORMAT))
+                .put("commissionMeetingDate", dto.getCommissionMeetingDate().format(DATE_FORMAT))
+                .put("defenseDate", dto.getDefenseDate().format(DATE_FORMAT))
+                .put("defenseTime", dto.getDefenseTime())
+                .put("defenseLocation", dto.getDefenseLocation())
+                .put("deanFullName", dto.getDeanFullName())
+                // Individual characters in boxes (18)
+                .putChars("char", fullDocNumber, 18));
     }
 
     private String formatThesisTitleWithLines(String title) {
         if (title == null || title.isEmpty()) return "";
 
-        String escaped = escapeXml(title);
+        String escaped = HtmlTemplate.escape(title);
         String[] words = escaped.split("\\s+");
         StringBuilder html = new StringBuilder();
         StringBuilder currentLine = new StringBuilder();
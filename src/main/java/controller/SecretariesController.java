@@ -3,18 +3,23 @@ package controller;
 import Factory.SecretaryCardFactory;
 import dao.SecretaryDAO;
 import dto.SecretaryDTO;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import model.AcademicStaff;
+import utils.AsyncHelper;
 import utils.GlobalErrorHandler;
+import utils.RefreshableView;
 import utils.SceneManager;
+import utils.SearchPipeline;
+import utils.TaskScope;
 
-public class SecretariesController {
+import java.util.ArrayList;
+import java.util.List;
+
+public class SecretariesController implements RefreshableView {
 
     @FXML private VBox secretariesCardsContainer;
     @FXML private TextField searchField;
@@ -24,13 +29,15 @@ public class SecretariesController {
     private final SecretaryDAO secretaryDAO = new SecretaryDAO();
     private final SecretaryCardFactory cardFactory = new SecretaryCardFactory();
 
-    private final ObservableList<SecretaryDTO> masterList = FXCollections.observableArrayList();
-    private FilteredList<SecretaryDTO> filteredList;
+    private SearchPipeline<SecretaryDTO> search;
+
+    private TaskScope scope;
 
     private static boolean needsRefresh = false;
 
     @FXML
     public void initialize() {
+        scope = TaskScope.boundTo(secretariesCardsContainer);
         setupAddButton();
         setupSearch();
 
@@ -38,70 +45,66 @@ public class SecretariesController {
         needsRefresh = false;
     }
 
-    private void loadSecretariesAsync() {
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() {
-                masterList.clear();
-                masterList.addAll(secretaryDAO.getAllSecretaries());
-                return null;
-            }
-        };
-
-        if (loader != null) loader.visibleProperty().bind(task.runningProperty());
-
-        task.setOnSucceeded(e -> {
-            if (loader != null) loader.visibleProperty().unbind();
-            if (loader != null) loader.setVisible(false);
-
-            filteredList = new FilteredList<>(masterList, s -> true);
-            renderSecretaries(filteredList);
-        });
+    public static void requestRefresh() {
+        needsRefresh = true;
+    }
 
-        task.setOnFailed(e -> {
-            if (loader != null) loader.visibleProperty().unbind();
-            if (loader != null) loader.setVisible(false);
+    /**
+     * Keširani view (DashboardController): ponovo učitava listu samo ako je forma nešto snimila
+     */
+    @Override
+    public void onShow() {
+        if (!needsRefresh) return;
+        needsRefresh = false;
+        loadSecretariesAsync();
+    }
 
-            GlobalErrorHandler.error("Greška pri učitavanju sekretara.", task.getException());
-        });
+    private void loadSecretariesAsync() {
+        Task<List<SecretaryDTO>> task = AsyncHelper.executeAsync(
+                scope,
+                secretaryDAO::getAllSecretaries,
+                secretaries -> {
+                    if (loader != null) loader.visibleProperty().unbind();
+                    if (loader != null) loader.setVisible(false);
+
+                    // Lista se mijenja samo na FX thread-u; filter iz polja za pretragu ostaje primijenjen
+                    search.setItems(secretaries);
+                },
+                error -> {
+                    if (loader != null) loader.visibleProperty().unbind();
+                    if (loader != null) loader.setVisible(false);
+
+                    GlobalErrorHandler.error("Greška pri učitavanju sekretara.", error);
+                }
+        );
 
-        new Thread(task, "load-secretaries-thread").start();
+        if (loader != null) loader.visibleProperty().bind(task.runningProperty());
+        // Učitavanje prekinuto odlaskom sa ekrana - ponoviti kad se korisnik vrati
+        task.setOnCancelled(e -> needsRefresh = true);
     }
 
     private void setupSearch() {
-        if (searchField == null) return;
-
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (filteredList == null) return;
-
-            String term = newVal == null ? "" : newVal.toLowerCase().trim();
-
-            filteredList.setPredicate(dto -> {
-                if (term.isEmpty()) return true;
-
-                AcademicStaff s = dto.getSecretary();
-                String username = (dto.getUser() != null) ? dto.getUser().getUsername() : null;
+        // Ključ se računa jednom po redu; filtriranje ide u pozadini, prikaz jednim potezom
+        search = new SearchPipeline<>(searchField, scope, SecretariesController::searchKey, this::renderSecretaries);
+    }
 
-                return (s != null && s.getFirstName() != null && s.getFirstName().toLowerCase().contains(term))
-                        || (s != null && s.getLastName() != null && s.getLastName().toLowerCase().contains(term))
-                        || (s != null && s.getEmail() != null && s.getEmail().toLowerCase().contains(term))
-                        || (s != null && s.getTitle() != null && s.getTitle().toLowerCase().contains(term))
-                        || (username != null && username.toLowerCase().contains(term));
-            });
+    private static String searchKey(SecretaryDTO dto) {
+        AcademicStaff s = dto.getSecretary();
+        String username = (dto.getUser() != null) ? dto.getUser().getUsername() : null;
 
-            renderSecretaries(filteredList);
-        });
+        if (s == null) return SearchPipeline.key(username);
+        return SearchPipeline.key(s.getFirstName(), s.getLastName(), s.getEmail(), s.getTitle(), username);
     }
 
-    private void renderSecretaries(Iterable<SecretaryDTO> secretaries) {
+    private void renderSecretaries(List<SecretaryDTO> secretaries) {
         if (secretariesCardsContainer == null) return;
 
-        secretariesCardsContainer.getChildren().clear();
+        List<Node> cards = new ArrayList<>(secretaries.size());
         for (SecretaryDTO dto : secretaries) {
-            secretariesCardsContainer.getChildren().add(
-                    cardFactory.create(dto, this::openEditSecretaryPage)
-            );
+            cards.add(cardFactory.create(dto, this::openEditSecretaryPage));
         }
+        // Jedna izmjena children liste - jedan layout pass umjesto jednog po kartici
+        secretariesCardsContainer.getChildren().setAll(cards);
     }
 
     private void setupAddButton() {
@@ -7,31 +7,52 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
+import utils.RefreshableView;
 import utils.SceneManager;
 import utils.UserSession;
 
 import java.util.Optional;
 
-public class SecretaryDashboardController {
+public class SecretaryDashboardController implements RefreshableView {
 
     @FXML private BorderPane mainBorderPane;
     @FXML private Label radoviLabel;
     @FXML private Label accountSettingsLabel;
     @FXML private Label lblOdjava;
 
+    // Lista radova se učitava jednom; povratak na nju samo osvježava podatke
+    private Parent thesisView;
+    private Object thesisController;
+
     @FXML
     public void initialize(){
         // Automatski učitaj završne radove pri pokretanju
         handleRadoviClick();
     }
 
+    /**
+     * Povratak na keširani dashboard (SceneManager.showCached)
+     */
+    @Override
+    public void onShow() {
+        handleRadoviClick();
+    }
+
     @FXML
     private void handleRadoviClick() {
         try {
-            Parent thesisView = FXMLLoader.load(
-                    getClass().getResource("/app/thesis.fxml")
-            );
+            if (thesisView == null) {
+                FXMLLoader loader = new FXMLLoader(getClass().getResource("/app/thesis.fxml"));
+                thesisView = loader.load();
+                thesisController = loader.getController();
+                mainBorderPane.setCenter(thesisView);
+                return;
+            }
+
             mainBorderPane.setCenter(thesisView);
+            if (thesisController instanceof RefreshableView refreshable) {
+                refreshable.onShow();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -131,6 +131,7 @@ public class SecretaryFormController {
             },
             result -> {
                 setBusy(false);
+                SecretariesController.requestRefresh();
                 redirectToSecretaries();
             },
             error -> {
@@ -172,6 +173,7 @@ public class SecretaryFormController {
             },
             () -> {
                 setBusy(false);
+                SecretariesController.requestRefresh();
                 redirectToSecretaries();
             },
             error -> {
@@ -206,6 +208,7 @@ public class SecretaryFormController {
             },
             () -> {
                 setBusy(false);
+                SecretariesController.requestRefresh();
                 redirectToSecretaries();
             },
             error -> {
@@ -217,7 +220,7 @@ public class SecretaryFormController {
 
     private void redirectToSecretaries() {
         NavigationContext.setTargetView(DashboardView.SECRETARIES);
-        SceneManager.show("/app/dashboard.fxml", "eDiploma");
+        SceneManager.showCached("/app/dashboard.fxml", "eDiploma");
     }
 
     private void setBusy(boolean busy) {
@@ -1,6 +1,5 @@
 package controller;
 
-import dao.ThesisDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -13,13 +12,17 @@ import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import utils.AsyncHelper;
+import utils.GlobalErrorHandler;
+import utils.RefreshableView;
+import utils.StatisticsCube;
 
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.Map;
 import java.util.ResourceBundle;
 
-public class StatisticsController implements Initializable {
+public class StatisticsController implements Initializable, RefreshableView {
 
     @FXML private Label lblTotalThesis;
     @FXML private Label lblActiveThesis;
@@ -28,14 +31,20 @@ public class StatisticsController implements Initializable {
     @FXML private PieChart pieChartSekretari;
     @FXML private ComboBox<String> comboAcademicYear;
 
-    private final ThesisDAO thesisDAO = new ThesisDAO();
-
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         setupAcademicYearFilter();
         loadDashboardData();
     }
 
+    /**
+     * Keširani view: prikaz iz kocke odmah, pa dopuna izmijenjenih radova u pozadini
+     */
+    @Override
+    public void onShow() {
+        loadDashboardData();
+    }
+
     private void setupAcademicYearFilter() {
         // Generisanje akademskih godina (npr. trenutna i 4 prethodne)
         int currentYear = LocalDate.now().getYear();
@@ -45,7 +54,7 @@ public class StatisticsController implements Initializable {
         }
 
         ObservableList<String> years = FXCollections.observableArrayList();
-        years.add("Sve godine"); // Opcija za prikaz svega
+        years.add(StatisticsCube.ALL_YEARS); // Opcija za prikaz svega
 
         for (int i = 0; i < 5; i++) {
             int start = currentYear - i;
@@ -64,35 +73,36 @@ public class StatisticsController implements Initializable {
         });
     }
 
+    /**
+     * Ako je kocka već učitana, ekran se prikazuje odmah, a izmjene se dopunjavaju u pozadini
+     */
     private void loadDashboardData() {
-        lblActiveThesis.setText(String.valueOf(thesisDAO.getActiveThesisCount()));
-        lblTotalThesis.setText(String.valueOf(thesisDAO.getTotalThesisCount()));
-        lblLateThesis.setText(String.valueOf(thesisDAO.getLateThesisCount()));
+        if (StatisticsCube.isLoaded()) {
+            showDashboardData();
+        }
+
+        AsyncHelper.executeAsync(
+                () -> {
+                    StatisticsCube.refresh();
+                    return null;
+                },
+                ignored -> showDashboardData(),
+                error -> GlobalErrorHandler.error("Greška pri učitavanju statistike.", error)
+        );
+    }
+
+    private void showDashboardData() {
+        lblActiveThesis.setText(String.valueOf(StatisticsCube.getActiveCount()));
+        lblTotalThesis.setText(String.valueOf(StatisticsCube.getTotalCount()));
+        lblLateThesis.setText(String.valueOf(StatisticsCube.getLateCount()));
 
         loadTopMentorsFiltered(comboAcademicYear.getValue());
         populateSecretaryChart();
     }
 
     private void loadTopMentorsFiltered(String selectedYear) {
-        LocalDate startDate = null;
-        LocalDate endDate = null;
-
-        // Logika za parsiranje datuma: "2024/2025" -> 01.10.2024 do 30.09.2025
-        if (selectedYear != null && !selectedYear.equals("Sve godine")) {
-            try {
-                String[] parts = selectedYear.split("/");
-                int startYearInt = Integer.parseInt(parts[0]);
-                int endYearInt = Integer.parseInt(parts[1]);
-
-                startDate = LocalDate.of(startYearInt, 10, 1);
-                endDate = LocalDate.of(endYearInt, 9, 30);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-
-        // Poziv nove DAO metode
-        Map<String, Integer> topMentors = thesisDAO.getTopMentorsFiltered(startDate, endDate);
+        // "2024/2025" -> 01.10.2024 do 30.09.2025, čita se iz kocke bez upita u bazu
+        Map<String, Integer> topMentors = StatisticsCube.getTopMentors(selectedYear);
 
         // --- OSTATAK KODA ZA UI JE ISTI KAO PRIJE ---
         vboxTopMentors.getChildren().clear();
@@ -137,8 +147,7 @@ public class StatisticsController implements Initializable {
     }
 
     private void populateSecretaryChart() {
-        // Pozivamo novu metodu iz DAO
-        Map<String, Integer> secretaryCounts = thesisDAO.getSecretaryThesisCounts();
+        Map<String, Integer> secretaryCounts = StatisticsCube.getSecretaryCounts();
         ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
 
         for (Map.Entry<String, Integer> entry : secretaryCounts.entrySet()) {
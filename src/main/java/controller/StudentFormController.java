@@ -1,7 +1,7 @@
 package controller;
 
+import dao.ReferenceDataCache;
 import dao.StudentDAO;
-import dao.StudentStatusDAO;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -22,7 +22,6 @@ public class StudentFormController {
     private Student student;
 
     private final StudentDAO studentDAO = new StudentDAO();
-    private final StudentStatusDAO statusDAO = new StudentStatusDAO();
 
     @FXML private Text formTitle;
     @FXML private Text formSubtitle;
@@ -51,7 +50,7 @@ public class StudentFormController {
         );
 
 
-        List<StudentStatus> statuses = statusDAO.getAllStatuses();
+        List<StudentStatus> statuses = ReferenceDataCache.studentStatuses();
         statusComboBox.getItems().addAll(statuses);
         statusComboBox.setConverter(new javafx.util.StringConverter<>() {
             public String toString(StudentStatus s) { return s != null ? s.getName() : ""; }
@@ -225,6 +224,6 @@ public class StudentFormController {
     @FXML
     private void back() {
         NavigationContext.setTargetView(DashboardView.STUDENTS);
-        SceneManager.show("/app/dashboard.fxml", "eDiploma");
+        SceneManager.showCached("/app/dashboard.fxml", "eDiploma");
     }
 }
\ No newline at end of file
@@ -1,20 +1,28 @@
 package controller;
 
 import Factory.StudentCardFactory;
+import dao.ChangeSet;
 import dao.StudentDAO;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import model.Student;
+import utils.AsyncHelper;
+import utils.RefreshableView;
 import utils.SceneManager;
+import utils.SearchPipeline;
 import utils.GlobalErrorHandler;
+import utils.TaskScope;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
-public class StudentsController {
+
+public class StudentsController implements RefreshableView {
 
     @FXML private VBox studentsCardsContainer;
     @FXML private TextField searchField;
@@ -24,71 +32,71 @@ public class StudentsController {
     private final StudentDAO studentDAO = new StudentDAO();
     private final StudentCardFactory cardFactory = new StudentCardFactory();
 
-    private final ObservableList<Student> masterList =
-            FXCollections.observableArrayList();
+    private static final Comparator<Student> BY_ID_DESC = Comparator.comparingInt(Student::getId).reversed();
+
+    private SearchPipeline<Student> search;
+
+    private TaskScope scope;
 
-    private FilteredList<Student> filteredList;
+    // Keširana lista i vrijeme baze do kojeg je osvježena (null = još nije učitana)
+    private List<Student> students = List.of();
+    private LocalDateTime syncedAt;
+    private Task<ChangeSet<Student>> loadTask;
 
     @FXML
     public void initialize() {
+        scope = TaskScope.boundTo(studentsCardsContainer);
         setupAddButton();
         setupSearch();
         loadStudentsAsync();
     }
 
-    private void loadStudentsAsync() {
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() {
-                masterList.clear();
-                masterList.addAll(studentDAO.getAllStudents());
-                return null;
-            }
-        };
-
-        loader.visibleProperty().bind(task.runningProperty());
-
-        task.setOnSucceeded(e -> {
-            filteredList = new FilteredList<>(masterList, s -> true);
-            renderStudents(filteredList);
-        });
-
-        task.setOnFailed(e -> {
-            GlobalErrorHandler.error("Greška pri učitavanju studenata.", task.getException());
-        });
-
-        new Thread(task, "load-students-thread").start();
+    /**
+     * Keširani view (DashboardController): dohvata samo studente izmijenjene od zadnjeg učitavanja
+     */
+    @Override
+    public void onShow() {
+        loadStudentsAsync();
     }
 
-    private void setupSearch() {
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (filteredList == null) return;
-
-            String term = newVal == null ? "" : newVal.toLowerCase().trim();
-
-            filteredList.setPredicate(student -> {
-                if (term.isEmpty()) return true;
+    private void loadStudentsAsync() {
+        if (loadTask != null && loadTask.isRunning()) return;
+
+        // Prvi put cijela lista, poslije samo izmjene; učitavanje prekinuto odlaskom sa ekrana
+        // ne pomjera syncedAt, pa se ponavlja kad se korisnik vrati
+        LocalDateTime since = syncedAt;
+        loadTask = AsyncHelper.executeAsync(
+                scope,
+                () -> studentDAO.getChangedSince(since),
+                changes -> {
+                    syncedAt = changes.syncedAt();
+                    if (changes.isEmpty()) return;
+                    // Lista se mijenja samo na FX thread-u; filter iz polja za pretragu ostaje primijenjen
+                    students = changes.applyTo(students, Student::getId, BY_ID_DESC);
+                    search.setItems(students);
+                },
+                error -> GlobalErrorHandler.error("Greška pri učitavanju studenata.", error)
+        );
 
-                String fullName = (student.getFirstName() + " " + student.getLastName()).toLowerCase();
-                return fullName.contains(term)
-                        || student.getFirstName().toLowerCase().contains(term)
-                        || student.getLastName().toLowerCase().contains(term)
-                        || String.valueOf(student.getIndexNumber()).contains(term)
-                        || (student.getEmail() != null && student.getEmail().toLowerCase().contains(term));
-            });
+        loader.visibleProperty().bind(loadTask.runningProperty());
+    }
 
-            renderStudents(filteredList);
-        });
+    private void setupSearch() {
+        // Ključ se računa jednom po redu; filtriranje ide u pozadini, prikaz jednim potezom
+        search = new SearchPipeline<>(searchField, scope, student -> SearchPipeline.key(
+                student.getFirstName() + " " + student.getLastName(),
+                student.getIndexNumber(),
+                student.getEmail()), this::renderStudents);
     }
 
-    private void renderStudents(Iterable<Student> students) {
-        studentsCardsContainer.getChildren().clear();
+    private void renderStudents(List<Student> students) {
 
+        List<Node> cards = new ArrayList<>(students.size());
         for (Student student : students) {
-            studentsCardsContainer.getChildren().add(
-                    cardFactory.create(student, this::openEditStudentPage)
-            );
+            cards.add(cardFactory.create(student, this::openEditStudentPage));
         }
+        // Jedna izmjena children liste - jedan layout pass umjesto jednog po kartici
+        studentsCardsContainer.getChildren().setAll(cards);
     }
 
     private void setupAddButton() {
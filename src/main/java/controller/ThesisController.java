@@ -1,53 +1,152 @@
 package controller;
 
+import Factory.ThesisCardCell;
 import Factory.ThesisCardFactory;
+import dao.ChangeSet;
+import dao.ReferenceDataCache;
 import dao.ThesisDAO;
-import dao.ThesisStatusDAO;
+import dto.BulkDocumentResultDTO;
 import dto.ThesisDTO;
+import dto.ThesisFilterDTO;
+import javafx.animation.PauseTransition;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.scene.control.Button;
-import javafx.scene.control.ComboBox;
-import javafx.scene.control.TextField;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.CheckBoxListCell;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
 import model.AppUser;
+import model.ThesisStatuses;
+import utils.AsyncHelper;
+import utils.BulkDocumentService;
+import utils.BulkDocumentService.BulkDocumentType;
 import utils.GlobalErrorHandler;
+import utils.RefreshableView;
 import utils.SceneManager;
+import utils.SearchPipeline;
+import utils.StartupPipeline;
+import utils.TaskScope;
+import utils.ThesisListSnapshot;
+import utils.TrigramIndex;
 import utils.UserSession;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class ThesisController {
+public class ThesisController implements RefreshableView {
     @FXML private TextField searchField;
     @FXML private ComboBox<String> statusFilter;
-    @FXML private VBox thesisCardsContainer;
+    @FXML private ListView<ThesisDTO> thesisListView;
     @FXML private Button btnAddNew;
+    @FXML private Button btnBulkGenerate;
 
     private final ThesisDAO dao;
     private final ThesisCardFactory factory;
-    private final ThesisStatusDAO statusDAO;
 
-    // Active theses (excluding graduated)
-    private List<ThesisDTO> masterList = new ArrayList<>();
-    
-    // Graduated theses cache
-    private List<ThesisDTO> graduatedThesesCache = null;
+    private static final int PAGE_SIZE = 50;
+    // Koliko redova prije kraja liste počinje učitavanje sljedeće stranice
+    private static final int PREFETCH_ROWS = 10;
+    // Gornja granica radova za jedno grupno generisanje zapisnika (i veličina stranice pri učitavanju kandidata)
+    private static final int BULK_MAX_THESES = 200;
+    // Koliko grešaka se navodi pojedinačno u izvještaju
+    private static final int BULK_MAX_LISTED_FAILURES = 10;
+
+    // Trenutno učitane stranice za aktivni filter (direktno su items ListView-a)
+    private final ObservableList<ThesisDTO> masterList = FXCollections.observableArrayList();
+    private boolean hasMorePages = true;
+    private boolean loading = false;
+    private int queryGeneration = 0;
+    private Task<Page> pageTask;
+    private Task<ChangeSet<ThesisDTO>> changesTask;
+    // Vrijeme baze do kojeg su učitane stranice osvježene (change feed); null dok prva stranica ne stigne
+    private LocalDateTime syncedAt;
+    // Izmjene stigle dok se učitavala stranica - traže se ponovo kad stranica stigne
+    private boolean changesAfterPage;
+    // Keyset paginacija ide po zadnjem radu sa servera, ne po lokalnim pogocima
+    private Integer lastServerId;
+    private boolean mergeWithLocal;
+
+    // Svi radovi učitani u ovoj sesiji, indeksirani stranicu po stranicu ("hodzic" nalazi "Hodžić",
+    // što LIKE u bazi sa binarnom kolacijom ne nalazi)
+    private final TrigramIndex<ThesisDTO> searchIndex = new TrigramIndex<>();
+    private static final Queue<Integer> DELETED_THESES = new ConcurrentLinkedQueue<>();
+    private static final Comparator<ThesisDTO> BY_ID_DESC = Comparator.comparingInt(ThesisDTO::getId).reversed();
+    private TaskScope scope;
+
+    // Da li je korisnik već tražio odbranene radove (tada ih "Svi statusi" uključuje)
     private boolean graduatedLoaded = false;
 
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(300));
+    private String lastSearch = "";
+
+    private final BulkDocumentService bulkDocumentService = new BulkDocumentService();
+
     public ThesisController() {
         this.dao = new ThesisDAO();
         this.factory = new ThesisCardFactory();
-        this.statusDAO = new ThesisStatusDAO();
     }
 
     @FXML
     public void initialize() {
-        initStatusFilter();
+        scope = TaskScope.boundTo(thesisListView);
+        // Zadnja lista sa diska se prikazuje odmah, pa usklađuje sa bazom (stale-while-revalidate)
+        ThesisListSnapshot.Snapshot snapshot = loadSnapshot();
+        initStatusFilter(snapshot != null ? snapshot.statuses() : List.of());
         initSearchListener();
+        initListView();
         setupAddButton();
-        loadThesises();
+        if (snapshot != null) {
+            showSnapshot(snapshot);
+        } else {
+            loadThesises();
+        }
+    }
+
+    private record Page(List<ThesisDTO> theses, LocalDateTime syncedAt) {}
+
+    /**
+     * Povratak na keširanu listu: filter i pretraga ostaju, a u učitane stranice se unose samo
+     * radovi izmijenjeni u međuvremenu (change feed), umjesto ponovnog učitavanja prve stranice
+     */
+    @Override
+    public void onShow() {
+        Integer deletedId;
+        while ((deletedId = DELETED_THESES.poll()) != null) {
+            searchIndex.remove(deletedId);
+        }
+
+        // Stranica u toku bi mogla donijeti stariju verziju reda od izmjena, pa se tada kreće ispočetka
+        if (syncedAt == null || loading) {
+            loadThesises();
+        } else {
+            loadChanges();
+        }
+    }
+
+    /**
+     * Obrisan rad ne smije ostati među lokalnim pogocima pretrage (poziva se iz formi)
+     */
+    public static void thesisDeleted(int thesisId) {
+        DELETED_THESES.add(thesisId);
     }
 
     private void setupAddButton() {
@@ -71,206 +170,346 @@ public class ThesisController {
         }
     }
 
-    private void initStatusFilter() {
-        statusFilter.setOnAction(e -> filterThesis());
-        Task<List<String>> task = new Task<>() {
-            @Override
-            protected List<String> call() throws Exception {
-                return statusDAO.getAllStatuses();
-            }
-        };
-        task.setOnSucceeded(e -> {
-            List<String> statusiIzBaze = task.getValue();
-            statusFilter.getItems().clear();
-            statusFilter.getItems().add("Svi statusi");
-            statusFilter.getItems().addAll(statusiIzBaze);
-            statusFilter.getSelectionModel().selectFirst();
-        });
+    /**
+     * @param cachedStatuses statusi iz lokalnog snapshot-a; prikazuju se dok šifarnici ne stignu iz baze
+     */
+    private void initStatusFilter(List<String> cachedStatuses) {
+        if (!cachedStatuses.isEmpty()) {
+            fillStatusFilter(cachedStatuses);
+        }
 
-        task.setOnFailed(e -> {
-            statusFilter.getItems().setAll("Svi statusi");
-            statusFilter.getSelectionModel().selectFirst();
-            GlobalErrorHandler.error("Greška pri učitavanju statusa.", task.getException());
-        });
+        AsyncHelper.executeAsync(
+                scope,
+                ReferenceDataCache::thesisStatuses,
+                this::fillStatusFilter,
+                error -> {
+                    if (statusFilter.getItems().isEmpty()) {
+                        fillStatusFilter(List.of());
+                    }
+                    GlobalErrorHandler.error("Greška pri učitavanju statusa.", error);
+                }
+        );
+    }
 
-        new Thread(task, "load-thesis-statuses").start();
+    private void fillStatusFilter(List<String> statuses) {
+        List<String> items = new ArrayList<>();
+        items.add("Svi statusi");
+        items.addAll(statuses);
+        if (items.equals(statusFilter.getItems())) return; // snapshot je već imao iste statuse
+
+        // Listener tek nakon popunjavanja, da izbor ne ponovi učitavanje prve stranice
+        String selected = statusFilter.getValue();
+        statusFilter.setOnAction(null);
+        statusFilter.getItems().setAll(items);
+        if (selected != null && items.contains(selected)) {
+            statusFilter.getSelectionModel().select(selected);
+        } else {
+            statusFilter.getSelectionModel().selectFirst();
+        }
+        statusFilter.setOnAction(ev -> filterThesis());
     }
 
     /**
-     * Glavni filter metod sa lazy loading logikom
+     * Glavni filter metod - resetuje listu i učitava prvu stranicu sa servera
      */
     private void filterThesis() {
         String selectedStatus = statusFilter.getValue();
-        
-        // Ako je selektovan "Odbranjen" status
+
+        // Odbraneni radovi se uključuju u "Svi statusi" tek kad ih korisnik jednom zatraži
         if (selectedStatus != null && selectedStatus.equalsIgnoreCase("Odbranjen")) {
-            if (!graduatedLoaded) {
-                // Učitaj odbranene radove prvi put
-                loadGraduatedTheses();
-                return;
-            } else {
-                // Koristi keširane odbranene radove
-                filterWithGraduated();
-                return;
-            }
+            graduatedLoaded = true;
         }
-        
-        // Ako je "Svi statusi" i odbraneni nisu učitani, samo prikaži aktivne
-        if (selectedStatus != null && selectedStatus.equals("Svi statusi") && !graduatedLoaded) {
-            filterStandard();
-            return;
+
+        loadThesises();
+    }
+
+    private ThesisFilterDTO buildFilter(Integer afterId) {
+        String selectedStatus = statusFilter.getValue();
+        String searchText = searchField.getText();
+
+        ThesisFilterDTO.ThesisFilterDTOBuilder filter = ThesisFilterDTO.builder()
+                .afterId(afterId)
+                .pageSize(PAGE_SIZE)
+                .searchText(searchText)
+                .includeGraduated(graduatedLoaded);
+
+        if (selectedStatus != null && !selectedStatus.equals("Svi statusi")) {
+            filter.status(selectedStatus);
         }
-        
-        // Ako je "Svi statusi" i odbraneni JESU učitani, prikaži sve
-        if (selectedStatus != null && selectedStatus.equals("Svi statusi") && graduatedLoaded) {
-            filterWithGraduated();
-            return;
+
+        // Ako je sekretar, dohvati samo njegove radove
+        filter.secretaryUserId(currentSecretaryUserId());
+
+        return filter.build();
+    }
+
+    private Integer currentSecretaryUserId() {
+        AppUser currentUser = UserSession.getUser();
+        if (currentUser != null && currentUser.getRole() != null
+                && "SECRETARY".equalsIgnoreCase(currentUser.getRole().getName())) {
+            return currentUser.getId();
         }
-        
-        // Standardni filter bez odbranenih
-        filterStandard();
+        return null;
+    }
+
+    private void initSearchListener() {
+        // Pretraga ide na server, pa čekamo da korisnik prestane kucati
+        searchDebounce.setOnFinished(e -> {
+            // Isti upit (npr. dodan samo razmak) ne ide ponovo na server
+            String text = searchField.getText() == null ? "" : searchField.getText().trim();
+            if (text.equals(lastSearch)) return;
+            lastSearch = text;
+            filterThesis();
+        });
+        searchField.textProperty().addListener((obs, old, newVal) -> searchDebounce.playFromStart());
+    }
+
+    private void initListView() {
+        thesisListView.setItems(masterList);
+        thesisListView.setFocusTraversable(false);
+        thesisListView.setCellFactory(lv -> new ThesisCardCell(factory, this::openEditThesisPage, index -> {
+            // Kad se prikaže jedan od zadnjih redova, traži sljedeću stranicu
+            if (index >= masterList.size() - PREFETCH_ROWS) {
+                loadNextPage();
+            }
+        }));
     }
 
     /**
-     * Standardni filter - samo aktivni radovi (bez odbranenih)
+     * Inicijalno učitavanje - prva stranica (po defaultu SVE OSIM ODBRANENIH)
      */
-    private void filterStandard() {
-        if (masterList == null || masterList.isEmpty()) return;
+    public void loadThesises() {
+        // Stranica starog filtera koja još čeka na bazu ne treba zauzimati konekciju
+        if (pageTask != null) AsyncHelper.cancel(pageTask);
+        if (changesTask != null) AsyncHelper.cancel(changesTask);
+        // Pogoci među već učitanim radovima se prikazuju odmah (i bez dijakritika), server ih dopunjava
+        List<ThesisDTO> localMatches = localMatches();
+        masterList.setAll(localMatches);
+        mergeWithLocal = !localMatches.isEmpty();
+        hasMorePages = true;
+        loading = false;
+        lastServerId = null;
+        thesisListView.scrollTo(0);
+        syncedAt = null;
+        changesAfterPage = false;
+        loadPage(null, ++queryGeneration);
+    }
 
-        String searchText = searchField.getText().toLowerCase();
-        String selectedStatus = statusFilter.getValue();
+    private void loadNextPage() {
+        if (loading || !hasMorePages || lastServerId == null) return;
+        loadPage(lastServerId, queryGeneration);
+    }
 
-        List<ThesisDTO> filtriraniRadovi = masterList.stream()
-                .filter(rad -> {
-                    boolean matchesSearch = searchText.isEmpty() ||
-                            rad.getTitle().toLowerCase().contains(searchText) ||
-                            rad.getStudentFullName().toLowerCase().contains(searchText) ||
-                            rad.getMentorFullName().toLowerCase().contains(searchText);
+    private List<ThesisDTO> localMatches() {
+        String searchText = searchField.getText();
+        if (searchText == null || searchText.isBlank()) return List.of();
 
-                    boolean matchesStatus = selectedStatus == null ||
-                            selectedStatus.equals("Svi statusi") ||
-                            rad.getStatus().equalsIgnoreCase(selectedStatus);
+        List<ThesisDTO> matches = new ArrayList<>(searchIndex.search(searchText));
+        matches.removeIf(thesis -> !matchesStatusFilter(thesis));
+        matches.sort(BY_ID_DESC);
+        return matches;
+    }
 
-                    return matchesSearch && matchesStatus;
-                })
-                .collect(Collectors.toList());
+    // Isti uslov kao buildFilter, za radove iz lokalnog indeksa
+    private boolean matchesStatusFilter(ThesisDTO thesis) {
+        String selectedStatus = statusFilter.getValue();
+        if (selectedStatus == null || selectedStatus.equals("Svi statusi")) {
+            return graduatedLoaded || !"Odbranjen".equalsIgnoreCase(thesis.getStatus());
+        }
+        return selectedStatus.equals(thesis.getStatus());
+    }
 
-        displayTheses(filtriraniRadovi);
+    private static String searchText(ThesisDTO thesis) {
+        return SearchPipeline.key(thesis.getTitle(), thesis.getStudentFullName(),
+                thesis.getStudentIndexNumber(), thesis.getMentorFullName());
     }
 
     /**
-     * Filter koji uključuje i odbranene radove (kombinuje masterList + graduatedCache)
+     * Stranica sa servera se spaja sa lokalnim pogocima: serverska verzija rada ima prednost,
+     * redoslijed ostaje po Id DESC kao u keyset paginaciji
      */
-    private void filterWithGraduated() {
-        // Kombinuj masterList sa graduatedThesesCache
-        List<ThesisDTO> combined = new ArrayList<>(masterList);
-        if (graduatedThesesCache != null) {
-            combined.addAll(graduatedThesesCache);
-        }
-        
-        String searchText = searchField.getText().toLowerCase();
-        String selectedStatus = statusFilter.getValue();
-        
-        List<ThesisDTO> filtered = combined.stream()
-            .filter(rad -> {
-                boolean matchesSearch = searchText.isEmpty() ||
-                    rad.getTitle().toLowerCase().contains(searchText) ||
-                    rad.getStudentFullName().toLowerCase().contains(searchText) ||
-                    rad.getMentorFullName().toLowerCase().contains(searchText);
-                
-                boolean matchesStatus = selectedStatus == null ||
-                    selectedStatus.equals("Svi statusi") ||
-                    rad.getStatus().equalsIgnoreCase(selectedStatus);
-                
-                return matchesSearch && matchesStatus;
-            })
-            .collect(Collectors.toList());
-        
-        displayTheses(filtered);
+    private void mergePage(List<ThesisDTO> page) {
+        Map<Integer, ThesisDTO> byId = new LinkedHashMap<>();
+        for (ThesisDTO thesis : masterList) byId.put(thesis.getId(), thesis);
+        for (ThesisDTO thesis : page) byId.put(thesis.getId(), thesis);
+
+        List<ThesisDTO> merged = new ArrayList<>(byId.values());
+        merged.sort(BY_ID_DESC);
+        masterList.setAll(merged);
     }
 
-    /**
-     * Lazy load odbranenih radova
-     */
-    private void loadGraduatedTheses() {
-        Task<List<ThesisDTO>> task = new Task<>() {
-            @Override
-            protected List<ThesisDTO> call() throws Exception {
-                AppUser currentUser = UserSession.getUser();
-                
-                if (currentUser != null && currentUser.getRole() != null) {
-                    String roleName = currentUser.getRole().getName();
-                    
-                    if ("SECRETARY".equalsIgnoreCase(roleName)) {
-                        return dao.getGraduatedThesisBySecretaryId(currentUser.getId());
+    private void loadPage(Integer afterId, int generation) {
+        loading = true;
+        ThesisFilterDTO filter = buildFilter(afterId);
+        // Vrijeme baze se čita prije prve stranice, pa change feed od njega ne propušta ništa
+        boolean firstPage = afterId == null;
+
+        pageTask = AsyncHelper.executeAsync(
+                scope,
+                () -> {
+                    LocalDateTime pageSyncedAt = firstPage ? ChangeSet.syncPoint() : null;
+                    return new Page(dao.getThesisPage(filter), pageSyncedAt);
+                },
+                result -> {
+                    // Odgovor na stariji upit (promijenjen filter u međuvremenu) se odbacuje
+                    if (generation != queryGeneration) return;
+
+                    List<ThesisDTO> page = result.theses();
+                    if (firstPage) syncedAt = result.syncedAt();
+                    StartupPipeline.mark(StartupPipeline.THESIS_LIST_SHOWN);
+                    hasMorePages = page.size() == PAGE_SIZE;
+                    loading = false;
+                    if (!page.isEmpty()) lastServerId = page.get(page.size() - 1).getId();
+                    for (ThesisDTO thesis : page) {
+                        searchIndex.put(thesis.getId(), thesis, searchText(thesis));
+                    }
+
+                    // Jedna izmjena liste - ListView kreira čvorove samo za vidljive redove
+                    if (mergeWithLocal) {
+                        mergePage(page);
+                    } else {
+                        masterList.addAll(page);
+                    }
+                    System.out.println("[ThesisController] Loaded page of " + page.size() + " theses (total " + masterList.size() + ").");
+
+                    // Snapshot čuva samo početak liste, pa ga dalje stranice ne mijenjaju
+                    if (masterList.size() - page.size() < ThesisListSnapshot.MAX_ROWS) saveSnapshot();
+                    if (changesAfterPage) {
+                        changesAfterPage = false;
+                        loadChanges();
                     }
+                },
+                error -> {
+                    if (generation != queryGeneration) return;
+                    loading = false;
+                    GlobalErrorHandler.error("Greška pri učitavanju završnih radova.", error);
                 }
-                
-                return dao.getGraduatedTheses();
-            }
-        };
-        
-        task.setOnSucceeded(e -> {
-            graduatedThesesCache = task.getValue();
-            graduatedLoaded = true;
-            System.out.println("[ThesisController] Loaded " + graduatedThesesCache.size() + " graduated theses.");
-            filterWithGraduated();
-        });
-        
-        task.setOnFailed(e -> {
-            GlobalErrorHandler.error("Greška pri učitavanju odbranenih radova.", task.getException());
-        });
-        
-        new Thread(task, "load-graduated-theses").start();
+        );
     }
 
-    private void initSearchListener() {
-        searchField.textProperty().addListener((obs, old, newVal) -> filterThesis());
+    private void loadChanges() {
+        if (changesTask != null && changesTask.isRunning()) return;
+        LocalDateTime since = syncedAt;
+        Integer secretaryUserId = currentSecretaryUserId();
+        int generation = queryGeneration;
+
+        changesTask = AsyncHelper.executeAsync(
+                scope,
+                () -> dao.getChangedSince(since, secretaryUserId),
+                changes -> {
+                    // Filter promijenjen u međuvremenu - nove stranice su ionako svježe
+                    if (generation != queryGeneration) return;
+                    if (loading) {
+                        changesAfterPage = true; // ponavlja se kad stranica stigne
+                        return;
+                    }
+                    syncedAt = changes.syncedAt();
+                    if (!changes.isEmpty()) applyChanges(changes);
+                },
+                error -> GlobalErrorHandler.error("Greška pri osvježavanju završnih radova.", error)
+        );
     }
 
     /**
-     * Inicijalno učitavanje - SVE OSIM ODBRANENIH
+     * Izmijenjeni radovi se zamjenjuju na mjestu, obrisani i oni koji više ne odgovaraju filteru
+     * se izbacuju, a novi ulaze samo u raspon već učitanih stranica - niže ih donosi keyset paginacija
      */
-    public void loadThesises() {
-        Task<List<ThesisDTO>> task = new Task<List<ThesisDTO>>() {
-            @Override
-            protected List<ThesisDTO> call() throws Exception {
-                // Dohvatanje trenutno ulogovanog korisnika
-                AppUser currentUser = UserSession.getUser();
-                
-                // Provjera role korisnika
-                if (currentUser != null && currentUser.getRole() != null) {
-                    String roleName = currentUser.getRole().getName();
-                    
-                    // Ako je sekretar, dohvati samo njegove radove (osim odbranenih)
-                    if ("SECRETARY".equalsIgnoreCase(roleName)) {
-                        return dao.getThesisBySecretaryIdExcludingGraduated(currentUser.getId());
-                    }
-                }
-                
-                // Za sve ostale korisnike (ADMINISTRATOR itd.), dohvati sve radove (osim odbranenih)
-                return dao.getAllThesisExcludingGraduated();
+    private void applyChanges(ChangeSet<ThesisDTO> changes) {
+        Map<Integer, ThesisDTO> byId = new LinkedHashMap<>();
+        for (ThesisDTO thesis : masterList) byId.put(thesis.getId(), thesis);
+
+        for (Integer id : changes.removedIds()) {
+            searchIndex.remove(id);
+            byId.remove(id);
+        }
+        for (ThesisDTO thesis : changes.changed()) {
+            searchIndex.put(thesis.getId(), thesis, searchText(thesis));
+
+            boolean loadedRange = !hasMorePages || (lastServerId != null && thesis.getId() > lastServerId);
+            if (!matchesStatusFilter(thesis) || !matchesSearch(thesis)) {
+                byId.remove(thesis.getId());
+            } else if (loadedRange || byId.containsKey(thesis.getId())) {
+                byId.put(thesis.getId(), thesis);
             }
-        };
-        task.setOnSucceeded(e -> {
-            masterList = task.getValue();
-            System.out.println("[ThesisController] Loaded " + masterList.size() + " active theses (excluding graduated).");
-            displayTheses(masterList);
-        });
-        task.setOnFailed(e -> {
-            GlobalErrorHandler.error("Greška pri učitavanju završnih radova.", task.getException());
-        });
-        new Thread(task, "load-theses").start();
+        }
+
+        List<ThesisDTO> merged = new ArrayList<>(byId.values());
+        merged.sort(BY_ID_DESC);
+        masterList.setAll(merged);
+        System.out.println("[ThesisController] Applied " + changes.changed().size() + " changed and "
+                + changes.removedIds().size() + " removed theses.");
+        saveSnapshot();
     }
 
-    private void displayTheses(List<ThesisDTO> radovi) {
-        thesisCardsContainer.getChildren().clear();
+    // ==================== LOCAL SNAPSHOT ====================
+
+    private ThesisListSnapshot.Snapshot loadSnapshot() {
+        AppUser currentUser = UserSession.getUser();
+        if (currentUser == null) return null;
+
+        ThesisListSnapshot.Snapshot snapshot = ThesisListSnapshot.load(currentUser.getId());
+        // Prazan, a nepotpun snapshot nema od čega nastaviti keyset paginaciju
+        if (snapshot == null || (snapshot.theses().isEmpty() && !snapshot.complete())) return null;
+        return snapshot;
+    }
 
-        for (ThesisDTO rad : radovi) {
-            VBox card = factory.createCard(rad);
-            card.setOnMouseClicked(e -> openEditThesisPage(rad));
-            thesisCardsContainer.getChildren().add(card);
+    /**
+     * Lista sa diska se prikazuje bez čekanja na bazu, a change feed od njenog syncedAt je zatim
+     * usklađuje; sljedeće stranice idu keyset paginacijom od zadnjeg rada iz snapshot-a
+     */
+    private void showSnapshot(ThesisListSnapshot.Snapshot snapshot) {
+        List<ThesisDTO> theses = snapshot.theses();
+        for (ThesisDTO thesis : theses) {
+            searchIndex.put(thesis.getId(), thesis, searchText(thesis));
         }
+        masterList.setAll(theses);
+        hasMorePages = !snapshot.complete();
+        lastServerId = theses.isEmpty() ? null : theses.get(theses.size() - 1).getId();
+        syncedAt = snapshot.syncedAt();
+        StartupPipeline.mark(StartupPipeline.THESIS_LIST_SHOWN);
+        System.out.println("[ThesisController] Showing " + theses.size() + " theses from local snapshot.");
+
+        loadChanges();
+    }
+
+    // Snapshot je početak liste bez filtera - samo se on prikazuje pri sljedećem pokretanju
+    private void saveSnapshot() {
+        AppUser currentUser = UserSession.getUser();
+        if (currentUser == null || syncedAt == null || !isDefaultFilter()) return;
+
+        int rows = Math.min(masterList.size(), ThesisListSnapshot.MAX_ROWS);
+        ThesisListSnapshot.Snapshot snapshot = new ThesisListSnapshot.Snapshot(
+                List.copyOf(masterList.subList(0, rows)),
+                statusFilter.getItems().stream().filter(status -> !status.equals("Svi statusi")).toList(),
+                syncedAt,
+                !hasMorePages && rows == masterList.size());
+        int userId = currentUser.getId();
+
+        // Bez scope-a: prekid bi zatvorio FileChannel usred upisa
+        AsyncHelper.executeAsyncInMemory(
+                null,
+                () -> {
+                    ThesisListSnapshot.save(userId, snapshot);
+                    return null;
+                },
+                null,
+                error -> System.err.println("[ThesisController] Snapshot not saved: " + error.getMessage())
+        );
+    }
+
+    private boolean isDefaultFilter() {
+        String selectedStatus = statusFilter.getValue();
+        String searchText = searchField.getText();
+        return (selectedStatus == null || selectedStatus.equals("Svi statusi"))
+                && !graduatedLoaded
+                && (searchText == null || searchText.isBlank());
+    }
+
+    // Lokalna provjera pretrage za izmijenjene radove; bez dijakritika, kao lokalni indeks
+    private boolean matchesSearch(ThesisDTO thesis) {
+        String searchText = searchField.getText();
+        if (searchText == null || searchText.isBlank()) return true;
+        return SearchPipeline.normalize(searchText(thesis)).contains(SearchPipeline.normalize(searchText));
     }
 
     private void openAddThesisPage() {
@@ -298,4 +537,193 @@ public class ThesisController {
     private void handleAddNew() {
         openAddThesisPage();
     }
+
+    /**
+     * Grupno generisanje zapisnika za radove koji čekaju zapisnike (sesija komisije);
+     * sekretar u dijalogu bira za koje radove
+     */
+    @FXML
+    private void handleBulkGenerate() {
+        Integer secretaryUserId = currentSecretaryUserId();
+
+        AsyncHelper.executeAsyncWithDisable(
+                () -> loadBulkCandidates(secretaryUserId),
+                this::showBulkGenerateDialog,
+                error -> GlobalErrorHandler.error("Greška pri učitavanju radova za grupno generisanje.", error),
+                btnBulkGenerate
+        );
+    }
+
+    // Svi radovi koji čekaju zapisnike, stranicu po stranicu (keyset), da nijedan ne ispadne iz izbora
+    private List<ThesisDTO> loadBulkCandidates(Integer secretaryUserId) {
+        List<ThesisDTO> candidates = new ArrayList<>();
+        Integer afterId = null;
+        List<ThesisDTO> page;
+        do {
+            page = dao.getThesisPage(ThesisFilterDTO.builder()
+                    .afterId(afterId)
+                    .pageSize(BULK_MAX_THESES)
+                    .status(ThesisStatuses.GENERISANJE_ZAPISNIKA)
+                    .secretaryUserId(secretaryUserId)
+                    .build());
+            candidates.addAll(page);
+            if (!page.isEmpty()) afterId = page.get(page.size() - 1).getId();
+        } while (page.size() == BULK_MAX_THESES);
+        return candidates;
+    }
+
+    private void showBulkGenerateDialog(List<ThesisDTO> theses) {
+        if (theses.isEmpty()) {
+            GlobalErrorHandler.info("Nema radova u statusu \"" + ThesisStatuses.GENERISANJE_ZAPISNIKA + "\".");
+            return;
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Grupno generisanje zapisnika");
+        dialog.setHeaderText("Radova u statusu \"" + ThesisStatuses.GENERISANJE_ZAPISNIKA + "\": " + theses.size());
+
+        ButtonType generateButtonType = new ButtonType("Generiši", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(generateButtonType, ButtonType.CANCEL);
+
+        ComboBox<BulkDocumentType> typeCombo = new ComboBox<>(FXCollections.observableArrayList(BulkDocumentType.values()));
+        typeCombo.getSelectionModel().selectFirst();
+        typeCombo.setPrefWidth(400);
+
+        DatePicker datePicker = new DatePicker(LocalDate.now());
+        datePicker.setPrefWidth(400);
+
+        // Izbor radova: unaprijed su označeni prvi BULK_MAX_THESES, više se ne može pokrenuti odjednom
+        Map<ThesisDTO, BooleanProperty> selected = new LinkedHashMap<>();
+        IntegerProperty selectedCount = new SimpleIntegerProperty();
+        for (ThesisDTO thesis : theses) {
+            BooleanProperty checked = new SimpleBooleanProperty(selected.size() < BULK_MAX_THESES);
+            checked.addListener((obs, was, now) -> selectedCount.set(selectedCount.get() + (now ? 1 : -1)));
+            selected.put(thesis, checked);
+        }
+        selectedCount.set(Math.min(theses.size(), BULK_MAX_THESES));
+
+        ListView<ThesisDTO> thesisList = new ListView<>(FXCollections.observableArrayList(theses));
+        thesisList.setPrefSize(400, 250);
+        thesisList.setCellFactory(CheckBoxListCell.forListView(selected::get, new StringConverter<>() {
+            @Override
+            public String toString(ThesisDTO thesis) {
+                return thesis.getStudentFullName() + " - " + thesis.getTitle();
+            }
+
+            @Override
+            public ThesisDTO fromString(String text) {
+                return null;
+            }
+        }));
+
+        CheckBox selectAll = new CheckBox("Označi sve");
+        selectAll.setSelected(theses.size() <= BULK_MAX_THESES);
+        selectAll.setOnAction(e -> selected.values().forEach(checked -> checked.set(selectAll.isSelected())));
+
+        Label selectedLabel = new Label();
+        selectedLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> "Odabrano: " + selectedCount.get() + " od " + theses.size()
+                        + (selectedCount.get() > BULK_MAX_THESES ? " (najviše " + BULK_MAX_THESES + " odjednom)" : ""),
+                selectedCount));
+
+        VBox content = new VBox(10);
+        content.setPadding(new Insets(20));
+        content.getChildren().addAll(new Label("Dokument:"), typeCombo, new Label("Datum zapisnika:"), datePicker,
+                new Label("Radovi:"), selectAll, thesisList, selectedLabel);
+        dialog.getDialogPane().setContent(content);
+
+        Node generateButton = dialog.getDialogPane().lookupButton(generateButtonType);
+        generateButton.disableProperty().bind(datePicker.valueProperty().isNull()
+                .or(selectedCount.isEqualTo(0))
+                .or(selectedCount.greaterThan(BULK_MAX_THESES)));
+
+        dialog.showAndWait()
+                .filter(result -> result == generateButtonType)
+                .ifPresent(result -> runBulkGenerate(
+                        theses.stream().filter(thesis -> selected.get(thesis).get()).map(ThesisDTO::getId).toList(),
+                        typeCombo.getValue(),
+                        datePicker.getValue()));
+    }
+
+    private void runBulkGenerate(List<Integer> thesisIds, BulkDocumentType type, LocalDate reportDate) {
+        // Dijalog napretka - zatvara se tek kad se obrada završi; "Prekini" samo traži prekid,
+        // pa se trenutni prozor završi i prikaže se rezultat za obrađene radove
+        AtomicBoolean stopRequested = new AtomicBoolean();
+        ButtonType stopType = new ButtonType("Prekini", ButtonBar.ButtonData.CANCEL_CLOSE);
+        Dialog<Void> progressDialog = new Dialog<>();
+        progressDialog.setTitle("Grupno generisanje zapisnika");
+        progressDialog.setHeaderText(type.getDocumentTypeName());
+        progressDialog.getDialogPane().getButtonTypes().add(stopType);
+        Node stopButton = progressDialog.getDialogPane().lookupButton(stopType);
+
+        // Bez scope-a: započeto generisanje se završava i kad korisnik ode sa ekrana
+        Task<BulkDocumentResultDTO> task = AsyncHelper.executeAsyncWithProgress(
+                null,
+                progress -> {
+                    progress.update(0, thesisIds.size(), "Priprema podataka...");
+                    return bulkDocumentService.generate(thesisIds, type, reportDate,
+                            (done, total) -> progress.update(done, total, "Obrađeno " + done + " od " + total + " radova..."),
+                            () -> stopRequested.get() || progress.isCancelled());
+                },
+                result -> {
+                    progressDialog.close();
+                    showBulkResult(result);
+                    loadThesises();
+                },
+                error -> {
+                    progressDialog.close();
+                    GlobalErrorHandler.error("Greška pri grupnom generisanju zapisnika.", error);
+                }
+        );
+
+        Runnable requestStop = () -> {
+            stopRequested.set(true);
+            stopButton.setDisable(true);
+            progressDialog.setHeaderText(type.getDocumentTypeName() + " - prekidanje nakon trenutne grupe...");
+        };
+        stopButton.addEventFilter(ActionEvent.ACTION, event -> {
+            event.consume();
+            requestStop.run();
+        });
+        progressDialog.setOnCloseRequest(event -> {
+            if (task.isRunning()) {
+                event.consume();
+                requestStop.run();
+            }
+        });
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(400);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Label progressLabel = new Label();
+        progressLabel.textProperty().bind(task.messageProperty());
+
+        VBox content = new VBox(10, progressLabel, progressBar);
+        content.setPadding(new Insets(20));
+        progressDialog.getDialogPane().setContent(content);
+
+        progressDialog.show();
+    }
+
+    private void showBulkResult(BulkDocumentResultDTO result) {
+        StringBuilder message = new StringBuilder()
+                .append("Uspješno generisano: ").append(result.getSucceededThesisIds().size())
+                .append(" od ").append(result.getTotal()).append(".");
+
+        if (result.getFailures().isEmpty()) {
+            GlobalErrorHandler.info(message.toString());
+            return;
+        }
+
+        message.append("\n\nNije generisano (").append(result.getFailures().size()).append("):");
+        int listed = 0;
+        for (Map.Entry<Integer, String> failure : result.getFailures().entrySet()) {
+            if (listed++ == BULK_MAX_LISTED_FAILURES) {
+                message.append("\n...");
+                break;
+            }
+            message.append("\n- Rad #").append(failure.getKey()).append(": ").append(failure.getValue());
+        }
+        GlobalErrorHandler.warning(message.toString());
+    }
 }
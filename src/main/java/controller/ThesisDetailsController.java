@@ -1,11 +1,11 @@
 package controller;
 
 import Factory.DocumentCardFactory;
-import dao.CommissionDAO;
 import dao.DocumentDAO;
-import dao.DocumentTypeDAO;
 import dao.ThesisDAO;
+import dao.ThesisDetailsDAO;
 import dto.ThesisDetailsDTO;
+import dto.ThesisDetailsViewDTO;
 import dto.ThesisLockInfoDTO;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
@@ -25,7 +25,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.Base64;
 
 public class ThesisDetailsController {
 
@@ -77,10 +76,9 @@ public class ThesisDetailsController {
     private VBox documentsContainer;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
-    private final CommissionDAO commissionDAO = new CommissionDAO();
+    private final ThesisDetailsDAO thesisDetailsDAO = new ThesisDetailsDAO();
 
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
     private final DocumentCardFactory cardFactory = new DocumentCardFactory();
 
     // EMAIL SERVICE
@@ -89,108 +87,59 @@ public class ThesisDetailsController {
     private Map<Integer, DocumentType> typeById = new HashMap<>();
 
     private int thesisId;
+    private ThesisDetailsViewDTO currentView;
     private ThesisDetailsDTO currentDetails;
     private Commission currentCommission;
 
+    private TaskScope scope;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy.");
 
+    @FXML
+    public void initialize() {
+        scope = TaskScope.boundTo(titleValue);
+    }
+
     public void initWithThesisId(int thesisId) {
         this.thesisId = thesisId;
         loadThesisDetails();
     }
 
+    /**
+     * Detalji, komisija i dokumenti se učitavaju zajedno (jedna konekcija, ThesisDetailsDAO)
+     */
     private void loadThesisDetails() {
-        Task<ThesisDetailsDTO> task = new Task<>() {
-            @Override
-            protected ThesisDetailsDTO call() throws Exception {
-                return thesisDAO.getThesisDetails(thesisId);
-            }
-        };
+        Task<ThesisDetailsViewDTO> task = AsyncHelper.executeAsync(
+                scope,
+                () -> thesisDetailsDAO.load(thesisId),
+                view -> {
+                    currentView = view;
+                    if (currentView != null) {
+                        currentDetails = currentView.getDetails();
+                        currentCommission = currentView.getCommission();
+                        populateFields();
+                        updateCommissionDisplay();
+                        buildDocumentsUI(currentView);
+                    } else {
+                        GlobalErrorHandler.error("Završni rad nije pronađen.");
+                    }
+                },
+                error -> GlobalErrorHandler.error("Greška pri učitavanju detalja završnog rada.", error)
+        );
 
         if (loader != null) {
             loader.visibleProperty().bind(task.runningProperty());
         }
-
-        task.setOnSucceeded(e -> {
-            currentDetails = task.getValue();
-            if (currentDetails != null) {
-                populateFields();
-                loadCommission();
-                loadDocumentsUIAsync();
-            } else {
-                GlobalErrorHandler.error("Završni rad nije pronađen.");
-            }
-        });
-
-        task.setOnFailed(e -> GlobalErrorHandler.error(
-                "Greška pri učitavanju detalja završnog rada.",
-                task.getException()
-        ));
-
-        new Thread(task, "load-thesis-details").start();
-    }
-
-    private void loadCommission() {
-        Task<Commission> task = new Task<>() {
-            @Override
-            protected Commission call() throws Exception {
-                return commissionDAO.getCommissionByThesisId(thesisId);
-            }
-        };
-
-        task.setOnSucceeded(e -> {
-            currentCommission = task.getValue();
-            updateCommissionDisplay();
-        });
-
-        task.setOnFailed(e -> {
-            updateCommissionDisplay();
-            GlobalErrorHandler.error("Greška pri učitavanju komisije.", task.getException());
-        });
-
-        new Thread(task, "load-commission").start();
-    }
-
-    private void loadDocumentsUIAsync() {
-        Task<Void> task = new Task<>() {
-            List<DocumentType> types;
-            List<Document> docs;
-
-            @Override
-            protected Void call() throws Exception {
-                types = documentTypeDAO.getAllOrdered();
-                docs = documentDAO.getByThesisId(thesisId);
-                return null;
-            }
-
-            @Override
-            protected void succeeded() {
-                buildDocumentsUI(types, docs);
-            }
-
-            @Override
-            protected void failed() {
-                GlobalErrorHandler.error("Greška pri učitavanju dokumenata.", getException());
-            }
-        };
-
-        new Thread(task, "load-documents").start();
     }
 
-    private void buildDocumentsUI(List<DocumentType> types, List<Document> docs) {
+    private void buildDocumentsUI(ThesisDetailsViewDTO view) {
         if (documentsContainer == null) return;
 
         // cache type map
-        typeById = (types == null ? List.<DocumentType>of() : types)
+        typeById = view.getDocumentTypes()
                 .stream()
-                .filter(Objects::nonNull)
                 .collect(Collectors.toMap(DocumentType::getId, Function.identity(), (a, b) -> a));
 
-        Map<Integer, Document> docByTypeId = (docs == null ? List.<Document>of() : docs)
-                .stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(Document::getTypeId, Function.identity(), (a, b) -> a));
-
         DocumentCardFactory.Actions actions = new DocumentCardFactory.Actions();
         actions.onEdit = this::openEditorForType;
         actions.onDownload = this::downloadDocument;
@@ -200,8 +149,8 @@ public class ThesisDetailsController {
 
         boolean previousAllReady = true;
 
-        for (DocumentType type : (types == null ? List.<DocumentType>of() : types)) {
-            Document doc = docByTypeId.get(type.getId());
+        for (DocumentType type : view.getDocumentTypes()) {
+            Document doc = view.getDocument(type);
 
             boolean blockedByPrevious = !previousAllReady;
 
@@ -307,34 +256,61 @@ public class ThesisDetailsController {
             return;
         }
 
-        try {
-            String base64 = documentDAO.getContentBase64(doc.getId());
-            if (base64 == null || base64.isBlank()) {
-                GlobalErrorHandler.error("Dokument nema sačuvan sadržaj (PDF).");
-                return;
-            }
-
-            byte[] pdfBytes = Base64.getDecoder().decode(base64);
-
-            FileChooser fc = new FileChooser();
-            fc.setTitle("Sačuvaj dokument");
-            fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
-
-            // Generate filename: {DocumentType}_{FirstName}_{LastName}.pdf
-            String fileName = generateDownloadFileName(doc);
-            fc.setInitialFileName(fileName);
-
-            File file = fc.showSaveDialog(documentsContainer.getScene().getWindow());
-            if (file == null) return;
+        // Provjera i kopiranje idu u pozadini - BLOB može biti velik, a baza je u cloud-u
+        Task<Boolean> check = AsyncHelper.executeAsync(
+                scope,
+                () -> documentDAO.hasContent(doc.getId()),
+                hasContent -> {
+                    if (hasContent) {
+                        chooseFileAndDownload(doc);
+                    } else {
+                        GlobalErrorHandler.error("Dokument nema sačuvan sadržaj (PDF).");
+                    }
+                },
+                error -> GlobalErrorHandler.error("Greška pri preuzimanju dokumenta.", error)
+        );
 
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                fos.write(pdfBytes);
-            }
+        if (loader != null) {
+            loader.visibleProperty().bind(check.runningProperty());
+        }
+    }
 
-            GlobalErrorHandler.info("Dokument je sačuvan.");
+    private void chooseFileAndDownload(Document doc) {
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Sačuvaj dokument");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+
+        // Generate filename: {DocumentType}_{FirstName}_{LastName}.pdf
+        String fileName = generateDownloadFileName(doc);
+        fc.setInitialFileName(fileName);
+
+        File file = fc.showSaveDialog(documentsContainer.getScene().getWindow());
+        if (file == null) return;
+
+        // Bez scope-a: započeto preuzimanje se završava i kad korisnik ode sa ekrana
+        Task<Long> copy = AsyncHelper.executeAsync(
+                () -> {
+                    // PDF ide iz baze direktno u fajl, bez kopije cijelog dokumenta u memoriji
+                    try (FileOutputStream fos = new FileOutputStream(file)) {
+                        return documentDAO.copyContentTo(doc.getId(), fos);
+                    }
+                },
+                written -> {
+                    if (written < 0) {
+                        file.delete();
+                        GlobalErrorHandler.error("Dokument nema sačuvan sadržaj (PDF).");
+                    } else {
+                        GlobalErrorHandler.info("Dokument je sačuvan.");
+                    }
+                },
+                error -> {
+                    file.delete(); // ne ostavljati nepotpun PDF
+                    GlobalErrorHandler.error("Greška pri preuzimanju dokumenta.", error);
+                }
+        );
 
-        } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri preuzimanju dokumenta.", e);
+        if (loader != null) {
+            loader.visibleProperty().bind(copy.runningProperty());
         }
     }
 
@@ -487,25 +463,17 @@ public class ThesisDetailsController {
     }
 
     private void sendEmailAsync(Document document) {
-        Task<Boolean> task = new Task<>() {
-            @Override
-            protected Boolean call() throws Exception {
-                return emailNotificationService.sendDocumentEmail(document);
-            }
-        };
+        // Bez scope-a: email se šalje do kraja i kad korisnik ode sa ekrana
+        Task<Boolean> task = AsyncHelper.executeAsync(
+                () -> emailNotificationService.sendDocumentEmail(document),
+                sent -> {},
+                error -> GlobalErrorHandler.error("Greška pri slanju emaila.", error)
+        );
 
         // Prikaži loading indicator
         if (loader != null) {
             loader.visibleProperty().bind(task.runningProperty());
         }
-
-        task.setOnSucceeded(e -> {});
-
-        task.setOnFailed(e -> {
-            GlobalErrorHandler.error("Greška pri slanju emaila.", task.getException());
-        });
-
-        new Thread(task, "send-document-email").start();
     }
 
 
@@ -520,6 +488,7 @@ public class ThesisDetailsController {
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
                 thesisDAO.deleteThesis(thesisId);
+                ThesisController.thesisDeleted(thesisId);
                 GlobalErrorHandler.info("Završni rad je uspješno obrisan!");
                 back();
             } catch (Exception e) {
@@ -612,13 +581,13 @@ public class ThesisDetailsController {
 
             if ("SECRETARY".equalsIgnoreCase(roleName)) {
                 // Sekretar se vraća na secretary dashboard
-                SceneManager.show("/app/secretary-dashboard.fxml", "eDiploma - Sekretar");
+                SceneManager.showCached("/app/secretary-dashboard.fxml", "eDiploma - Sekretar");
                 return;
             }
         }
 
         // Svi ostali korisnici se vraćaju na glavni dashboard
-        SceneManager.show("/app/dashboard.fxml", "eDiploma");
+        SceneManager.showCached("/app/dashboard.fxml", "eDiploma");
     }
 
     @FXML
@@ -703,22 +672,17 @@ public class ThesisDetailsController {
             return;
         }
 
-        DocumentType commissionReportDocType = documentTypeDAO.getByName("Rješenje o formiranju Komisije");
-        if (commissionReportDocType != null) {
-            Document commissionReportDoc = documentDAO.getByThesisAndType(thesisId, commissionReportDocType.getId());
-            if (commissionReportDoc == null || commissionReportDoc.getStatus() != DocumentStatus.READY) {
-                GlobalErrorHandler.error("Dokument 'Rješenje o formiranju Komisije' mora biti završen prije kreiranja obavijesti.");
-                return;
-            }
+        // Statusi dokumenata su već učitani sa ekranom - bez dodatnih upita
+        Document commissionReportDoc = currentView != null ? currentView.getDocumentByTypeName("Rješenje o formiranju Komisije") : null;
+        if (commissionReportDoc == null || commissionReportDoc.getStatus() != DocumentStatus.READY) {
+            GlobalErrorHandler.error("Dokument 'Rješenje o formiranju Komisije' mora biti završen prije kreiranja obavijesti.");
+            return;
         }
 
-        DocumentType approvalDocType = documentTypeDAO.getByName("Rješenje o izradi završnog rada");
-        if (approvalDocType != null) {
-            Document approvalDoc = documentDAO.getByThesisAndType(thesisId, approvalDocType.getId());
-            if (approvalDoc == null || approvalDoc.getStatus() != DocumentStatus.READY) {
-                GlobalErrorHandler.error("Dokument 'Rješenje o izradi završnog rada' mora biti završen prije kreiranja obavijesti.");
-                return;
-            }
+        Document approvalDoc = currentView.getDocumentByTypeName("Rješenje o izradi završnog rada");
+        if (approvalDoc == null || approvalDoc.getStatus() != DocumentStatus.READY) {
+            GlobalErrorHandler.error("Dokument 'Rješenje o izradi završnog rada' mora biti završen prije kreiranja obavijesti.");
+            return;
         }
 
         SceneManager.showWithData(
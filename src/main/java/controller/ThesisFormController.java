@@ -112,7 +112,7 @@ public class ThesisFormController {
 
     private void loadDepartments() {
         AsyncHelper.executeAsync(
-            () -> departmentDAO.getAllDepartments(),
+            () -> ReferenceDataCache.departments(),
             departments -> {
                 departmentComboBox.getItems().setAll(departments);
                 onDataLoaded();
@@ -126,7 +126,7 @@ public class ThesisFormController {
 
     private void loadSubjects() {
         AsyncHelper.executeAsync(
-            () -> subjectDAO.getAllSubjects(),
+            () -> ReferenceDataCache.subjects(),
             subjects -> {
                 subjectComboBox.getItems().setAll(subjects);
                 onDataLoaded();
@@ -383,7 +383,6 @@ public class ThesisFormController {
                 thesisDAO.unlockThesis(thesis.getId(), userId);
 
                 GlobalErrorHandler.info("Završni rad je uspješno ažuriran!");
-                MentorsController.requestRefresh();
 
                 if (returnToThesisId != null) {
                     SceneManager.showWithData("/app/thesisDetails.fxml", "Detalji završnog rada",
@@ -501,8 +500,8 @@ public class ThesisFormController {
             if (response == ButtonType.OK) {
                 try {
                     thesisDAO.deleteThesis(thesis.getId());
+                    ThesisController.thesisDeleted(thesis.getId());
                     GlobalErrorHandler.info("Završni rad je uspješno obrisan!");
-                    MentorsController.requestRefresh();
                     returnToDashboard();
                 } catch (Exception e) {
                     GlobalErrorHandler.error("Greška pri brisanju:");
@@ -533,12 +532,12 @@ public class ThesisFormController {
             String roleName = currentUser.getRole().getName();
             
             if ("SECRETARY".equalsIgnoreCase(roleName)) {
-                SceneManager.show("/app/secretary-dashboard.fxml", "eDiploma - Sekretar");
+                SceneManager.showCached("/app/secretary-dashboard.fxml", "eDiploma - Sekretar");
                 return;
             }
         }
         
-        SceneManager.show("/app/dashboard.fxml", "eDiploma");
+        SceneManager.showCached("/app/dashboard.fxml", "eDiploma");
     }
 
 
@@ -625,8 +624,9 @@ public class ThesisFormController {
                     newSubject.setName(subjectName);
 
                     subjectDAO.AddSubject(newSubject);
+                    ReferenceDataCache.refresh();
 
-                    return subjectDAO.getAllSubjects();
+                    return ReferenceDataCache.subjects();
                 },
                 subjects -> {
                     subjectComboBox.getItems().setAll(subjects);
@@ -722,8 +722,9 @@ public class ThesisFormController {
                     // NAPOMENA: Ovdje pozivate metodu iz vašeg DepartmentDAO-a.
                     // Ako se metoda u DAO klasi zove drugačije (npr. insertDepartment), promijenite naziv ispod!
                     departmentDAO.addDepartment(newDepartment);
+                    ReferenceDataCache.refresh();
 
-                    return departmentDAO.getAllDepartments();
+                    return ReferenceDataCache.departments();
                 },
                 departments -> {
                     // Ažuriranje ComboBox-a sa novom listom
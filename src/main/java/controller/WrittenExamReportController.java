@@ -1,23 +1,22 @@
 package controller;
 
-import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import dao.*;
 import dto.ThesisDetailsDTO;
-import dto.WrittenExamReportDTO;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import model.*;
+import utils.AsyncHelper;
 import utils.GlobalErrorHandler;
+import utils.PdfRenderService;
+import utils.ReportHtmlBuilder;
 import utils.SceneManager;
 import utils.UserSession;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 public class WrittenExamReportController {
 
@@ -31,11 +30,11 @@ public class WrittenExamReportController {
     @FXML private Text secretaryText;
     @FXML private TextField facultyDecisionField;
     @FXML private DatePicker writtenReportDatePicker; // NOVO: DatePicker za datum zapisnika
+    @FXML private Button saveButton;
 
     private final ThesisDAO thesisDAO = new ThesisDAO();
     private final CommissionDAO commissionDAO = new CommissionDAO();
     private final DocumentDAO documentDAO = new DocumentDAO();
-    private final DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
     private DocumentType thisDocType;
 
     private int thesisId;
@@ -67,7 +66,7 @@ public class WrittenExamReportController {
                 return;
             }
 
-            thisDocType = documentTypeDAO.getByName("Zapisnik o pismenom dijelu diplomskog rada");
+            thisDocType = ReferenceDataCache.documentType("Zapisnik o pismenom dijelu diplomskog rada");
             if (thisDocType == null) {
                 GlobalErrorHandler.error("DocumentType nije pronađen.");
                 back();
@@ -75,7 +74,7 @@ public class WrittenExamReportController {
             }
 
             // Load approval decision number from first document
-            DocumentType approvalDocType = documentTypeDAO.getByName("Rješenje o izradi završnog rada");
+            DocumentType approvalDocType = ReferenceDataCache.documentType("Rješenje o izradi završnog rada");
             if (approvalDocType != null) {
                 Document approvalDoc = documentDAO.getByThesisAndType(thesisId, approvalDocType.getId());
                 if (approvalDoc != null && approvalDoc.getDocumentNumber() != null) {
@@ -152,150 +151,61 @@ public class WrittenExamReportController {
             LocalDate writtenReportDate = null;
             if (writtenReportDatePicker != null && writtenReportDatePicker.getValue() != null) {
                 writtenReportDate = writtenReportDatePicker.getValue();
-                // Ažuriraj datum u bazi
-                thesisDAO.updateWrittenReportDate(thesisId, writtenReportDate);
             } else {
                 GlobalErrorHandler.warning("Niste odabrali datum zapisnika. Molimo odaberite datum.");
                 return;
             }
 
-            byte[] pdfBytes = generatePdfBytes(writtenReportDate);
-            String base64 = Base64.getEncoder().encodeToString(pdfBytes);
+            // Datum se snima zajedno sa dokumentom (jedna transakcija)
+            ThesisDAO.ThesisPatch patch = ThesisDAO.ThesisPatch.forThesis(thesisId)
+                    .writtenReportDate(writtenReportDate);
+
+            // HTML se sastavlja na FX thread-u, a PDF renderuje u pozadini (bez dozvole za bazu)
+            String html = buildDocumentHtml(writtenReportDate);
+            // Do kraja snimanja (back()) dugme je onemogućeno; vraća se samo ako render ili snimanje ne uspije
+            saveButton.setDisable(true);
+            AsyncHelper.executeAsyncInMemory(
+                    null,
+                    () -> PdfRenderService.render(html),
+                    pdfBytes -> saveDocument(pdfBytes, patch),
+                    e -> saveFailed("Greška pri generisanju PDF-a.", e)
+            );
+        } catch (Exception e) {
+            saveFailed("Greška pri snimanju dokumenta.", e);
+        }
+    }
 
+    private void saveDocument(byte[] pdfBytes, ThesisDAO.ThesisPatch patch) {
+        try {
             DocumentStatus status = DocumentStatus.READY;
 
             Integer userId = null;
             AppUser u = UserSession.getUser();
             if (u != null) userId = u.getId();
 
-            documentDAO.upsert(
-                    thesisId,
-                    thisDocType.getId(),
-                    base64,
-                    userId,
-                    status
+            patch.document(thisDocType.getId(), pdfBytes, userId, status);
+            // Transakcija ide u pozadini; ekran se napušta tek kad je dokument sačuvan
+            AsyncHelper.executeAsyncVoid(
+                    () -> thesisDAO.applyPatch(patch),
+                    () -> {
+                        GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
+                        back();
+                    },
+                    e -> saveFailed("Greška pri snimanju dokumenta.", e)
             );
 
-            GlobalErrorHandler.info("Dokument je uspješno sačuvan.");
-            back();
-
         } catch (Exception e) {
-            GlobalErrorHandler.error("Greška pri snimanju dokumenta.", e);
+            saveFailed("Greška pri snimanju dokumenta.", e);
         }
     }
 
-    // PROMIJENJENO: Dodao parametar writtenReportDate
-    private byte[] generatePdfBytes(LocalDate writtenReportDate) throws Exception {
-        LocalDate dateToShow = thesisDetails.getApprovalDate() != null ?
-                thesisDetails.getApprovalDate() :
-                thesisDetails.getApplicationDate();
-
-        String[] titleParts = splitThesisTitle(thesisDetails.getTitle());
-        boolean useSmallFont = titleParts[1].length() > 70;
-
-        WrittenExamReportDTO dto = WrittenExamReportDTO.builder()
-                .studentFullName(thesisDetails.getStudent().getLastName() + " " +
-                        thesisDetails.getStudent().getFirstName())
-                .thesisTitle(thesisDetails.getTitle())
-                .thesisTitleLine1(titleParts[0])
-                .thesisTitleLine2(titleParts[1])
-                .mentorFullName(formatMemberName(thesisDetails.getMentor()))
-                .submissionDate(dateToShow)
-                .writtenReportDate(writtenReportDate) // NOVO: Koristi novi datum
-                .chairmanFullName(formatMemberName(commission.getMember1()))
-                .member1FullName(formatMemberName(commission.getMember2()))
-                .member2FullName(commission.getMember3() != null ?
-                        formatMemberName(commission.getMember3()) : "—")
-                .secretaryFullName(formatMemberName(thesisDetails.getSecretary()))
-                .facultyDecisionNumber(approvalDecisionNumber != null ? approvalDecisionNumber : "")
-                .build();
-
-        String html = loadTemplate();
-
-        String line1Class = useSmallFont ? "thesis-line-1 thesis-line-1-small" : "thesis-line-1";
-        String line2Class = useSmallFont ? "thesis-line-2 thesis-line-2-small" : "thesis-line-2";
-
-        // PROMIJENJENO: Koristi writtenReportDate umjesto submissionDate
-        html = html.replace("{{studentFullName}}", dto.getStudentFullName())
-                .replace("{{thesisTitleLine1}}", dto.getThesisTitleLine1())
-                .replace("{{thesisTitleLine2}}", dto.getThesisTitleLine2())
-                .replace("class=\"thesis-line-1\"", "class=\"" + line1Class + "\"")
-                .replace("class=\"thesis-line-2\"", "class=\"" + line2Class + "\"")
-                .replace("{{mentorFullName}}", dto.getMentorFullName())
-                .replace("{{writtenReportDate}}", dto.getWrittenReportDate() != null ?
-                        dto.getWrittenReportDate().format(DATE_FORMAT) : "—")
-                .replace("{{chairmanFullName}}", dto.getChairmanFullName())
-                .replace("{{member1FullName}}", dto.getMember1FullName())
-                .replace("{{member2FullName}}", dto.getMember2FullName())
-                .replace("{{secretaryFullName}}", dto.getSecretaryFullName())
-                .replace("{{facultyDecisionNumber}}", dto.getFacultyDecisionNumber());
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            builder.useFont(getFontFileFromResources("LiberationSerif-Regular.ttf"), "Times New Roman");
-            File fontBold = getFontFileFromResources("LiberationSerif-Bold.ttf");
-            builder.useFont(fontBold, "Times New Roman", 700, BaseRendererBuilder.FontStyle.NORMAL, true);
-            File fontItalic = getFontFileFromResources("LiberationSerif-Italic.ttf");
-            builder.useFont(fontItalic, "Times New Roman", 400, BaseRendererBuilder.FontStyle.ITALIC, true);
-            File fontBoldItalic = getFontFileFromResources("LiberationSerif-BoldItalic.ttf");
-            builder.useFont(fontBoldItalic, "Times New Roman", 700, BaseRendererBuilder.FontStyle.ITALIC, true);
-
-            String baseUrl = getClass().getResource("/templates/").toExternalForm();
-            builder.withHtmlContent(html, baseUrl);
-            builder.toStream(baos);
-            builder.run();
-
-            return baos.toByteArray();
-        }
-    }
-
-    private File getFontFileFromResources(String fileName) throws IOException {
-        InputStream inputStream = getClass().getResourceAsStream("/fonts/" + fileName);
-        if (inputStream == null) {
-            throw new FileNotFoundException("Font file not found in resources: " + fileName);
-        }
-
-        File tempFile = File.createTempFile("pdf_font_", ".ttf");
-        tempFile.deleteOnExit();
-
-        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-            inputStream.transferTo(out);
-        }
-        return tempFile;
+    private void saveFailed(String message, Throwable e) {
+        saveButton.setDisable(false);
+        GlobalErrorHandler.error(message, e);
     }
 
-    private String[] splitThesisTitle(String fullTitle) {
-        if (fullTitle == null || fullTitle.isEmpty()) {
-            return new String[]{"\"\"", "\"\""};
-        }
-
-        String upperTitle = fullTitle.toUpperCase();
-        int targetLength = 50;
-
-        if (upperTitle.length() <= targetLength) {
-            return new String[]{"\"" + upperTitle + "\"", ""};
-        }
-
-        int splitIndex = upperTitle.lastIndexOf(' ', targetLength);
-
-        if (splitIndex < 25) {
-            splitIndex = targetLength;
-        }
-
-        String firstPart = "\"" + upperTitle.substring(0, splitIndex).trim();
-        String secondPart = upperTitle.substring(splitIndex).trim() + "\"";
-
-        return new String[]{firstPart, secondPart};
-    }
-
-    private String loadTemplate() throws IOException {
-        InputStream is = getClass().getResourceAsStream("/templates/written_exam_report_template.html");
-        if (is == null) {
-            throw new FileNotFoundException("Template file not found!");
-        }
-        return new String(is.readAllBytes(), "UTF-8");
+    private String buildDocumentHtml(LocalDate writtenReportDate) throws Exception {
+        return ReportHtmlBuilder.writtenExamReport(thesisDetails, commission, approvalDecisionNumber, writtenReportDate);
     }
 
     @FXML
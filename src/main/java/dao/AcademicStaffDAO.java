@@ -9,6 +9,11 @@ import java.util.List;
 public class AcademicStaffDAO {
 
     public List<AcademicStaff> getAllActiveAcademicStaff() {
+        // Forme rada i komisije učitavaju istu listu pri otvaranju - dijele jedan upit
+        return SingleFlight.call("AcademicStaffDAO.getAllActiveAcademicStaff", this::fetchAllActiveAcademicStaff);
+    }
+
+    private List<AcademicStaff> fetchAllActiveAcademicStaff() {
         List<AcademicStaff> staffList = new ArrayList<>();
         String sqlUpit = """
 select * from AcademicStaff as A
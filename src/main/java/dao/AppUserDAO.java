@@ -85,6 +85,11 @@ public class AppUserDAO {
         );
     }
     public List<AcademicStaff> getAllSecretariesAsStaff() {
+        // Forme rada i komisije učitavaju istu listu pri otvaranju - dijele jedan upit
+        return SingleFlight.call("AppUserDAO.getAllSecretariesAsStaff", this::fetchAllSecretariesAsStaff);
+    }
+
+    private List<AcademicStaff> fetchAllSecretariesAsStaff() {
         List<AcademicStaff> secretaries = new ArrayList<>();
 
         String sql = """
@@ -186,6 +191,26 @@ public class AppUserDAO {
         }
     }
 
+    /**
+     * Šifrovani App Password korisnika (null ako nije podešen) - koristi ga email outbox worker
+     */
+    public String getAppPasswordById(int userId) {
+        String sql = "SELECT AppPassword FROM AppUser WHERE Id = ? AND IsActive = 1";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, userId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("AppPassword") : null;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load app password for user " + userId, e);
+        }
+    }
+
     public void updateEmail(int userId, String newEmail) throws SQLException {
         String sql = "UPDATE AppUser SET Email = ?, UpdatedAt = ? WHERE Id = ?";
 
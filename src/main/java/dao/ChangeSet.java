@@ -0,0 +1,78 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Rezultat change feed-a (getChangedSince u DAO-ima): redovi izmijenjeni od zadnjeg osvježavanja.
+ *
+ * Thesis, Student i AcademicStaff postavljaju UpdatedAt = CURRENT_TIMESTAMP, pa se izmjene traže
+ * po satu baze, a ne po satu klijenta. syncedAt je vrijeme baze pročitano PRIJE upita i predaje se
+ * sljedećem pozivu. Upit ide od syncedAt - OVERLAP, da se ne izgubi izmjena iz transakcije koja je
+ * commit-ovana tek nakon čitanja vremena; ti redovi dođu dvaput, što spajanje po Id-u podnosi.
+ *
+ * @param changed aktivni redovi (novi ili izmijenjeni)
+ * @param removedIds soft-delete-ovani redovi (IsActive = 0) i oni koji više ne pripadaju listi
+ * @param snapshot true kad je since bio null: changed je cijela lista, a ne samo izmjene
+ */
+public record ChangeSet<T>(List<T> changed, List<Integer> removedIds, LocalDateTime syncedAt, boolean snapshot) {
+
+    static final Duration OVERLAP = Duration.ofSeconds(10);
+
+    public boolean isEmpty() {
+        return !snapshot && changed.isEmpty() && removedIds.isEmpty();
+    }
+
+    /**
+     * Primjenjuje izmjene na keširanu listu (ili je zamjenjuje, ako je ovo puna lista)
+     * @param order redoslijed kao u punom upitu
+     */
+    public List<T> applyTo(List<T> current, ToIntFunction<T> idOf, Comparator<? super T> order) {
+        Map<Integer, T> byId = new LinkedHashMap<>();
+        if (!snapshot) {
+            for (T item : current) byId.put(idOf.applyAsInt(item), item);
+        }
+        for (Integer id : removedIds) byId.remove(id);
+        for (T item : changed) byId.put(idOf.applyAsInt(item), item);
+
+        List<T> merged = new ArrayList<>(byId.values());
+        merged.sort(order);
+        return merged;
+    }
+
+    /**
+     * Vrijeme baze za listu koja se ne učitava odjednom (stranice radova): uzima se prije prve
+     * stranice i predaje prvom getChangedSince
+     */
+    public static LocalDateTime syncPoint() {
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            return now(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri čitanju vremena baze: " + e.getMessage(), e);
+        }
+    }
+
+    // Vrijeme baze, na istoj konekciji kao i upit koji slijedi
+    static LocalDateTime now(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT CURRENT_TIMESTAMP");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1).toLocalDateTime();
+        }
+    }
+
+    static Timestamp from(LocalDateTime since) {
+        return Timestamp.valueOf(since.minus(OVERLAP));
+    }
+}
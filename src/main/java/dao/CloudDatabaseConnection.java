@@ -6,12 +6,14 @@ import com.zaxxer.hikari.HikariDataSource;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Properties;
 
 public class CloudDatabaseConnection {
 
     private static final HikariDataSource dataSource;
     private static String secretKey;
+    private static int maxPoolSize;
     static {
         try {
             // 1. Učitavamo properties fajl direktno iz JAR/EXE arhive
@@ -36,17 +38,29 @@ public class CloudDatabaseConnection {
             config.setUsername(props.getProperty("db.user"));
             config.setPassword(props.getProperty("db.password"));
 
-            // --- Tvoje postojeće optimizacije (zadržao sam ih jer su dobre) ---
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(2);
-            config.setIdleTimeout(300_000);
-            config.setConnectionTimeout(10_000);
-            config.setMaxLifetime(1_800_000);
+            // Veličine pool-a se mogu podesiti u database.properties ili system property-em istog imena
+            // (npr. -Ddb.pool.maxSize=20); default vrijednosti su dosadašnje
+            maxPoolSize = intProperty(props, "db.pool.maxSize", 10);
+            config.setMaximumPoolSize(maxPoolSize);
+            config.setMinimumIdle(intProperty(props, "db.pool.minIdle", 2));
+            config.setIdleTimeout(intProperty(props, "db.pool.idleTimeoutMs", 300_000));
+            config.setConnectionTimeout(intProperty(props, "db.pool.connectionTimeoutMs", 10_000));
+            config.setMaxLifetime(intProperty(props, "db.pool.maxLifetimeMs", 1_800_000));
             config.setAutoCommit(true);
             config.setPoolName("CloudDB-HikariPool");
             config.addDataSourceProperty("cachePrepStmts", "true");
             config.addDataSourceProperty("prepStmtCacheSize", "250");
             config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            // JDBC batch se šalje kao jedan multi-row INSERT umjesto reda po reda
+            config.addDataSourceProperty("rewriteBatchedStatements", "true");
+
+            // Metrike za ekran dijagnostike (čekanje na konekciju, trajanje po DAO metodi, spori upiti)
+            DbMetrics.configure(
+                    Boolean.parseBoolean(property(props, "db.metrics.enabled", "true")),
+                    intProperty(props, "db.metrics.slowQueryMs", 500));
+            // Profilisanje pojedinačnih naredbi je skuplje, pa je po defaultu isključeno
+            StatementProfiler.setEnabled(Boolean.parseBoolean(property(props, "db.metrics.statements", "false")));
+            config.setMetricsTrackerFactory((poolName, poolStats) -> DbMetrics.poolTracker(poolStats));
 
             dataSource = new HikariDataSource(config);
 
@@ -60,16 +74,53 @@ public class CloudDatabaseConnection {
 
     // Tvoja metoda za dohvat konekcije
     public static Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        return DbMetrics.track(dataSource.getConnection());
     }
 
     // Stara metoda (ostavio sam je ako je negdje zoveš po starom imenu da ne puca kod)
     public static Connection Konekcija() throws SQLException {
-        return dataSource.getConnection();
+        return DbMetrics.track(dataSource.getConnection());
+    }
+
+    /**
+     * Inicijalizuje pool i otvara prvu konekciju unaprijed (StartupPipeline, u pozadini),
+     * da prva prijava ne čeka na properties, kreiranje pool-a i TLS handshake.
+     */
+    public static void warmUp() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.isValid(5);
+        }
+    }
+
+    // Veličina pool-a; AsyncHelper od nje oduzima rezervu za pozadinske radnike
+    public static int getMaxPoolSize() {
+        return maxPoolSize;
     }
 
     // Nova metoda za dohvat tajnog ključa
     public static String getSecretKey() {
         return secretKey;
     }
+
+    private static String property(Properties props, String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) value = props.getProperty(key);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = property(props, key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("[CloudDatabaseConnection] Neispravna vrijednost za " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    // "?, ?, ?" za IN (...) upite sa više parametara
+    public static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 }
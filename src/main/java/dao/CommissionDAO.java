@@ -6,6 +6,9 @@ import model.CommissionRole;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 public class CommissionDAO {
 
@@ -149,8 +152,7 @@ public class CommissionDAO {
         }
     }
 
-    public Commission getCommissionByThesisId(int thesisId) {
-        String sql = """
+    static final String COMMISSION_SELECT = """
             SELECT c.*,
                    a1.Id AS m1_id, a1.Title AS m1_title, a1.FirstName AS m1_fname, 
                    a1.LastName AS m1_lname, a1.Email AS m1_email,
@@ -168,9 +170,16 @@ public class CommissionDAO {
             LEFT JOIN CommissionRole r1 ON c.Member1RoleId = r1.Id
             LEFT JOIN CommissionRole r2 ON c.Member2RoleId = r2.Id
             LEFT JOIN CommissionRole r3 ON c.Member3RoleId = r3.Id
-            WHERE c.ThesisId = ?
         """;
 
+    public Commission getCommissionByThesisId(int thesisId) {
+        // Istovremeni upiti za istu komisiju dijele jedan odlazak u bazu
+        return SingleFlight.call("CommissionDAO.getCommissionByThesisId", () -> fetchCommissionByThesisId(thesisId), thesisId);
+    }
+
+    private Commission fetchCommissionByThesisId(int thesisId) {
+        String sql = COMMISSION_SELECT + " WHERE c.ThesisId = ?";
+
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -178,64 +187,7 @@ public class CommissionDAO {
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                Commission comm = new Commission();
-                comm.setThesisId(rs.getInt("ThesisId"));
-
-                // Member 1
-                if (rs.getObject("m1_id") != null) {
-                    AcademicStaff m1 = new AcademicStaff();
-                    m1.setId(rs.getInt("m1_id"));
-                    m1.setTitle(rs.getString("m1_title"));
-                    m1.setFirstName(rs.getString("m1_fname"));
-                    m1.setLastName(rs.getString("m1_lname"));
-                    m1.setEmail(rs.getString("m1_email"));
-                    comm.setMember1(m1);
-
-                    if (rs.getObject("r1_id") != null) {
-                        CommissionRole r1 = new CommissionRole();
-                        r1.setId(rs.getInt("r1_id"));
-                        r1.setName(rs.getString("r1_name"));
-                        comm.setMember1Role(r1);
-                    }
-                }
-
-                // Member 2
-                if (rs.getObject("m2_id") != null) {
-                    AcademicStaff m2 = new AcademicStaff();
-                    m2.setId(rs.getInt("m2_id"));
-                    m2.setTitle(rs.getString("m2_title"));
-                    m2.setFirstName(rs.getString("m2_fname"));
-                    m2.setLastName(rs.getString("m2_lname"));
-                    m2.setEmail(rs.getString("m2_email"));
-                    comm.setMember2(m2);
-
-                    if (rs.getObject("r2_id") != null) {
-                        CommissionRole r2 = new CommissionRole();
-                        r2.setId(rs.getInt("r2_id"));
-                        r2.setName(rs.getString("r2_name"));
-                        comm.setMember2Role(r2);
-                    }
-                }
-
-                // Member 3
-                if (rs.getObject("m3_id") != null) {
-                    AcademicStaff m3 = new AcademicStaff();
-                    m3.setId(rs.getInt("m3_id"));
-                    m3.setTitle(rs.getString("m3_title"));
-                    m3.setFirstName(rs.getString("m3_fname"));
-                    m3.setLastName(rs.getString("m3_lname"));
-                    m3.setEmail(rs.getString("m3_email"));
-                    comm.setMember3(m3);
-
-                    if (rs.getObject("r3_id") != null) {
-                        CommissionRole r3 = new CommissionRole();
-                        r3.setId(rs.getInt("r3_id"));
-                        r3.setName(rs.getString("r3_name"));
-                        comm.setMember3Role(r3);
-                    }
-                }
-
-                return comm;
+                return mapCommission(rs);
             }
 
             return null;
@@ -246,4 +198,93 @@ public class CommissionDAO {
             throw new RuntimeException("Greška pri dohvatanju komisije: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Komisije za više radova jednim upitom, mapirane po ThesisId
+     */
+    public Map<Integer, Commission> getCommissionsByThesisIds(Collection<Integer> thesisIds) {
+        Map<Integer, Commission> result = new HashMap<>();
+        if (thesisIds == null || thesisIds.isEmpty()) return result;
+
+        String sql = COMMISSION_SELECT + " WHERE c.ThesisId IN (" + CloudDatabaseConnection.placeholders(thesisIds.size()) + ")";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int idx = 1;
+            for (Integer id : thesisIds) ps.setInt(idx++, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Commission comm = mapCommission(rs);
+                    result.put(comm.getThesisId(), comm);
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri dohvatanju komisija: " + e.getMessage(), e);
+        }
+    }
+
+    static Commission mapCommission(ResultSet rs) throws SQLException {
+        Commission comm = new Commission();
+        comm.setThesisId(rs.getInt("ThesisId"));
+
+        // Member 1
+        if (rs.getObject("m1_id") != null) {
+            AcademicStaff m1 = new AcademicStaff();
+            m1.setId(rs.getInt("m1_id"));
+            m1.setTitle(rs.getString("m1_title"));
+            m1.setFirstName(rs.getString("m1_fname"));
+            m1.setLastName(rs.getString("m1_lname"));
+            m1.setEmail(rs.getString("m1_email"));
+            comm.setMember1(m1);
+
+            if (rs.getObject("r1_id") != null) {
+                CommissionRole r1 = new CommissionRole();
+                r1.setId(rs.getInt("r1_id"));
+                r1.setName(rs.getString("r1_name"));
+                comm.setMember1Role(r1);
+            }
+        }
+
+        // Member 2
+        if (rs.getObject("m2_id") != null) {
+            AcademicStaff m2 = new AcademicStaff();
+            m2.setId(rs.getInt("m2_id"));
+            m2.setTitle(rs.getString("m2_title"));
+            m2.setFirstName(rs.getString("m2_fname"));
+            m2.setLastName(rs.getString("m2_lname"));
+            m2.setEmail(rs.getString("m2_email"));
+            comm.setMember2(m2);
+
+            if (rs.getObject("r2_id") != null) {
+                CommissionRole r2 = new CommissionRole();
+                r2.setId(rs.getInt("r2_id"));
+                r2.setName(rs.getString("r2_name"));
+                comm.setMember2Role(r2);
+            }
+        }
+
+        // Member 3
+        if (rs.getObject("m3_id") != null) {
+            AcademicStaff m3 = new AcademicStaff();
+            m3.setId(rs.getInt("m3_id"));
+            m3.setTitle(rs.getString("m3_title"));
+            m3.setFirstName(rs.getString("m3_fname"));
+            m3.setLastName(rs.getString("m3_lname"));
+            m3.setEmail(rs.getString("m3_email"));
+            comm.setMember3(m3);
+
+            if (rs.getObject("r3_id") != null) {
+                CommissionRole r3 = new CommissionRole();
+                r3.setId(rs.getInt("r3_id"));
+                r3.setName(rs.getString("r3_name"));
+                comm.setMember3Role(r3);
+            }
+        }
+
+        return comm;
+    }
+}
@@ -0,0 +1,333 @@
+package dao;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrike baze za ekran dijagnostike:
+ *  - stanje pool-a (aktivne/slobodne konekcije, thread-ovi koji čekaju) i vrijeme čekanja na konekciju,
+ *    preko Hikari metrics tracker-a;
+ *  - histogram trajanja po DAO metodi (od uzimanja do vraćanja konekcije);
+ *  - log sporih operacija sa SQL tekstom koji je metoda pripremila;
+ *  - opciono, trajanje pojedinačnih SQL naredbi (StatementProfiler).
+ *
+ * Prag sporih upita i uključivanje se podešavaju u database.properties
+ * (db.metrics.enabled, db.metrics.slowQueryMs), vidi CloudDatabaseConnection.
+ */
+public final class DbMetrics {
+
+    private static final int SLOW_LOG_SIZE = 50;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+
+    private static volatile boolean enabled = true;
+    private static volatile long slowThresholdMs = 500;
+    private static volatile PoolStats poolStats;
+
+    private static final Histogram POOL_WAIT = new Histogram();
+    private static final Histogram CONNECTION_USAGE = new Histogram();
+    private static final LongAdder POOL_TIMEOUTS = new LongAdder();
+    private static final Map<String, Histogram> OPERATIONS = new ConcurrentHashMap<>();
+    private static final Deque<SlowOperation> SLOW_LOG = new ArrayDeque<>();
+
+    public record SlowOperation(LocalDateTime at, String operation, long millis, List<String> sql) {}
+
+    public record PoolSnapshot(int active, int idle, int total, int max, int pending) {}
+
+    private DbMetrics() {}
+
+    static void configure(boolean enabled, long slowThresholdMs) {
+        DbMetrics.enabled = enabled;
+        DbMetrics.slowThresholdMs = slowThresholdMs;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static long getSlowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Hikari tracker: vrijeme čekanja na konekciju, trajanje korištenja i timeout-i
+     */
+    static IMetricsTracker poolTracker(PoolStats stats) {
+        poolStats = stats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                POOL_WAIT.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                CONNECTION_USAGE.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                POOL_TIMEOUTS.increment();
+            }
+        };
+    }
+
+    /**
+     * Omotava konekciju tako da se pri close() zabilježi trajanje za DAO metodu koja ju je uzela
+     */
+    static Connection track(Connection connection) {
+        if (!enabled && !StatementProfiler.isEnabled()) return connection;
+
+        String operation = callerOperation();
+        return (Connection) Proxy.newProxyInstance(
+                DbMetrics.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new TrackedConnection(connection, operation));
+    }
+
+    static void recordOperation(String operation, long elapsedNanos, Set<String> sql) {
+        OPERATIONS.computeIfAbsent(operation, key -> new Histogram()).record(elapsedNanos);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (millis < slowThresholdMs) return;
+
+        SlowOperation slow = new SlowOperation(LocalDateTime.now(), operation, millis, List.copyOf(sql));
+        synchronized (SLOW_LOG) {
+            if (SLOW_LOG.size() == SLOW_LOG_SIZE) SLOW_LOG.removeLast();
+            SLOW_LOG.addFirst(slow);
+        }
+        System.err.println("[DbMetrics] Slow " + operation + " (" + millis + " ms): "
+                + String.join(" | ", oneLine(sql)));
+    }
+
+    // ==================== READING ====================
+
+    public static PoolSnapshot pool() {
+        PoolStats stats = poolStats;
+        if (stats == null) return new PoolSnapshot(0, 0, 0, 0, 0);
+        return new PoolSnapshot(stats.getActiveConnections(), stats.getIdleConnections(),
+                stats.getTotalConnections(), stats.getMaxConnections(), stats.getPendingThreads());
+    }
+
+    public static Histogram poolWait() {
+        return POOL_WAIT;
+    }
+
+    public static long poolTimeouts() {
+        return POOL_TIMEOUTS.sum();
+    }
+
+    /**
+     * DAO metode sortirane po ukupnom vremenu (najskuplje prve)
+     */
+    public static List<Map.Entry<String, Histogram>> operations() {
+        List<Map.Entry<String, Histogram>> list = new ArrayList<>(OPERATIONS.entrySet());
+        list.sort(Comparator.comparingLong((Map.Entry<String, Histogram> e) -> e.getValue().totalNanos()).reversed());
+        return list;
+    }
+
+    public static List<SlowOperation> slowOperations() {
+        synchronized (SLOW_LOG) {
+            return List.copyOf(SLOW_LOG);
+        }
+    }
+
+    public static void reset() {
+        POOL_WAIT.reset();
+        CONNECTION_USAGE.reset();
+        POOL_TIMEOUTS.reset();
+        OPERATIONS.clear();
+        synchronized (SLOW_LOG) {
+            SLOW_LOG.clear();
+        }
+        StatementProfiler.reset();
+        SingleFlight.reset();
+    }
+
+    /**
+     * Tekstualni izvještaj za ekran dijagnostike i izvoz u fajl
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("eDiploma - dijagnostika baze, ").append(LocalDateTime.now().format(TIME_FORMAT)).append("\n\n");
+
+        PoolSnapshot pool = pool();
+        sb.append("POOL\n");
+        sb.append(String.format("  aktivne: %d, slobodne: %d, ukupno: %d / %d, čekaju: %d, timeout-i: %d%n",
+                pool.active(), pool.idle(), pool.total(), pool.max(), pool.pending(), poolTimeouts()));
+        sb.append("  čekanje na konekciju: ").append(POOL_WAIT.summary()).append("\n");
+        sb.append("  korištenje konekcije: ").append(CONNECTION_USAGE.summary()).append("\n\n");
+
+        sb.append("DAO METODE (po ukupnom vremenu)\n");
+        for (Map.Entry<String, Histogram> entry : operations()) {
+            sb.append(String.format("  %-60s %s%n", entry.getKey(), entry.getValue().summary()));
+        }
+
+        sb.append("\nSPORE OPERACIJE (>= ").append(slowThresholdMs).append(" ms)\n");
+        for (SlowOperation slow : slowOperations()) {
+            sb.append("  ").append(slow.at().format(TIME_FORMAT)).append("  ")
+                    .append(slow.operation()).append("  ").append(slow.millis()).append(" ms\n");
+            for (String sql : oneLine(slow.sql())) {
+                sb.append("      ").append(sql).append("\n");
+            }
+        }
+
+        SingleFlight.appendReport(sb);
+        StatementProfiler.appendReport(sb, 20);
+        return sb.toString();
+    }
+
+    // ==================== INTERNALS ====================
+
+    private static List<String> oneLine(Iterable<String> sql) {
+        List<String> lines = new ArrayList<>();
+        for (String s : sql) lines.add(s.replaceAll("\\s+", " ").trim());
+        return lines;
+    }
+
+    // "ThesisDAO.getAllThesis" - prva DAO metoda na stack-u koja nije sama konekcija/metrika
+    private static String callerOperation() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !f.getClassName().equals(CloudDatabaseConnection.class.getName())
+                        && !f.getClassName().equals(DbMetrics.class.getName()))
+                .filter(f -> f.getClassName().startsWith("dao."))
+                .findFirst()
+                .map(f -> f.getClassName().substring(4) + "." + f.getMethodName())
+                .orElse("(van DAO sloja)"));
+    }
+
+    private static final class TrackedConnection implements InvocationHandler {
+        private final Connection target;
+        private final String operation;
+        private final long startNanos = System.nanoTime();
+        private final Set<String> sql = new LinkedHashSet<>();
+        private boolean closed;
+
+        private TrackedConnection(Connection target, String operation) {
+            this.target = target;
+            this.operation = operation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            String statementSql = null;
+            if ((name.equals("prepareStatement") || name.equals("prepareCall"))
+                    && args != null && args.length > 0 && args[0] instanceof String text) {
+                statementSql = text;
+                sql.add(text);
+            } else if (name.equals("close") && !closed) {
+                closed = true;
+                if (enabled) recordOperation(operation, System.nanoTime() - startNanos, sql);
+            }
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            // Naredbe se omotavaju samo kad je uključeno profilisanje pojedinačnih upita
+            if (name.equals("createStatement") || statementSql != null) {
+                return StatementProfiler.wrapStatement(result, method.getReturnType(), statementSql);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Histogram sa fiksnim granicama u milisekundama; percentili se procjenjuju po gornjoj granici bucket-a
+     */
+    public static final class Histogram {
+        private static final long[] BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000};
+
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int i = 0;
+            while (i < BOUNDS_MS.length && millis > BOUNDS_MS[i]) i++;
+            buckets[i].increment();
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        void reset() {
+            for (LongAdder bucket : buckets) bucket.reset();
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalNanos() {
+            return total.sum();
+        }
+
+        public double meanMillis() {
+            long n = count();
+            return n == 0 ? 0 : totalNanos() / 1_000_000.0 / n;
+        }
+
+        public double maxMillis() {
+            return max.get() / 1_000_000.0;
+        }
+
+        /**
+         * @param quantile npr. 0.95; vraća gornju granicu bucket-a (ms), ili max ako je iznad zadnje granice
+         */
+        public double percentileMillis(double quantile) {
+            long n = count();
+            if (n == 0) return 0;
+
+            long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMillis()) : maxMillis();
+                }
+            }
+            return maxMillis();
+        }
+
+        public String summary() {
+            return String.format("n=%d, prosjek=%.1f ms, p50=%.0f ms, p95=%.0f ms, p99=%.0f ms, max=%.1f ms",
+                    count(), meanMillis(), percentileMillis(0.50), percentileMillis(0.95),
+                    percentileMillis(0.99), maxMillis());
+        }
+    }
+}
@@ -3,12 +3,83 @@ package dao;
 import model.Document;
 import model.DocumentStatus;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PDF sadržaj dokumenta se čuva binarno u koloni Content (LONGBLOB):
+ *
+ *   ALTER TABLE Document ADD COLUMN Content LONGBLOB NULL;
+ *
+ * Stara kolona ContentBase64 ostaje samo za redove koji još nisu migrirani
+ * (vidi migrateBase64ToBlob) - čitanje uvijek prvo gleda Content, pa tek onda ContentBase64.
+ *
+ * Rad ima najviše jedan dokument svakog tipa, pa upsert ide jednom naredbom
+ * (INSERT ... ON DUPLICATE KEY UPDATE) nad jedinstvenim ključem:
+ *
+ *   ALTER TABLE Document ADD UNIQUE KEY UX_Document_Thesis_Type (ThesisId, TypeId);
+ *
+ * (prije toga obrisati eventualne duplikate, ostaviti red sa najvećim Id).
+ * Bez tog ključa upsert bi tiho dodavao duplikate, pa se ključ provjerava (requireUniqueKey) prije
+ * prvog upisa i pri prijavi; pojedinačna čitanja uzimaju dokument sa najvećim Id.
+ * Dokumenti se ne brišu logički; upsert ipak vraća IsActive = 1 ako bi red bio neaktivan.
+ */
 public class DocumentDAO {
 
+    private static final String UNIQUE_KEY_COLUMNS = "ThesisId,TypeId";
+
+    // Ključ se provjerava jednom po procesu (kad provjera uspije)
+    private static volatile boolean uniqueKeyVerified;
+
+    private static final String UPSERT_WITH_NUMBER_SQL = """
+        INSERT INTO Document(ThesisId, TypeId, Content, ContentBase64, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive)
+        VALUES(?, ?, ?, '', ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
+        ON DUPLICATE KEY UPDATE
+            Content = VALUES(Content),
+            ContentBase64 = '',
+            UploadedByUserId = VALUES(UploadedByUserId),
+            DocumentNumber = VALUES(DocumentNumber),
+            Status = VALUES(Status),
+            UpdatedAt = CURRENT_TIMESTAMP,
+            IsActive = 1
+    """;
+
+    // DocumentNumber se ne dira (zapisnici, grupno generisanje)
+    private static final String UPSERT_KEEP_NUMBER_SQL = """
+        INSERT INTO Document(ThesisId, TypeId, Content, ContentBase64, UploadedByUserId, Status, CreatedAt, UpdatedAt, IsActive)
+        VALUES(?, ?, ?, '', ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
+        ON DUPLICATE KEY UPDATE
+            Content = VALUES(Content),
+            ContentBase64 = '',
+            UploadedByUserId = VALUES(UploadedByUserId),
+            Status = VALUES(Status),
+            UpdatedAt = CURRENT_TIMESTAMP,
+            IsActive = 1
+    """;
+
+    // Novi dokument je IN_PROGRESS; postojeći ostaje READY ako je već spreman, inače se vraća na IN_PROGRESS.
+    // UpdatedAt ide prije Status jer MySQL dodjele u ON DUPLICATE KEY UPDATE izvršava redom.
+    private static final String ENSURE_IN_PROGRESS_SQL = """
+        INSERT INTO Document(ThesisId, TypeId, ContentBase64, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive)
+        VALUES(?, ?, '', ?, NULL, 'IN_PROGRESS', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
+        ON DUPLICATE KEY UPDATE
+            UpdatedAt = IF(Status = 'READY' AND IsActive = 1, UpdatedAt, CURRENT_TIMESTAMP),
+            Status = IF(Status = 'READY' AND IsActive = 1, Status, 'IN_PROGRESS'),
+            IsActive = 1
+    """;
+
     public List<Document> getByThesisId(int thesisId) {
         String sql = """
             SELECT Id, ThesisId, TypeId, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive
@@ -51,9 +122,10 @@ public class DocumentDAO {
 
     public Document getByThesisAndType(int thesisId, int typeId) {
         String sql = """
-            SELECT Id, ThesisId, TypeId, ContentBase64, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive
+            SELECT Id, ThesisId, TypeId, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive
             FROM Document
             WHERE ThesisId = ? AND TypeId = ? AND IsActive = 1
+            ORDER BY Id DESC
             LIMIT 1
         """;
 
@@ -73,7 +145,6 @@ public class DocumentDAO {
                         .Id(rs.getInt("Id"))
                         .ThesisId(rs.getInt("ThesisId"))
                         .TypeId(rs.getInt("TypeId"))
-                        .ContentBase64(rs.getString("ContentBase64"))
                         .UploadedByUserId((Integer) rs.getObject("UploadedByUserId"))
                         .DocumentNumber(rs.getString("DocumentNumber"))
                         .Status(status)
@@ -88,8 +159,16 @@ public class DocumentDAO {
         }
     }
 
-    public String getContentBase64(int documentId) {
-        String sql = "SELECT ContentBase64 FROM Document WHERE Id = ? AND IsActive = 1";
+    /**
+     * Provjerava da li dokument ima sačuvan PDF (binarni ili stari Base64), bez čitanja sadržaja
+     */
+    public boolean hasContent(int documentId) {
+        String sql = """
+            SELECT 1
+            FROM Document
+            WHERE Id = ? AND IsActive = 1
+              AND (Content IS NOT NULL OR (ContentBase64 IS NOT NULL AND ContentBase64 <> ''))
+        """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -97,227 +176,258 @@ public class DocumentDAO {
             ps.setInt(1, documentId);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return null;
-                return rs.getString("ContentBase64");
+                return rs.next();
             }
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri dohvatu ContentBase64.", e);
+            throw new RuntimeException("Greška pri provjeri sadržaja dokumenta.", e);
         }
     }
 
-    public void upsert(int thesisId, int typeId, String contentBase64, Integer uploadedByUserId,
-                       String documentNumber, DocumentStatus status) {
-
-        String checkSql = "SELECT Id FROM Document WHERE ThesisId = ? AND TypeId = ? AND IsActive = 1 LIMIT 1";
-        String insertSql = """
-            INSERT INTO Document(ThesisId, TypeId, ContentBase64, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive)
-            VALUES(?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
-        """;
-        String updateSql = """
-            UPDATE Document
-            SET ContentBase64 = ?,
-                UploadedByUserId = ?,
-                DocumentNumber = ?,
-                Status = ?,
-                UpdatedAt = CURRENT_TIMESTAMP
-            WHERE Id = ?
+    /**
+     * Otvara stream PDF sadržaja dokumenta. Konekcija ostaje otvorena dok se stream ne zatvori,
+     * pa se poziva isključivo u try-with-resources.
+     *
+     * Upit ide kao streaming result set (fetch size Integer.MIN_VALUE), pa Connector/J ne bufferuje
+     * rezultat unaprijed. Da li je red migriran određuje SQL: LegacyBase64 je NULL kad postoji Content,
+     * pa se stari Base64 ne prenosi bez potrebe niti čita kao String - dekodira se u letu iz ascii stream-a.
+     *
+     * @return stream sa PDF bajtovima ili null ako dokument nema sadržaj
+     */
+    public InputStream openContentStream(int documentId) {
+        String sql = """
+            SELECT Content,
+                   CASE WHEN Content IS NULL THEN ContentBase64 END AS LegacyBase64
+            FROM Document
+            WHERE Id = ? AND IsActive = 1
+              AND (Content IS NOT NULL OR LENGTH(ContentBase64) > 0)
         """;
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = CloudDatabaseConnection.Konekcija();
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setInt(1, documentId);
+            rs = ps.executeQuery();
 
-            Integer existingId = null;
-            try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
-                ps.setInt(1, thesisId);
-                ps.setInt(2, typeId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) existingId = rs.getInt("Id");
+            if (rs.next()) {
+                InputStream content = rs.getBinaryStream("Content");
+                if (content == null) {
+                    // Red još nije migriran (vidi migrateBase64ToBlob)
+                    content = Base64.getDecoder().wrap(rs.getAsciiStream("LegacyBase64"));
                 }
+                return new ResultSetInputStream(content, rs, ps, conn);
             }
 
-            if (existingId == null) {
-                try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
-                    ps.setInt(1, thesisId);
-                    ps.setInt(2, typeId);
-                    ps.setString(3, contentBase64);
-                    if (uploadedByUserId != null) ps.setInt(4, uploadedByUserId); else ps.setNull(4, Types.INTEGER);
-                    ps.setString(5, documentNumber);
-                    ps.setString(6, status != null ? status.name() : null);
-                    ps.executeUpdate();
-                }
-            } else {
-                try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                    ps.setString(1, contentBase64);
-                    if (uploadedByUserId != null) ps.setInt(2, uploadedByUserId); else ps.setNull(2, Types.INTEGER);
-                    ps.setString(3, documentNumber);
-                    ps.setString(4, status != null ? status.name() : null);
-                    ps.setInt(5, existingId);
-                    ps.executeUpdate();
-                }
-            }
+            closeQuietly(rs, ps, conn);
+            return null;
+
+        } catch (SQLException e) {
+            closeQuietly(rs, ps, conn);
+            throw new RuntimeException("Greška pri dohvatu sadržaja dokumenta.", e);
+        }
+    }
+
+    /**
+     * Kopira PDF sadržaj dokumenta direktno u izlazni stream (npr. fajl)
+     *
+     * @return broj upisanih bajtova ili -1 ako dokument nema sadržaj
+     */
+    public long copyContentTo(int documentId, OutputStream out) throws IOException {
+        try (InputStream in = openContentStream(documentId)) {
+            if (in == null) return -1;
+            return in.transferTo(out);
+        }
+    }
+
+    public void upsert(int thesisId, int typeId, byte[] pdfBytes, Integer uploadedByUserId,
+                       String documentNumber, DocumentStatus status) {
+        upsert(thesisId, typeId, new ByteArrayInputStream(pdfBytes), pdfBytes.length,
+                uploadedByUserId, documentNumber, status);
+    }
 
+    public void upsert(int thesisId, int typeId, InputStream content, long contentLength, Integer uploadedByUserId,
+                       String documentNumber, DocumentStatus status) {
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            upsert(conn, thesisId, typeId, content, contentLength, uploadedByUserId, documentNumber, status);
         } catch (SQLException e) {
             throw new RuntimeException("Greška pri snimanju dokumenta (upsert).", e);
         }
     }
 
-    public void upsert(int thesisId, int typeId, String contentBase64, Integer uploadedByUserId, DocumentStatus status) {
+    /**
+     * Upsert na postojećoj konekciji (npr. u transakciji ThesisDAO.applyPatch)
+     */
+    void upsert(Connection conn, int thesisId, int typeId, InputStream content, long contentLength,
+                Integer uploadedByUserId, String documentNumber, DocumentStatus status) throws SQLException {
 
-        String checkSql = "SELECT Id FROM Document WHERE ThesisId = ? AND TypeId = ? AND IsActive = 1 LIMIT 1";
-        String insertSql = """
-            INSERT INTO Document(ThesisId, TypeId, ContentBase64, UploadedByUserId, Status, CreatedAt, UpdatedAt, IsActive)
-            VALUES(?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
+        requireUniqueKey(conn);
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_WITH_NUMBER_SQL)) {
+            ps.setInt(1, thesisId);
+            ps.setInt(2, typeId);
+            ps.setBinaryStream(3, content, contentLength);
+            if (uploadedByUserId != null) ps.setInt(4, uploadedByUserId); else ps.setNull(4, Types.INTEGER);
+            ps.setString(5, documentNumber);
+            ps.setString(6, status != null ? status.name() : null);
+            ps.executeUpdate();
+        }
+    }
+
+    public void upsert(int thesisId, int typeId, byte[] pdfBytes, Integer uploadedByUserId, DocumentStatus status) {
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            upsert(conn, thesisId, typeId, pdfBytes, uploadedByUserId, status);
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri snimanju dokumenta (upsert).", e);
+        }
+    }
+
+    /**
+     * Upsert bez izmjene DocumentNumber, na postojećoj konekciji
+     */
+    void upsert(Connection conn, int thesisId, int typeId, byte[] pdfBytes, Integer uploadedByUserId,
+                DocumentStatus status) throws SQLException {
+
+        requireUniqueKey(conn);
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_KEEP_NUMBER_SQL)) {
+            bindKeepNumber(ps, thesisId, typeId, pdfBytes, uploadedByUserId, status);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Migracija starih redova: prebacuje ContentBase64 u binarnu kolonu Content, red po red,
+     * tako da se nikad ne drži više od jednog dokumenta u memoriji. Sigurno je pozvati više puta.
+     *
+     * @return broj migriranih dokumenata
+     */
+    public int migrateBase64ToBlob(int batchSize) {
+        String pendingSql = """
+            SELECT Id
+            FROM Document
+            WHERE Id > ? AND Content IS NULL AND ContentBase64 IS NOT NULL AND ContentBase64 <> ''
+            ORDER BY Id
+            LIMIT ?
         """;
+        String contentSql = "SELECT ContentBase64 FROM Document WHERE Id = ?";
         String updateSql = """
             UPDATE Document
-            SET ContentBase64 = ?,
-                UploadedByUserId = ?,
-                Status = ?,
-                UpdatedAt = CURRENT_TIMESTAMP
-            WHERE Id = ?
+            SET Content = ?, ContentBase64 = ''
+            WHERE Id = ? AND Content IS NULL
         """;
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+        int migrated = 0;
+        int lastId = 0; // Keyset - oštećeni redovi se ne pokušavaju ponovo u istom prolazu
 
-            Integer existingId = null;
-            try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
-                ps.setInt(1, thesisId);
-                ps.setInt(2, typeId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) existingId = rs.getInt("Id");
-                }
-            }
-
-            if (existingId == null) {
-                try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
-                    ps.setInt(1, thesisId);
-                    ps.setInt(2, typeId);
-                    ps.setString(3, contentBase64);
-                    if (uploadedByUserId != null) ps.setInt(4, uploadedByUserId); else ps.setNull(4, Types.INTEGER);
-                    ps.setString(5, status != null ? status.name() : null);
-                    ps.executeUpdate();
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            while (true) {
+                List<Integer> ids = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(pendingSql)) {
+                    ps.setInt(1, lastId);
+                    ps.setInt(2, batchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) ids.add(rs.getInt("Id"));
+                    }
                 }
-            } else {
-                try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                    ps.setString(1, contentBase64);
-                    if (uploadedByUserId != null) ps.setInt(2, uploadedByUserId); else ps.setNull(2, Types.INTEGER);
-                    ps.setString(3, status != null ? status.name() : null);
-                    ps.setInt(4, existingId);
-                    ps.executeUpdate();
+                if (ids.isEmpty()) break;
+
+                for (int id : ids) {
+                    lastId = id;
+                    try (PreparedStatement select = conn.prepareStatement(contentSql)) {
+                        select.setInt(1, id);
+                        try (ResultSet rs = select.executeQuery()) {
+                            if (!rs.next()) continue;
+
+                            try (InputStream decoded = Base64.getDecoder().wrap(rs.getAsciiStream("ContentBase64"));
+                                 PreparedStatement update = conn.prepareStatement(updateSql)) {
+                                update.setBinaryStream(1, decoded);
+                                update.setInt(2, id);
+                                migrated += update.executeUpdate();
+                            }
+                        }
+                    } catch (IOException | SQLException | IllegalArgumentException e) {
+                        // Oštećen Base64 - preskoči red da ne blokira ostatak migracije
+                        System.err.println("[DocumentDAO] Document " + id + " nije migriran: " + e.getMessage());
+                    }
                 }
+
+                if (ids.size() < batchSize) break;
             }
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri snimanju dokumenta (upsert).", e);
+            throw new RuntimeException("Greška pri migraciji dokumenata u binarni format.", e);
         }
+
+        return migrated;
     }
 
     public void ensureDocumentExists(Connection conn, int thesisId, int typeId,
                                      DocumentStatus status, Integer uploadedByUserId) throws SQLException {
 
-        String checkSql = "SELECT 1 FROM Document WHERE ThesisId = ? AND TypeId = ? AND IsActive = 1 LIMIT 1";
-
-        String insertSql = """
+        // Postojeći dokument se ne dira (Id = Id je no-op)
+        String sql = """
         INSERT INTO Document(ThesisId, TypeId, ContentBase64, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive)
-        VALUES(?, ?, ?, ?, NULL, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
+        VALUES(?, ?, '', ?, NULL, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
+        ON DUPLICATE KEY UPDATE Id = Id
     """;
 
-        try (PreparedStatement check = conn.prepareStatement(checkSql)) {
-            check.setInt(1, thesisId);
-            check.setInt(2, typeId);
-
-            try (ResultSet rs = check.executeQuery()) {
-                if (rs.next()) return;
-            }
+        if (uploadedByUserId == null) {
+            throw new SQLException("UploadedByUserId ne smije biti NULL (Document tabela).");
         }
 
-        try (PreparedStatement insert = conn.prepareStatement(insertSql)) {
+        requireUniqueKey(conn);
+        try (PreparedStatement insert = conn.prepareStatement(sql)) {
             insert.setInt(1, thesisId);
             insert.setInt(2, typeId);
-
-            insert.setString(3, "");
-
-            if (uploadedByUserId == null) {
-                throw new SQLException("UploadedByUserId ne smije biti NULL (Document tabela).");
-            }
-            insert.setInt(4, uploadedByUserId);
-
-            insert.setString(5, (status != null ? status.name() : DocumentStatus.IN_PROGRESS.name()));
+            insert.setInt(3, uploadedByUserId);
+            insert.setString(4, (status != null ? status.name() : DocumentStatus.IN_PROGRESS.name()));
             insert.executeUpdate();
         }
     }
 
+    /**
+     * Dokument postaje IN_PROGRESS, osim ako je već READY; ako ne postoji, dodaje se
+     */
     public void ensureDocumentInProgress(int thesisId, int typeId, Integer uploadedByUserId) {
-        String checkSql = """
-        SELECT Id, Status
-        FROM Document
-        WHERE ThesisId = ? AND TypeId = ? AND IsActive = 1
-        LIMIT 1
-    """;
+        ensureDocumentsInProgress(List.of(thesisId), typeId, uploadedByUserId);
+    }
 
-        String insertSql = """
-        INSERT INTO Document(ThesisId, TypeId, ContentBase64, UploadedByUserId, DocumentNumber, Status, CreatedAt, UpdatedAt, IsActive)
-        VALUES(?, ?, ?, ?, NULL, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1)
-    """;
+    /**
+     * Isto kao ensureDocumentInProgress, za više radova jednim JDBC batch-om (npr. vraćanje statusa)
+     */
+    public void ensureDocumentsInProgress(Collection<Integer> thesisIds, int typeId, Integer uploadedByUserId) {
+        if (thesisIds == null || thesisIds.isEmpty()) return;
 
-        String updateSql = """
-        UPDATE Document
-        SET Status = ?, UpdatedAt = CURRENT_TIMESTAMP
-        WHERE Id = ?
-    """;
+        // UploadedByUserId je NOT NULL, a ne zna se unaprijed da li će red biti dodan
+        if (uploadedByUserId == null) {
+            throw new RuntimeException("UploadedByUserId ne smije biti NULL (Document tabela).");
+        }
 
         try (Connection conn = CloudDatabaseConnection.Konekcija()) {
-            Integer docId = null;
-            DocumentStatus currentStatus = null;
-
-            try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
-                ps.setInt(1, thesisId);
-                ps.setInt(2, typeId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        docId = rs.getInt("Id");
-                        String s = rs.getString("Status");
-                        currentStatus = (s != null) ? DocumentStatus.valueOf(s) : null;
-                    }
-                }
-            }
-
-            if (docId == null) {
-                if (uploadedByUserId == null) {
-                    throw new RuntimeException("UploadedByUserId ne smije biti NULL (Document tabela).");
-                }
-
-                try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+            requireUniqueKey(conn);
+            try (PreparedStatement ps = conn.prepareStatement(ENSURE_IN_PROGRESS_SQL)) {
+                for (Integer thesisId : thesisIds) {
                     ps.setInt(1, thesisId);
                     ps.setInt(2, typeId);
-
-                    ps.setString(3, "");
-
-                    ps.setInt(4, uploadedByUserId);
-                    ps.setString(5, DocumentStatus.IN_PROGRESS.name());
-                    ps.executeUpdate();
+                    ps.setInt(3, uploadedByUserId);
+                    ps.addBatch();
                 }
-                return;
-            }
-
-            if (currentStatus == DocumentStatus.READY) return;
-
-            // Ako postoji, a nije READY -> forsiraj IN_PROGRESS (da bude dosljedno)
-            try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                ps.setString(1, DocumentStatus.IN_PROGRESS.name());
-                ps.setInt(2, docId);
-                ps.executeUpdate();
+                ps.executeBatch();
             }
 
         } catch (SQLException e) {
             throw new RuntimeException("Greška pri inicijalizaciji dokumenta IN_PROGRESS.", e);
         }
     }
+
     public boolean isDocumentReady(int thesisId, int typeId) {
         String sql = """
         SELECT Status
         FROM Document
         WHERE ThesisId = ? AND TypeId = ? AND IsActive = 1
+        ORDER BY Id DESC
         LIMIT 1
     """;
 
@@ -337,4 +447,174 @@ public class DocumentDAO {
             throw new RuntimeException("Greška pri provjeri READY statusa dokumenta.", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Radovi iz liste koji već imaju READY dokument datog tipa
+     */
+    public Set<Integer> getReadyThesisIds(Collection<Integer> thesisIds, int typeId) {
+        Set<Integer> result = new HashSet<>();
+        if (thesisIds == null || thesisIds.isEmpty()) return result;
+
+        String sql = "SELECT ThesisId FROM Document WHERE TypeId = ? AND IsActive = 1 AND Status = ? AND ThesisId IN ("
+                + CloudDatabaseConnection.placeholders(thesisIds.size()) + ")";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, typeId);
+            ps.setString(2, DocumentStatus.READY.name());
+            int idx = 3;
+            for (Integer id : thesisIds) ps.setInt(idx++, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) result.add(rs.getInt("ThesisId"));
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri provjeri READY statusa dokumenata.", e);
+        }
+    }
+
+    /**
+     * Brojevi dokumenata datog tipa za više radova, mapirani po ThesisId
+     */
+    public Map<Integer, String> getDocumentNumbers(Collection<Integer> thesisIds, int typeId) {
+        Map<Integer, String> result = new HashMap<>();
+        if (thesisIds == null || thesisIds.isEmpty()) return result;
+
+        // Po Id-u, da kod duplikata ostane broj najnovijeg dokumenta
+        String sql = "SELECT ThesisId, DocumentNumber FROM Document WHERE TypeId = ? AND IsActive = 1 AND ThesisId IN ("
+                + CloudDatabaseConnection.placeholders(thesisIds.size()) + ") ORDER BY Id";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, typeId);
+            int idx = 2;
+            for (Integer id : thesisIds) ps.setInt(idx++, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String number = rs.getString("DocumentNumber");
+                    if (number != null) result.put(rs.getInt("ThesisId"), number);
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri dohvatanju brojeva dokumenata.", e);
+        }
+    }
+
+    /**
+     * Snima PDF-ove istog tipa za više radova u jednoj transakciji (jedan JDBC batch upsert-a).
+     * Postojeći dokumenti se ažuriraju, ostali se dodaju; DocumentNumber se ne mijenja.
+     */
+    public void upsertBatch(int typeId, Map<Integer, byte[]> pdfByThesisId, Integer uploadedByUserId, DocumentStatus status) {
+        if (pdfByThesisId == null || pdfByThesisId.isEmpty()) return;
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            requireUniqueKey(conn);
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_KEEP_NUMBER_SQL)) {
+                for (Map.Entry<Integer, byte[]> entry : pdfByThesisId.entrySet()) {
+                    bindKeepNumber(ps, entry.getKey(), typeId, entry.getValue(), uploadedByUserId, status);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri grupnom snimanju dokumenata.", e);
+        }
+    }
+
+    /**
+     * Provjera jedinstvenog ključa (ThesisId, TypeId) pri prijavi, da greška u šemi izađe odmah,
+     * a ne tek pri prvom snimanju dokumenta
+     */
+    public void verifyUniqueKey() {
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            requireUniqueKey(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri provjeri šeme tabele Document.", e);
+        }
+    }
+
+    // Svi upsert-i (ON DUPLICATE KEY UPDATE) zavise od ovog ključa; bez njega bi dodavali duplikate
+    private static void requireUniqueKey(Connection conn) throws SQLException {
+        if (uniqueKeyVerified) return;
+
+        Map<String, StringBuilder> uniqueKeys = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("SHOW INDEX FROM Document");
+             ResultSet rs = ps.executeQuery()) {
+            // Redovi dolaze po ključu i po Seq_in_index
+            while (rs.next()) {
+                if (rs.getInt("Non_unique") != 0) continue;
+                StringBuilder columns = uniqueKeys.computeIfAbsent(rs.getString("Key_name"), k -> new StringBuilder());
+                if (!columns.isEmpty()) columns.append(',');
+                columns.append(rs.getString("Column_name"));
+            }
+        }
+
+        boolean found = uniqueKeys.values().stream()
+                .anyMatch(columns -> UNIQUE_KEY_COLUMNS.equalsIgnoreCase(columns.toString()));
+        if (!found) {
+            throw new RuntimeException("Tabela Document nema jedinstveni ključ (ThesisId, TypeId). Pokrenite: "
+                    + "ALTER TABLE Document ADD UNIQUE KEY UX_Document_Thesis_Type (ThesisId, TypeId);");
+        }
+        uniqueKeyVerified = true;
+    }
+
+    private static void bindKeepNumber(PreparedStatement ps, int thesisId, int typeId, byte[] pdfBytes,
+                                       Integer uploadedByUserId, DocumentStatus status) throws SQLException {
+        ps.setInt(1, thesisId);
+        ps.setInt(2, typeId);
+        ps.setBytes(3, pdfBytes);
+        if (uploadedByUserId != null) ps.setInt(4, uploadedByUserId); else ps.setNull(4, Types.INTEGER);
+        ps.setString(5, status != null ? status.name() : null);
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) continue;
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Stream koji pri zatvaranju zatvara i ResultSet/Statement/Connection iz kojih čita
+     */
+    private static class ResultSetInputStream extends FilterInputStream {
+        private final ResultSet rs;
+        private final Statement ps;
+        private final Connection conn;
+
+        ResultSetInputStream(InputStream in, ResultSet rs, Statement ps, Connection conn) {
+            super(in);
+            this.rs = rs;
+            this.ps = ps;
+            this.conn = conn;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                closeQuietly(rs, ps, conn);
+            }
+        }
+    }
+}
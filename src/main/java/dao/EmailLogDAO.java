@@ -9,38 +9,43 @@ import java.util.List;
 
 public class EmailLogDAO {
 
-    public void logEmail(EmailLog emailLog) throws SQLException {
+    /**
+     * Upisuje više logova u jednom batch-u (jedna konekcija, jedan round trip uz rewriteBatchedStatements)
+     */
+    public void logEmails(List<EmailLog> emailLogs) throws SQLException {
+        if (emailLogs == null || emailLogs.isEmpty()) return;
+
         String sql = """
             INSERT INTO EmailLog (SentBy, SentTo, Subject, Status, ErrorMessage, SentAt, DocumentId)
             VALUES (?, ?, ?, ?, ?, ?, ?)
             """;
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            ps.setInt(1, emailLog.getSentBy());
-            ps.setString(2, emailLog.getSentTo());
-            ps.setString(3, emailLog.getSubject());
-            ps.setString(4, emailLog.getStatus());
-            ps.setString(5, emailLog.getErrorMessage());
-            ps.setTimestamp(6, Timestamp.valueOf(emailLog.getSentAt()));
-            
-            if (emailLog.getDocumentId() != null) {
-                ps.setInt(7, emailLog.getDocumentId());
-            } else {
-                ps.setNull(7, Types.INTEGER);
-            }
-
-            int rows = ps.executeUpdate();
-            
-            if (rows > 0) {
-                try (ResultSet rs = ps.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        emailLog.setId(rs.getInt(1));
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (EmailLog emailLog : emailLogs) {
+                    ps.setInt(1, emailLog.getSentBy());
+                    ps.setString(2, emailLog.getSentTo());
+                    ps.setString(3, emailLog.getSubject());
+                    ps.setString(4, emailLog.getStatus());
+                    ps.setString(5, emailLog.getErrorMessage());
+                    ps.setTimestamp(6, Timestamp.valueOf(emailLog.getSentAt()));
+
+                    if (emailLog.getDocumentId() != null) {
+                        ps.setInt(7, emailLog.getDocumentId());
+                    } else {
+                        ps.setNull(7, Types.INTEGER);
                     }
+                    ps.addBatch();
                 }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         }
     }
-
 }
@@ -0,0 +1,232 @@
+package dao;
+
+import model.EmailOutboxMessage;
+import model.EmailOutboxStatus;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Red emailova za slanje (outbox). UI samo dodaje poruke, a EmailOutboxWorker ih šalje.
+ *
+ *   CREATE TABLE EmailOutbox (
+ *       Id INT AUTO_INCREMENT PRIMARY KEY,
+ *       SentBy INT NOT NULL,
+ *       SenderEmail VARCHAR(255) NOT NULL,
+ *       Recipients TEXT NOT NULL,
+ *       Subject VARCHAR(500) NOT NULL,
+ *       Body MEDIUMTEXT NOT NULL,
+ *       DocumentId INT NULL,
+ *       AttachmentName VARCHAR(255) NULL,
+ *       Status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+ *       Attempts INT NOT NULL DEFAULT 0,
+ *       NextAttemptAt DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+ *       LastError TEXT NULL,
+ *       ClaimedAt DATETIME NULL,
+ *       CreatedAt DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+ *       SentAt DATETIME NULL,
+ *       INDEX IX_EmailOutbox_Status_NextAttemptAt (Status, NextAttemptAt)
+ *   );
+ */
+public class EmailOutboxDAO {
+
+    public int enqueue(EmailOutboxMessage message) {
+        String sql = """
+            INSERT INTO EmailOutbox (SentBy, SenderEmail, Recipients, Subject, Body, DocumentId, AttachmentName,
+                                     Status, Attempts, NextAttemptAt, CreatedAt)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+            """;
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setInt(1, message.getSentBy());
+            ps.setString(2, message.getSenderEmail());
+            ps.setString(3, String.join(",", message.getRecipients()));
+            ps.setString(4, message.getSubject());
+            ps.setString(5, message.getBody());
+            if (message.getDocumentId() != null) ps.setInt(6, message.getDocumentId()); else ps.setNull(6, Types.INTEGER);
+            ps.setString(7, message.getAttachmentName());
+            ps.setString(8, EmailOutboxStatus.PENDING.name());
+
+            ps.executeUpdate();
+
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    message.setId(rs.getInt(1));
+                }
+            }
+            message.setStatus(EmailOutboxStatus.PENDING);
+            return message.getId();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri dodavanju emaila u red za slanje.", e);
+        }
+    }
+
+    /**
+     * Uzima do limit poruka koje su spremne za slanje i prebacuje ih u SENDING
+     * (u jednoj transakciji, da ih drugi worker ne bi uzeo ponovo).
+     * ClaimedAt je početak "zakupa": dok ne istekne, poruku ne vraća u red ni jedan klijent.
+     */
+    public List<EmailOutboxMessage> claimDue(int limit) {
+        String selectSql = """
+            SELECT Id, SentBy, SenderEmail, Recipients, Subject, Body, DocumentId, AttachmentName,
+                   Status, Attempts, NextAttemptAt, LastError, CreatedAt, SentAt
+            FROM EmailOutbox
+            WHERE Status = ? AND NextAttemptAt <= CURRENT_TIMESTAMP
+            ORDER BY SentBy, Id
+            LIMIT ?
+            FOR UPDATE
+            """;
+
+        List<EmailOutboxMessage> messages = new ArrayList<>();
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+                    ps.setString(1, EmailOutboxStatus.PENDING.name());
+                    ps.setInt(2, limit);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            messages.add(map(rs));
+                        }
+                    }
+                }
+
+                if (!messages.isEmpty()) {
+                    String updateSql = "UPDATE EmailOutbox SET Status = ?, ClaimedAt = CURRENT_TIMESTAMP WHERE Id IN ("
+                            + CloudDatabaseConnection.placeholders(messages.size()) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+                        ps.setString(1, EmailOutboxStatus.SENDING.name());
+                        int idx = 2;
+                        for (EmailOutboxMessage message : messages) ps.setInt(idx++, message.getId());
+                        ps.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri dohvatanju emailova za slanje.", e);
+        }
+
+        messages.forEach(message -> message.setStatus(EmailOutboxStatus.SENDING));
+        return messages;
+    }
+
+    public void markSent(int id) {
+        String sql = "UPDATE EmailOutbox SET Status = ?, SentAt = CURRENT_TIMESTAMP, LastError = NULL WHERE Id = ?";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, EmailOutboxStatus.SENT.name());
+            ps.setInt(2, id);
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri ažuriranju statusa emaila.", e);
+        }
+    }
+
+    /**
+     * Vraća poruku u red; vrijeme sljedećeg pokušaja računa baza, da claimDue (koji poredi sa
+     * CURRENT_TIMESTAMP) ne zavisi od sata klijenta
+     */
+    public void scheduleRetry(int id, int attempts, long delaySeconds, String error) {
+        String sql = """
+            UPDATE EmailOutbox
+            SET Status = ?, Attempts = ?, NextAttemptAt = CURRENT_TIMESTAMP + INTERVAL ? SECOND, LastError = ?, ClaimedAt = NULL
+            WHERE Id = ?
+            """;
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, EmailOutboxStatus.PENDING.name());
+            ps.setInt(2, attempts);
+            ps.setLong(3, delaySeconds);
+            ps.setString(4, error);
+            ps.setInt(5, id);
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri ažuriranju statusa emaila.", e);
+        }
+    }
+
+    public void markFailed(int id, int attempts, String error) {
+        String sql = "UPDATE EmailOutbox SET Status = ?, Attempts = ?, LastError = ? WHERE Id = ?";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, EmailOutboxStatus.FAILED.name());
+            ps.setInt(2, attempts);
+            ps.setString(3, error);
+            ps.setInt(4, id);
+            ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri ažuriranju statusa emaila.", e);
+        }
+    }
+
+    /**
+     * Poruke koje su ostale u SENDING duže od zakupa (npr. aplikacija ugašena usred slanja) vraća u red.
+     * Poruke koje drugi klijent upravo šalje imaju svjež ClaimedAt i ostaju njemu.
+     * @param leaseMinutes duže od najdužeg slanja jednog batch-a
+     */
+    public int requeueExpired(int leaseMinutes) {
+        String sql = """
+            UPDATE EmailOutbox SET Status = ?, ClaimedAt = NULL
+            WHERE Status = ?
+              AND (ClaimedAt IS NULL OR ClaimedAt < CURRENT_TIMESTAMP - INTERVAL ? MINUTE)
+            """;
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, EmailOutboxStatus.PENDING.name());
+            ps.setString(2, EmailOutboxStatus.SENDING.name());
+            ps.setInt(3, leaseMinutes);
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri vraćanju emailova u red za slanje.", e);
+        }
+    }
+
+    private EmailOutboxMessage map(ResultSet rs) throws SQLException {
+        Timestamp nextAttemptAt = rs.getTimestamp("NextAttemptAt");
+        Timestamp createdAt = rs.getTimestamp("CreatedAt");
+        Timestamp sentAt = rs.getTimestamp("SentAt");
+
+        return EmailOutboxMessage.builder()
+                .id(rs.getInt("Id"))
+                .sentBy(rs.getInt("SentBy"))
+                .senderEmail(rs.getString("SenderEmail"))
+                .recipients(Arrays.asList(rs.getString("Recipients").split(",")))
+                .subject(rs.getString("Subject"))
+                .body(rs.getString("Body"))
+                .documentId(rs.getObject("DocumentId", Integer.class))
+                .attachmentName(rs.getString("AttachmentName"))
+                .status(EmailOutboxStatus.valueOf(rs.getString("Status")))
+                .attempts(rs.getInt("Attempts"))
+                .nextAttemptAt(nextAttemptAt != null ? nextAttemptAt.toLocalDateTime() : null)
+                .lastError(rs.getString("LastError"))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .sentAt(sentAt != null ? sentAt.toLocalDateTime() : null)
+                .build();
+    }
+}
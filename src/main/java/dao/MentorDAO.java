@@ -10,24 +10,78 @@ import java.util.List;
 
 public class MentorDAO {
 
-    private static final String BASE_QUERY = """
-        SELECT a.*, 
-        (SELECT COUNT(*) FROM Thesis t WHERE t.MentorId = a.Id AND t.IsActive=1) AS StudentCount,
-        (SELECT COUNT(*) FROM Thesis t INNER JOIN ThesisStatus ts ON t.StatusId = ts.Id WHERE t.MentorId = a.Id AND
-        ts.Name NOT IN ('Odbranjen') AND t.IsActive = 1) AS OngoingThesisCount
+    // Brojevi radova se računaju jednim GROUP BY prolazom kroz Thesis (umjesto dva podupita po mentoru),
+    // a mentori sa korisničkim nalogom se isključuju anti-join-om.
+    // Pomaže indeks: CREATE INDEX IX_Thesis_IsActive_MentorId ON Thesis (IsActive, MentorId, StatusId);
+    private static final String SELECT_QUERY = """
+        SELECT a.*,
+               COALESCE(tc.StudentCount, 0) AS StudentCount,
+               COALESCE(tc.OngoingThesisCount, 0) AS OngoingThesisCount,
+               (AP.Id IS NULL AND a.IsActive = 1) AS Listed
         FROM AcademicStaff a
-        WHERE NOT EXISTS(
-        SELECT 1
-        FROM AppUser AP
-        where AP.AcademicStaffId = a.Id
-        )
+        LEFT JOIN (
+            SELECT t.MentorId,
+                   COUNT(*) AS StudentCount,
+                   SUM(CASE WHEN ts.Name NOT IN ('Odbranjen') THEN 1 ELSE 0 END) AS OngoingThesisCount
+            FROM Thesis t
+            INNER JOIN ThesisStatus ts ON t.StatusId = ts.Id
+            WHERE t.IsActive = 1
+            GROUP BY t.MentorId
+        ) tc ON tc.MentorId = a.Id
+        LEFT JOIN AppUser AP ON AP.AcademicStaffId = a.Id
+        """;
+
+    private static final String BASE_QUERY = SELECT_QUERY + """
+        WHERE AP.Id IS NULL
          AND a.IsActive = 1
         """;
 
+    // Broj radova se mijenja sa radom, pa mentor ulazi u izmjene i kad mu je izmijenjen (ili dodan) rad.
+    // Prethodnom mentoru pri promjeni mentora ThesisDAO.updateThesis postavlja UpdatedAt.
+    // Pomaže indeks: CREATE INDEX IX_Thesis_UpdatedAt ON Thesis (UpdatedAt, MentorId);
+    private static final String CHANGES_QUERY = SELECT_QUERY + """
+        WHERE a.UpdatedAt >= ?
+           OR a.Id IN (SELECT MentorId FROM Thesis WHERE UpdatedAt >= ?)
+        """;
+
     public List<MentorDTO> getAllMentors() {
         return fetchMentors(BASE_QUERY + " ORDER BY a.FirstName");
     }
 
+    /**
+     * Mentori izmijenjeni od since. Obrisani (IsActive = 0) i oni koji su u međuvremenu dobili
+     * korisnički nalog se vraćaju kao removedIds; since = null vraća cijelu listu mentora
+     */
+    public ChangeSet<MentorDTO> getChangedSince(LocalDateTime since) {
+        List<MentorDTO> changed = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            LocalDateTime syncedAt = ChangeSet.now(conn);
+
+            try (PreparedStatement ps = conn.prepareStatement(since == null ? BASE_QUERY : CHANGES_QUERY)) {
+                if (since != null) {
+                    ps.setTimestamp(1, ChangeSet.from(since));
+                    ps.setTimestamp(2, ChangeSet.from(since));
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getBoolean("Listed")) {
+                            changed.add(mapMentor(rs));
+                        } else {
+                            removedIds.add(rs.getInt("Id"));
+                        }
+                    }
+                }
+            }
+            return new ChangeSet<>(changed, removedIds, syncedAt, since == null);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri učitavanju izmjena mentora: " + e.getMessage(), e);
+        }
+    }
+
     private List<MentorDTO> fetchMentors(String sql, String... params) {
         List<MentorDTO> list = new ArrayList<>();
 
@@ -41,25 +95,7 @@ public class MentorDAO {
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
-                AcademicStaff mentor = new AcademicStaff();
-                mentor.setId(rs.getInt("Id"));
-                mentor.setTitle(rs.getString("Title"));
-                mentor.setFirstName(rs.getString("FirstName"));
-                mentor.setLastName(rs.getString("LastName"));
-                mentor.setEmail(rs.getString("Email"));
-                mentor.setIsDean(rs.getBoolean("IsDean"));
-                mentor.setIsActive(rs.getBoolean("IsActive"));
-
-                if (rs.getTimestamp("CreatedAt") != null) {
-                    mentor.setCreatedAt(rs.getTimestamp("CreatedAt").toLocalDateTime());
-                }
-                if (rs.getTimestamp("UpdatedAt") != null) {
-                    mentor.setUpdatedAt(rs.getTimestamp("UpdatedAt").toLocalDateTime());
-                }
-
-                int studentCount = rs.getInt("StudentCount");
-                int OngoingThesisCount = rs.getInt("OngoingThesisCount");
-                list.add(new MentorDTO(mentor, studentCount, OngoingThesisCount));
+                list.add(mapMentor(rs));
             }
 
         } catch (SQLException e) {
@@ -68,11 +104,33 @@ public class MentorDAO {
         return list;
     }
 
+    private MentorDTO mapMentor(ResultSet rs) throws SQLException {
+        AcademicStaff mentor = new AcademicStaff();
+        mentor.setId(rs.getInt("Id"));
+        mentor.setTitle(rs.getString("Title"));
+        mentor.setFirstName(rs.getString("FirstName"));
+        mentor.setLastName(rs.getString("LastName"));
+        mentor.setEmail(rs.getString("Email"));
+        mentor.setIsDean(rs.getBoolean("IsDean"));
+        mentor.setIsActive(rs.getBoolean("IsActive"));
+
+        if (rs.getTimestamp("CreatedAt") != null) {
+            mentor.setCreatedAt(rs.getTimestamp("CreatedAt").toLocalDateTime());
+        }
+        if (rs.getTimestamp("UpdatedAt") != null) {
+            mentor.setUpdatedAt(rs.getTimestamp("UpdatedAt").toLocalDateTime());
+        }
+
+        int studentCount = rs.getInt("StudentCount");
+        int OngoingThesisCount = rs.getInt("OngoingThesisCount");
+        return new MentorDTO(mentor, studentCount, OngoingThesisCount);
+    }
+
     public void insertMentor(AcademicStaff mentor) {
         String sql = """
             INSERT INTO AcademicStaff 
             (Title, FirstName, LastName, Email,  CreatedAt, UpdatedAt)
-            VALUES (?, ?, ?, ?, ?, ?)
+            VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
             """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
@@ -82,9 +140,6 @@ public class MentorDAO {
             ps.setString(2, mentor.getFirstName());
             ps.setString(3, mentor.getLastName());
             ps.setString(4, mentor.getEmail());
-
-            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
             ps.executeUpdate();
 
         } catch (SQLException e) {
@@ -95,7 +150,7 @@ public class MentorDAO {
     public void updateMentor(AcademicStaff mentor) {
         String sql = """
             UPDATE AcademicStaff SET 
-               Title=?, FirstName=?, LastName=?, Email=?, UpdatedAt=?
+               Title=?, FirstName=?, LastName=?, Email=?, UpdatedAt=CURRENT_TIMESTAMP
             WHERE Id=?
             """;
 
@@ -106,8 +161,7 @@ public class MentorDAO {
             ps.setString(2, mentor.getFirstName());
             ps.setString(3, mentor.getLastName());
             ps.setString(4, mentor.getEmail());
-            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setInt(6, mentor.getId());
+            ps.setInt(5, mentor.getId());
             ps.executeUpdate();
 
         } catch (SQLException e) {
@@ -116,13 +170,12 @@ public class MentorDAO {
     }
 
     public void deleteMentor(int id) {
-        String sql = "UPDATE AcademicStaff SET IsActive = 0, UpdatedAt = ? WHERE Id = ?";
+        String sql = "UPDATE AcademicStaff SET IsActive = 0, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setInt(2, id);
+            ps.setInt(1, id);
             ps.executeUpdate();
 
         } catch (SQLException e) {
@@ -189,8 +242,8 @@ public class MentorDAO {
      */
 
     public void setDean(int newDeanId) {
-        String removeDeanSql = "UPDATE AcademicStaff SET IsDean = 0, UpdatedAt = ? WHERE IsDean = 1";
-        String setDeanSql = "UPDATE AcademicStaff SET IsDean = 1, UpdatedAt = ? WHERE Id = ?";
+        String removeDeanSql = "UPDATE AcademicStaff SET IsDean = 0, UpdatedAt = CURRENT_TIMESTAMP WHERE IsDean = 1";
+        String setDeanSql = "UPDATE AcademicStaff SET IsDean = 1, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
 
         try (Connection conn = CloudDatabaseConnection.Konekcija()) {
             conn.setAutoCommit(false);
@@ -198,14 +251,12 @@ public class MentorDAO {
             try {
                 // Prvo ukloni status dekana sa svih profesora
                 try (PreparedStatement ps = conn.prepareStatement(removeDeanSql)) {
-                    ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
                     ps.executeUpdate();
                 }
 
                 // Postavi novog dekana
                 try (PreparedStatement ps = conn.prepareStatement(setDeanSql)) {
-                    ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-                    ps.setInt(2, newDeanId);
+                    ps.setInt(1, newDeanId);
                     ps.executeUpdate();
                 }
 
@@ -0,0 +1,261 @@
+package dao;
+
+import model.CommissionRole;
+import model.Department;
+import model.DocumentType;
+import model.StudentStatus;
+import model.Subject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keš malih šifarnika (statusi radova, tipovi dokumenata, odsjeci, predmeti,
+ * uloge u komisiji, statusi studenata) za cijelu aplikaciju.
+ * Tabele se učitavaju jednom, paralelno, nakon prijave (preload), a lookup-i ne idu u bazu.
+ * Svi podaci su u nepromjenjivim listama/mapama; osvježavanje zamjenjuje cijeli snapshot.
+ */
+public final class ReferenceDataCache {
+
+    // Najviše toliko upita šifarnika istovremeno - konekcije za njih su dio rezerve van AsyncHelper dozvola
+    public static final int MAX_PARALLEL_LOADS = 2;
+    private static final Semaphore LOAD_PERMITS = new Semaphore(MAX_PARALLEL_LOADS);
+
+    // Cached pool: preload čeka na paralelne upite na istom pool-u, pa ne smije biti ograničen
+    // (broj konekcija ograničava LOAD_PERMITS, koji uzimaju samo pojedinačni upiti)
+    private static final ExecutorService LOADER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "reference-data-loader");
+        thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
+        return thread;
+    });
+
+    // "Otisak" šifarnika - checksum sadržaja, pa se mijenja i kad se red doda, obriše ili izmijeni
+    // (tabele su male, pa je checksum cijelog sadržaja jeftin)
+    private static final String FINGERPRINT_SQL =
+            "CHECKSUM TABLE ThesisStatus, DocumentType, Department, Subject, CommissionRole, StudentStatus";
+
+    private static volatile Snapshot snapshot;
+
+    private ReferenceDataCache() {}
+
+    /**
+     * Učitava šifarnike u pozadini (poziva se nakon prijave). Ako su već učitani,
+     * provjerava otisak i osvježava samo ako su se promijenili.
+     */
+    public static void preload() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                if (snapshot == null) {
+                    get();
+                } else {
+                    refreshIfChanged();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[ReferenceDataCache] " + e.getMessage());
+            }
+        }, LOADER);
+    }
+
+    /**
+     * Ponovo učitava sve šifarnike
+     */
+    public static synchronized void refresh() {
+        snapshot = load();
+    }
+
+    /**
+     * Osvježava keš samo ako se otisak u bazi razlikuje od učitanog
+     * @return true ako je keš osvježen
+     */
+    public static synchronized boolean refreshIfChanged() {
+        if (snapshot == null) {
+            snapshot = load();
+            return true;
+        }
+        if (Objects.equals(snapshot.fingerprint, limited(ReferenceDataCache::loadFingerprint))) {
+            return false;
+        }
+        snapshot = load();
+        return true;
+    }
+
+    // ==================== LOOKUPS ====================
+
+    public static List<String> thesisStatuses() {
+        return get().thesisStatuses;
+    }
+
+    public static List<DocumentType> documentTypes() {
+        return get().documentTypes;
+    }
+
+    public static DocumentType documentType(int id) {
+        return get().documentTypesById.get(id);
+    }
+
+    public static DocumentType documentType(String name) {
+        return get().documentTypesByName.get(name);
+    }
+
+    public static List<Department> departments() {
+        return get().departments;
+    }
+
+    public static Department department(int id) {
+        return get().departmentsById.get(id);
+    }
+
+    public static List<Subject> subjects() {
+        return get().subjects;
+    }
+
+    public static Subject subject(int id) {
+        return get().subjectsById.get(id);
+    }
+
+    public static List<CommissionRole> commissionRoles() {
+        return get().commissionRoles;
+    }
+
+    public static CommissionRole commissionRole(int id) {
+        return get().commissionRolesById.get(id);
+    }
+
+    public static List<StudentStatus> studentStatuses() {
+        return get().studentStatuses;
+    }
+
+    public static StudentStatus studentStatus(int id) {
+        return get().studentStatusesById.get(id);
+    }
+
+    // ==================== LOADING ====================
+
+    private static Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null) return current;
+
+        synchronized (ReferenceDataCache.class) {
+            if (snapshot == null) {
+                snapshot = load();
+            }
+            return snapshot;
+        }
+    }
+
+    private static Snapshot load() {
+        long start = System.currentTimeMillis();
+
+        // Otisak se čita PRIJE tabela: izmjena tokom učitavanja onda promijeni otisak u bazi,
+        // pa je sljedeći refreshIfChanged ponovo učita (obrnuto bi je keš zauvijek propustio)
+        String fingerprint = limited(ReferenceDataCache::loadFingerprint);
+        CompletableFuture<List<String>> thesisStatuses = supply(() -> new ThesisStatusDAO().getAllStatuses());
+        CompletableFuture<List<DocumentType>> documentTypes = supply(() -> new DocumentTypeDAO().getAllOrdered());
+        CompletableFuture<List<Department>> departments = supply(() -> new DepartmentDAO().getAllDepartments());
+        CompletableFuture<List<Subject>> subjects = supply(() -> new SubjectDAO().getAllSubjects());
+        CompletableFuture<List<CommissionRole>> commissionRoles = supply(() -> new CommissionRoleDAO().getCommissionRoles());
+        CompletableFuture<List<StudentStatus>> studentStatuses = supply(() -> new StudentStatusDAO().getAllStatuses());
+
+        try {
+            Snapshot loaded = new Snapshot(
+                    fingerprint,
+                    thesisStatuses.join(),
+                    documentTypes.join(),
+                    departments.join(),
+                    subjects.join(),
+                    commissionRoles.join(),
+                    studentStatuses.join()
+            );
+            System.out.println("[ReferenceDataCache] Loaded in " + (System.currentTimeMillis() - start) + " ms");
+            return loaded;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Greška pri učitavanju šifarnika: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(() -> limited(supplier), LOADER);
+    }
+
+    private static <T> T limited(Supplier<T> query) {
+        LOAD_PERMITS.acquireUninterruptibly();
+        try {
+            return query.get();
+        } finally {
+            LOAD_PERMITS.release();
+        }
+    }
+
+    private static String loadFingerprint() {
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(FINGERPRINT_SQL);
+             ResultSet rs = ps.executeQuery()) {
+
+            StringBuilder fingerprint = new StringBuilder();
+            while (rs.next()) {
+                fingerprint.append(rs.getString("Table")).append(':').append(rs.getString("Checksum")).append('|');
+            }
+            return fingerprint.toString();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri provjeri šifarnika: " + e.getMessage(), e);
+        }
+    }
+
+    private static <T, K> Map<K, T> index(List<T> items, Function<T, K> key) {
+        Map<K, T> map = new LinkedHashMap<>();
+        for (T item : items) {
+            K k = key.apply(item);
+            if (k != null) map.putIfAbsent(k, item);
+        }
+        return Map.copyOf(map);
+    }
+
+    private static final class Snapshot {
+        private final String fingerprint;
+        private final List<String> thesisStatuses;
+        private final List<DocumentType> documentTypes;
+        private final Map<Integer, DocumentType> documentTypesById;
+        private final Map<String, DocumentType> documentTypesByName;
+        private final List<Department> departments;
+        private final Map<Integer, Department> departmentsById;
+        private final List<Subject> subjects;
+        private final Map<Integer, Subject> subjectsById;
+        private final List<CommissionRole> commissionRoles;
+        private final Map<Integer, CommissionRole> commissionRolesById;
+        private final List<StudentStatus> studentStatuses;
+        private final Map<Integer, StudentStatus> studentStatusesById;
+
+        private Snapshot(String fingerprint, List<String> thesisStatuses, List<DocumentType> documentTypes,
+                         List<Department> departments, List<Subject> subjects,
+                         List<CommissionRole> commissionRoles, List<StudentStatus> studentStatuses) {
+            this.fingerprint = fingerprint;
+            this.thesisStatuses = List.copyOf(thesisStatuses);
+            this.documentTypes = List.copyOf(documentTypes);
+            this.documentTypesById = index(documentTypes, DocumentType::getId);
+            this.documentTypesByName = index(documentTypes, DocumentType::getName);
+            this.departments = List.copyOf(departments);
+            this.departmentsById = index(departments, Department::getId);
+            this.subjects = List.copyOf(subjects);
+            this.subjectsById = index(subjects, Subject::getId);
+            this.commissionRoles = List.copyOf(commissionRoles);
+            this.commissionRolesById = index(commissionRoles, CommissionRole::getId);
+            this.studentStatuses = List.copyOf(studentStatuses);
+            this.studentStatusesById = index(studentStatuses, StudentStatus::getId);
+        }
+    }
+}
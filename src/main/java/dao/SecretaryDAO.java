@@ -17,6 +17,11 @@ import java.util.List;
 public class SecretaryDAO {
 
     public List<SecretaryDTO> getAllSecretaries() {
+        // Istovremena učitavanja liste sekretara dijele jedan upit
+        return SingleFlight.call("SecretaryDAO.getAllSecretaries", this::fetchAllSecretaries);
+    }
+
+    private List<SecretaryDTO> fetchAllSecretaries() {
         String sql = """
             SELECT
                 au.Id              AS appUserId,
@@ -0,0 +1,105 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Spajanje istovremenih identičnih DAO poziva (single-flight).
+ *
+ * Ako je poziv sa istom metodom i argumentima već u toku, novi pozivalac čeka na isti
+ * rezultat umjesto da ide u bazu. Unos se briše čim upit završi, pa ovo nije keš:
+ * sljedeći poziv opet čita svježe podatke.
+ *
+ * Rezultat je zajednički za sve pozivaoce koji su se spojili, pa ga ne treba mijenjati.
+ */
+public final class SingleFlight {
+
+    private record Key(String method, List<Object> args) {}
+
+    private static final Map<Key, CompletableFuture<Object>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final Map<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+    public static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        public long calls() { return calls.sum(); }
+        public long coalesced() { return coalesced.sum(); }
+    }
+
+    private SingleFlight() {}
+
+    /**
+     * @param method npr. "ThesisDAO.getThesisDetails"
+     * @param loader stvarni upit; izvršava ga samo prvi pozivalac
+     * @param args argumenti koji, zajedno sa metodom, određuju da li su dva poziva ista
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T call(String method, Supplier<T> loader, Object... args) {
+        Key key = new Key(method, Arrays.asList(args.clone()));
+        Counters counters = COUNTERS.computeIfAbsent(method, m -> new Counters());
+        counters.calls.increment();
+
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = IN_FLIGHT.putIfAbsent(key, own);
+        if (existing != null) {
+            counters.coalesced.increment();
+            return (T) join(existing);
+        }
+
+        try {
+            T value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, own);
+        }
+    }
+
+    // ==================== REPORT ====================
+
+    /**
+     * Metode sortirane po broju spojenih poziva
+     */
+    public static List<Map.Entry<String, Counters>> counters() {
+        List<Map.Entry<String, Counters>> list = new ArrayList<>(COUNTERS.entrySet());
+        list.sort(Comparator.comparingLong((Map.Entry<String, Counters> e) -> e.getValue().coalesced()).reversed());
+        return list;
+    }
+
+    static void reset() {
+        COUNTERS.clear();
+    }
+
+    static void appendReport(StringBuilder sb) {
+        sb.append("\nSPOJENI POZIVI (single-flight)\n");
+        for (Map.Entry<String, Counters> entry : counters()) {
+            Counters c = entry.getValue();
+            sb.append(String.format("  %-60s poziva=%d, spojeno=%d%n", entry.getKey(), c.calls(), c.coalesced()));
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Isti izuzetak kao da je ovaj pozivalac sam izvršio upit
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
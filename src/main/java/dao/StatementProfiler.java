@@ -0,0 +1,310 @@
+package dao;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Profilisanje pojedinačnih SQL naredbi: trajanje execute* poziva, broj pročitanih redova
+ * i bajtova iz String/LOB kolona (npr. ContentBase64, Content), grupisano po normalizovanom SQL-u.
+ *
+ * Uključuje se sa db.metrics.statements=true (ili sa ekrana dijagnostike); kad je isključeno,
+ * naredbe se ne omotavaju i nema nikakvog troška. Statistika je "rolling": čuva se tekući i
+ * prethodni prozor od 5 minuta, pa izvještaj pokazuje zadnjih 5-10 minuta.
+ */
+public final class StatementProfiler {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int NORMALIZED_CACHE_LIMIT = 1_000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static volatile boolean enabled;
+
+    private static final Map<String, String> NORMALIZED = new ConcurrentHashMap<>();
+    private static volatile Map<String, Stats> current = new ConcurrentHashMap<>();
+    private static volatile Map<String, Stats> previous = new ConcurrentHashMap<>();
+    private static volatile long windowStart = System.nanoTime();
+
+    private StatementProfiler() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        StatementProfiler.enabled = enabled;
+    }
+
+    /**
+     * Agregat za jedan normalizovani SQL
+     */
+    public static final class Stats {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        public long executions() { return executions.sum(); }
+        public long errors() { return errors.sum(); }
+        public long totalNanos() { return totalNanos.sum(); }
+        public long maxNanos() { return maxNanos.get(); }
+        public long rows() { return rows.sum(); }
+        public long bytes() { return bytes.sum(); }
+
+        public double meanMillis() {
+            long n = executions();
+            return n == 0 ? 0 : totalNanos() / 1_000_000.0 / n;
+        }
+
+        private void merge(Stats other) {
+            executions.add(other.executions());
+            errors.add(other.errors());
+            totalNanos.add(other.totalNanos());
+            maxNanos.accumulateAndGet(other.maxNanos(), Math::max);
+            rows.add(other.rows());
+            bytes.add(other.bytes());
+        }
+    }
+
+    public record Entry(String sql, Stats stats) {}
+
+    // ==================== WRAPPING ====================
+
+    /**
+     * Omotava Statement/PreparedStatement/CallableStatement vraćen sa konekcije.
+     * @param sql SQL pripremljene naredbe, ili null za običan Statement (SQL stiže u execute*)
+     */
+    static Object wrapStatement(Object statement, Class<?> type, String sql) {
+        if (!enabled || !(statement instanceof Statement)) return statement;
+        return Proxy.newProxyInstance(StatementProfiler.class.getClassLoader(),
+                new Class<?>[]{type}, new StatementHandler((Statement) statement, sql));
+    }
+
+    // ==================== REPORT ====================
+
+    /**
+     * Top N naredbi po ukupnom vremenu u zadnja dva prozora
+     */
+    public static List<Entry> top(int n) {
+        rotateIfNeeded();
+        Map<String, Stats> merged = new HashMap<>();
+        for (Map<String, Stats> window : List.of(previous, current)) {
+            window.forEach((sql, stats) -> merged.computeIfAbsent(sql, key -> new Stats()).merge(stats));
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        merged.forEach((sql, stats) -> entries.add(new Entry(sql, stats)));
+        entries.sort(Comparator.comparingLong((Entry e) -> e.stats().totalNanos()).reversed());
+        return entries.size() > n ? entries.subList(0, n) : entries;
+    }
+
+    public static void reset() {
+        current = new ConcurrentHashMap<>();
+        previous = new ConcurrentHashMap<>();
+        windowStart = System.nanoTime();
+    }
+
+    static void appendReport(StringBuilder sb, int n) {
+        sb.append("\nSQL NAREDBE (top ").append(n).append(" po ukupnom vremenu, zadnjih 5-10 min)\n");
+        if (!enabled) {
+            sb.append("  isključeno (db.metrics.statements=false)\n");
+            return;
+        }
+        for (Entry entry : top(n)) {
+            Stats s = entry.stats();
+            sb.append(String.format("  n=%d, ukupno=%.0f ms, prosjek=%.1f ms, max=%.1f ms, redova=%d, bajtova=%d, grešaka=%d%n",
+                    s.executions(), s.totalNanos() / 1_000_000.0, s.meanMillis(), s.maxNanos() / 1_000_000.0,
+                    s.rows(), s.bytes(), s.errors()));
+            sb.append("      ").append(entry.sql()).append("\n");
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    static String normalize(String sql) {
+        if (sql == null) return "(nepoznat SQL)";
+        String cached = NORMALIZED.get(sql);
+        if (cached != null) return cached;
+
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (...)");
+
+        // IN liste različitih dužina daju različite sirove stringove - keš ne smije rasti beskonačno
+        if (NORMALIZED.size() >= NORMALIZED_CACHE_LIMIT) NORMALIZED.clear();
+        NORMALIZED.put(sql, normalized);
+        return normalized;
+    }
+
+    private static Stats stats(String sql) {
+        rotateIfNeeded();
+        return current.computeIfAbsent(normalize(sql), key -> new Stats());
+    }
+
+    private static void rotateIfNeeded() {
+        long now = System.nanoTime();
+        if (now - windowStart < WINDOW_NANOS) return;
+
+        synchronized (StatementProfiler.class) {
+            if (now - windowStart < WINDOW_NANOS) return;
+            previous = current;
+            current = new ConcurrentHashMap<>();
+            windowStart = now;
+        }
+    }
+
+    private static boolean isExecute(String name) {
+        return name.startsWith("execute");
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql; // Statement.addBatch(sql) bez pripremljenog SQL-a
+        private Stats lastStats;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("addBatch") && preparedSql == null && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+
+            if (!isExecute(name)) {
+                Object result = invokeTarget(method, args);
+                if (name.equals("getResultSet") && result instanceof ResultSet rs && lastStats != null) {
+                    return wrapResultSet(rs, lastStats);
+                }
+                return result;
+            }
+
+            String sql = preparedSql;
+            if (sql == null) sql = (args != null && args.length > 0 && args[0] instanceof String s) ? s : batchSql;
+            Stats stats = stats(sql);
+            lastStats = stats;
+
+            long start = System.nanoTime();
+            try {
+                Object result = invokeTarget(method, args);
+                if (result instanceof ResultSet rs) {
+                    return wrapResultSet(rs, stats);
+                }
+                return result;
+            } catch (Throwable t) {
+                stats.errors.increment();
+                throw t;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                stats.executions.increment();
+                stats.totalNanos.add(elapsed);
+                stats.maxNanos.accumulateAndGet(elapsed, Math::max);
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static ResultSet wrapResultSet(ResultSet rs, Stats stats) {
+        return (ResultSet) Proxy.newProxyInstance(StatementProfiler.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new ResultSetHandler(rs, stats));
+    }
+
+    /**
+     * Broji redove (next) i veličinu String/byte[]/stream kolona koje DAO stvarno pročita
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Stats stats;
+
+        private ResultSetHandler(ResultSet target, Stats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            switch (method.getName()) {
+                case "next" -> {
+                    if (Boolean.TRUE.equals(result)) stats.rows.increment();
+                }
+                case "getString", "getNString" -> {
+                    if (result instanceof String s) stats.bytes.add(s.length());
+                }
+                case "getBytes" -> {
+                    if (result instanceof byte[] b) stats.bytes.add(b.length);
+                }
+                case "getBinaryStream", "getAsciiStream" -> {
+                    if (result instanceof InputStream in) return new CountingInputStream(in, stats);
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Stats stats;
+
+        private CountingInputStream(InputStream in, Stats stats) {
+            super(in);
+            this.stats = stats;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) stats.bytes.increment();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) stats.bytes.add(n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package dao;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kompaktna projekcija tabele Thesis za StatisticsCube - jedan red po radu,
+ * samo kolone po kojima se statistika grupiše.
+ */
+public class StatisticsDAO {
+
+    public static final class ThesisFact {
+        public final int thesisId;
+        public final LocalDate applicationDate;
+        public final int mentorId;
+        public final String mentorName;
+        public final int secretaryStaffId;
+        public final String secretaryName;
+        public final String status;
+        public final int cycle;
+
+        private ThesisFact(int thesisId, LocalDate applicationDate, int mentorId, String mentorName,
+                           int secretaryStaffId, String secretaryName, String status, int cycle) {
+            this.thesisId = thesisId;
+            this.applicationDate = applicationDate;
+            this.mentorId = mentorId;
+            this.mentorName = mentorName;
+            this.secretaryStaffId = secretaryStaffId;
+            this.secretaryName = secretaryName;
+            this.status = status;
+            this.cycle = cycle;
+        }
+    }
+
+    private static final String FACTS_SELECT = """
+        SELECT T.Id, T.IsActive, T.ApplicationDate,
+               A.Id AS MentorId, CONCAT(A.Title, ' ', A.FirstName, ' ', A.LastName) AS MentorName,
+               S.Id AS SecretaryStaffId, CONCAT(S.FirstName, ' ', S.LastName) AS SecretaryName,
+               TS.Name AS StatusName,
+               ST.Cycle
+        FROM Thesis T
+        JOIN ThesisStatus TS ON T.StatusId = TS.Id
+        JOIN AcademicStaff A ON T.MentorId = A.Id
+        JOIN AppUser U ON T.SecretaryId = U.Id
+        JOIN AcademicStaff S ON U.AcademicStaffId = S.Id
+        JOIN Student ST ON T.StudentId = ST.Id
+        """;
+
+    /**
+     * Svi aktivni radovi (puna izgradnja kocke); syncedAt se predaje prvom getFactsChangedSince
+     */
+    public ChangeSet<ThesisFact> getAllFacts() {
+        return fetch(FACTS_SELECT + " WHERE T.IsActive = 1", null);
+    }
+
+    /**
+     * Radovi izmijenjeni od since (vidi ChangeSet - INSERT, izmjene i brisanje postavljaju UpdatedAt).
+     * Obrisani (IsActive = 0) se vraćaju kao removedIds, da bi se mogli izbaciti iz kocke.
+     */
+    public ChangeSet<ThesisFact> getFactsChangedSince(LocalDateTime since) {
+        return fetch(FACTS_SELECT + " WHERE T.UpdatedAt >= ?", since);
+    }
+
+    private ChangeSet<ThesisFact> fetch(String sql, LocalDateTime since) {
+        List<ThesisFact> facts = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            LocalDateTime syncedAt = ChangeSet.now(conn);
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                if (since != null) {
+                    ps.setTimestamp(1, ChangeSet.from(since));
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (!rs.getBoolean("IsActive")) {
+                            removedIds.add(rs.getInt("Id"));
+                            continue;
+                        }
+                        Date applicationDate = rs.getDate("ApplicationDate");
+
+                        facts.add(new ThesisFact(
+                                rs.getInt("Id"),
+                                applicationDate != null ? applicationDate.toLocalDate() : null,
+                                rs.getInt("MentorId"),
+                                rs.getString("MentorName"),
+                                rs.getInt("SecretaryStaffId"),
+                                rs.getString("SecretaryName"),
+                                rs.getString("StatusName"),
+                                rs.getInt("Cycle")
+                        ));
+                    }
+                }
+            }
+            return new ChangeSet<>(facts, removedIds, syncedAt, since == null);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri učitavanju podataka za statistiku: " + e.getMessage(), e);
+        }
+    }
+}
@@ -10,17 +10,54 @@ import java.util.List;
 
 public class StudentDAO {
 
-    private static final String BASE_QUERY = """
+    private static final String SELECT_QUERY = """
         SELECT s.*, st.Id AS status_id, st.Name AS status_name
         FROM Student s
         LEFT JOIN StudentStatus st ON s.StatusId = st.Id
-        WHERE s.IsActive = 1
         """;
 
+    private static final String BASE_QUERY = SELECT_QUERY + " WHERE s.IsActive = 1";
+
+    // Change feed vraća i obrisane studente. Pomaže indeks: CREATE INDEX IX_Student_UpdatedAt ON Student (UpdatedAt);
+    private static final String CHANGES_QUERY = SELECT_QUERY + " WHERE s.UpdatedAt >= ?";
+
     public List<Student> getAllStudents() {
         return fetchStudents(BASE_QUERY + " ORDER BY s.Id DESC");
     }
 
+    /**
+     * Studenti izmijenjeni od since, uključujući soft-delete-ovane (IsActive = 0);
+     * since = null vraća cijelu listu aktivnih studenata
+     */
+    public ChangeSet<Student> getChangedSince(LocalDateTime since) {
+        List<Student> changed = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            LocalDateTime syncedAt = ChangeSet.now(conn);
+
+            try (PreparedStatement ps = conn.prepareStatement(since == null ? BASE_QUERY : CHANGES_QUERY)) {
+                if (since != null) {
+                    ps.setTimestamp(1, ChangeSet.from(since));
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getBoolean("IsActive")) {
+                            changed.add(mapStudent(rs));
+                        } else {
+                            removedIds.add(rs.getInt("Id"));
+                        }
+                    }
+                }
+            }
+            return new ChangeSet<>(changed, removedIds, syncedAt, since == null);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri učitavanju izmjena studenata: " + e.getMessage(), e);
+        }
+    }
+
     private List<Student> fetchStudents(String sql, String... params) {
         List<Student> list = new ArrayList<>();
 
@@ -34,37 +71,7 @@ public class StudentDAO {
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
-                StudentStatus status = new StudentStatus(
-                        rs.getInt("status_id"),
-                        rs.getString("status_name")
-                );
-
-                list.add(new Student(
-                        rs.getInt("Id"),
-                        rs.getString("FirstName"),
-                        rs.getString("LastName"),
-                        rs.getString("FatherName"),
-                        rs.getInt("IndexNumber"),
-                        rs.getDate("BirthDate") != null
-                                ? rs.getDate("BirthDate").toLocalDate()
-                                : null,
-                        rs.getString("BirthPlace"),
-                        rs.getString("Municipality"),
-                        rs.getString("Country"),
-                        rs.getString("StudyProgram"),
-                        rs.getInt("ECTS"),
-                        rs.getInt("Cycle"),
-                        rs.getInt("CycleDuration"),
-                        true,
-                        status,
-                        rs.getString("Email"),
-                        rs.getTimestamp("CreatedAt") != null
-                                ? rs.getTimestamp("CreatedAt").toLocalDateTime()
-                                : null,
-                        rs.getTimestamp("UpdatedAt") != null
-                                ? rs.getTimestamp("UpdatedAt").toLocalDateTime()
-                                : null
-                ));
+                list.add(mapStudent(rs));
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -72,21 +79,53 @@ public class StudentDAO {
         return list;
     }
 
+    private Student mapStudent(ResultSet rs) throws SQLException {
+        StudentStatus status = new StudentStatus(
+                rs.getInt("status_id"),
+                rs.getString("status_name")
+        );
+
+        return new Student(
+                rs.getInt("Id"),
+                rs.getString("FirstName"),
+                rs.getString("LastName"),
+                rs.getString("FatherName"),
+                rs.getInt("IndexNumber"),
+                rs.getDate("BirthDate") != null
+                        ? rs.getDate("BirthDate").toLocalDate()
+                        : null,
+                rs.getString("BirthPlace"),
+                rs.getString("Municipality"),
+                rs.getString("Country"),
+                rs.getString("StudyProgram"),
+                rs.getInt("ECTS"),
+                rs.getInt("Cycle"),
+                rs.getInt("CycleDuration"),
+                rs.getBoolean("IsActive"),
+                status,
+                rs.getString("Email"),
+                rs.getTimestamp("CreatedAt") != null
+                        ? rs.getTimestamp("CreatedAt").toLocalDateTime()
+                        : null,
+                rs.getTimestamp("UpdatedAt") != null
+                        ? rs.getTimestamp("UpdatedAt").toLocalDateTime()
+                        : null
+        );
+    }
+
     public void insertStudent(Student s) {
         String sql = """
             INSERT INTO Student
             (FirstName, LastName, FatherName, IndexNumber, BirthDate,
              BirthPlace, Municipality, Country, StudyProgram,
              ECTS, Cycle, CycleDuration, StatusId, Email, CreatedAt, UpdatedAt)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
             """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             fillStatement(ps, s);
-            ps.setTimestamp(15, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setTimestamp(16, Timestamp.valueOf(LocalDateTime.now()));
             ps.executeUpdate();
 
         } catch (SQLException e) {
@@ -99,7 +138,7 @@ public class StudentDAO {
             UPDATE Student SET
                 FirstName=?, LastName=?, FatherName=?, IndexNumber=?, BirthDate=?,
                 BirthPlace=?, Municipality=?, Country=?, StudyProgram=?,
-                ECTS=?, Cycle=?, CycleDuration=?, StatusId=?, Email=?, UpdatedAt=?
+                ECTS=?, Cycle=?, CycleDuration=?, StatusId=?, Email=?, UpdatedAt=CURRENT_TIMESTAMP
             WHERE Id=?
             """;
 
@@ -107,8 +146,7 @@ public class StudentDAO {
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             fillStatement(ps, s);
-            ps.setTimestamp(15, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setInt(16, s.getId());
+            ps.setInt(15, s.getId());
             ps.executeUpdate();
 
         } catch (SQLException e) {
@@ -136,15 +174,14 @@ public class StudentDAO {
     public void deleteStudent(int id) {
         String sql = """
         UPDATE Student
-        SET IsActive = 0, UpdatedAt = ?
+        SET IsActive = 0, UpdatedAt = CURRENT_TIMESTAMP
         WHERE Id = ? AND IsActive = 1
         """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setInt(2, id);
+            ps.setInt(1, id);
 
             int affected = ps.executeUpdate();
 
@@ -2,210 +2,182 @@ package dao;
 
 import dto.ThesisDTO;
 import dto.ThesisDetailsDTO;
+import dto.ThesisFilterDTO;
 import dto.ThesisLockInfoDTO;
 import model.*;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ThesisDAO {
-    private static final int LOCK_TIMEOUT_MINUTES = 30;
+    public static final int LOCK_TIMEOUT_MINUTES = 30;
+
+    // Kolone kartice u listi radova (stranice i change feed)
+    private static final String LIST_COLUMNS = """
+            SELECT T.Id,
+                T.Title,
+                CONCAT(S.FirstName,' ',S.LastName) AS StudentFullName,
+                S.IndexNumber AS StudentIndexNumber,
+                CONCAT(A.FirstName,' ',A.LastName) AS MentorFullName,
+                S.Cycle,
+                TS.Name AS Status,
+                T.ApplicationDate
+            """;
+
+    private static final String LIST_FROM = """
+            FROM Thesis T
+            JOIN Student S ON S.Id = T.StudentId
+            JOIN AcademicStaff A ON A.Id = T.MentorId
+            JOIN ThesisStatus TS ON TS.Id = T.StatusId
+            """;
 
     /**
-     * NOVI METOD: Dohvata sve radove OSIM odbranenih (Odbranjen status)
-     * Koristi se za inicijalno učitavanje stranice
+     * NOVI METOD: Dohvata jednu stranicu radova (keyset paginacija po T.Id DESC)
+     * Filteri (status, ciklus, sekretar, pretraga) se izvršavaju u bazi
      */
-    public List<ThesisDTO> getAllThesisExcludingGraduated() {
+    public List<ThesisDTO> getThesisPage(ThesisFilterDTO filter) {
         List<ThesisDTO> thesis = new ArrayList<>();
-        String sql = """
-                SELECT T.Id,
-                    T.Title,
-                    CONCAT(S.FirstName,' ',S.LastName) AS StudentFullName,
-                    CONCAT(A.FirstName,' ',A.LastName) AS MentorFullName,
-                    S.Cycle,
-                    TS.Name AS Status,
-                    T.ApplicationDate
-                FROM Thesis T
-                JOIN Student S ON S.Id = T.StudentId
-                JOIN AcademicStaff A ON A.Id = T.MentorId
-                JOIN ThesisStatus TS ON TS.Id = T.StatusId
-                WHERE T.IsActive = 1 AND TS.Name <> 'Odbranjen'
-                ORDER BY T.Id DESC
-                """;
+        List<Object> params = new ArrayList<>();
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
-            clearExpiredLocks(conn);
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-
-                while (rs.next()) {
-                    ThesisDTO thesisDTO = new ThesisDTO();
-                    thesisDTO.setId(rs.getInt("Id"));
-                    thesisDTO.setTitle(rs.getString("Title"));
-                    thesisDTO.setStudentFullName(rs.getString("StudentFullName"));
-                    thesisDTO.setMentorFullName(rs.getString("MentorFullName"));
-                    thesisDTO.setCycle(rs.getInt("Cycle"));
-                    thesisDTO.setStatus(rs.getString("Status"));
-                    thesisDTO.setApplicationDate(rs.getDate("ApplicationDate").toLocalDate());
-                    thesis.add(thesisDTO);
-                }
-            }
+        StringBuilder sql = new StringBuilder(LIST_COLUMNS + LIST_FROM + " WHERE T.IsActive = 1");
 
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri dohvatanju aktivnih radova: " + e.getMessage(), e);
+        if (filter.getAfterId() != null) {
+            sql.append(" AND T.Id < ?");
+            params.add(filter.getAfterId());
         }
-        return thesis;
-    }
-
-    /**
-     * NOVI METOD: Dohvata samo odbranene radove (Odbranjen status)
-     * Koristi se za lazy loading kada korisnik klikne na filter
-     */
-    public List<ThesisDTO> getGraduatedTheses() {
-        List<ThesisDTO> thesis = new ArrayList<>();
-        String sql = """
-                SELECT T.Id,
-                    T.Title,
-                    CONCAT(S.FirstName,' ',S.LastName) AS StudentFullName,
-                    CONCAT(A.FirstName,' ',A.LastName) AS MentorFullName,
-                    S.Cycle,
-                    TS.Name AS Status,
-                    T.ApplicationDate
-                FROM Thesis T
-                JOIN Student S ON S.Id = T.StudentId
-                JOIN AcademicStaff A ON A.Id = T.MentorId
-                JOIN ThesisStatus TS ON TS.Id = T.StatusId
-                WHERE T.IsActive = 1 AND TS.Name = 'Odbranjen'
-                ORDER BY T.Id DESC
-                """;
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
-            clearExpiredLocks(conn);
+        if (filter.getStatus() != null && !filter.getStatus().isBlank()) {
+            sql.append(" AND TS.Name = ?");
+            params.add(filter.getStatus());
+        } else if (!filter.isIncludeGraduated()) {
+            sql.append(" AND TS.Name <> 'Odbranjen'");
+        }
 
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+        if (filter.getCycle() != null) {
+            sql.append(" AND S.Cycle = ?");
+            params.add(filter.getCycle());
+        }
 
-                while (rs.next()) {
-                    ThesisDTO thesisDTO = new ThesisDTO();
-                    thesisDTO.setId(rs.getInt("Id"));
-                    thesisDTO.setTitle(rs.getString("Title"));
-                    thesisDTO.setStudentFullName(rs.getString("StudentFullName"));
-                    thesisDTO.setMentorFullName(rs.getString("MentorFullName"));
-                    thesisDTO.setCycle(rs.getInt("Cycle"));
-                    thesisDTO.setStatus(rs.getString("Status"));
-                    thesisDTO.setApplicationDate(rs.getDate("ApplicationDate").toLocalDate());
-                    thesis.add(thesisDTO);
-                }
-            }
+        if (filter.getSecretaryUserId() != null) {
+            sql.append(" AND T.SecretaryId = ?");
+            params.add(filter.getSecretaryUserId());
+        }
 
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri dohvatanju odbranenih radova: " + e.getMessage(), e);
+        if (filter.getSearchText() != null && !filter.getSearchText().isBlank()) {
+            String pattern = "%" + escapeLike(filter.getSearchText().trim()) + "%";
+            sql.append("""
+                     AND (T.Title LIKE ?
+                          OR CONCAT(S.FirstName,' ',S.LastName) LIKE ?
+                          OR CONCAT(A.FirstName,' ',A.LastName) LIKE ?
+                          OR CAST(S.IndexNumber AS CHAR) LIKE ?)
+                    """);
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
         }
-        return thesis;
-    }
-    /**
-     * NOVI METOD: Dohvata radove sekretara OSIM odbranenih
-     */
-    public List<ThesisDTO> getThesisBySecretaryIdExcludingGraduated(int secretaryUserId) {
-        List<ThesisDTO> thesis = new ArrayList<>();
-        String sql = """
-                SELECT T.Id,
-                    T.Title,
-                    CONCAT(S.FirstName,' ',S.LastName) AS StudentFullName,
-                    CONCAT(A.FirstName,' ',A.LastName) AS MentorFullName,
-                    S.Cycle,
-                    TS.Name AS Status,
-                    T.ApplicationDate
-                FROM Thesis T
-                JOIN Student S ON S.Id = T.StudentId
-                JOIN AcademicStaff A ON A.Id = T.MentorId
-                JOIN ThesisStatus TS ON TS.Id = T.StatusId
-                WHERE T.IsActive = 1 AND T.SecretaryId = ? AND TS.Name <> 'Odbranjen'
-                ORDER BY T.Id DESC
-                """;
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
-            clearExpiredLocks(conn);
+        sql.append(" ORDER BY T.Id DESC LIMIT ?");
+        params.add(filter.getPageSize());
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, secretaryUserId);
-                ResultSet rs = stmt.executeQuery();
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
 
-                while (rs.next()) {
-                    ThesisDTO thesisDTO = new ThesisDTO();
-                    thesisDTO.setId(rs.getInt("Id"));
-                    thesisDTO.setTitle(rs.getString("Title"));
-                    thesisDTO.setStudentFullName(rs.getString("StudentFullName"));
-                    thesisDTO.setMentorFullName(rs.getString("MentorFullName"));
-                    thesisDTO.setCycle(rs.getInt("Cycle"));
-                    thesisDTO.setStatus(rs.getString("Status"));
-                    thesisDTO.setApplicationDate(rs.getDate("ApplicationDate").toLocalDate());
-                    thesis.add(thesisDTO);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        thesis.add(mapListRow(rs));
+                    }
                 }
             }
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri dohvatanju aktivnih radova sekretara: " + e.getMessage(), e);
+            throw new RuntimeException("Greška pri dohvatanju stranice radova: " + e.getMessage(), e);
         }
         return thesis;
     }
 
     /**
-     * NOVI METOD: Dohvata samo odbranene radove sekretara
+     * Change feed za listu radova: radovi izmijenjeni od since, i oni čiji su student ili mentor
+     * izmijenjeni (ime na kartici). Obrisani radovi (IsActive = 0) i radovi drugog sekretara
+     * se vraćaju kao removedIds; status i pretragu filtrira lista, jer ih ima u redu.
+     * @param since syncedAt prethodnog poziva ili ChangeSet.syncPoint() uzet prije prve stranice
+     * @param secretaryUserId kao u ThesisFilterDTO, null = svi sekretari
      */
-    public List<ThesisDTO> getGraduatedThesisBySecretaryId(int secretaryUserId) {
-        List<ThesisDTO> thesis = new ArrayList<>();
-        String sql = """
-                SELECT T.Id,
-                    T.Title,
-                    CONCAT(S.FirstName,' ',S.LastName) AS StudentFullName,
-                    CONCAT(A.FirstName,' ',A.LastName) AS MentorFullName,
-                    S.Cycle,
-                    TS.Name AS Status,
-                    T.ApplicationDate
-                FROM Thesis T
-                JOIN Student S ON S.Id = T.StudentId
-                JOIN AcademicStaff A ON A.Id = T.MentorId
-                JOIN ThesisStatus TS ON TS.Id = T.StatusId
-                WHERE T.IsActive = 1 AND T.SecretaryId = ? AND TS.Name = 'Odbranjen'
-                ORDER BY T.Id DESC
-                """;
+    public ChangeSet<ThesisDTO> getChangedSince(LocalDateTime since, Integer secretaryUserId) {
+        // Tri upita, svaki kreće od indeksa na UpdatedAt svoje tabele (OR preko tri tabele bi čitao sve radove);
+        // UNION uklanja red koji je izmijenjen u više tabela.
+        // Indeksi: IX_Thesis_UpdatedAt, IX_Student_UpdatedAt (StudentDAO) i
+        // CREATE INDEX IX_AcademicStaff_UpdatedAt ON AcademicStaff (UpdatedAt);
+        String listed = secretaryUserId != null ? "T.IsActive = 1 AND T.SecretaryId = ?" : "T.IsActive = 1";
+        String select = LIST_COLUMNS + ", (" + listed + ") AS Listed\n" + LIST_FROM;
+        String sql = select + "WHERE T.UpdatedAt >= ?\n"
+                + "UNION\n" + select + "WHERE S.UpdatedAt >= ?\n"
+                + "UNION\n" + select + "WHERE A.UpdatedAt >= ?\n";
+
+        List<ThesisDTO> changed = new ArrayList<>();
+        List<Integer> removedIds = new ArrayList<>();
 
         try (Connection conn = CloudDatabaseConnection.Konekcija()) {
-            clearExpiredLocks(conn);
+            LocalDateTime syncedAt = ChangeSet.now(conn);
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, secretaryUserId);
-                ResultSet rs = stmt.executeQuery();
+                int index = 1;
+                for (int branch = 0; branch < 3; branch++) {
+                    if (secretaryUserId != null) {
+                        stmt.setInt(index++, secretaryUserId);
+                    }
+                    stmt.setTimestamp(index++, ChangeSet.from(since));
+                }
 
-                while (rs.next()) {
-                    ThesisDTO thesisDTO = new ThesisDTO();
-                    thesisDTO.setId(rs.getInt("Id"));
-                    thesisDTO.setTitle(rs.getString("Title"));
-                    thesisDTO.setStudentFullName(rs.getString("StudentFullName"));
-                    thesisDTO.setMentorFullName(rs.getString("MentorFullName"));
-                    thesisDTO.setCycle(rs.getInt("Cycle"));
-                    thesisDTO.setStatus(rs.getString("Status"));
-                    thesisDTO.setApplicationDate(rs.getDate("ApplicationDate").toLocalDate());
-                    thesis.add(thesisDTO);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getBoolean("Listed")) {
+                            changed.add(mapListRow(rs));
+                        } else {
+                            removedIds.add(rs.getInt("Id"));
+                        }
+                    }
                 }
             }
+            return new ChangeSet<>(changed, removedIds, syncedAt, false);
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri dohvatanju odbranenih radova sekretara: " + e.getMessage(), e);
+            throw new RuntimeException("Greška pri učitavanju izmjena radova: " + e.getMessage(), e);
         }
-        return thesis;
+    }
+
+    private static ThesisDTO mapListRow(ResultSet rs) throws SQLException {
+        ThesisDTO thesisDTO = new ThesisDTO();
+        thesisDTO.setId(rs.getInt("Id"));
+        thesisDTO.setTitle(rs.getString("Title"));
+        thesisDTO.setStudentFullName(rs.getString("StudentFullName"));
+        thesisDTO.setMentorFullName(rs.getString("MentorFullName"));
+        thesisDTO.setCycle(rs.getInt("Cycle"));
+        thesisDTO.setStatus(rs.getString("Status"));
+        thesisDTO.setApplicationDate(rs.getDate("ApplicationDate").toLocalDate());
+        thesisDTO.setStudentIndexNumber(rs.getInt("StudentIndexNumber"));
+        return thesisDTO;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 
     public int insertThesis(Thesis thesis) {
         String sql = """
-        INSERT INTO Thesis(Title,ApplicationDate,DepartmentId,StudentId,MentorId,SecretaryId,SubjectId, Description, Structure, Literature, PassedSubjects)
-        VALUES(?,?,?,?,?,?,?,?,?, ?, ?)
+        INSERT INTO Thesis(Title,ApplicationDate,DepartmentId,StudentId,MentorId,SecretaryId,SubjectId, Description, Structure, Literature, PassedSubjects, UpdatedAt)
+        VALUES(?,?,?,?,?,?,?,?,?, ?, ?, CURRENT_TIMESTAMP)
         """;
 
         try (Connection connection = CloudDatabaseConnection.Konekcija()) {
@@ -244,10 +216,9 @@ public class ThesisDAO {
 
             // 1) Kreiraj prvi dokument odmah po kreiranju rada: IN_PROGRESS
             //    Tip dokumenta: "Rješenje o izradi završnog rada"
-            DocumentTypeDAO documentTypeDAO = new DocumentTypeDAO();
             DocumentDAO documentDAO = new DocumentDAO();
 
-            DocumentType firstDocType = documentTypeDAO.getByName("Rješenje o izradi završnog rada");
+            DocumentType firstDocType = ReferenceDataCache.documentType("Rješenje o izradi završnog rada");
             if (firstDocType == null) {
                 throw new RuntimeException("DocumentType 'Rješenje o izradi završnog rada' nije pronađen.");
             }
@@ -283,7 +254,7 @@ public class ThesisDAO {
             SubjectId = ?,
             StatusId = ?,
             SecretaryId = ?,
-            UpdatedAt = ?,
+            UpdatedAt = CURRENT_TIMESTAMP,
             Description = ?,
             Literature = ?,
             Structure = ?,
@@ -291,41 +262,63 @@ public class ThesisDAO {
         WHERE Id = ?
         """;
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        // Kad se mijenja mentor, i prethodni mentor ulazi u change feed (MentorDAO.getChangedSince) -
+        // njegov broj radova se smanjuje, a njegov red se inače ne bi smatrao izmijenjenim
+        String touchPreviousMentorSql = """
+        UPDATE AcademicStaff A
+        JOIN Thesis T ON T.MentorId = A.Id
+        SET A.UpdatedAt = CURRENT_TIMESTAMP
+        WHERE T.Id = ? AND T.MentorId <> ?
+        """;
 
-            ps.setString(1, thesis.getTitle());
-            ps.setDate(2, thesis.getApplicationDate() != null ?
-                    java.sql.Date.valueOf(thesis.getApplicationDate()) : null);
-            ps.setDate(3, thesis.getApprovalDate() != null ?
-                    java.sql.Date.valueOf(thesis.getApprovalDate()) : null);
-            ps.setDate(4, thesis.getDefenseDate() != null ?
-                    java.sql.Date.valueOf(thesis.getDefenseDate()) : null);
-            ps.setDate(5, thesis.getFinalThesisApprovalDate() != null ?
-                    java.sql.Date.valueOf(thesis.getFinalThesisApprovalDate()) : null);
-            ps.setDate(6, thesis.getWrittenReportDate() != null ?
-                    java.sql.Date.valueOf(thesis.getWrittenReportDate()) : null);
-            ps.setDate(7, thesis.getDefenseReportDate() != null ?
-                    java.sql.Date.valueOf(thesis.getDefenseReportDate()) : null);
-            if (thesis.getGrade() != null) {
-                ps.setInt(8, thesis.getGrade());
-            } else {
-                // Ako je null, moramo eksplicitno reći bazi da je NULL
-                ps.setNull(8, java.sql.Types.INTEGER);
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement touch = conn.prepareStatement(touchPreviousMentorSql);
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                touch.setInt(1, thesis.getId());
+                touch.setInt(2, thesis.getAcademicStaffId());
+                touch.executeUpdate();
+
+                ps.setString(1, thesis.getTitle());
+                ps.setDate(2, thesis.getApplicationDate() != null ?
+                        java.sql.Date.valueOf(thesis.getApplicationDate()) : null);
+                ps.setDate(3, thesis.getApprovalDate() != null ?
+                        java.sql.Date.valueOf(thesis.getApprovalDate()) : null);
+                ps.setDate(4, thesis.getDefenseDate() != null ?
+                        java.sql.Date.valueOf(thesis.getDefenseDate()) : null);
+                ps.setDate(5, thesis.getFinalThesisApprovalDate() != null ?
+                        java.sql.Date.valueOf(thesis.getFinalThesisApprovalDate()) : null);
+                ps.setDate(6, thesis.getWrittenReportDate() != null ?
+                        java.sql.Date.valueOf(thesis.getWrittenReportDate()) : null);
+                ps.setDate(7, thesis.getDefenseReportDate() != null ?
+                        java.sql.Date.valueOf(thesis.getDefenseReportDate()) : null);
+                if (thesis.getGrade() != null) {
+                    ps.setInt(8, thesis.getGrade());
+                } else {
+                    // Ako je null, moramo eksplicitno reći bazi da je NULL
+                    ps.setNull(8, java.sql.Types.INTEGER);
+                }
+                ps.setInt(9, thesis.getStudentId());
+                ps.setInt(10, thesis.getAcademicStaffId());
+                ps.setInt(11, thesis.getDepartmentId());
+                ps.setInt(12, thesis.getSubjectId());
+                ps.setInt(13, thesis.getStatusId());
+                ps.setInt(14, thesis.getSecretaryId());
+                ps.setString(15, thesis.getDescription());
+                ps.setString(16, thesis.getLiterature());
+                ps.setString(17, thesis.getStructure());
+                ps.setBoolean(18, thesis.isPassedSubjects());
+                ps.setInt(19, thesis.getId());
+                ps.executeUpdate();
+
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            ps.setInt(9, thesis.getStudentId());
-            ps.setInt(10, thesis.getAcademicStaffId());
-            ps.setInt(11, thesis.getDepartmentId());
-            ps.setInt(12, thesis.getSubjectId());
-            ps.setInt(13, thesis.getStatusId());
-            ps.setInt(14, thesis.getSecretaryId());
-            ps.setTimestamp(15, Timestamp.valueOf(java.time.LocalDateTime.now()));
-            ps.setString(16, thesis.getDescription());
-            ps.setString(17, thesis.getLiterature());
-            ps.setString(18, thesis.getStructure());
-            ps.setBoolean(19, thesis.isPassedSubjects());
-            ps.setInt(20, thesis.getId());
-            ps.executeUpdate();
 
         } catch (SQLException e) {
             throw new RuntimeException("Greška pri ažuriranju rada: " + e.getMessage(), e);
@@ -333,13 +326,12 @@ public class ThesisDAO {
     }
 
     public void deleteThesis(int id) {
-        String sql = "UPDATE Thesis SET IsActive = 0, UpdatedAt = ? WHERE Id = ?";
+        String sql = "UPDATE Thesis SET IsActive = 0, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setTimestamp(1, Timestamp.valueOf(java.time.LocalDateTime.now()));
-            ps.setInt(2, id);
+            ps.setInt(1, id);
             ps.executeUpdate();
 
         } catch (SQLException e) {
@@ -439,9 +431,7 @@ public class ThesisDAO {
         }
     }
 
-    public ThesisDetailsDTO getThesisDetails(int thesisId) {
-        // UPDATED SQL to select NoticeDate, CommisionTime, CycleCompletionDate, WrittenReportDate, DefenseReportDate, and ApprovalDate (commission meeting date)
-        String sql = """
+    static final String THESIS_DETAILS_SELECT = """
         SELECT 
             T.Id, T.Title, T.ApplicationDate, T.ApprovalDate, T.DefenseDate, T.FinalThesisApprovalDate, 
             T.CommisionDate, T.NoticeDate, T.CommisionTime, T.CycleCompletionDate, T.WrittenReportDate, T.DefenseReportDate, T.Grade,
@@ -469,9 +459,16 @@ public class ThesisDAO {
         JOIN AcademicStaff SEC ON U.AcademicStaffId = SEC.Id
         JOIN Department D ON T.DepartmentId = D.Id
         JOIN Subject SUB ON T.SubjectId = SUB.Id
-        WHERE T.Id = ? AND T.IsActive = 1
         """;
 
+    public ThesisDetailsDTO getThesisDetails(int thesisId) {
+        // Izvještaji i email servis često traže isti rad istovremeno - dijele jedan upit
+        return SingleFlight.call("ThesisDAO.getThesisDetails", () -> fetchThesisDetails(thesisId), thesisId);
+    }
+
+    private ThesisDetailsDTO fetchThesisDetails(int thesisId) {
+        String sql = THESIS_DETAILS_SELECT + " WHERE T.Id = ? AND T.IsActive = 1";
+
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -479,88 +476,7 @@ public class ThesisDAO {
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                StudentStatus studentStatus = StudentStatus.builder()
-                        .Id(rs.getInt("StudentStatusId"))
-                        .Name(rs.getString("StudentStatusName"))
-                        .build();
-
-                Student student = Student.builder()
-                        .Id(rs.getInt("StudentId"))
-                        .FirstName(rs.getString("StudentFirstName"))
-                        .LastName(rs.getString("StudentLastName"))
-                        .FatherName(rs.getString("StudentFatherName"))
-                        .IndexNumber(rs.getInt("IndexNumber"))
-                        .BirthDate(rs.getDate("BirthDate") != null ?
-                                rs.getDate("BirthDate").toLocalDate() : null)
-                        .BirthPlace(rs.getString("BirthPlace"))
-                        .Municipality(rs.getString("Municipality"))
-                        .Country(rs.getString("Country"))
-                        .StudyProgram(rs.getString("StudyProgram"))
-                        .ECTS(rs.getInt("ECTS"))
-                        .Cycle(rs.getInt("Cycle"))
-                        .CycleDuration(rs.getInt("CycleDuration"))
-                        .Status(studentStatus)
-                        .Email(rs.getString("StudentEmail"))
-                        .build();
-
-                AcademicStaff mentor = AcademicStaff.builder()
-                        .Id(rs.getInt("MentorId"))
-                        .Title(rs.getString("MentorTitle"))
-                        .FirstName(rs.getString("MentorFirstName"))
-                        .LastName(rs.getString("MentorLastName"))
-                        .Email(rs.getString("MentorEmail"))
-                        .build();
-
-                AcademicStaff secretary = AcademicStaff.builder()
-                        .Id(rs.getInt("SecretaryId"))
-                        .Title(rs.getString("SecretaryTitle"))
-                        .FirstName(rs.getString("SecretaryFirstName"))
-                        .LastName(rs.getString("SecretaryLastName"))
-                        .Email(rs.getString("SecretaryEmail"))
-                        .build();
-
-                Department department = new Department();
-                department.setId(rs.getInt("DepartmentId"));
-                department.setName(rs.getString("DepartmentName"));
-
-                Subject subject = new Subject();
-                subject.setId(rs.getInt("SubjectId"));
-                subject.setName(rs.getString("SubjectName"));
-
-                return ThesisDetailsDTO.builder()
-                        .id(rs.getInt("Id"))
-                        .title(rs.getString("Title"))
-                        .applicationDate(rs.getDate("ApplicationDate") != null ?
-                                rs.getDate("ApplicationDate").toLocalDate() : null)
-                        .approvalDate(rs.getDate("ApprovalDate") != null ?
-                                rs.getDate("ApprovalDate").toLocalDate() : null) // Commission meeting date
-                        .defenseDate(rs.getDate("DefenseDate") != null ?
-                                rs.getDate("DefenseDate").toLocalDate() : null)
-                        .finalThesisApprovalDate(rs.getDate("FinalThesisApprovalDate") != null ?
-                                rs.getDate("FinalThesisApprovalDate").toLocalDate() : null)
-                        .commisionDate(rs.getDate("CommisionDate") != null ?
-                                rs.getDate("CommisionDate").toLocalDate() : null)
-                        .noticeDate(rs.getDate("NoticeDate") != null ?
-                                rs.getDate("NoticeDate").toLocalDate() : null)
-                        .writtenReportDate(rs.getDate("WrittenReportDate") != null ?
-                                rs.getDate("WrittenReportDate").toLocalDate() : null)
-                        .defenseReportDate(rs.getDate("DefenseReportDate") != null ?
-                                rs.getDate("DefenseReportDate").toLocalDate() : null)
-                        .commisionTime(rs.getString("CommisionTime"))
-                        .cycleCompletionDate(rs.getDate("CycleCompletionDate") != null ?
-                                rs.getDate("CycleCompletionDate").toLocalDate() : null)
-                        .grade(rs.getInt("Grade"))
-                        .description(rs.getString("Description"))
-                        .literature(rs.getString("Literature"))
-                        .structure(rs.getString("Structure"))
-                        .passedSubjects(rs.getBoolean("PassedSubjects"))
-                        .status(rs.getString("StatusName"))
-                        .student(student)
-                        .mentor(mentor)
-                        .secretary(secretary)
-                        .department(department)
-                        .subject(subject)
-                        .build();
+                return mapThesisDetails(rs);
             }
             return null;
         } catch (SQLException e) {
@@ -568,23 +484,138 @@ public class ThesisDAO {
         }
     }
 
+    /**
+     * Detalji za više radova jednim upitom (grupno generisanje dokumenata)
+     */
+    public Map<Integer, ThesisDetailsDTO> getThesisDetailsByIds(Collection<Integer> thesisIds) {
+        Map<Integer, ThesisDetailsDTO> result = new LinkedHashMap<>();
+        if (thesisIds == null || thesisIds.isEmpty()) return result;
+
+        String sql = THESIS_DETAILS_SELECT + " WHERE T.Id IN (" + CloudDatabaseConnection.placeholders(thesisIds.size()) + ") AND T.IsActive = 1";
+
+        try (Connection conn = CloudDatabaseConnection.Konekcija();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int idx = 1;
+            for (Integer id : thesisIds) ps.setInt(idx++, id);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ThesisDetailsDTO details = mapThesisDetails(rs);
+                    result.put(details.getId(), details);
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri dohvatanju detalja radova: " + e.getMessage(), e);
+        }
+    }
+
+    static ThesisDetailsDTO mapThesisDetails(ResultSet rs) throws SQLException {
+        StudentStatus studentStatus = StudentStatus.builder()
+                .Id(rs.getInt("StudentStatusId"))
+                .Name(rs.getString("StudentStatusName"))
+                .build();
+
+        Student student = Student.builder()
+                .Id(rs.getInt("StudentId"))
+                .FirstName(rs.getString("StudentFirstName"))
+                .LastName(rs.getString("StudentLastName"))
+                .FatherName(rs.getString("StudentFatherName"))
+                .IndexNumber(rs.getInt("IndexNumber"))
+                .BirthDate(rs.getDate("BirthDate") != null ?
+                        rs.getDate("BirthDate").toLocalDate() : null)
+                .BirthPlace(rs.getString("BirthPlace"))
+                .Municipality(rs.getString("Municipality"))
+                .Country(rs.getString("Country"))
+                .StudyProgram(rs.getString("StudyProgram"))
+                .ECTS(rs.getInt("ECTS"))
+                .Cycle(rs.getInt("Cycle"))
+                .CycleDuration(rs.getInt("CycleDuration"))
+                .Status(studentStatus)
+                .Email(rs.getString("StudentEmail"))
+                .build();
+
+        AcademicStaff mentor = AcademicStaff.builder()
+                .Id(rs.getInt("MentorId"))
+                .Title(rs.getString("MentorTitle"))
+                .FirstName(rs.getString("MentorFirstName"))
+                .LastName(rs.getString("MentorLastName"))
+                .Email(rs.getString("MentorEmail"))
+                .build();
+
+        AcademicStaff secretary = AcademicStaff.builder()
+                .Id(rs.getInt("SecretaryId"))
+                .Title(rs.getString("SecretaryTitle"))
+                .FirstName(rs.getString("SecretaryFirstName"))
+                .LastName(rs.getString("SecretaryLastName"))
+                .Email(rs.getString("SecretaryEmail"))
+                .build();
+
+        Department department = new Department();
+        department.setId(rs.getInt("DepartmentId"));
+        department.setName(rs.getString("DepartmentName"));
+
+        Subject subject = new Subject();
+        subject.setId(rs.getInt("SubjectId"));
+        subject.setName(rs.getString("SubjectName"));
+
+        return ThesisDetailsDTO.builder()
+                .id(rs.getInt("Id"))
+                .title(rs.getString("Title"))
+                .applicationDate(rs.getDate("ApplicationDate") != null ?
+                        rs.getDate("ApplicationDate").toLocalDate() : null)
+                .approvalDate(rs.getDate("ApprovalDate") != null ?
+                        rs.getDate("ApprovalDate").toLocalDate() : null) // Commission meeting date
+                .defenseDate(rs.getDate("DefenseDate") != null ?
+                        rs.getDate("DefenseDate").toLocalDate() : null)
+                .finalThesisApprovalDate(rs.getDate("FinalThesisApprovalDate") != null ?
+                        rs.getDate("FinalThesisApprovalDate").toLocalDate() : null)
+                .commisionDate(rs.getDate("CommisionDate") != null ?
+                        rs.getDate("CommisionDate").toLocalDate() : null)
+                .noticeDate(rs.getDate("NoticeDate") != null ?
+                        rs.getDate("NoticeDate").toLocalDate() : null)
+                .writtenReportDate(rs.getDate("WrittenReportDate") != null ?
+                        rs.getDate("WrittenReportDate").toLocalDate() : null)
+                .defenseReportDate(rs.getDate("DefenseReportDate") != null ?
+                        rs.getDate("DefenseReportDate").toLocalDate() : null)
+                .commisionTime(rs.getString("CommisionTime"))
+                .cycleCompletionDate(rs.getDate("CycleCompletionDate") != null ?
+                        rs.getDate("CycleCompletionDate").toLocalDate() : null)
+                .grade(rs.getInt("Grade"))
+                .description(rs.getString("Description"))
+                .literature(rs.getString("Literature"))
+                .structure(rs.getString("Structure"))
+                .passedSubjects(rs.getBoolean("PassedSubjects"))
+                .status(rs.getString("StatusName"))
+                .student(student)
+                .mentor(mentor)
+                .secretary(secretary)
+                .department(department)
+                .subject(subject)
+                .build();
+    }
+
     public boolean lockThesis(int thesisId, int userId) {
+        // Istekli lock (stariji od LOCK_TIMEOUT_MINUTES) se može odmah preuzeti
         String sql = """
         UPDATE Thesis
         SET LockedBy = ?, LockedAt = CURRENT_TIMESTAMP
         WHERE Id = ?
           AND IsActive = 1
-          AND (LockedBy IS NULL OR LockedBy = ?)
+          AND (LockedBy IS NULL
+               OR LockedBy = ?
+               OR LockedAt IS NULL
+               OR LockedAt < CURRENT_TIMESTAMP - INTERVAL ? MINUTE)
     """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            clearExpiredLocks(conn);
-
             ps.setInt(1, userId);
             ps.setInt(2, thesisId);
             ps.setInt(3, userId);
+            ps.setInt(4, LOCK_TIMEOUT_MINUTES);
 
             return ps.executeUpdate() == 1;
 
@@ -616,10 +647,12 @@ public class ThesisDAO {
     }
 
     public ThesisLockInfoDTO getLockInfo(int thesisId) {
+        // Istekli lock se vraća kao da rad nije zaključan (čišćenje radi ThesisLockSweeper)
         String sql = """
         SELECT t.LockedBy,
                t.LockedAt,
-               u.Username
+               u.Username,
+               (t.LockedAt < CURRENT_TIMESTAMP - INTERVAL ? MINUTE) AS Expired
         FROM Thesis t
         LEFT JOIN AppUser u ON u.Id = t.LockedBy
         WHERE t.Id = ?
@@ -628,13 +661,16 @@ public class ThesisDAO {
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            clearExpiredLocks(conn);
-
-            ps.setInt(1, thesisId);
+            ps.setInt(1, LOCK_TIMEOUT_MINUTES);
+            ps.setInt(2, thesisId);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
 
+                if (rs.getBoolean("Expired")) {
+                    return new ThesisLockInfoDTO(null, null, null);
+                }
+
                 Integer lockedById = (Integer) rs.getObject("LockedBy"); // null-safe
                 Timestamp lockedAt = rs.getTimestamp("LockedAt");
                 String username = rs.getString("Username");
@@ -654,15 +690,15 @@ public class ThesisDAO {
         WHERE Id = ?
           AND LockedBy = ?
           AND LockedAt IS NOT NULL
+          AND LockedAt >= CURRENT_TIMESTAMP - INTERVAL ? MINUTE
     """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            clearExpiredLocks(conn);
-
             ps.setInt(1, thesisId);
             ps.setInt(2, userId);
+            ps.setInt(3, LOCK_TIMEOUT_MINUTES);
 
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -672,8 +708,13 @@ public class ThesisDAO {
         }
     }
 
-    private void clearExpiredLocks(Connection conn) throws SQLException {
-
+    /**
+     * Briše sve istekle lock-ove. Poziva ga isključivo ThesisLockSweeper u pozadini,
+     * kako čitanje liste radova ne bi bilo UPDATE nad cijelom tabelom.
+     *
+     * @return broj otključanih radova
+     */
+    public int clearExpiredLocks() {
         String sql = """
         UPDATE Thesis
         SET LockedBy = NULL,
@@ -682,264 +723,270 @@ public class ThesisDAO {
           AND LockedAt < CURRENT_TIMESTAMP - INTERVAL ? MINUTE
     """;
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, LOCK_TIMEOUT_MINUTES);
-            ps.executeUpdate();
-        }
-    }
-
-    public void updateDefenseDate(int thesisId, LocalDate defenseDate) {
-        String sql = "UPDATE Thesis SET DefenseDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
-
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            if (defenseDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(defenseDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
-            ps.setInt(2, thesisId);
-
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
+            ps.setInt(1, LOCK_TIMEOUT_MINUTES);
+            return ps.executeUpdate();
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma odbrane.", e);
+            throw new RuntimeException("Greška pri čišćenju isteklih lock-ova.", e);
         }
     }
 
-    /**
-     * NOVI METOD: Ažurira datum final thesis approval za specifičan rad
-     */
-    public void updateFinalThesisApprovalDate(int thesisId, LocalDate finalThesisApprovalDate) {
-        String sql = "UPDATE Thesis SET FinalThesisApprovalDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            if (finalThesisApprovalDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(finalThesisApprovalDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
-            ps.setInt(2, thesisId);
-
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
-
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma odobrenja završnog rada.", e);
-        }
+    public void updateDefenseReportDates(Collection<Integer> thesisIds, LocalDate defenseReportDate) {
+        updateDateForIds("DefenseReportDate", thesisIds, defenseReportDate);
     }
 
-    /**
-     * NOVI METOD: Ažurira datum komisije za specifičan rad
-     */
-    public void updateCommisionDate(int thesisId, LocalDate commisionDate) {
-        String sql = "UPDATE Thesis SET CommisionDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            if (commisionDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(commisionDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
-            ps.setInt(2, thesisId);
-
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
-
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma komisije.", e);
-        }
+    public void updateWrittenReportDates(Collection<Integer> thesisIds, LocalDate writtenReportDate) {
+        updateDateForIds("WrittenReportDate", thesisIds, writtenReportDate);
     }
 
-    /**
-     * NOVI METOD: Ažurira datum rješenja obavijesti (NoticeDate)
-     */
-    public void updateNoticeDate(int thesisId, LocalDate noticeDate) {
-        String sql = "UPDATE Thesis SET NoticeDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
+    // column dolazi samo iz gornjih metoda, nikad od korisnika
+    private void updateDateForIds(String column, Collection<Integer> thesisIds, LocalDate date) {
+        if (thesisIds == null || thesisIds.isEmpty()) return;
+
+        String sql = "UPDATE Thesis SET " + column + " = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id IN ("
+                + CloudDatabaseConnection.placeholders(thesisIds.size()) + ")";
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            if (noticeDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(noticeDate));
+            if (date != null) {
+                ps.setDate(1, java.sql.Date.valueOf(date));
             } else {
                 ps.setNull(1, java.sql.Types.DATE);
             }
-            ps.setInt(2, thesisId);
+            int idx = 2;
+            for (Integer id : thesisIds) ps.setInt(idx++, id);
 
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
+            ps.executeUpdate();
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma obavijesti.", e);
+            throw new RuntimeException("Greška pri ažuriranju datuma (" + column + ").", e);
         }
     }
 
     /**
-     * NOVI METOD: Ažurira datum sjednice komisije (ApprovalDate)
+     * Skup izmjena jednog rada koje se primjenjuju zajedno (ThesisDAO.applyPatch):
+     * proizvoljna polja rada, opciona promjena statusa i opcioni upsert dokumenta.
+     *
+     *   thesisDAO.applyPatch(ThesisDAO.ThesisPatch.forThesis(id)
+     *           .noticeDate(d1).defenseDate(d2)
+     *           .document(typeId, pdf, userId, number, DocumentStatus.READY)
+     *           .statusTransition(current -> ...));
      */
-    public void updateCommissionMeetingDate(int thesisId, LocalDate meetingDate) {
-        String sql = "UPDATE Thesis SET ApprovalDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            if (meetingDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(meetingDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
-            ps.setInt(2, thesisId);
+    public static final class ThesisPatch {
+        private record Column(String name, Object value, int sqlType) {}
+
+        private final int thesisId;
+        private final List<Column> columns = new ArrayList<>();
+        private java.util.function.Function<String, String> statusTransition;
+
+        private Integer documentTypeId;
+        private byte[] documentContent;
+        private Integer documentUploadedBy;
+        private String documentNumber;
+        private boolean updateDocumentNumber;
+        private DocumentStatus documentStatus;
+
+        private ThesisPatch(int thesisId) {
+            this.thesisId = thesisId;
+        }
 
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
+        public static ThesisPatch forThesis(int thesisId) {
+            return new ThesisPatch(thesisId);
+        }
 
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma sjednice.", e);
+        public ThesisPatch defenseDate(LocalDate value) { return date("DefenseDate", value); }
+        public ThesisPatch finalThesisApprovalDate(LocalDate value) { return date("FinalThesisApprovalDate", value); }
+        public ThesisPatch commisionDate(LocalDate value) { return date("CommisionDate", value); }
+        public ThesisPatch noticeDate(LocalDate value) { return date("NoticeDate", value); }
+        public ThesisPatch commissionMeetingDate(LocalDate value) { return date("ApprovalDate", value); }
+        public ThesisPatch cycleCompletionDate(LocalDate value) { return date("CycleCompletionDate", value); }
+        public ThesisPatch writtenReportDate(LocalDate value) { return date("WrittenReportDate", value); }
+        public ThesisPatch defenseReportDate(LocalDate value) { return date("DefenseReportDate", value); }
+
+        public ThesisPatch commisionTime(String value) {
+            columns.add(new Column("CommisionTime", value != null && !value.isBlank() ? value : null, Types.VARCHAR));
+            return this;
         }
-    }
 
-    /**
-     * NOVI METOD: Ažurira vrijeme sjednice komisije (CommisionTime)
-     */
-    public void updateCommisionTime(int thesisId, String commisionTime) {
-        String sql = "UPDATE Thesis SET CommisionTime = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
+        /**
+         * Novi status na osnovu trenutnog (čita se u transakciji, FOR UPDATE).
+         * Funkcija vraća ime novog statusa ili null ako se status ne mijenja.
+         */
+        public ThesisPatch statusTransition(java.util.function.Function<String, String> transition) {
+            this.statusTransition = transition;
+            return this;
+        }
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        /**
+         * Upsert dokumenta (ThesisId, typeId) sa brojem dokumenta
+         */
+        public ThesisPatch document(int typeId, byte[] content, Integer uploadedByUserId,
+                                    String documentNumber, DocumentStatus status) {
+            setDocument(typeId, content, uploadedByUserId, status);
+            this.documentNumber = documentNumber;
+            this.updateDocumentNumber = true;
+            return this;
+        }
 
-            if (commisionTime != null && !commisionTime.isBlank()) {
-                ps.setString(1, commisionTime);
-            } else {
-                ps.setNull(1, java.sql.Types.VARCHAR);
-            }
-            ps.setInt(2, thesisId);
+        /**
+         * Upsert dokumenta bez izmjene postojećeg broja dokumenta (zapisnici)
+         */
+        public ThesisPatch document(int typeId, byte[] content, Integer uploadedByUserId, DocumentStatus status) {
+            setDocument(typeId, content, uploadedByUserId, status);
+            this.updateDocumentNumber = false;
+            return this;
+        }
 
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
+        private void setDocument(int typeId, byte[] content, Integer uploadedByUserId, DocumentStatus status) {
+            this.documentTypeId = typeId;
+            this.documentContent = content;
+            this.documentUploadedBy = uploadedByUserId;
+            this.documentStatus = status;
+        }
 
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju vremena sjednice.", e);
+        private ThesisPatch date(String column, LocalDate value) {
+            columns.add(new Column(column, value != null ? java.sql.Date.valueOf(value) : null, Types.DATE));
+            return this;
         }
     }
 
     /**
-     * NOVI METOD: Ažurira datum završetka ciklusa (CycleCompletionDate)
+     * Primjenjuje sve izmjene iz patch-a u jednoj transakciji: upsert dokumenta,
+     * polja rada i promjena statusa idu jednim UPDATE-om. Ako bilo šta ne uspije, ništa se ne snima.
      */
-    public void updateCycleCompletionDate(int thesisId, LocalDate cycleCompletionDate) {
-        String sql = "UPDATE Thesis SET CycleCompletionDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
+    public void applyPatch(ThesisPatch patch) {
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+            conn.setAutoCommit(false);
+            try {
+                // Red rada se zaključava prvi, da dvije istovremene izmjene ne bi preskočile status
+                String newStatus = null;
+                if (patch.statusTransition != null) {
+                    String current = null;
+                    try (PreparedStatement ps = conn.prepareStatement("""
+                            SELECT TS.Name
+                            FROM Thesis T
+                            JOIN ThesisStatus TS ON T.StatusId = TS.Id
+                            WHERE T.Id = ? AND T.IsActive = 1
+                            FOR UPDATE
+                            """)) {
+                        ps.setInt(1, patch.thesisId);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            if (!rs.next()) {
+                                throw new RuntimeException("Thesis sa ID " + patch.thesisId + " nije pronađen.");
+                            }
+                            current = rs.getString(1);
+                        }
+                    }
+                    newStatus = patch.statusTransition.apply(current);
+                    if (newStatus != null && newStatus.equals(current)) newStatus = null;
+                }
 
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+                if (patch.documentTypeId != null) {
+                    DocumentDAO documentDAO = new DocumentDAO();
+                    if (patch.updateDocumentNumber) {
+                        documentDAO.upsert(conn, patch.thesisId, patch.documentTypeId,
+                                new java.io.ByteArrayInputStream(patch.documentContent), patch.documentContent.length,
+                                patch.documentUploadedBy, patch.documentNumber, patch.documentStatus);
+                    } else {
+                        documentDAO.upsert(conn, patch.thesisId, patch.documentTypeId, patch.documentContent,
+                                patch.documentUploadedBy, patch.documentStatus);
+                    }
+                }
 
-            if (cycleCompletionDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(cycleCompletionDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
-            ps.setInt(2, thesisId);
+                if (!patch.columns.isEmpty() || newStatus != null) {
+                    StringBuilder sql = new StringBuilder("UPDATE Thesis SET ");
+                    for (ThesisPatch.Column column : patch.columns) {
+                        sql.append(column.name()).append(" = ?, ");
+                    }
+                    if (newStatus != null) {
+                        sql.append("StatusId = (SELECT Id FROM ThesisStatus WHERE Name = ? LIMIT 1), ");
+                    }
+                    sql.append("UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ? AND IsActive = 1");
+
+                    try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                        int idx = 1;
+                        for (ThesisPatch.Column column : patch.columns) {
+                            if (column.value() != null) ps.setObject(idx++, column.value(), column.sqlType());
+                            else ps.setNull(idx++, column.sqlType());
+                        }
+                        if (newStatus != null) ps.setString(idx++, newStatus);
+                        ps.setInt(idx, patch.thesisId);
+
+                        if (ps.executeUpdate() == 0) {
+                            throw new RuntimeException("Thesis sa ID " + patch.thesisId + " nije pronađen.");
+                        }
+                    }
+                }
 
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma završetka ciklusa.", e);
+            throw new RuntimeException("Greška pri snimanju izmjena rada: " + e.getMessage(), e);
         }
     }
 
-    /**
-     * NOVI METOD: Ažurira datum zapisnika sa pismenog dijela (WrittenReportDate)
-     */
-    public void updateWrittenReportDate(int thesisId, LocalDate writtenReportDate) {
-        String sql = "UPDATE Thesis SET WrittenReportDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
+    public void updateStatusByName(int thesisId, String statusName) {
+        String sql = """
+        UPDATE Thesis
+        SET StatusId = (SELECT Id FROM ThesisStatus WHERE Name = ? LIMIT 1),
+            UpdatedAt = CURRENT_TIMESTAMP
+        WHERE Id = ? AND IsActive = 1
+    """;
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            if (writtenReportDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(writtenReportDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
+            ps.setString(1, statusName);
             ps.setInt(2, thesisId);
 
             int rows = ps.executeUpdate();
             if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
+                throw new RuntimeException("Status nije ažuriran. Provjeri da li status postoji u bazi i da li je rad aktivan.");
             }
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma zapisnika sa pismenog dijela.", e);
+            throw new RuntimeException("Greška pri ažuriranju statusa rada.", e);
         }
     }
 
     /**
-     * NOVI METOD: Ažurira datum zapisnika sa odbrane (DefenseReportDate)
+     * Prebacuje u toStatus samo one radove iz liste koji su trenutno u fromStatus.
+     * Vraća broj ažuriranih radova.
      */
-    public void updateDefenseReportDate(int thesisId, LocalDate defenseReportDate) {
-        String sql = "UPDATE Thesis SET DefenseReportDate = ?, UpdatedAt = CURRENT_TIMESTAMP WHERE Id = ?";
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            if (defenseReportDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(defenseReportDate));
-            } else {
-                ps.setNull(1, java.sql.Types.DATE);
-            }
-            ps.setInt(2, thesisId);
-
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Thesis sa ID " + thesisId + " nije pronađen.");
-            }
-
-        } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju datuma zapisnika sa odbrane.", e);
-        }
-    }
+    public int updateStatusByName(Collection<Integer> thesisIds, String fromStatus, String toStatus) {
+        if (thesisIds == null || thesisIds.isEmpty()) return 0;
 
-    public void updateStatusByName(int thesisId, String statusName) {
         String sql = """
         UPDATE Thesis
         SET StatusId = (SELECT Id FROM ThesisStatus WHERE Name = ? LIMIT 1),
             UpdatedAt = CURRENT_TIMESTAMP
-        WHERE Id = ? AND IsActive = 1
-    """;
+        WHERE IsActive = 1
+          AND StatusId = (SELECT Id FROM ThesisStatus WHERE Name = ? LIMIT 1)
+          AND Id IN (%s)
+    """.formatted(CloudDatabaseConnection.placeholders(thesisIds.size()));
 
         try (Connection conn = CloudDatabaseConnection.Konekcija();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setString(1, statusName);
-            ps.setInt(2, thesisId);
+            ps.setString(1, toStatus);
+            ps.setString(2, fromStatus);
+            int idx = 3;
+            for (Integer id : thesisIds) ps.setInt(idx++, id);
 
-            int rows = ps.executeUpdate();
-            if (rows == 0) {
-                throw new RuntimeException("Status nije ažuriran. Provjeri da li status postoji u bazi i da li je rad aktivan.");
-            }
+            return ps.executeUpdate();
 
         } catch (SQLException e) {
-            throw new RuntimeException("Greška pri ažuriranju statusa rada.", e);
+            throw new RuntimeException("Greška pri ažuriranju statusa radova.", e);
         }
     }
 
@@ -964,140 +1011,4 @@ public class ThesisDAO {
             throw new RuntimeException("Greška pri čitanju statusa rada.", e);
         }
     }
-
-    public int getTotalThesisCount() {
-        String sql = "SELECT COUNT(*) FROM Thesis WHERE IsActive = 1";
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
-    }
-
-    public int getActiveThesisCount() {
-        String sql = """
-            
-                SELECT COUNT(*) 
-            FROM Thesis T
-            JOIN ThesisStatus TS ON T.StatusId = TS.Id
-            WHERE T.IsActive = 1 AND TS.Name <> 'Odbranjen'
-            """;
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
-    }
-
-    /**
-     * Vraća mapu gdje je ključ ime i prezime sekretara, a vrijednost broj radova koje vodi.
-     */
-    public java.util.Map<String, Integer> getSecretaryThesisCounts() {
-        // IZMJENA 1: Koristi LinkedHashMap umjesto HashMap.
-        // LinkedHashMap čuva redoslijed umetanja (insertion order).
-        java.util.Map<String, Integer> counts = new java.util.LinkedHashMap<>();
-
-        // IZMJENA 2: Dodan "ORDER BY Total DESC" na kraju SQL-a
-        String sql = """
-        SELECT CONCAT(S.FirstName, ' ', S.LastName) AS SecretaryName, COUNT(T.Id) AS Total
-        FROM Thesis T
-        JOIN AppUser U ON T.SecretaryId = U.Id
-        JOIN AcademicStaff S ON U.AcademicStaffId = S.Id
-        WHERE T.IsActive = 1
-        GROUP BY S.Id, S.FirstName, S.LastName
-        ORDER BY Total DESC
-    """;
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String name = rs.getString("SecretaryName");
-                int total = rs.getInt("Total");
-                counts.put(name, total);
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return counts;
-    }
-
-    public int getLateThesisCount() {
-        String sql = """
-            SELECT COUNT(*)
-            FROM Thesis T
-            JOIN ThesisStatus TS ON T.StatusId = TS.Id
-            WHERE T.IsActive = 1
-              AND TS.Name <> 'Odbranjen'
-              AND DATEDIFF(CURRENT_DATE, T.ApplicationDate) > 90
-        """;
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
-    }
-
-    public Map<String, Integer> getTopMentorsFiltered(LocalDate startDate, LocalDate endDate) {
-        Map<String, Integer> stats = new LinkedHashMap<>();
-
-        StringBuilder sql = new StringBuilder("""
-            SELECT CONCAT(A.Title, ' ', A.FirstName, ' ', A.LastName) AS MentorName, COUNT(T.Id) AS Total
-            FROM Thesis T
-            JOIN AcademicStaff A ON T.MentorId = A.Id
-            JOIN ThesisStatus TS ON T.StatusId = TS.Id
-            WHERE T.IsActive = 1
-        """);
-
-        // Ako imamo filter datuma, dodajemo uvjet
-        if (startDate != null && endDate != null) {
-            sql.append(" AND T.ApplicationDate >= ? AND T.ApplicationDate <= ?");
-        }
-
-        sql.append("""
-            GROUP BY A.FirstName, A.LastName, A.Title
-            ORDER BY Total DESC
-        """);
-
-        try (Connection conn = CloudDatabaseConnection.Konekcija();
-             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
-
-            // Postavljanje parametara za datum ako su proslijedđeni
-            if (startDate != null && endDate != null) {
-                ps.setDate(1, java.sql.Date.valueOf(startDate));
-                ps.setDate(2, java.sql.Date.valueOf(endDate));
-            }
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    stats.put(rs.getString("MentorName"), rs.getInt("Total"));
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return stats;
-    }
 }
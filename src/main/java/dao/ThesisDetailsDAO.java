@@ -0,0 +1,111 @@
+package dao;
+
+import dto.ThesisDetailsDTO;
+import dto.ThesisDetailsViewDTO;
+import model.Commission;
+import model.Document;
+import model.DocumentStatus;
+import model.DocumentType;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Učitava ekran detalja rada na jednoj konekciji: detalje rada, komisiju i
+ * tipove dokumenata zajedno sa metapodacima dokumenata (jedan LEFT JOIN).
+ */
+public class ThesisDetailsDAO {
+
+    private static final String DOCUMENTS_SELECT = """
+        SELECT DT.Id AS TypeId, DT.Name, DT.RequiresNumber, DT.NumberPrefix, DT.SortOrder,
+               D.Id AS DocumentId, D.ThesisId, D.UploadedByUserId, D.DocumentNumber, D.Status,
+               D.CreatedAt, D.UpdatedAt, D.IsActive
+        FROM DocumentType DT
+        LEFT JOIN Document D ON D.TypeId = DT.Id AND D.ThesisId = ? AND D.IsActive = 1
+        ORDER BY DT.SortOrder, DT.Id, D.Id DESC
+        """;
+
+    /**
+     * @return null ako rad ne postoji ili nije aktivan
+     */
+    public ThesisDetailsViewDTO load(int thesisId) {
+        // Dvostruki klik na karticu rada ne smije dva puta učitati iste detalje
+        return SingleFlight.call("ThesisDetailsDAO.load", () -> fetchView(thesisId), thesisId);
+    }
+
+    private ThesisDetailsViewDTO fetchView(int thesisId) {
+        try (Connection conn = CloudDatabaseConnection.Konekcija()) {
+
+            ThesisDetailsDTO details;
+            try (PreparedStatement ps = conn.prepareStatement(ThesisDAO.THESIS_DETAILS_SELECT + " WHERE T.Id = ? AND T.IsActive = 1")) {
+                ps.setInt(1, thesisId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    details = ThesisDAO.mapThesisDetails(rs);
+                }
+            }
+
+            Commission commission = null;
+            try (PreparedStatement ps = conn.prepareStatement(CommissionDAO.COMMISSION_SELECT + " WHERE c.ThesisId = ?")) {
+                ps.setInt(1, thesisId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        commission = CommissionDAO.mapCommission(rs);
+                    }
+                }
+            }
+
+            List<DocumentType> types = new ArrayList<>();
+            Map<Integer, Document> documentsByTypeId = new LinkedHashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(DOCUMENTS_SELECT)) {
+                ps.setInt(1, thesisId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    int lastTypeId = -1;
+                    while (rs.next()) {
+                        int typeId = rs.getInt("TypeId");
+                        if (typeId != lastTypeId) {
+                            types.add(DocumentType.builder()
+                                    .Id(typeId)
+                                    .Name(rs.getString("Name"))
+                                    .RequiresNumber(rs.getBoolean("RequiresNumber"))
+                                    .NumberPrefix(rs.getString("NumberPrefix"))
+                                    .SortOrder((Integer) rs.getObject("SortOrder"))
+                                    .build());
+                            lastTypeId = typeId;
+                        }
+
+                        // Po jedan dokument po tipu (najnoviji, ako ipak postoje duplikati)
+                        if (rs.getObject("DocumentId") != null && !documentsByTypeId.containsKey(typeId)) {
+                            documentsByTypeId.put(typeId, mapDocument(rs, typeId));
+                        }
+                    }
+                }
+            }
+
+            return new ThesisDetailsViewDTO(details, commission, List.copyOf(types), Map.copyOf(documentsByTypeId));
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Greška pri dohvatanju detalja rada: " + e.getMessage(), e);
+        }
+    }
+
+    private Document mapDocument(ResultSet rs, int typeId) throws SQLException {
+        String statusStr = rs.getString("Status");
+        DocumentStatus status = (statusStr != null) ? DocumentStatus.valueOf(statusStr) : null;
+
+        return Document.builder()
+                .Id(rs.getInt("DocumentId"))
+                .ThesisId(rs.getInt("ThesisId"))
+                .TypeId(typeId)
+                .UploadedByUserId((Integer) rs.getObject("UploadedByUserId"))
+                .DocumentNumber(rs.getString("DocumentNumber"))
+                .Status(status)
+                .CreatedAt(rs.getTimestamp("CreatedAt") != null ? rs.getTimestamp("CreatedAt").toLocalDateTime() : null)
+                .UpdatedAt(rs.getTimestamp("UpdatedAt") != null ? rs.getTimestamp("UpdatedAt").toLocalDateTime() : null)
+                .IsActive(rs.getBoolean("IsActive"))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package dao;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodično čisti istekle lock-ove nad radovima na posebnom scheduler thread-u.
+ * Interval se može podesiti preko system property-a "ediploma.lockSweepMinutes",
+ * a po defaultu je pola od ThesisDAO.LOCK_TIMEOUT_MINUTES.
+ */
+public class ThesisLockSweeper {
+
+    private static final String INTERVAL_PROPERTY = "ediploma.lockSweepMinutes";
+
+    private static ScheduledExecutorService scheduler;
+
+    private ThesisLockSweeper() {}
+
+    public static synchronized void start() {
+        start(resolveIntervalMinutes());
+    }
+
+    public static synchronized void start(int intervalMinutes) {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "thesis-lock-sweeper");
+            thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
+            return thread;
+        });
+
+        ThesisDAO thesisDAO = new ThesisDAO();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int cleared = thesisDAO.clearExpiredLocks();
+                if (cleared > 0) {
+                    System.out.println("[ThesisLockSweeper] Cleared " + cleared + " expired locks.");
+                }
+            } catch (Exception e) {
+                // Izuzetak ne smije ugasiti scheduler - pokušaj ponovo u sljedećem ciklusu
+                System.err.println("[ThesisLockSweeper] " + e.getMessage());
+            }
+        }, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static int resolveIntervalMinutes() {
+        int defaultInterval = Math.max(1, ThesisDAO.LOCK_TIMEOUT_MINUTES / 2);
+        String configured = System.getProperty(INTERVAL_PROPERTY);
+        if (configured == null || configured.isBlank()) {
+            return defaultInterval;
+        }
+        try {
+            int value = Integer.parseInt(configured.trim());
+            // Nema smisla čistiti rjeđe nego što lock istječe
+            return Math.max(1, Math.min(value, ThesisDAO.LOCK_TIMEOUT_MINUTES));
+        } catch (NumberFormatException e) {
+            return defaultInterval;
+        }
+    }
+}
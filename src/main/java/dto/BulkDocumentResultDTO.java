@@ -0,0 +1,21 @@
+package dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rezultat grupnog generisanja dokumenata: uspješno snimljeni radovi i greške po radu
+ */
+@Data
+public class BulkDocumentResultDTO {
+    private final List<Integer> succeededThesisIds = new ArrayList<>();
+    private final Map<Integer, String> failures = new LinkedHashMap<>(); // ThesisId -> opis greške
+
+    public int getTotal() {
+        return succeededThesisIds.size() + failures.size();
+    }
+}
@@ -18,4 +18,5 @@ public class ThesisDTO {
     private String mentorFullName;
     private String status;
     private LocalDate applicationDate;
+    private int studentIndexNumber;
 }
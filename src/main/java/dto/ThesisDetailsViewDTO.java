@@ -0,0 +1,34 @@
+package dto;
+
+import lombok.Value;
+import model.Commission;
+import model.Document;
+import model.DocumentType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sve što ekran detalja rada prikazuje, učitano odjednom (ThesisDetailsDAO.load).
+ * Liste i mape su nepromjenjive.
+ */
+@Value
+public class ThesisDetailsViewDTO {
+    ThesisDetailsDTO details;
+    Commission commission; // null ako komisija nije formirana
+    List<DocumentType> documentTypes; // sortirano po SortOrder
+    Map<Integer, Document> documentsByTypeId; // samo aktivni dokumenti, bez sadržaja
+
+    public Document getDocument(DocumentType type) {
+        return type != null ? documentsByTypeId.get(type.getId()) : null;
+    }
+
+    public Document getDocumentByTypeName(String typeName) {
+        for (DocumentType type : documentTypes) {
+            if (type.getName() != null && type.getName().equals(typeName)) {
+                return documentsByTypeId.get(type.getId());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,21 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ThesisFilterDTO {
+    private Integer afterId; // Keyset: vraća radove sa Id < afterId (null = prva stranica)
+    @Builder.Default
+    private int pageSize = 50;
+    private String status; // null = svi statusi
+    private Integer cycle; // null = svi ciklusi
+    private Integer secretaryUserId; // AppUser.Id sekretara, null = svi sekretari
+    private String searchText; // Naslov, student ili mentor
+    private boolean includeGraduated; // Da li "Svi statusi" uključuje i odbranene radove
+}
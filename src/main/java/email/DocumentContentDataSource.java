@@ -0,0 +1,53 @@
+package email;
+
+import dao.DocumentDAO;
+
+import javax.activation.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Attachment koji PDF čita direktno iz baze tek kad JavaMail piše MIME dio,
+ * bez učitavanja cijelog dokumenta u memoriju.
+ */
+public class DocumentContentDataSource implements DataSource {
+
+    private final DocumentDAO documentDAO;
+    private final int documentId;
+    private final String name;
+
+    public DocumentContentDataSource(DocumentDAO documentDAO, int documentId, String name) {
+        this.documentDAO = documentDAO;
+        this.documentId = documentId;
+        this.name = name;
+    }
+
+    public int getDocumentId() {
+        return documentId;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = documentDAO.openContentStream(documentId);
+        if (in == null) {
+            throw new IOException("Dokument " + documentId + " nema sačuvan PDF sadržaj.");
+        }
+        return in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new IOException("DocumentContentDataSource je samo za čitanje.");
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -32,15 +32,12 @@ public class DocumentEmailNotificationService {
                 return false;
             }
 
-            String base64Content = documentDAO.getContentBase64(document.getId());
-            if (base64Content == null || base64Content.isEmpty()) {
+            // Sadržaj se ne učitava ovdje - EmailService ga čita iz baze direktno u attachment
+            if (!documentDAO.hasContent(document.getId())) {
                 GlobalErrorHandler.error("Dokument nema sačuvan PDF sadržaj.");
                 return false;
             }
 
-
-            document.setContentBase64(base64Content);
-
             ThesisDetailsDTO thesisDetails = thesisDAO.getThesisDetails(document.getThesisId());
 
             if (thesisDetails == null) {
@@ -51,9 +48,9 @@ public class DocumentEmailNotificationService {
             boolean success = sendEmailByDocumentType(document, thesisDetails);
 
             if (success) {
-                GlobalErrorHandler.info("✓ Email je uspješno poslan svim relevatnim osobama!");
+                GlobalErrorHandler.info("✓ Email je stavljen u red za slanje svim relevantnim osobama.");
             } else {
-                GlobalErrorHandler.error("✗ Slanje emaila nije uspjelo. Provjerite App Password u podešavanjima.");
+                GlobalErrorHandler.error("✗ Email nije stavljen u red za slanje. Provjerite App Password u podešavanjima.");
             }
 
             return success;
@@ -0,0 +1,58 @@
+package email;
+
+import dao.EmailLogDAO;
+import model.EmailLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Upisuje EmailLog zapise u pozadini, tako da slanje emaila ne čeka na INSERT-e.
+ * Logovi koji stignu dok je upis u toku skupljaju se i upisuju jednim batch-om (EmailLogDAO.logEmails).
+ */
+public final class EmailLogWriter {
+
+    private static final int MAX_BATCH_SIZE = 200;
+
+    private static final EmailLogDAO emailLogDAO = new EmailLogDAO();
+    private static final ConcurrentLinkedQueue<EmailLog> PENDING = new ConcurrentLinkedQueue<>();
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "email-log-writer");
+        thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
+        return thread;
+    });
+
+    private EmailLogWriter() {}
+
+    public static void write(EmailLog emailLog) {
+        write(List.of(emailLog));
+    }
+
+    public static void write(List<EmailLog> emailLogs) {
+        if (emailLogs == null || emailLogs.isEmpty()) return;
+        PENDING.addAll(emailLogs);
+        WRITER.execute(EmailLogWriter::drain);
+    }
+
+    private static void drain() {
+        while (!PENDING.isEmpty()) {
+            List<EmailLog> batch = new ArrayList<>();
+            EmailLog next;
+            while (batch.size() < MAX_BATCH_SIZE && (next = PENDING.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) return;
+
+            try {
+                emailLogDAO.logEmails(batch);
+            } catch (Exception e) {
+                // Neuspio upis loga ne smije uticati na slanje - samo se prijavljuje
+                System.err.println("[EmailLogWriter] Failed to write " + batch.size() + " email logs: " + e.getMessage());
+            }
+        }
+    }
+}
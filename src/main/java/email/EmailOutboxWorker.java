@@ -0,0 +1,230 @@
+package email;
+
+import dao.AppUserDAO;
+import dao.DocumentDAO;
+import dao.EmailOutboxDAO;
+import model.EmailLog;
+import model.EmailOutboxMessage;
+
+import javax.activation.DataSource;
+import javax.mail.AuthenticationFailedException;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Šalje poruke iz EmailOutbox tabele na posebnom thread-u.
+ * Poruke se uzimaju u batch-evima (sortirane po pošiljaocu) i šalju preko SmtpTransportPool,
+ * tako da se jedna SMTP konekcija koristi za više poruka. Neuspjelo slanje se ponavlja
+ * sa eksponencijalnim backoff-om, a stanje svake poruke se čuva u bazi.
+ */
+public class EmailOutboxWorker {
+
+    private static final int POLL_SECONDS = 30;
+    private static final int BATCH_SIZE = 20;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 30 * 60;
+    private static final long MAX_IDLE_CONNECTION_MILLIS = 2 * 60 * 1000;
+    // Koliko dugo je poruka u SENDING "zauzeta" klijentom koji ju je uzeo; poslije se vraća u red
+    private static final int CLAIM_LEASE_MINUTES = 30;
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    private static final EmailOutboxDAO outboxDAO = new EmailOutboxDAO();
+    private static final AppUserDAO appUserDAO = new AppUserDAO();
+    private static final DocumentDAO documentDAO = new DocumentDAO();
+
+    private static ScheduledExecutorService scheduler;
+
+    // Poslane poruke čiji SENT nije upisan; koristi ih samo worker thread
+    private static final Set<Integer> unsavedSent = new LinkedHashSet<>();
+
+    private EmailOutboxWorker() {}
+
+    public static synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-worker");
+            thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(EmailOutboxWorker::drain, 0, POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Pokreće slanje odmah (nakon dodavanja poruke u red), bez čekanja sljedećeg ciklusa
+     */
+    public static synchronized void wakeUp() {
+        if (scheduler != null) {
+            scheduler.execute(EmailOutboxWorker::drain);
+        }
+    }
+
+    /**
+     * Gašenje aplikacije (Main.stop): poruka koja se upravo šalje se završi i upiše kao SENT,
+     * pa se zatvaraju SMTP konekcije. Neposlane poruke ostaju u redu za sljedeće pokretanje.
+     */
+    public static void stop() {
+        ScheduledExecutorService current;
+        synchronized (EmailOutboxWorker.class) {
+            current = scheduler;
+            scheduler = null;
+        }
+
+        if (current != null) {
+            current.shutdown();
+            try {
+                if (!current.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    current.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                current.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        SmtpTransportPool.closeAll();
+    }
+
+    private static synchronized boolean isStopping() {
+        return scheduler == null;
+    }
+
+    private static void drain() {
+        try {
+            flushUnsavedSent();
+            // Dok poslana poruka nije upisana kao SENT, ne vraćaju se istekli zakupi - inače bi otišla ponovo
+            if (unsavedSent.isEmpty()) {
+                // Samo poruke čiji je zakup istekao - one koje drugi klijent upravo šalje ostaju njemu
+                int requeued = outboxDAO.requeueExpired(CLAIM_LEASE_MINUTES);
+                if (requeued > 0) {
+                    System.out.println("[EmailOutboxWorker] Requeued " + requeued + " interrupted emails.");
+                }
+            }
+
+            List<EmailOutboxMessage> batch;
+            // Nakon stop() se ne uzimaju nove poruke
+            while (!Thread.currentThread().isInterrupted() && !isStopping()
+                    && !(batch = outboxDAO.claimDue(BATCH_SIZE)).isEmpty()) {
+                for (EmailOutboxMessage message : batch) {
+                    deliver(message);
+                }
+            }
+        } catch (Exception e) {
+            // Izuzetak ne smije ugasiti scheduler - pokušaj ponovo u sljedećem ciklusu
+            System.err.println("[EmailOutboxWorker] " + e.getMessage());
+        } finally {
+            SmtpTransportPool.closeIdle(MAX_IDLE_CONNECTION_MILLIS);
+        }
+    }
+
+    /**
+     * Šalje jednu poruku i upisuje njeno stanje. Ne baca izuzetke, da jedna poruka ne ostavi
+     * ostatak batch-a u SENDING. Greške slanja (poruka nije otišla) idu u retry/FAILED, a greške
+     * upisa stanja se samo prijavljuju.
+     */
+    private static void deliver(EmailOutboxMessage message) {
+        int attempts = message.getAttempts() + 1;
+
+        try {
+            String encryptedAppPassword = appUserDAO.getAppPasswordById(message.getSentBy());
+            if (encryptedAppPassword == null || encryptedAppPassword.isEmpty()) {
+                fail(message, attempts, "App Password not configured");
+                return;
+            }
+
+            Session session = SmtpTransportPool.session(message.getSentBy(), message.getSenderEmail(), encryptedAppPassword);
+
+            DataSource attachment = null;
+            if (message.getDocumentId() != null && message.getAttachmentName() != null) {
+                attachment = new DocumentContentDataSource(documentDAO, message.getDocumentId(), message.getAttachmentName());
+            }
+
+            MimeMessage mimeMessage = EmailService.buildMessage(session, message.getSenderEmail(), message.getRecipients(),
+                    message.getSubject(), message.getBody(), attachment, message.getAttachmentName());
+
+            SmtpTransportPool.send(message.getSentBy(), message.getSenderEmail(), encryptedAppPassword, mimeMessage);
+
+        } catch (AuthenticationFailedException e) {
+            // Pogrešan App Password se neće popraviti ponavljanjem
+            fail(message, attempts, e.getMessage());
+            return;
+        } catch (MessagingException | RuntimeException e) {
+            retryOrFail(message, attempts, e.getMessage());
+            return;
+        }
+
+        // Poruka je poslana - od ovdje greška ne smije dovesti do ponovnog slanja
+        try {
+            outboxDAO.markSent(message.getId());
+        } catch (RuntimeException e) {
+            unsavedSent.add(message.getId());
+            System.err.println("[EmailOutboxWorker] Email " + message.getId() + " sent, status not saved: " + e.getMessage());
+        }
+        log(message, "SUCCESS", null);
+        System.out.println("[EmailOutboxWorker] ✓ Email " + message.getId() + " sent to " + message.getRecipients().size() + " recipients");
+    }
+
+    // Ako upis ne uspije, poruka ostaje u SENDING i vraća se u red kad zakup istekne - nije poslana, pa to je sigurno
+    private static void retryOrFail(EmailOutboxMessage message, int attempts, String error) {
+        if (attempts >= MAX_ATTEMPTS) {
+            fail(message, attempts, error);
+            return;
+        }
+
+        long backoff = Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << (attempts - 1));
+        try {
+            outboxDAO.scheduleRetry(message.getId(), attempts, backoff, error);
+        } catch (RuntimeException e) {
+            System.err.println("[EmailOutboxWorker] Email " + message.getId() + " retry not saved: " + e.getMessage());
+        }
+        System.err.println("[EmailOutboxWorker] Email " + message.getId() + " failed (attempt " + attempts
+                + "), retry in " + backoff + "s: " + error);
+    }
+
+    private static void fail(EmailOutboxMessage message, int attempts, String error) {
+        try {
+            outboxDAO.markFailed(message.getId(), attempts, error);
+        } catch (RuntimeException e) {
+            System.err.println("[EmailOutboxWorker] Email " + message.getId() + " failure not saved: " + e.getMessage());
+        }
+        log(message, "FAILED", error);
+        System.err.println("[EmailOutboxWorker] ✗ Email " + message.getId() + " failed permanently: " + error);
+    }
+
+    // Ponovni upis SENT za poruke koje su poslane, a status im nije sačuvan
+    private static void flushUnsavedSent() {
+        Iterator<Integer> ids = unsavedSent.iterator();
+        while (ids.hasNext()) {
+            outboxDAO.markSent(ids.next());
+            ids.remove();
+        }
+    }
+
+    private static void log(EmailOutboxMessage message, String status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailLog> logs = new ArrayList<>();
+        for (String recipient : message.getRecipients()) {
+            logs.add(new EmailLog(
+                    message.getSentBy(),
+                    recipient,
+                    message.getSubject(),
+                    status,
+                    error,
+                    now,
+                    message.getDocumentId()
+            ));
+        }
+        EmailLogWriter.write(logs);
+    }
+}
@@ -1,9 +1,9 @@
 package email;
 
-import dao.EmailLogDAO;
+import dao.DocumentDAO;
+import dao.EmailOutboxDAO;
 import dto.ThesisDetailsDTO;
 import model.*;
-import utils.AESEncryption;
 import utils.UserSession;
 
 import javax.activation.DataHandler;
@@ -13,18 +13,17 @@ import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
-import javax.mail.util.ByteArrayDataSource;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Properties;
 import java.util.Set;
 
 public class EmailService {
 
-    private final EmailLogDAO emailLogDAO = new EmailLogDAO();
+    private final DocumentDAO documentDAO = new DocumentDAO();
+    private final EmailOutboxDAO emailOutboxDAO = new EmailOutboxDAO();
 
     // ==================== HELPER METHODS ====================
 
@@ -43,17 +42,14 @@ public class EmailService {
         return student.getFirstName() + " " + student.getLastName();
     }
 
-    private byte[] decodePdfContent(Document document) {
-        if (document == null || document.getContentBase64() == null || document.getContentBase64().isEmpty()) {
-            return null;
-        }
-        
-        try {
-            return Base64.getDecoder().decode(document.getContentBase64());
-        } catch (IllegalArgumentException e) {
-            System.err.println("[EmailService] Failed to decode PDF content: " + e.getMessage());
+    /**
+     * PDF se ne učitava u memoriju - attachment ga čita iz baze dok se poruka šalje
+     */
+    private DocumentContentDataSource createPdfAttachment(Document document) {
+        if (document == null || !documentDAO.hasContent(document.getId())) {
             return null;
         }
+        return new DocumentContentDataSource(documentDAO, document.getId(), "document-" + document.getId() + ".pdf");
     }
 
     private void addIfPresent(Set<String> recipients, String email) {
@@ -85,9 +81,12 @@ public class EmailService {
 
     // ==================== EMAIL SENDING METHODS ====================
 
-
+    /**
+     * Dodaje email u red za slanje (EmailOutbox) i odmah se vraća - slanje radi EmailOutboxWorker.
+     * Attachment se ne kopira, u redu se čuva samo DocumentId.
+     */
     public boolean sendEmailWithAttachment(List<String> recipients, String subject, String body,
-                                          byte[] pdfBytes, String pdfFileName, Integer documentId) {
+                                          DocumentContentDataSource attachment, String pdfFileName, Integer documentId) {
         AppUser currentUser = UserSession.getUser();
 
         if (currentUser == null) {
@@ -100,7 +99,6 @@ public class EmailService {
             return false;
         }
 
-        String senderEmail = currentUser.getEmail();
         String encryptedAppPassword = currentUser.getAppPassword();
 
         if (encryptedAppPassword == null || encryptedAppPassword.isEmpty()) {
@@ -110,79 +108,61 @@ public class EmailService {
         }
 
         try {
-            String appPassword = AESEncryption.decrypt(encryptedAppPassword);
-
-            // Konfigurisanje SMTP
-            Properties props = new Properties();
-            props.put("mail.smtp.host", "smtp.gmail.com");
-            props.put("mail.smtp.port", "587");
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.starttls.enable", "true");
-            props.put("mail.smtp.ssl.protocols", "TLSv1.2");
-            props.put("mail.smtp.ssl.trust", "smtp.gmail.com");
-
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(senderEmail, appPassword);
-                }
-            });
-
-
-            String allRecipients = String.join(",", recipients);
-            System.out.println("[EmailService] Sending to: " + allRecipients);
-
-            try {
-                MimeMessage message = new MimeMessage(session);
-                message.setFrom(new InternetAddress(senderEmail));
-                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(allRecipients));
-                message.setSubject(subject);
-
-
-                Multipart multipart = new MimeMultipart();
-
-                // Body dio
-                MimeBodyPart textPart = new MimeBodyPart();
-                textPart.setContent(body, "text/html; charset=utf-8");
-                multipart.addBodyPart(textPart);
-
-                // Attachment dio (ako postoji)
-                if (pdfBytes != null && pdfBytes.length > 0) {
-                    MimeBodyPart attachmentPart = new MimeBodyPart();
-                    DataSource source = new ByteArrayDataSource(pdfBytes, "application/pdf");
-                    attachmentPart.setDataHandler(new DataHandler(source));
-                    attachmentPart.setFileName(pdfFileName);
-                    multipart.addBodyPart(attachmentPart);
-                }
-
-                message.setContent(multipart);
-
-                Transport.send(message);
-
-                for (String recipient : recipients) {
-                    logSuccessfulEmail(currentUser.getId(), recipient, subject, documentId);
-                }
-
-                System.out.println("[EmailService] ✓ Email sent successfully to all recipients");
-                return true;
-
-            } catch (MessagingException e) {
-                System.err.println("[EmailService] ✗ Failed to send email");
-                System.err.println("[EmailService] Error: " + e.getMessage());
-                e.printStackTrace();
-
-                logFailedEmail(currentUser.getId(), recipients, subject, e.getMessage(), documentId);
-                return false;
-            }
+            EmailOutboxMessage message = EmailOutboxMessage.builder()
+                    .sentBy(currentUser.getId())
+                    .senderEmail(currentUser.getEmail())
+                    .recipients(List.copyOf(recipients))
+                    .subject(subject)
+                    .body(body)
+                    .documentId(attachment != null ? Integer.valueOf(attachment.getDocumentId()) : documentId)
+                    .attachmentName(attachment != null ? pdfFileName : null)
+                    .build();
+
+            int id = emailOutboxDAO.enqueue(message);
+            EmailOutboxWorker.wakeUp();
+
+            System.out.println("[EmailService] Email " + id + " queued for: " + String.join(",", recipients));
+            return true;
 
         } catch (Exception e) {
-            System.err.println("[EmailService] Critical error sending emails: " + e.getMessage());
+            System.err.println("[EmailService] Failed to queue email: " + e.getMessage());
             e.printStackTrace();
             logFailedEmail(currentUser.getId(), recipients, subject, e.getMessage(), documentId);
             return false;
         }
     }
 
+    /**
+     * Sastavlja MIME poruku (HTML body + opcioni PDF attachment)
+     */
+    static MimeMessage buildMessage(Session session, String senderEmail, List<String> recipients, String subject,
+                                    String body, DataSource attachment, String pdfFileName) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(senderEmail));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(String.join(",", recipients)));
+        message.setSubject(subject);
+
+        Multipart multipart = new MimeMultipart();
+
+        // Body dio
+        MimeBodyPart textPart = new MimeBodyPart();
+        textPart.setContent(body, "text/html; charset=utf-8");
+        multipart.addBodyPart(textPart);
+
+        // Attachment dio (ako postoji)
+        if (attachment != null) {
+            MimeBodyPart attachmentPart = new MimeBodyPart();
+            attachmentPart.setDataHandler(new DataHandler(attachment));
+            attachmentPart.setFileName(pdfFileName);
+            // Eksplicitno kodiranje - inače JavaMail čita cijeli sadržaj unaprijed da bi ga odredio
+            attachmentPart.setHeader("Content-Transfer-Encoding", "base64");
+            multipart.addBodyPart(attachmentPart);
+        }
+
+        message.setContent(multipart);
+        return message;
+    }
+
     /**
      * Šalje "Rješenje o izradi rada" studentu, mentoru i sekretaru
      */
@@ -193,8 +173,8 @@ public class EmailService {
                 return false;
             }
 
-            byte[] pdfBytes = decodePdfContent(document);
-            if (pdfBytes == null) {
+            DocumentContentDataSource pdfAttachment = createPdfAttachment(document);
+            if (pdfAttachment == null) {
                 System.err.println("[EmailService] Document has no PDF content.");
                 return false;
             }
@@ -219,7 +199,7 @@ public class EmailService {
             String body = generateThesisDecisionEmailBody(thesisDetails);
             String fileName = generatePdfFileName("Rjesenje_o_izradi_rada", student);
 
-            return sendEmailWithAttachment(recipients, subject, body, pdfBytes, fileName, document.getId());
+            return sendEmailWithAttachment(recipients, subject, body, pdfAttachment, fileName, document.getId());
 
         } catch (Exception e) {
             System.err.println("[EmailService] Failed to send thesis decision document: " + e.getMessage());
@@ -238,8 +218,8 @@ public class EmailService {
                 return false;
             }
 
-            byte[] pdfBytes = decodePdfContent(document);
-            if (pdfBytes == null) {
+            DocumentContentDataSource pdfAttachment = createPdfAttachment(document);
+            if (pdfAttachment == null) {
                 System.err.println("[EmailService] Document has no PDF content.");
                 return false;
             }
@@ -268,7 +248,7 @@ public class EmailService {
             String body = generateCommissionDecisionEmailBody(thesisDetails, commission);
             String fileName = generatePdfFileName("Rjesenje_o_formiranju_komisije", student);
 
-            return sendEmailWithAttachment(recipients, subject, body, pdfBytes, fileName, document.getId());
+            return sendEmailWithAttachment(recipients, subject, body, pdfAttachment, fileName, document.getId());
 
         } catch (Exception e) {
             System.err.println("[EmailService] Failed to send commission decision document: " + e.getMessage());
@@ -287,8 +267,8 @@ public class EmailService {
                 return false;
             }
 
-            byte[] pdfBytes = decodePdfContent(document);
-            if (pdfBytes == null) {
+            DocumentContentDataSource pdfAttachment = createPdfAttachment(document);
+            if (pdfAttachment == null) {
                 System.err.println("[EmailService] Document has no PDF content.");
                 return false;
             }
@@ -319,7 +299,7 @@ public class EmailService {
             String body = generateNoticeEmailBody(thesisDetails, commission);
             String fileName = generatePdfFileName("Obavijest", student);
 
-            return sendEmailWithAttachment(recipients, subject, body, pdfBytes, fileName, document.getId());
+            return sendEmailWithAttachment(recipients, subject, body, pdfAttachment, fileName, document.getId());
 
         } catch (Exception e) {
             System.err.println("[EmailService] Failed to send notice document: " + e.getMessage());
@@ -344,8 +324,8 @@ public class EmailService {
                 return false;
             }
 
-            byte[] pdfBytes = decodePdfContent(document);
-            if (pdfBytes == null) {
+            DocumentContentDataSource pdfAttachment = createPdfAttachment(document);
+            if (pdfAttachment == null) {
                 System.err.println("[EmailService] Document has no PDF content.");
                 return false;
             }
@@ -354,7 +334,7 @@ public class EmailService {
             String body = generateCycleCompletionEmailBody(thesisDetails);
             String fileName = generatePdfFileName("Uvjerenje_o_zavrsenom_ciklusu", student);
 
-            return sendEmailWithAttachment(List.of(student.getEmail()), subject, body, pdfBytes, fileName, document.getId());
+            return sendEmailWithAttachment(List.of(student.getEmail()), subject, body, pdfAttachment, fileName, document.getId());
 
         } catch (Exception e) {
             System.err.println("[EmailService] Failed to send cycle completion document: " + e.getMessage());
@@ -580,43 +560,40 @@ public class EmailService {
     // ==================== LOGGING METHODS ====================
 
     private void logSuccessfulEmail(int userId, String recipient, String subject, Integer documentId) {
-        try {
-            EmailLog log = new EmailLog(
+        EmailLogWriter.write(new EmailLog(
+                userId,
+                recipient,
+                subject,
+                "SUCCESS",
+                null,
+                LocalDateTime.now(),
+                documentId
+        ));
+    }
+
+    private void logFailedEmail(int userId, List<String> recipients, String subject, String errorMessage, Integer documentId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailLog> logs = new ArrayList<>();
+        for (String recipient : recipients) {
+            logs.add(new EmailLog(
                     userId,
                     recipient,
                     subject,
-                    "SUCCESS",
-                    null,
-                    LocalDateTime.now(),
+                    "FAILED",
+                    errorMessage,
+                    now,
                     documentId
-            );
-            emailLogDAO.logEmail(log);
-        } catch (Exception e) {
-            System.err.println("Failed to log successful email: " + e.getMessage());
-        }
-    }
-
-    private void logFailedEmail(int userId, List<String> recipients, String subject, String errorMessage, Integer documentId) {
-        try {
-            for (String recipient : recipients) {
-                EmailLog log = new EmailLog(
-                        userId,
-                        recipient,
-                        subject,
-                        "FAILED",
-                        errorMessage,
-                        LocalDateTime.now(),
-                        documentId
-                );
-                emailLogDAO.logEmail(log);
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to log failed email: " + e.getMessage());
+            ));
         }
+        EmailLogWriter.write(logs);
     }
 
     // ==================== TEST EMAIL METHOD ====================
 
+    /**
+     * Test email se šalje odmah (ne ide kroz red) da bi korisnik dobio povratnu informaciju o App Password-u.
+     * Blokirajući - poziva se iz pozadinskog thread-a, preko zasebne SMTP konekcije (SmtpTransportPool.sendOnce).
+     */
     public boolean sendTestEmail() {
         AppUser currentUser = UserSession.getUser();
         if (currentUser == null) return false;
@@ -630,6 +607,25 @@ public class EmailService {
                 <p><i>Ova poruka je automatski generisana.</i></p>
                 """;
 
-        return sendEmail(currentUser.getEmail(), subject, body, null);
+        List<String> recipients = List.of(currentUser.getEmail());
+        String encryptedAppPassword = currentUser.getAppPassword();
+
+        if (encryptedAppPassword == null || encryptedAppPassword.isEmpty()) {
+            logFailedEmail(currentUser.getId(), recipients, subject, "App Password not configured", null);
+            return false;
+        }
+
+        try {
+            MimeMessage message = buildMessage(SmtpTransportPool.newSession(), currentUser.getEmail(), recipients, subject, body, null, null);
+            SmtpTransportPool.sendOnce(currentUser.getEmail(), encryptedAppPassword, message);
+
+            logSuccessfulEmail(currentUser.getId(), currentUser.getEmail(), subject, null);
+            return true;
+
+        } catch (Exception e) {
+            System.err.println("[EmailService] ✗ Failed to send test email: " + e.getMessage());
+            logFailedEmail(currentUser.getId(), recipients, subject, e.getMessage(), null);
+            return false;
+        }
     }
 }
@@ -0,0 +1,155 @@
+package email;
+
+import utils.AESEncryption;
+
+import javax.mail.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Drži otvorenu, autentifikovanu SMTP konekciju po pošiljaocu i koristi je za više poruka,
+ * umjesto novog TLS handshake-a i login-a za svaki email.
+ *
+ * SMTP server se podešava system property-ima (npr. za lokalni SMTP stub pri testiranju):
+ *   ediploma.smtp.host (default smtp.gmail.com), ediploma.smtp.port (587),
+ *   ediploma.smtp.auth (true), ediploma.smtp.starttls (true)
+ */
+final class SmtpTransportPool {
+
+    private static final String HOST = System.getProperty("ediploma.smtp.host", "smtp.gmail.com");
+    private static final int PORT = Integer.getInteger("ediploma.smtp.port", 587);
+    private static final boolean AUTH = Boolean.parseBoolean(System.getProperty("ediploma.smtp.auth", "true"));
+    private static final boolean STARTTLS = Boolean.parseBoolean(System.getProperty("ediploma.smtp.starttls", "true"));
+
+    private static final Map<Integer, PooledTransport> TRANSPORTS = new HashMap<>();
+
+    private SmtpTransportPool() {}
+
+    /**
+     * Session za pošiljaoca (keširana dok se ne promijeni App Password)
+     */
+    static synchronized Session session(int senderId, String senderEmail, String encryptedAppPassword) {
+        return pooled(senderId, senderEmail, encryptedAppPassword).session;
+    }
+
+    /**
+     * Šalje poruku preko otvorene konekcije pošiljaoca (otvara je ako treba).
+     * Ako slanje ne uspije, konekcija se zatvara da bi se sljedeći put otvorila ponovo.
+     */
+    static synchronized void send(int senderId, String senderEmail, String encryptedAppPassword, Message message)
+            throws MessagingException {
+        PooledTransport pooled = pooled(senderId, senderEmail, encryptedAppPassword);
+
+        try {
+            if (!pooled.transport.isConnected()) {
+                if (AUTH) {
+                    pooled.transport.connect(HOST, PORT, senderEmail, pooled.appPassword);
+                } else {
+                    pooled.transport.connect();
+                }
+            }
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+            pooled.lastUsed = System.currentTimeMillis();
+
+        } catch (MessagingException e) {
+            closeQuietly(pooled.transport);
+            TRANSPORTS.remove(senderId);
+            throw e;
+        }
+    }
+
+    /**
+     * Zatvara konekcije koje nisu korištene duže od maxIdleMillis (server ih ionako gasi)
+     */
+    static synchronized void closeIdle(long maxIdleMillis) {
+        long now = System.currentTimeMillis();
+        for (PooledTransport pooled : TRANSPORTS.values()) {
+            if (now - pooled.lastUsed > maxIdleMillis && pooled.transport.isConnected()) {
+                closeQuietly(pooled.transport);
+            }
+        }
+    }
+
+    /**
+     * Šalje poruku preko zasebne konekcije koja se odmah zatvara (test App Password-a iz podešavanja).
+     * Ne čeka dok worker šalje red, a greška ne zatvara konekciju pošiljaoca u pool-u.
+     */
+    static void sendOnce(String senderEmail, String encryptedAppPassword, Message message) throws MessagingException {
+        Transport transport = message.getSession().getTransport("smtp");
+        try {
+            if (AUTH) {
+                transport.connect(HOST, PORT, senderEmail, AESEncryption.decrypt(encryptedAppPassword));
+            } else {
+                transport.connect();
+            }
+            transport.sendMessage(message, message.getAllRecipients());
+        } finally {
+            closeQuietly(transport);
+        }
+    }
+
+    static Session newSession() {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", HOST);
+        props.put("mail.smtp.port", String.valueOf(PORT));
+        props.put("mail.smtp.auth", String.valueOf(AUTH));
+        props.put("mail.smtp.starttls.enable", String.valueOf(STARTTLS));
+        if (STARTTLS) {
+            props.put("mail.smtp.ssl.protocols", "TLSv1.2");
+            props.put("mail.smtp.ssl.trust", HOST);
+        }
+        return Session.getInstance(props);
+    }
+
+    static synchronized void closeAll() {
+        TRANSPORTS.values().forEach(pooled -> closeQuietly(pooled.transport));
+        TRANSPORTS.clear();
+    }
+
+    private static PooledTransport pooled(int senderId, String senderEmail, String encryptedAppPassword) {
+        PooledTransport pooled = TRANSPORTS.get(senderId);
+        if (pooled != null
+                && Objects.equals(pooled.senderEmail, senderEmail)
+                && Objects.equals(pooled.encryptedAppPassword, encryptedAppPassword)) {
+            return pooled;
+        }
+
+        if (pooled != null) {
+            closeQuietly(pooled.transport);
+        }
+
+        try {
+            pooled = new PooledTransport(senderEmail, encryptedAppPassword);
+        } catch (NoSuchProviderException e) {
+            throw new RuntimeException("SMTP transport nije dostupan.", e);
+        }
+        TRANSPORTS.put(senderId, pooled);
+        return pooled;
+    }
+
+    private static void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+        }
+    }
+
+    private static final class PooledTransport {
+        private final String senderEmail;
+        private final String encryptedAppPassword;
+        private final String appPassword;
+        private final Session session;
+        private final Transport transport;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledTransport(String senderEmail, String encryptedAppPassword) throws NoSuchProviderException {
+            this.senderEmail = senderEmail;
+            this.encryptedAppPassword = encryptedAppPassword;
+            this.appPassword = AUTH ? AESEncryption.decrypt(encryptedAppPassword) : null;
+            this.session = newSession();
+            this.transport = session.getTransport("smtp");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Email koji čeka slanje u EmailOutbox tabeli
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutboxMessage {
+    private int id;
+    private int sentBy;  // AppUser.Id
+    private String senderEmail;
+    private List<String> recipients;
+    private String subject;
+    private String body;  // HTML
+    private Integer documentId;  // opciono - PDF dokumenta kao attachment
+    private String attachmentName;
+    private EmailOutboxStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
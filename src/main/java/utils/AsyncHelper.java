@@ -1,5 +1,7 @@
 package utils;
 
+import dao.CloudDatabaseConnection;
+import dao.ReferenceDataCache;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.scene.control.ProgressIndicator;
@@ -7,33 +9,34 @@ import javafx.scene.control.ProgressIndicator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
+/**
+ * Pozadinski zadaci za kontrolere.
+ *
+ * Svaki zadatak dobija svoj virtual thread, a istovremeno ih na bazi može raditi najviše
+ * koliko Hikari pool ima konekcija (db.pool.maxSize) umanjeno za rezervu pozadinskih radnika
+ * koji konekcije uzimaju bez dozvole - ostali čekaju na dozvolu umjesto da istječu na
+ * connectionTimeout u pool-u.
+ * Zadaci pokrenuti sa TaskScope-om ekrana se otkazuju kad se ekran napusti.
+ */
 public class AsyncHelper {
 
-    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+    // Virtual thread-ovi su uvijek daemon, pa ne sprječavaju gasenje aplikacije
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("AsyncHelper-", 1).factory());
 
-    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
-        Thread thread = new Thread(runnable);
-        thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
-        thread.setName("AsyncHelper-" + THREAD_COUNTER.incrementAndGet());
-        return thread;
-    });
-
-
-    public static <T> void executeAsync(
+    public static <T> Task<T> executeAsync(
+            TaskScope scope,
             Callable<T> task,
             Consumer<T> onSuccess,
             Consumer<Throwable> onError
     ) {
-        Task<T> javaFXTask = new Task<>() {
-            @Override
-            protected T call() throws Exception {
-                return task.call();
-            }
-        };
+        ScopedTask<T> javaFXTask = new ScopedTask<>(task, true);
 
         javaFXTask.setOnSucceeded(event -> {
             if (onSuccess != null) {
@@ -47,31 +50,62 @@ public class AsyncHelper {
             }
         });
 
-        EXECUTOR.submit(javaFXTask);
+        return submit(scope, javaFXTask);
+    }
+
+    public static <T> Task<T> executeAsync(
+            Callable<T> task,
+            Consumer<T> onSuccess,
+            Consumer<Throwable> onError
+    ) {
+        return executeAsync(null, task, onSuccess, onError);
     }
 
-    public static <T> void executeAsync(
+    public static <T> Task<T> executeAsync(
             Callable<T> task,
             Consumer<T> onSuccess
     ) {
-        executeAsync(task, onSuccess, throwable -> {
+        return executeAsync(task, onSuccess, throwable -> {
             System.err.println("Error in async task: " + throwable.getMessage());
             throwable.printStackTrace();
         });
     }
 
-    public static <T> void executeAsyncWithLoader(
+    /**
+     * Za posao bez baze (npr. filtriranje liste u memoriji): ne čeka na dozvolu za bazu,
+     * a otkazivanje prekida i zadatak koji već radi
+     */
+    public static <T> Task<T> executeAsyncInMemory(
+            TaskScope scope,
+            Callable<T> task,
+            Consumer<T> onSuccess,
+            Consumer<Throwable> onError
+    ) {
+        ScopedTask<T> javaFXTask = new ScopedTask<>(task, false);
+
+        javaFXTask.setOnSucceeded(event -> {
+            if (onSuccess != null) {
+                onSuccess.accept(javaFXTask.getValue());
+            }
+        });
+
+        javaFXTask.setOnFailed(event -> {
+            if (onError != null) {
+                onError.accept(javaFXTask.getException());
+            }
+        });
+
+        return submit(scope, javaFXTask);
+    }
+
+    public static <T> Task<T> executeAsyncWithLoader(
+            TaskScope scope,
             Callable<T> task,
             Consumer<T> onSuccess,
             Consumer<Throwable> onError,
             ProgressIndicator loader
     ) {
-        Task<T> javaFXTask = new Task<>() {
-            @Override
-            protected T call() throws Exception {
-                return task.call();
-            }
-        };
+        ScopedTask<T> javaFXTask = new ScopedTask<>(task, true);
 
         if (loader != null) {
             Platform.runLater(() -> loader.visibleProperty().bind(javaFXTask.runningProperty()));
@@ -89,22 +123,29 @@ public class AsyncHelper {
             }
         });
 
-        EXECUTOR.submit(javaFXTask);
+        return submit(scope, javaFXTask);
+    }
+
+    public static <T> Task<T> executeAsyncWithLoader(
+            Callable<T> task,
+            Consumer<T> onSuccess,
+            Consumer<Throwable> onError,
+            ProgressIndicator loader
+    ) {
+        return executeAsyncWithLoader(null, task, onSuccess, onError, loader);
     }
 
 
-    public static void executeAsyncVoid(
+    public static Task<Void> executeAsyncVoid(
+            TaskScope scope,
             Runnable task,
             Runnable onSuccess,
             Consumer<Throwable> onError
     ) {
-        Task<Void> javaFXTask = new Task<>() {
-            @Override
-            protected Void call() {
-                task.run();
-                return null;
-            }
-        };
+        ScopedTask<Void> javaFXTask = new ScopedTask<>(() -> {
+            task.run();
+            return null;
+        }, true);
 
         javaFXTask.setOnSucceeded(event -> {
             if (onSuccess != null) {
@@ -118,10 +159,79 @@ public class AsyncHelper {
             }
         });
 
-        EXECUTOR.submit(javaFXTask);
+        return submit(scope, javaFXTask);
+    }
+
+    public static Task<Void> executeAsyncVoid(
+            Runnable task,
+            Runnable onSuccess,
+            Consumer<Throwable> onError
+    ) {
+        return executeAsyncVoid(null, task, onSuccess, onError);
+    }
+
+    /**
+     * Dugi zadatak koji javlja napredak (npr. grupno generisanje dokumenata):
+     * progressProperty i messageProperty vraćenog Task-a se vežu za dijalog napretka.
+     * Zadatak ne drži DB dozvolu cijelo vrijeme - dijelove koji koriste bazu sam obuhvata
+     * sa withDbPermit, a otkazivanje provjerava preko Progress.isCancelled.
+     */
+    public static <T> Task<T> executeAsyncWithProgress(
+            TaskScope scope,
+            ProgressCallable<T> task,
+            Consumer<T> onSuccess,
+            Consumer<Throwable> onError
+    ) {
+        ScopedTask<T> javaFXTask = new ScopedTask<>(task);
+
+        javaFXTask.setOnSucceeded(event -> {
+            if (onSuccess != null) {
+                onSuccess.accept(javaFXTask.getValue());
+            }
+        });
+
+        javaFXTask.setOnFailed(event -> {
+            if (onError != null) {
+                onError.accept(javaFXTask.getException());
+            }
+        });
+
+        return submit(scope, javaFXTask);
+    }
+
+    @FunctionalInterface
+    public interface ProgressCallable<T> {
+        T call(Progress progress) throws Exception;
     }
 
-    public static <T> void executeAsyncWithDisable(
+    public interface Progress {
+        void update(long done, long total, String message);
+
+        boolean isCancelled();
+    }
+
+    /**
+     * Izvršava dio dugog zadatka (executeAsyncWithProgress) koji koristi bazu, uz DB dozvolu
+     * samo dok on traje
+     */
+    public static <T> T withDbPermit(Supplier<T> work) {
+        Semaphore permits = DbPermits.SEMAPHORE;
+        permits.acquireUninterruptibly();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public static void withDbPermit(Runnable work) {
+        withDbPermit(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> Task<T> executeAsyncWithDisable(
             Callable<T> task,
             Consumer<T> onSuccess,
             Consumer<Throwable> onError,
@@ -138,12 +248,7 @@ public class AsyncHelper {
             }
         });
 
-        Task<T> javaFXTask = new Task<>() {
-            @Override
-            protected T call() throws Exception {
-                return task.call();
-            }
-        };
+        ScopedTask<T> javaFXTask = new ScopedTask<>(task, true);
 
         javaFXTask.setOnSucceeded(event -> {
             // Re-enable svih elemenata nakon uspjeha
@@ -173,9 +278,120 @@ public class AsyncHelper {
             }
         });
 
-        EXECUTOR.submit(javaFXTask);
+        return submit(null, javaFXTask);
     }
+
+    /**
+     * Otkazuje zadatak koji je zamijenio noviji (npr. nova pretraga); vidi ScopedTask.cancelFromScope
+     */
+    public static void cancel(Task<?> task) {
+        if (task instanceof ScopedTask<?> scoped) {
+            scoped.cancelFromScope();
+        } else {
+            task.cancel();
+        }
+    }
+
     public static void shutdown() {
         EXECUTOR.shutdown();
     }
+
+    private static <T> Task<T> submit(TaskScope scope, ScopedTask<T> task) {
+        task.scope = scope;
+        if (scope != null) {
+            scope.add(task);
+        }
+        EXECUTOR.submit(task);
+        return task;
+    }
+
+    // Lazy: pool se inicijalizuje tek kad prvi zadatak krene (StartupPipeline ga ionako zagrije ranije)
+    private static final class DbPermits {
+        // Konekcije van dozvola: šifarnici (ReferenceDataCache, i iz StartupPipeline-a) te
+        // EmailOutboxWorker, EmailLogWriter i ThesisLockSweeper sa po jednom konekcijom
+        private static final int BACKGROUND_RESERVE = ReferenceDataCache.MAX_PARALLEL_LOADS + 3;
+
+        private static final Semaphore SEMAPHORE = new Semaphore(permits(), true);
+
+        private static int permits() {
+            try {
+                return Math.max(1, CloudDatabaseConnection.getMaxPoolSize() - BACKGROUND_RESERVE);
+            } catch (ExceptionInInitializerError | NoClassDefFoundError e) {
+                // Baza nije dostupna - zadaci koji je koriste će sami prijaviti grešku
+                return 10;
+            }
+        }
+    }
+
+    /**
+     * JavaFX Task koji prije rada uzima dozvolu za bazu i može se otkazati iz TaskScope-a
+     */
+    static final class ScopedTask<T> extends Task<T> implements Progress {
+        private static final int WAITING = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final Callable<T> callable;
+        private final boolean usesDatabase;
+        // false: zadatak sam uzima dozvolu za dijelove koji koriste bazu (withDbPermit)
+        private final boolean holdsPermit;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile TaskScope scope;
+
+        private ScopedTask(Callable<T> callable, boolean usesDatabase) {
+            this.callable = callable;
+            this.usesDatabase = usesDatabase;
+            this.holdsPermit = usesDatabase;
+        }
+
+        private ScopedTask(ProgressCallable<T> callable) {
+            this.callable = () -> callable.call(this);
+            this.usesDatabase = true;
+            this.holdsPermit = false;
+        }
+
+        @Override
+        public void update(long done, long total, String message) {
+            updateProgress(done, total);
+            updateMessage(message);
+        }
+
+        @Override
+        protected T call() throws Exception {
+            if (!holdsPermit) {
+                return state.compareAndSet(WAITING, RUNNING) ? callable.call() : null;
+            }
+
+            Semaphore permits = DbPermits.SEMAPHORE;
+            permits.acquire();
+            try {
+                if (!state.compareAndSet(WAITING, RUNNING)) {
+                    return null; // otkazan dok je čekao na dozvolu
+                }
+                return callable.call();
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            super.done();
+            TaskScope owner = scope;
+            if (owner != null) {
+                owner.remove(this);
+            }
+        }
+
+        /**
+         * Zadatak koji još čeka se prekida. Onaj koji već radi se ne prekida usred upita
+         * (prekid bi zatvorio socket i Hikari bi bacio konekciju) - završi, ali se njegov
+         * rezultat odbacuje jer callback-ovi otkazanog Task-a se ne pozivaju.
+         * Zadatak bez baze se uvijek prekida.
+         */
+        void cancelFromScope() {
+            boolean waiting = state.compareAndSet(WAITING, CANCELLED);
+            cancel(waiting || !usesDatabase);
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package utils;
+
+import dao.CommissionDAO;
+import dao.DocumentDAO;
+import dao.ReferenceDataCache;
+import dao.ThesisDAO;
+import dto.BulkDocumentResultDTO;
+import dto.ThesisDetailsDTO;
+import model.AppUser;
+import model.Commission;
+import model.DocumentStatus;
+import model.DocumentType;
+import model.ThesisStatuses;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Grupno generisanje zapisnika za više radova jedne sesije komisije.
+ * Podaci se dohvataju sa nekoliko set-based upita, PDF-ovi se renderuju paralelno
+ * na pool-u PdfRenderService u prozorima od WRITE_BATCH_SIZE radova, a svaki prozor
+ * se snima jednim batch-em preko DocumentDAO.upsertBatch.
+ * Metod generate je blokirajući - poziva se iz pozadinskog thread-a; DB dozvolu
+ * (AsyncHelper.withDbPermit) drži samo dok čita ili snima, ne i dok se renderuje.
+ */
+public class BulkDocumentService {
+
+    public enum BulkDocumentType {
+        DEFENSE_REPORT("Zapisnik sa odbrane"),
+        WRITTEN_EXAM_REPORT("Zapisnik o pismenom dijelu diplomskog rada");
+
+        private final String documentTypeName;
+
+        BulkDocumentType(String documentTypeName) {
+            this.documentTypeName = documentTypeName;
+        }
+
+        public String getDocumentTypeName() {
+            return documentTypeName;
+        }
+
+        @Override
+        public String toString() {
+            return documentTypeName;
+        }
+    }
+
+    // Veličina prozora: najviše toliko PDF-ova se renderuje i drži u memoriji prije batch upisa
+    private static final int WRITE_BATCH_SIZE = 10;
+
+    private static final String APPROVAL_DOC_TYPE = "Rješenje o izradi završnog rada";
+
+    private final ThesisDAO thesisDAO = new ThesisDAO();
+    private final CommissionDAO commissionDAO = new CommissionDAO();
+    private final DocumentDAO documentDAO = new DocumentDAO();
+
+    /**
+     * @param onProgress (obrađeno, ukupno) - poziva se iz pozadinskog thread-a
+     * @param cancelled provjerava se prije svakog prozora; već snimljeni radovi se ipak ažuriraju,
+     *                  a neobrađeni se vraćaju kao neuspjeli
+     */
+    public BulkDocumentResultDTO generate(Collection<Integer> thesisIds, BulkDocumentType type, LocalDate reportDate,
+                                          BiConsumer<Integer, Integer> onProgress, BooleanSupplier cancelled) {
+        BulkDocumentResultDTO result = new BulkDocumentResultDTO();
+        List<Integer> ids = List.copyOf(new LinkedHashSet<>(thesisIds));
+        if (ids.isEmpty()) return result;
+
+        DocumentType docType = ReferenceDataCache.documentType(type.getDocumentTypeName());
+        if (docType == null) {
+            throw new RuntimeException("DocumentType '" + type.getDocumentTypeName() + "' nije pronađen.");
+        }
+
+        // Set-based dohvat svih podataka potrebnih za šablone
+        Map<Integer, ThesisDetailsDTO> detailsById = AsyncHelper.withDbPermit(() -> thesisDAO.getThesisDetailsByIds(ids));
+        Map<Integer, Commission> commissionsById = AsyncHelper.withDbPermit(() -> commissionDAO.getCommissionsByThesisIds(ids));
+        Map<Integer, String> approvalNumbers = Map.of();
+        if (type == BulkDocumentType.WRITTEN_EXAM_REPORT) {
+            DocumentType approvalType = ReferenceDataCache.documentType(APPROVAL_DOC_TYPE);
+            if (approvalType != null) {
+                approvalNumbers = AsyncHelper.withDbPermit(() -> documentDAO.getDocumentNumbers(ids, approvalType.getId()));
+            }
+        }
+
+        Integer userId = null;
+        AppUser u = UserSession.getUser();
+        if (u != null) userId = u.getId();
+
+        int total = ids.size();
+        int done = 0;
+
+        for (int from = 0; from < total; from += WRITE_BATCH_SIZE) {
+            List<Integer> window = ids.subList(from, Math.min(from + WRITE_BATCH_SIZE, total));
+            if (cancelled.getAsBoolean()) {
+                for (Integer thesisId : ids.subList(from, total)) {
+                    result.getFailures().put(thesisId, "Generisanje je prekinuto.");
+                }
+                break;
+            }
+
+            // HTML se sastavlja odmah, a renderovanje prozora ide paralelno na ograničenom pool-u
+            Map<Integer, CompletableFuture<byte[]>> renders = new LinkedHashMap<>();
+            for (Integer thesisId : window) {
+                ThesisDetailsDTO details = detailsById.get(thesisId);
+                Commission commission = commissionsById.get(thesisId);
+
+                if (details == null) {
+                    result.getFailures().put(thesisId, "Završni rad nije pronađen.");
+                } else if (commission == null || commission.getMember1() == null) {
+                    result.getFailures().put(thesisId, "Komisija nije formirana za ovaj rad.");
+                } else {
+                    try {
+                        String html = type == BulkDocumentType.DEFENSE_REPORT
+                                ? ReportHtmlBuilder.defenseReport(details, commission, reportDate)
+                                : ReportHtmlBuilder.writtenExamReport(details, commission,
+                                        approvalNumbers.getOrDefault(thesisId, ""), reportDate);
+                        renders.put(thesisId, PdfRenderService.renderAsync(html));
+                        continue;
+                    } catch (RuntimeException e) {
+                        result.getFailures().put(thesisId, "Greška pri pripremi dokumenta: " + e.getMessage());
+                    }
+                }
+                reportProgress(onProgress, ++done, total);
+            }
+
+            Map<Integer, byte[]> pending = new LinkedHashMap<>();
+            for (Map.Entry<Integer, CompletableFuture<byte[]>> entry : renders.entrySet()) {
+                try {
+                    pending.put(entry.getKey(), entry.getValue().join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    result.getFailures().put(entry.getKey(), cause.getMessage());
+                }
+                reportProgress(onProgress, ++done, total);
+            }
+            flush(pending, docType, userId, result);
+        }
+
+        AsyncHelper.withDbPermit(() -> updateThesesAfterSave(type, result, reportDate));
+
+        System.out.println("[BulkDocumentService] " + type + ": " + result.getSucceededThesisIds().size()
+                + " saved, " + result.getFailures().size() + " failed.");
+        return result;
+    }
+
+    private void flush(Map<Integer, byte[]> pending, DocumentType docType, Integer userId, BulkDocumentResultDTO result) {
+        if (pending.isEmpty()) return;
+        try {
+            AsyncHelper.withDbPermit(() -> documentDAO.upsertBatch(docType.getId(), pending, userId, DocumentStatus.READY));
+            result.getSucceededThesisIds().addAll(pending.keySet());
+        } catch (RuntimeException e) {
+            // Batch je u jednoj transakciji - ili su snimljeni svi ili nijedan
+            for (Integer thesisId : pending.keySet()) {
+                result.getFailures().put(thesisId, e.getMessage());
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Datum zapisnika i status rada se ažuriraju samo za uspješno snimljene dokumente,
+     * isto kao na pojedinačnim ekranima.
+     */
+    private void updateThesesAfterSave(BulkDocumentType type, BulkDocumentResultDTO result, LocalDate reportDate) {
+        if (result.getSucceededThesisIds().isEmpty()) return;
+
+        if (type == BulkDocumentType.DEFENSE_REPORT) {
+            thesisDAO.updateDefenseReportDates(result.getSucceededThesisIds(), reportDate);
+
+            DocumentType writtenType = ReferenceDataCache.documentType(BulkDocumentType.WRITTEN_EXAM_REPORT.getDocumentTypeName());
+            if (writtenType == null) {
+                throw new RuntimeException("DocumentType 'Zapisnik o pismenom dijelu diplomskog rada' nije pronađen.");
+            }
+
+            Set<Integer> writtenReady = documentDAO.getReadyThesisIds(result.getSucceededThesisIds(), writtenType.getId());
+            thesisDAO.updateStatusByName(writtenReady, ThesisStatuses.GENERISANJE_ZAPISNIKA, ThesisStatuses.KREIRANJE_UVJERENJA);
+        } else {
+            thesisDAO.updateWrittenReportDates(result.getSucceededThesisIds(), reportDate);
+        }
+    }
+
+    private static void reportProgress(BiConsumer<Integer, Integer> onProgress, int done, int total) {
+        if (onProgress != null) onProgress.accept(done, total);
+    }
+}
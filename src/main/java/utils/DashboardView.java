@@ -5,5 +5,6 @@ public enum DashboardView {
     MENTORS,
     THESIS,
     SECRETARIES,
-    STATISTICS
+    STATISTICS,
+    DIAGNOSTICS
 }
@@ -0,0 +1,153 @@
+package utils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTML šablon sa {{placeholder}} poljima koji se parsira samo jednom u listu segmenata.
+ * Popunjavanje je jedan prolaz kroz segmente u StringBuilder, a sve vrijednosti
+ * se automatski escape-uju (osim onih dodanih preko {@link Values#putRaw}).
+ */
+public final class HtmlTemplate {
+
+    private static final Map<String, HtmlTemplate> CACHE = new ConcurrentHashMap<>();
+
+    // literals[i] ide prije names[i]; posljednji literal ide nakon zadnjeg polja
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private HtmlTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    /**
+     * Vraća kompajlirani šablon iz /templates/ (čita se i parsira samo prvi put)
+     */
+    public static HtmlTemplate load(String fileName) {
+        return CACHE.computeIfAbsent(fileName, name -> {
+            try (InputStream is = HtmlTemplate.class.getResourceAsStream("/templates/" + name)) {
+                if (is == null) {
+                    throw new FileNotFoundException("Template file not found: " + name);
+                }
+                return compile(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static HtmlTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) break;
+
+            literals.add(source.substring(pos, open));
+            names.add(source.substring(open + 2, close).trim());
+            pos = close + 2;
+        }
+        literals.add(source.substring(pos));
+
+        return new HtmlTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    public static Values values() {
+        return new Values();
+    }
+
+    public String render(Values values) {
+        StringBuilder sb = new StringBuilder(literalLength + names.length * 32);
+
+        for (int i = 0; i < names.length; i++) {
+            sb.append(literals[i]);
+
+            String name = names[i];
+            Object value = values.map.get(name);
+            if (value instanceof RawHtml raw) {
+                sb.append(raw.html);
+            } else if (value != null) {
+                escapeTo(sb, value.toString());
+            } else if (!values.map.containsKey(name)) {
+                // Nepoznato polje ostaje vidljivo u dokumentu, kao i ranije
+                sb.append("{{").append(name).append("}}");
+            }
+        }
+        sb.append(literals[literals.length - 1]);
+
+        return sb.toString();
+    }
+
+    public static String escape(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        escapeTo(sb, text);
+        return sb.toString();
+    }
+
+    private static void escapeTo(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&apos;");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private record RawHtml(String html) {}
+
+    /**
+     * Vrijednosti za popunjavanje šablona
+     */
+    public static final class Values {
+
+        private final Map<String, Object> map = new HashMap<>();
+
+        private Values() {}
+
+        public Values put(String name, Object value) {
+            map.put(name, value);
+            return this;
+        }
+
+        /**
+         * Vrijednost koja je već HTML i ne smije se escape-ovati
+         */
+        public Values putRaw(String name, String html) {
+            map.put(name, html != null ? new RawHtml(html) : null);
+            return this;
+        }
+
+        /**
+         * Rasporedi tekst po karakterima u polja prefix0..prefix(count-1) (kućice za broj dokumenta)
+         */
+        public Values putChars(String prefix, String text, int count) {
+            for (int i = 0; i < count; i++) {
+                map.put(prefix + i, i < text.length() ? String.valueOf(text.charAt(i)) : "");
+            }
+            return this;
+        }
+    }
+}
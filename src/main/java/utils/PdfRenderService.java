@@ -0,0 +1,134 @@
+package utils;
+
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zajednički servis za generisanje PDF dokumenata iz HTML šablona.
+ * Fontovi se učitavaju iz resources samo jednom i drže u memoriji (šablone kešira HtmlTemplate),
+ * a renderovanje se izvršava na ograničenom pool-u thread-ova.
+ */
+public final class PdfRenderService {
+
+    private static final String FONT_FAMILY = "Times New Roman";
+    private static final int POOL_SIZE = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(POOL_SIZE, runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
+        thread.setName("PdfRender-" + THREAD_COUNTER.incrementAndGet());
+        return thread;
+    });
+
+    private static final Map<String, byte[]> FONT_CACHE = new ConcurrentHashMap<>();
+
+    private static final String BASE_URL = PdfRenderService.class.getResource("/templates/").toExternalForm();
+
+    // Metrike renderovanja
+    private static final AtomicLong RENDER_COUNT = new AtomicLong();
+    private static final AtomicLong FAILURE_COUNT = new AtomicLong();
+    private static final AtomicLong TOTAL_RENDER_NANOS = new AtomicLong();
+    private static final AtomicLong MAX_RENDER_NANOS = new AtomicLong();
+
+    private PdfRenderService() {}
+
+    /**
+     * Renderuje HTML u PDF na pool-u za renderovanje
+     */
+    public static CompletableFuture<byte[]> renderAsync(String html) {
+        return CompletableFuture.supplyAsync(() -> renderNow(html), EXECUTOR);
+    }
+
+    /**
+     * Renderuje HTML u PDF i čeka rezultat. Ne pozivati sa FX thread-a.
+     */
+    public static byte[] render(String html) {
+        try {
+            return renderAsync(html).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new RuntimeException("Greška pri generisanju PDF-a: " + cause.getMessage(), cause);
+        }
+    }
+
+    public static long getRenderCount() {
+        return RENDER_COUNT.get();
+    }
+
+    public static long getFailureCount() {
+        return FAILURE_COUNT.get();
+    }
+
+    public static double getAverageRenderMillis() {
+        long count = RENDER_COUNT.get();
+        return count == 0 ? 0 : TOTAL_RENDER_NANOS.get() / 1_000_000.0 / count;
+    }
+
+    public static double getMaxRenderMillis() {
+        return MAX_RENDER_NANOS.get() / 1_000_000.0;
+    }
+
+    private static byte[] renderNow(String html) {
+        long start = System.nanoTime();
+
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+
+            useFont(builder, "LiberationSerif-Regular.ttf", 400, BaseRendererBuilder.FontStyle.NORMAL);
+            useFont(builder, "LiberationSerif-Bold.ttf", 700, BaseRendererBuilder.FontStyle.NORMAL);
+            useFont(builder, "LiberationSerif-Italic.ttf", 400, BaseRendererBuilder.FontStyle.ITALIC);
+            useFont(builder, "LiberationSerif-BoldItalic.ttf", 700, BaseRendererBuilder.FontStyle.ITALIC);
+
+            builder.withHtmlContent(html, BASE_URL);
+            builder.toStream(baos);
+            builder.run();
+
+            byte[] pdf = baos.toByteArray();
+
+            long elapsed = System.nanoTime() - start;
+            RENDER_COUNT.incrementAndGet();
+            TOTAL_RENDER_NANOS.addAndGet(elapsed);
+            MAX_RENDER_NANOS.accumulateAndGet(elapsed, Math::max);
+            System.out.println("[PdfRenderService] Rendered " + pdf.length + " bytes in " + (elapsed / 1_000_000) + " ms.");
+
+            return pdf;
+
+        } catch (Exception e) {
+            FAILURE_COUNT.incrementAndGet();
+            throw new RuntimeException("Greška pri generisanju PDF-a: " + e.getMessage(), e);
+        }
+    }
+
+    private static void useFont(PdfRendererBuilder builder, String fileName, int weight, BaseRendererBuilder.FontStyle style) {
+        byte[] fontData = FONT_CACHE.computeIfAbsent(fileName, name -> {
+            try (InputStream is = PdfRenderService.class.getResourceAsStream("/fonts/" + name)) {
+                if (is == null) {
+                    throw new FileNotFoundException("Font file not found in resources: " + name);
+                }
+                return is.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        builder.useFont(() -> new ByteArrayInputStream(fontData), FONT_FAMILY, weight, style, true);
+    }
+}
@@ -0,0 +1,10 @@
+package utils;
+
+/**
+ * Kontroler view-a koji se kešira (SceneManager.showCached, DashboardController).
+ * onShow se poziva svaki put kad se već učitan view ponovo prikaže i treba da
+ * osvježi samo ono što se u međuvremenu moglo promijeniti.
+ */
+public interface RefreshableView {
+    void onShow();
+}
@@ -0,0 +1,133 @@
+package utils;
+
+import dto.DefenseReportDTO;
+import dto.ThesisDetailsDTO;
+import dto.WrittenExamReportDTO;
+import model.AcademicStaff;
+import model.Commission;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Sastavlja HTML zapisnika sa odbrane i zapisnika o pismenom dijelu.
+ * Koriste ga i ekrani pojedinačnih dokumenata i grupno generisanje (BulkDocumentService).
+ */
+public final class ReportHtmlBuilder {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy.");
+
+    private ReportHtmlBuilder() {}
+
+    public static String defenseReport(ThesisDetailsDTO thesisDetails, Commission commission, LocalDate defenseReportDate) {
+        LocalDate defenseDate = thesisDetails.getDefenseDate();
+
+        String[] titleParts = splitThesisTitle(thesisDetails.getTitle(), 40, 20);
+
+        DefenseReportDTO dto = DefenseReportDTO.builder()
+                .studentFullName(thesisDetails.getStudent().getLastName() + " " +
+                        thesisDetails.getStudent().getFirstName())
+                .thesisTitle(thesisDetails.getTitle())
+                .thesisTitleLine1(titleParts[0])
+                .thesisTitleLine2(titleParts[1])
+                .mentorFullName(formatMemberName(thesisDetails.getMentor()))
+                .defenseDate(defenseDate)
+                .defenseReportDate(defenseReportDate)
+                .chairmanFullName(formatMemberName(commission.getMember1()))
+                .member1FullName(formatMemberName(commission.getMember2()))
+                .member2FullName(formatMemberName(thesisDetails.getMentor()))
+                .secretaryFullName(formatMemberName(thesisDetails.getSecretary()))
+                .build();
+
+        return HtmlTemplate.load("defense_report_template.html").render(HtmlTemplate.values()
+                .put("studentFullName", dto.getStudentFullName())
+                .put("thesisTitleLine1", dto.getThesisTitleLine1())
+                .put("thesisTitleLine2", dto.getThesisTitleLine2())
+                .put("mentorFullName", dto.getMentorFullName())
+                .put("defenseReportDate", dto.getDefenseReportDate() != null ?
+                        dto.getDefenseReportDate().format(DATE_FORMAT) : "—")
+                .put("chairmanFullName", dto.getChairmanFullName())
+                .put("member1FullName", dto.getMember1FullName())
+                .put("member2FullName", dto.getMember2FullName())
+                .put("secretaryFullName", dto.getSecretaryFullName())
+                .put("defenseDate", dto.getDefenseDate() != null ?
+                        dto.getDefenseDate().format(DATE_FORMAT) : "-"));
+    }
+
+    public static String writtenExamReport(ThesisDetailsDTO thesisDetails, Commission commission,
+                                           String approvalDecisionNumber, LocalDate writtenReportDate) {
+        LocalDate dateToShow = thesisDetails.getApprovalDate() != null ?
+                thesisDetails.getApprovalDate() :
+                thesisDetails.getApplicationDate();
+
+        String[] titleParts = splitThesisTitle(thesisDetails.getTitle(), 50, 25);
+        boolean useSmallFont = titleParts[1].length() > 70;
+
+        WrittenExamReportDTO dto = WrittenExamReportDTO.builder()
+                .studentFullName(thesisDetails.getStudent().getLastName() + " " +
+                        thesisDetails.getStudent().getFirstName())
+                .thesisTitle(thesisDetails.getTitle())
+                .thesisTitleLine1(titleParts[0])
+                .thesisTitleLine2(titleParts[1])
+                .mentorFullName(formatMemberName(thesisDetails.getMentor()))
+                .submissionDate(dateToShow)
+                .writtenReportDate(writtenReportDate)
+                .chairmanFullName(formatMemberName(commission.getMember1()))
+                .member1FullName(formatMemberName(commission.getMember2()))
+                .member2FullName(commission.getMember3() != null ?
+                        formatMemberName(commission.getMember3()) : "—")
+                .secretaryFullName(formatMemberName(thesisDetails.getSecretary()))
+                .facultyDecisionNumber(approvalDecisionNumber != null ? approvalDecisionNumber : "")
+                .build();
+
+        String line1Class = useSmallFont ? "thesis-line-1 thesis-line-1-small" : "thesis-line-1";
+        String line2Class = useSmallFont ? "thesis-line-2 thesis-line-2-small" : "thesis-line-2";
+
+        return HtmlTemplate.load("written_exam_report_template.html").render(HtmlTemplate.values()
+                .put("studentFullName", dto.getStudentFullName())
+                .put("thesisTitleLine1", dto.getThesisTitleLine1())
+                .put("thesisTitleLine2", dto.getThesisTitleLine2())
+                .put("thesisLine1Class", line1Class)
+                .put("thesisLine2Class", line2Class)
+                .put("mentorFullName", dto.getMentorFullName())
+                .put("writtenReportDate", dto.getWrittenReportDate() != null ?
+                        dto.getWrittenReportDate().format(DATE_FORMAT) : "—")
+                .put("chairmanFullName", dto.getChairmanFullName())
+                .put("member1FullName", dto.getMember1FullName())
+                .put("member2FullName", dto.getMember2FullName())
+                .put("secretaryFullName", dto.getSecretaryFullName())
+                .put("facultyDecisionNumber", dto.getFacultyDecisionNumber()));
+    }
+
+    public static String formatMemberName(AcademicStaff member) {
+        if (member == null) return "—";
+        String title = member.getTitle() != null ? member.getTitle() + " " : "";
+        return title + member.getFirstName() + " " + member.getLastName();
+    }
+
+    /**
+     * Dijeli naslov (velikim slovima, pod navodnicima) na dvije linije oko targetLength karaktera
+     */
+    private static String[] splitThesisTitle(String fullTitle, int targetLength, int minSplitIndex) {
+        if (fullTitle == null || fullTitle.isEmpty()) {
+            return new String[]{"\"\"", "\"\""};
+        }
+
+        String upperTitle = fullTitle.toUpperCase();
+
+        if (upperTitle.length() <= targetLength) {
+            return new String[]{"\"" + upperTitle + "\"", ""};
+        }
+
+        int splitIndex = upperTitle.lastIndexOf(' ', targetLength);
+
+        if (splitIndex < minSplitIndex) {
+            splitIndex = targetLength;
+        }
+
+        String firstPart = "\"" + upperTitle.substring(0, splitIndex).trim();
+        String secondPart = upperTitle.substring(splitIndex).trim() + "\"";
+
+        return new String[]{firstPart, secondPart};
+    }
+}
@@ -7,9 +7,29 @@ import javafx.scene.Scene;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class SceneManager {
     private static Stage primaryStage;
 
+    private static final Pattern CONTROLLER_ATTRIBUTE = Pattern.compile("fx:controller=\"([^\"]+)\"");
+
+    // Sadržaj FXML fajlova učitan unaprijed (preload), da prvi prikaz ne čita resurs iz JAR-a
+    private static final Map<String, byte[]> FXML_CACHE = new ConcurrentHashMap<>();
+
+    // Učitani view-ovi za showCached (samo FX thread)
+    private static final Map<String, CachedView> VIEW_CACHE = new HashMap<>();
+
+    private record CachedView(Parent root, Object controller) {}
+
     private SceneManager() {}
 
     // poziva se JEDNOM na startu aplikacije
@@ -29,14 +49,8 @@ public class SceneManager {
     public static void show(String fxmlPath, String title) {
         try {
             FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
-            Parent root = loader.load();
-            Scene scene = new Scene(root);
-            primaryStage.setScene(scene);
-            primaryStage.setTitle(title);
-            if (!primaryStage.isMaximized()) {
-                primaryStage.setMaximized(true);
-            }
-            primaryStage.show();
+            Parent root = load(loader, fxmlPath);
+            setRoot(root, title);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -50,21 +64,91 @@ public class SceneManager {
     ) {
         try {
             FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
-            Parent root = loader.load();
+            Parent root = load(loader, fxmlPath);
 
             T controller = loader.getController();
             controllerConsumer.accept(controller);
 
-            Scene scene = new Scene(root);
-            primaryStage.setScene(scene);
-            primaryStage.setTitle(title);
-            primaryStage.setMaximized(true);
-            primaryStage.show();
+            setRoot(root, title);
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-}
+    /**
+     * Kao show, ali se view (root + kontroler) učitava samo prvi put; svaki sljedeći prikaz
+     * vraća isti root i poziva onShow ako kontroler implementira RefreshableView.
+     * Koristi se za dashboard-e, na koje se aplikacija stalno vraća.
+     */
+    public static void showCached(String fxmlPath, String title) {
+        try {
+            CachedView view = VIEW_CACHE.get(fxmlPath);
+            if (view == null) {
+                FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
+                Parent root = load(loader, fxmlPath);
+                VIEW_CACHE.put(fxmlPath, new CachedView(root, loader.getController()));
+                setRoot(root, title);
+                return;
+            }
+
+            setRoot(view.root(), title);
+            if (view.controller() instanceof RefreshableView refreshable) {
+                refreshable.onShow();
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Keširani view-ovi pripadaju prijavljenom korisniku - brišu se pri odjavi
+     */
+    public static void clearViewCache() {
+        VIEW_CACHE.clear();
+    }
+
+    // Jedna Scene za cijeli život prozora, mijenja se samo root
+    private static void setRoot(Parent root, String title) {
+        Scene scene = primaryStage.getScene();
+        if (scene == null) {
+            primaryStage.setScene(new Scene(root));
+        } else {
+            scene.setRoot(root);
+        }
+        primaryStage.setTitle(title);
+        if (!primaryStage.isMaximized()) {
+            primaryStage.setMaximized(true);
+        }
+        primaryStage.show();
+    }
+
+    /**
+     * Učitava FXML fajlove u memoriju i klase njihovih kontrolera (bez kreiranja view-a),
+     * sigurno je pozvati iz pozadinskog thread-a
+     */
+    public static void preload(String... fxmlPaths) {
+        for (String fxmlPath : fxmlPaths) {
+            try (InputStream in = SceneManager.class.getResourceAsStream(fxmlPath)) {
+                if (in == null) continue;
+                byte[] content = in.readAllBytes();
+                FXML_CACHE.put(fxmlPath, content);
+
+                Matcher matcher = CONTROLLER_ATTRIBUTE.matcher(new String(content, StandardCharsets.UTF_8));
+                if (matcher.find()) {
+                    Class.forName(matcher.group(1), true, SceneManager.class.getClassLoader());
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                System.err.println("[SceneManager] Preload " + fxmlPath + " failed: " + e.getMessage());
+            }
+        }
+    }
 
+    private static Parent load(FXMLLoader loader, String fxmlPath) throws IOException {
+        byte[] cached = FXML_CACHE.get(fxmlPath);
+        if (cached == null) return loader.load();
+        // Location ostaje postavljen, pa relativni resursi (@styles.css) rade kao i ranije
+        return loader.load(new ByteArrayInputStream(cached));
+    }
+}
@@ -0,0 +1,125 @@
+package utils;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pretraga liste u memoriji za ekrane sa karticama (studenti, mentori, sekretari).
+ *
+ * Čeka da korisnik prestane kucati, pa traži u pozadini kroz TrigramIndex izgrađen jednom
+ * po učitanoj listi (bez dijakritika: "hodzic" nalazi "Hodžić"). Novi upit otkazuje stari,
+ * a rezultat se predaje ekranu jednom listom na FX thread-u.
+ */
+public final class SearchPipeline<T> {
+
+    private static final Duration DEBOUNCE = Duration.millis(200);
+    // Razdvaja polja u ključu, da se pogodak ne "preliva" iz jednog polja u drugo
+    private static final String FIELD_SEPARATOR = "\n";
+
+    private record Result<T>(TrigramIndex<T> index, List<T> matches) {}
+
+    private final TaskScope scope;
+    private final Function<T, String> keyOf;
+    private final Consumer<List<T>> onResults;
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+
+    private List<T> items = List.of();
+    private TrigramIndex<T> index; // null dok se indeks za nove stavke ne izgradi
+    private String query = "";
+    private Task<Result<T>> running;
+    private int generation;
+
+    /**
+     * @param field polje za pretragu; može biti null (tada se prikazuje cijela lista)
+     * @param keyOf tekst po kojem se red pretražuje, obično SearchPipeline.key(polja...)
+     * @param onResults prikaz rezultata, poziva se na FX thread-u
+     */
+    public SearchPipeline(TextField field, TaskScope scope, Function<T, String> keyOf, Consumer<List<T>> onResults) {
+        this.scope = scope;
+        this.keyOf = keyOf;
+        this.onResults = onResults;
+
+        if (field != null) {
+            debounce.setOnFinished(e -> {
+                String normalized = normalize(field.getText());
+                if (normalized.equals(query)) return; // npr. dodan samo razmak
+                query = normalized;
+                search();
+            });
+            field.textProperty().addListener((obs, oldVal, newVal) -> debounce.playFromStart());
+        }
+    }
+
+    /**
+     * Nova lista (nakon učitavanja); trenutni upit se odmah primjenjuje na nju
+     */
+    public void setItems(List<T> items) {
+        this.items = List.copyOf(items);
+        this.index = null;
+        search();
+    }
+
+    public static String normalize(String text) {
+        return TrigramIndex.fold(text);
+    }
+
+    private void search() {
+        int searchGeneration = ++generation;
+        if (running != null) {
+            AsyncHelper.cancel(running);
+            running = null;
+        }
+
+        if (query.isEmpty()) {
+            onResults.accept(items);
+            return;
+        }
+
+        List<T> itemsSnapshot = items;
+        TrigramIndex<T> indexSnapshot = index;
+        String term = query;
+
+        running = AsyncHelper.executeAsyncInMemory(
+                scope,
+                () -> filter(itemsSnapshot, indexSnapshot, term),
+                result -> {
+                    // Stari zadatak koji je završio baš prije otkazivanja ne smije pregaziti noviji rezultat
+                    if (searchGeneration != generation || result == null) return;
+                    running = null;
+                    if (itemsSnapshot == items) index = result.index();
+                    onResults.accept(result.matches());
+                },
+                error -> GlobalErrorHandler.error("Greška pri pretrazi.", error)
+        );
+    }
+
+    private Result<T> filter(List<T> items, TrigramIndex<T> index, String term) {
+        if (index == null) {
+            index = new TrigramIndex<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) return null; // stigao noviji upit
+                index.put(i, items.get(i), keyOf.apply(items.get(i)));
+            }
+        }
+        return new Result<>(index, index.search(term));
+    }
+
+    /**
+     * Spaja polja u ključ za pretragu, preskače prazna
+     */
+    public static String key(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (Object field : fields) {
+            if (field == null) continue;
+            if (sb.length() > 0) sb.append(FIELD_SEPARATOR);
+            sb.append(field);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package utils;
+
+import dao.CloudDatabaseConnection;
+import dao.ReferenceDataCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pokretanje aplikacije u pozadini, dok se login ekran prikazuje i korisnik kuca lozinku:
+ *  1. otvaranje Hikari pool-a (properties, TLS handshake prema cloud MySQL-u),
+ *  2. paralelno: šifarnici (ReferenceDataCache) nakon pool-a i FXML-ovi dashboard-a (SceneManager.preload).
+ *
+ * Bilježi trajanje faza od starta procesa (mark), pa se vidi time-to-login i time-to-dashboard
+ * (ispis u konzolu i na ekranu dijagnostike).
+ */
+public final class StartupPipeline {
+
+    public static final String LOGIN_SHOWN = "login-shown";
+    public static final String POOL_READY = "pool-ready";
+    public static final String REFERENCE_DATA_READY = "reference-data-ready";
+    public static final String FXML_PRELOADED = "fxml-preloaded";
+    public static final String LOGIN_SUBMITTED = "login-submitted";
+    public static final String DASHBOARD_SHOWN = "dashboard-shown";
+    // Prve kartice radova na ekranu (iz lokalnog snapshot-a ili prve stranice sa servera)
+    public static final String THESIS_LIST_SHOWN = "thesis-list-shown";
+
+    private static final String[] PRELOAD_FXML = {
+            "/app/dashboard.fxml",
+            "/app/secretary-dashboard.fxml",
+            "/app/thesis.fxml"
+    };
+
+    private static final ExecutorService STARTUP = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "startup-pipeline");
+        thread.setDaemon(true); // Daemon thread ne sprječava gasenje aplikacije
+        return thread;
+    });
+
+    private static final Instant PROCESS_START = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+    private static final Map<String, Long> PHASES = new LinkedHashMap<>();
+
+    private static boolean started;
+
+    private StartupPipeline() {}
+
+    /**
+     * Poziva se jednom, odmah nakon prikaza login ekrana
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        CompletableFuture<Void> pool = CompletableFuture.runAsync(() -> {
+            try {
+                CloudDatabaseConnection.warmUp();
+                mark(POOL_READY);
+            } catch (Exception e) {
+                // Prijava će ponovo pokušati i prikazati grešku korisniku
+                System.err.println("[Startup] Pool warm-up failed: " + e.getMessage());
+            }
+        }, STARTUP);
+
+        pool.thenRunAsync(() -> {
+            try {
+                ReferenceDataCache.refreshIfChanged();
+                mark(REFERENCE_DATA_READY);
+            } catch (RuntimeException e) {
+                System.err.println("[Startup] " + e.getMessage());
+            }
+        }, STARTUP);
+
+        CompletableFuture.runAsync(() -> {
+            SceneManager.preload(PRELOAD_FXML);
+            mark(FXML_PRELOADED);
+        }, STARTUP);
+    }
+
+    /**
+     * Bilježi fazu (samo prvi put), u ms od starta procesa
+     */
+    public static synchronized void mark(String phase) {
+        if (PHASES.containsKey(phase)) return;
+
+        long millis = Duration.between(PROCESS_START, Instant.now()).toMillis();
+        PHASES.put(phase, millis);
+        System.out.println("[Startup] " + phase + ": " + millis + " ms");
+    }
+
+    public static synchronized Map<String, Long> phases() {
+        return new LinkedHashMap<>(PHASES);
+    }
+
+    public static synchronized String report() {
+        StringBuilder sb = new StringBuilder("POKRETANJE (ms od starta procesa)\n");
+        PHASES.forEach((phase, millis) -> sb.append(String.format("  %-24s %6d ms%n", phase, millis)));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,217 @@
+package utils;
+
+import dao.ChangeSet;
+import dao.StatisticsDAO;
+import dao.StatisticsDAO.ThesisFact;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory kocka statistike radova: broj radova po
+ * akademska godina × mentor × sekretar × status × ciklus × kašnjenje.
+ *
+ * Gradi se jednim prolazom kroz kompaktnu projekciju tabele Thesis (StatisticsDAO),
+ * a poslije se osvježava samo izmijenjenim radovima (UpdatedAt change feed, vidi ChangeSet).
+ * Svi widgeti na ekranu statistike čitaju iz kocke, bez upita u bazu.
+ * refresh() je blokirajući (poziva se iz pozadinskog thread-a), upiti su brzi i mogu se zvati sa FX thread-a.
+ */
+public final class StatisticsCube {
+
+    public static final String ALL_YEARS = "Sve godine";
+
+    private static final String DEFENDED_STATUS = "Odbranjen";
+    private static final int LATE_AFTER_DAYS = 90;
+    private static final int UNKNOWN_YEAR = -1;
+
+    private record Cell(int academicYear, int mentorId, int secretaryStaffId, String status, int cycle, boolean late) {}
+
+    private static final StatisticsDAO statisticsDAO = new StatisticsDAO();
+
+    private static final Map<Integer, ThesisFact> FACTS = new HashMap<>();
+    private static final Map<Cell, Integer> CELLS = new HashMap<>();
+    private static final Map<Integer, String> MENTOR_NAMES = new HashMap<>();
+    private static final Map<Integer, String> SECRETARY_NAMES = new HashMap<>();
+
+    private static LocalDate builtFor; // kašnjenje zavisi od današnjeg datuma
+    // Vrijeme baze pročitano prije zadnjeg upita (ChangeSet.syncedAt), a ne najveći UpdatedAt
+    private static LocalDateTime syncedAt;
+
+    private StatisticsCube() {}
+
+    public static synchronized boolean isLoaded() {
+        return builtFor != null;
+    }
+
+    /**
+     * Prvi put (ili kad se promijeni dan) gradi kocku iz početka, inače primjenjuje samo izmjene
+     */
+    public static void refresh() {
+        boolean fullBuild;
+        LocalDateTime since;
+        synchronized (StatisticsCube.class) {
+            fullBuild = builtFor == null || !builtFor.equals(LocalDate.now()) || syncedAt == null;
+            since = syncedAt;
+        }
+
+        if (fullBuild) {
+            rebuild();
+            return;
+        }
+
+        // Upit ide van lock-a da FX thread ne čeka na bazu
+        ChangeSet<ThesisFact> changes = statisticsDAO.getFactsChangedSince(since);
+        synchronized (StatisticsCube.class) {
+            if (!since.equals(syncedAt)) {
+                return; // u međuvremenu je kocka izgrađena iz početka
+            }
+            for (Integer thesisId : changes.removedIds()) {
+                remove(thesisId);
+            }
+            for (ThesisFact fact : changes.changed()) {
+                apply(fact);
+            }
+            syncedAt = changes.syncedAt();
+        }
+        if (!changes.isEmpty()) {
+            System.out.println("[StatisticsCube] Applied " + (changes.changed().size() + changes.removedIds().size())
+                    + " changed theses.");
+        }
+    }
+
+    public static void rebuild() {
+        long start = System.currentTimeMillis();
+        ChangeSet<ThesisFact> all = statisticsDAO.getAllFacts();
+        List<ThesisFact> facts = all.changed();
+
+        synchronized (StatisticsCube.class) {
+            FACTS.clear();
+            CELLS.clear();
+            MENTOR_NAMES.clear();
+            SECRETARY_NAMES.clear();
+            builtFor = LocalDate.now();
+
+            for (ThesisFact fact : facts) {
+                apply(fact);
+            }
+            syncedAt = all.syncedAt();
+        }
+
+        System.out.println("[StatisticsCube] Built from " + facts.size() + " theses in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // ==================== QUERIES ====================
+
+    public static synchronized int getTotalCount() {
+        return count(cell -> true);
+    }
+
+    public static synchronized int getActiveCount() {
+        return count(cell -> !DEFENDED_STATUS.equals(cell.status()));
+    }
+
+    public static synchronized int getLateCount() {
+        return count(Cell::late);
+    }
+
+    /**
+     * @param academicYear "2024/2025" (od 01.10.2024. do 30.09.2025.) ili ALL_YEARS / null za sve
+     */
+    public static synchronized Map<String, Integer> getTopMentors(String academicYear) {
+        int year = parseAcademicYear(academicYear);
+        Predicate<Cell> filter = year == UNKNOWN_YEAR ? cell -> true : cell -> cell.academicYear() == year;
+        return groupByName(filter, Cell::mentorId, MENTOR_NAMES);
+    }
+
+    public static synchronized Map<String, Integer> getSecretaryCounts() {
+        return groupByName(cell -> true, Cell::secretaryStaffId, SECRETARY_NAMES);
+    }
+
+    /**
+     * Broj radova za proizvoljan presjek kocke; null (ili academicYear < 0) znači "sve"
+     */
+    public static synchronized int count(int academicYear, String status, Integer cycle) {
+        return count(cell -> (academicYear < 0 || cell.academicYear() == academicYear)
+                && (status == null || status.equals(cell.status()))
+                && (cycle == null || cell.cycle() == cycle));
+    }
+
+    /**
+     * Akademska godina počinje 1. oktobra: 15.11.2024. -> 2024, 15.03.2025. -> 2024
+     */
+    public static int academicYearOf(LocalDate date) {
+        if (date == null) return UNKNOWN_YEAR;
+        return date.getMonthValue() >= 10 ? date.getYear() : date.getYear() - 1;
+    }
+
+    // ==================== INTERNALS ====================
+
+    private static int count(Predicate<Cell> filter) {
+        int total = 0;
+        for (Map.Entry<Cell, Integer> entry : CELLS.entrySet()) {
+            if (filter.test(entry.getKey())) total += entry.getValue();
+        }
+        return total;
+    }
+
+    private static Map<String, Integer> groupByName(Predicate<Cell> filter, ToIntFunction<Cell> key, Map<Integer, String> names) {
+        Map<Integer, Integer> byId = new HashMap<>();
+        for (Map.Entry<Cell, Integer> entry : CELLS.entrySet()) {
+            if (filter.test(entry.getKey())) {
+                byId.merge(key.applyAsInt(entry.getKey()), entry.getValue(), Integer::sum);
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> sorted = new ArrayList<>(byId.entrySet());
+        sorted.sort(Map.Entry.<Integer, Integer>comparingByValue().reversed());
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : sorted) {
+            result.merge(names.getOrDefault(entry.getKey(), "—"), entry.getValue(), Integer::sum);
+        }
+        return result;
+    }
+
+    private static void apply(ThesisFact fact) {
+        remove(fact.thesisId);
+
+        FACTS.put(fact.thesisId, fact);
+        CELLS.merge(cellOf(fact), 1, Integer::sum);
+        if (fact.mentorName != null) MENTOR_NAMES.put(fact.mentorId, fact.mentorName);
+        if (fact.secretaryName != null) SECRETARY_NAMES.put(fact.secretaryStaffId, fact.secretaryName);
+    }
+
+    private static void remove(int thesisId) {
+        ThesisFact previous = FACTS.remove(thesisId);
+        if (previous != null) {
+            CELLS.computeIfPresent(cellOf(previous), (cell, n) -> n > 1 ? n - 1 : null);
+        }
+    }
+
+    private static Cell cellOf(ThesisFact fact) {
+        boolean late = !DEFENDED_STATUS.equals(fact.status)
+                && fact.applicationDate != null
+                && ChronoUnit.DAYS.between(fact.applicationDate, builtFor) > LATE_AFTER_DAYS;
+
+        return new Cell(academicYearOf(fact.applicationDate), fact.mentorId, fact.secretaryStaffId,
+                fact.status, fact.cycle, late);
+    }
+
+    private static int parseAcademicYear(String academicYear) {
+        if (academicYear == null || academicYear.equals(ALL_YEARS)) return UNKNOWN_YEAR;
+        try {
+            return Integer.parseInt(academicYear.split("/")[0].trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN_YEAR;
+        }
+    }
+}
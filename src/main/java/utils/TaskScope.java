@@ -0,0 +1,48 @@
+package utils;
+
+import javafx.scene.Node;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pozadinski zadaci jednog ekrana (AsyncHelper sa scope-om).
+ *
+ * Vezuje se za bilo koji čvor ekrana: kad ekran ode sa scene (druga stranica u dashboard-u
+ * ili SceneManager prebaci root), svi njegovi zadaci u toku se otkazuju, pa rezultat
+ * zakašnjelog upita ne stiže na ekran koji više nije prikazan.
+ */
+public final class TaskScope {
+
+    private final Set<AsyncHelper.ScopedTask<?>> tasks = ConcurrentHashMap.newKeySet();
+
+    private TaskScope() {}
+
+    /**
+     * @param node čvor ekrana (npr. tabela ili kontejner iz FXML-a); može biti i prije nego što je na sceni
+     */
+    public static TaskScope boundTo(Node node) {
+        TaskScope scope = new TaskScope();
+        node.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                scope.cancelAll();
+            }
+        });
+        return scope;
+    }
+
+    public void cancelAll() {
+        for (AsyncHelper.ScopedTask<?> task : tasks) {
+            task.cancelFromScope();
+        }
+        tasks.clear();
+    }
+
+    void add(AsyncHelper.ScopedTask<?> task) {
+        tasks.add(task);
+    }
+
+    void remove(AsyncHelper.ScopedTask<?> task) {
+        tasks.remove(task);
+    }
+}
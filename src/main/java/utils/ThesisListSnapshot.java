@@ -0,0 +1,254 @@
+package utils;
+
+import dto.ThesisDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Lokalni snapshot liste radova (prve stranice bez filtera) i statusa radova, za prikaz odmah po
+ * prijavi, prije nego što cloud baza odgovori. Lista se zatim usklađuje change feed-om od syncedAt
+ * (stale-while-revalidate, vidi ThesisController).
+ *
+ * Binarni format, verzionisan, čita se kroz memory-mapped fajl (big-endian):
+ *   zaglavlje: int MAGIC, int VERSION, long sequence, int userId, long savedAt (ms),
+ *              long syncedAt (epoch s), int syncedAt (ns), byte complete, int dužina tijela, int CRC32 tijela
+ *   tijelo:    int broj statusa, str...; int broj radova, rad...
+ *   rad:       int id, int cycle, int studentIndexNumber, long applicationDate (epoch dan, NO_DATE = null),
+ *              str title, str studentFullName, str mentorFullName, str status
+ *   str:       int dužina u bajtovima (-1 = null), UTF-8
+ *
+ * Po korisniku postoje dva slota (A/B). Mapiran fajl ostaje mapiran dok ga GC ne počisti, a na
+ * Windows-u se ne može zamijeniti - zato se u sesiji mapira najviše jedan slot (onaj sa većim
+ * sequence iz zaglavlja), a upisuje se uvijek u drugi. Ako mapirani slot nije ispravan, drugi se
+ * čita običnim read-om. Neispravan ili star snapshot se ignoriše (lista ide sa servera).
+ */
+public final class ThesisListSnapshot {
+
+    public static final int MAX_ROWS = 200;
+
+    private static final int MAGIC = 0x4544544C; // "EDTL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8 + 8 + 4 + 1 + 4 + 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final Duration MAX_AGE = Duration.ofDays(14);
+    private static final String DIR_PROPERTY = "ediploma.cache.dir";
+
+    /**
+     * @param theses radovi po Id DESC, kao u listi
+     * @param syncedAt vrijeme baze do kojeg je lista usklađena (ChangeSet.syncedAt)
+     * @param complete true ako snapshot sadrži sve radove za filter (nema sljedeće stranice)
+     */
+    public record Snapshot(List<ThesisDTO> theses, List<String> statuses, LocalDateTime syncedAt, boolean complete) {}
+
+    // Slot mapiran u ovoj sesiji, po korisniku - u njega se ne upisuje
+    private static final Map<Integer, Integer> MAPPED_SLOTS = new HashMap<>();
+
+    private ThesisListSnapshot() {}
+
+    /**
+     * @return zadnji ispravan snapshot korisnika, ili null
+     */
+    public static synchronized Snapshot load(int userId) {
+        long[] sequences = {headerSequence(userId, 0), headerSequence(userId, 1)};
+        int newer = sequences[1] > sequences[0] ? 1 : 0;
+
+        for (int slot : new int[] {newer, 1 - newer}) {
+            if (sequences[slot] < 0) continue;
+            Path file = slotFile(userId, slot);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Integer mapped = MAPPED_SLOTS.get(userId);
+                ByteBuffer buffer;
+                if (mapped == null || mapped == slot) {
+                    MAPPED_SLOTS.put(userId, slot);
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } else {
+                    // Drugi slot je već mapiran; ovaj se ne mapira, da bi ostao slobodan za upis
+                    buffer = ByteBuffer.allocate((int) channel.size());
+                    channel.read(buffer, 0);
+                    buffer.flip();
+                }
+
+                if (readSequence(buffer, userId) < 0) continue;
+                Snapshot snapshot = read(buffer);
+                if (snapshot != null) return snapshot;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[ThesisListSnapshot] Ignoring " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Upisuje snapshot (blokirajuće, poziva se iz pozadinskog thread-a)
+     */
+    public static synchronized void save(int userId, Snapshot snapshot) throws IOException {
+        byte[] body = encodeBody(snapshot);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + body.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(nextSequence(userId));
+        out.writeInt(userId);
+        out.writeLong(System.currentTimeMillis());
+        out.writeLong(snapshot.syncedAt().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(snapshot.syncedAt().getNano());
+        out.writeByte(snapshot.complete() ? 1 : 0);
+        out.writeInt(body.length);
+        out.writeInt((int) crc.getValue());
+        out.write(body);
+        out.flush();
+
+        // Nikad u slot koji je mapiran u ovoj sesiji; bez mapiranja u A
+        int slot = MAPPED_SLOTS.getOrDefault(userId, 1) == 0 ? 1 : 0;
+        Path file = slotFile(userId, slot);
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    private static Path slotFile(int userId, int slot) {
+        String configured = System.getProperty(DIR_PROPERTY);
+        Path dir = configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".ediploma", "cache");
+        return dir.resolve("thesis-list-" + userId + (slot == 0 ? "-a" : "-b") + ".bin");
+    }
+
+    private static long nextSequence(int userId) {
+        return Math.max(0, Math.max(headerSequence(userId, 0), headerSequence(userId, 1))) + 1;
+    }
+
+    // Sequence slota čitan običnim read-om (bez mapiranja), -1 ako fajl ne postoji ili nije ispravan
+    private static long headerSequence(int userId, int slot) {
+        Path file = slotFile(userId, slot);
+        if (!Files.isRegularFile(file)) return -1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0); // kraći fajl (nedovršen upis) readSequence odbacuje
+            header.flip();
+            return readSequence(header, userId);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Sequence iz zaglavlja, ili -1 ako fajl nije ovog formata, verzije ili korisnika
+    private static long readSequence(ByteBuffer buffer, int userId) {
+        if (buffer.limit() < HEADER_BYTES) return -1;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) return -1;
+        if (buffer.getInt(16) != userId) return -1;
+        return buffer.getLong(8);
+    }
+
+    private static Snapshot read(ByteBuffer buffer) {
+        buffer.position(20);
+        long savedAt = buffer.getLong();
+        if (System.currentTimeMillis() - savedAt > MAX_AGE.toMillis()) return null;
+
+        LocalDateTime syncedAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        boolean complete = buffer.get() == 1;
+        int bodyLength = buffer.getInt();
+        int expectedCrc = buffer.getInt();
+        if (bodyLength < 0 || buffer.remaining() != bodyLength) return null; // nedovršen upis
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice());
+        if ((int) crc.getValue() != expectedCrc) return null;
+
+        int statusCount = buffer.getInt();
+        List<String> statuses = new ArrayList<>(statusCount);
+        for (int i = 0; i < statusCount; i++) {
+            statuses.add(readString(buffer));
+        }
+
+        int thesisCount = buffer.getInt();
+        List<ThesisDTO> theses = new ArrayList<>(thesisCount);
+        for (int i = 0; i < thesisCount; i++) {
+            ThesisDTO thesis = new ThesisDTO();
+            thesis.setId(buffer.getInt());
+            thesis.setCycle(buffer.getInt());
+            thesis.setStudentIndexNumber(buffer.getInt());
+            long applicationDate = buffer.getLong();
+            thesis.setApplicationDate(applicationDate == NO_DATE ? null : LocalDate.ofEpochDay(applicationDate));
+            thesis.setTitle(readString(buffer));
+            thesis.setStudentFullName(readString(buffer));
+            thesis.setMentorFullName(readString(buffer));
+            thesis.setStatus(readString(buffer));
+            theses.add(thesis);
+        }
+
+        return new Snapshot(List.copyOf(theses), List.copyOf(statuses), syncedAt, complete);
+    }
+
+    private static byte[] encodeBody(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * (snapshot.theses().size() + 1));
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(snapshot.statuses().size());
+        for (String status : snapshot.statuses()) {
+            writeString(out, status);
+        }
+
+        out.writeInt(snapshot.theses().size());
+        for (ThesisDTO thesis : snapshot.theses()) {
+            out.writeInt(thesis.getId());
+            out.writeInt(thesis.getCycle());
+            out.writeInt(thesis.getStudentIndexNumber());
+            out.writeLong(thesis.getApplicationDate() != null ? thesis.getApplicationDate().toEpochDay() : NO_DATE);
+            writeString(out, thesis.getTitle());
+            writeString(out, thesis.getStudentFullName());
+            writeString(out, thesis.getMentorFullName());
+            writeString(out, thesis.getStatus());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,197 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Indeks trigrama za pretragu po podstringu u memoriji (naslovi radova, imena, brojevi indeksa).
+ *
+ * Tekst se "preklapa" (fold): mala slova, č/ć -> c, š -> s, ž -> z, đ -> dj, pa "Hodzic"
+ * nalazi "Hodžić". Za upit od 3+ znaka kandidati su presjek lista za njegove trigrame
+ * (najkraća lista prva), a tek oni se provjeravaju sa contains - ne skenira se svaki red.
+ * Kraći upiti pogađaju veliki dio liste, pa se za njih ipak skenira.
+ *
+ * Stavke se dodaju inkrementalno (npr. stranica po stranica); put sa postojećim id-em zamjenjuje
+ * stavku. Nije thread-safe: pisati sa jednog thread-a, ili objaviti gotov indeks pa samo čitati.
+ */
+public final class TrigramIndex<T> {
+
+    private static final int MIN_INDEXED_QUERY = 3;
+
+    // Slot = redni broj dodavanja; liste slotova po trigramu su zato uvijek sortirane
+    private final List<T> items = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private int dead;
+
+    /**
+     * Dodaje ili zamjenjuje stavku
+     * @param text tekst po kojem se stavka traži (više polja spojiti razmakom ili novim redom)
+     */
+    public void put(int id, T item, String text) {
+        Integer previous = slotById.get(id);
+        if (previous != null) {
+            items.set(previous, null);
+            texts.set(previous, null);
+            dead++;
+        }
+
+        putFolded(id, item, fold(text));
+
+        // Zamijenjene stavke ostaju u listama trigrama dok ih ima manje od pola
+        if (dead > 1_000 && dead > items.size() / 2) compact();
+    }
+
+    public void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return;
+        items.set(slot, null);
+        texts.set(slot, null);
+        dead++;
+    }
+
+    public void clear() {
+        items.clear();
+        texts.clear();
+        slotById.clear();
+        postings.clear();
+        dead = 0;
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Stavke čiji tekst sadrži upit (nakon preklapanja), redom dodavanja
+     */
+    public List<T> search(String query) {
+        String term = fold(query);
+        List<T> result = new ArrayList<>();
+
+        if (term.length() < MIN_INDEXED_QUERY) {
+            for (int slot = 0; slot < items.size(); slot++) {
+                String text = texts.get(slot);
+                if (text != null && text.contains(term)) result.add(items.get(slot));
+            }
+            return result;
+        }
+
+        List<IntList> lists = new ArrayList<>();
+        for (long trigram : new LinkedHashSet<>(trigrams(term))) {
+            IntList list = postings.get(trigram);
+            if (list == null) return result; // trigram se ne pojavljuje nigdje
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+
+        // Trigrami mogu biti na različitim mjestima u tekstu, pa se kandidat još provjerava
+        for (int i = 0; i < count; i++) {
+            String text = texts.get(candidates[i]);
+            if (text != null && text.contains(term)) result.add(items.get(candidates[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Mala slova bez dijakritika (bosanski/hrvatski/srpski latinica)
+     */
+    public static String fold(String text) {
+        if (text == null) return "";
+        String lower = text.toLowerCase(Locale.ROOT).trim();
+        StringBuilder sb = null;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            String replacement = switch (c) {
+                case 'č', 'ć' -> "c";
+                case 'š' -> "s";
+                case 'ž' -> "z";
+                case 'đ' -> "dj";
+                default -> null;
+            };
+            if (replacement == null) {
+                if (sb != null) sb.append(c);
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder(lower.length() + 4).append(lower, 0, i);
+            sb.append(replacement);
+        }
+        return sb == null ? lower : sb.toString();
+    }
+
+    // ==================== INTERNALS ====================
+
+    private static List<Long> trigrams(String text) {
+        List<Long> result = new ArrayList<>(Math.max(0, text.length() - 2));
+        for (int i = 0; i + MIN_INDEXED_QUERY <= text.length(); i++) {
+            result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return result;
+    }
+
+    // Presjek sortiranog niza kandidata sa sortiranom listom; rezultat ostaje u candidates
+    private static int intersect(int[] candidates, int count, IntList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int slot = candidates[i];
+            while (j < list.size && list.values[j] < slot) j++;
+            if (j < list.size && list.values[j] == slot) candidates[kept++] = slot;
+        }
+        return kept;
+    }
+
+    private void compact() {
+        List<T> oldItems = new ArrayList<>(items);
+        Map<Integer, Integer> oldSlots = new HashMap<>(slotById);
+        List<String> oldTexts = new ArrayList<>(texts);
+        clear();
+
+        // Ponovno dodavanje po starom redoslijedu slotova čuva redoslijed rezultata
+        List<Map.Entry<Integer, Integer>> alive = new ArrayList<>(oldSlots.entrySet());
+        alive.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Integer> entry : alive) {
+            int slot = entry.getValue();
+            putFolded(entry.getKey(), oldItems.get(slot), oldTexts.get(slot));
+        }
+    }
+
+    // Tekst je već preklopljen
+    private void putFolded(int id, T item, String folded) {
+        int slot = items.size();
+        items.add(item);
+        texts.add(folded);
+        slotById.put(id, slot);
+        for (long trigram : trigrams(folded)) {
+            IntList list = postings.computeIfAbsent(trigram, t -> new IntList());
+            if (list.size == 0 || list.last() != slot) list.add(slot);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        private int last() {
+            return values[size - 1];
+        }
+    }
+}
@@ -15,5 +15,6 @@ public class UserSession {
 
     public static void clear() {
         loggedUser = null;
+        SceneManager.clearViewCache();
     }
 }